@@ -12,6 +12,7 @@ public class Game extends JFrame implements WindowListener {
     public static String VERSION = "1.0.1";
     public static boolean RELEASE = false;
     public static String loadingText = "Loading";
+    public static int loadingProgress = -1;
     private GamePanel gp;
     private boolean isFullScreen = false;
 
@@ -2,6 +2,7 @@ package com.weem.epicinventor;
 
 import com.weem.epicinventor.actor.*;
 import com.weem.epicinventor.actor.monster.*;
+import com.weem.epicinventor.ai.*;
 import com.weem.epicinventor.armor.*;
 import com.weem.epicinventor.drop.*;
 import com.weem.epicinventor.hud.*;
@@ -61,9 +62,14 @@ public class GameController {
     private ResourceManager resourceManager;
     private IndicatorManager indicatorManager;
     private PixelizeManager pixelizeManager;
+    private PathFinder pathFinder;
     private HUDManager hudManager;
     private int mapOffsetX; //x position of the map
     private int mapOffsetY; //y position of the map
+    private int prevMapOffsetX; //map position as of the last update, for drawing in between
+    private int prevMapOffsetY;
+    private int drawOffsetX; //map position as drawn this frame
+    private int drawOffsetY;
     private Point currentMousePosition;
     private GamePanel gamePanel;
     private BufferedImage cursorImage;
@@ -159,6 +165,11 @@ public class GameController {
             }
         } catch (Exception c) {
         }
+        //the sprites drawn every frame in game stay loaded, HUD screens come and go
+        String[] inGameImages = {"Armor/", "Attachments/", "Background/", "Blocks/", "Effects/", "Items/", "Misc/", "Monsters/", "Oobaboo/", "Particles/", "Placeables/", "Player/", "Projectiles/", "Resources/", "Robot/", "Weapons/"};
+        for (int i = 0; i < inGameImages.length; i++) {
+            registry.getImageLoader().pin(inGameImages[i]);
+        }
         imageLoadThread = new ImageLoaderThread(registry.getImageLoader(), "Images.dat");
         itemManager = new ItemManager(this, registry);
         registry.setItemManager(itemManager);
@@ -254,6 +265,30 @@ public class GameController {
     }
 
     public void resetGame(boolean showHelp) {
+        resetGame(showHelp, getNewWorldSeed());
+    }
+
+    /**
+     * The seed a new world is generated from, set with -Depicinventor.seed
+     * to get the same world again, or else a random one.
+     */
+    private static long getNewWorldSeed() {
+        String seed = System.getProperty("epicinventor.seed");
+        if (seed != null) {
+            try {
+                return Long.parseLong(seed.trim());
+            } catch (NumberFormatException e) {
+                EIError.debugMsg("Bad world seed " + seed, EIError.ErrorLevel.Warning);
+            }
+        }
+        return new Random().nextLong();
+    }
+
+    /**
+     * Starts the game, generating the world from seed unless one has been
+     * loaded already.
+     */
+    public void resetGame(boolean showHelp, long seed) {
         Point resolution = Settings.getResolution(Settings.resolution);
         if (resolution != null) {
             resizePanel(resolution.x, resolution.y);
@@ -269,10 +304,11 @@ public class GameController {
         Game.loadingText = "Creating World";
 
         if (blockManager == null) {
-            blockManager = new BlockManager(this, registry);
+            blockManager = new BlockManager(this, registry, seed);
         }
         blockManager.updateResolution();
         registry.setBlockManager(blockManager);
+        EIError.debugMsg("World seed " + blockManager.getSeed(), EIError.ErrorLevel.Notice);
 
         Game.loadingText = "Initializing Inventor";
 //        playerManager.setUpdating(true);
@@ -316,6 +352,11 @@ public class GameController {
         pixelizeManager = new PixelizeManager(this, registry);
         registry.setPixelizeManager(pixelizeManager);
 
+        if (pathFinder == null) {
+            pathFinder = new PathFinder(registry);
+        }
+        registry.setPathFinder(pathFinder);
+
         registry.setInventory(playerManager.getPlayerInventory());
 
         if (newPM) {
@@ -560,8 +601,8 @@ public class GameController {
         return monsterManager.checkMobProjectileHit(p);
     }
 
-    public boolean checkMobParticleHit(Particle p) {
-        return monsterManager.checkMobParticleHit(p);
+    public boolean checkMobParticleHit(Rectangle r, int damage, Actor source, boolean placeable) {
+        return monsterManager.checkMobParticleHit(r, damage, source, placeable);
     }
 
     public boolean checkPlayerProjectileHit(Projectile p) {
@@ -578,14 +619,8 @@ public class GameController {
 
     public int checkForBlock(Point p) {
         if (blockManager != null) {
-            short b = blockManager.getBlockFromPoint(p);
-            if (!blockManager.isIdInGroup(b, "None")) {
-                BlockType bt = blockManager.getBlockTypeById(b);
-                if (bt != null && !bt.isBackground()) {
-                    return (p.y / blockManager.getBlockHeight()) * blockManager.getBlockHeight() + blockManager.getBlockHeight();
-                } else {
-                    return 0;
-                }
+            if (blockManager.isSolid(blockManager.getBlockFromPoint(p))) {
+                return (p.y / blockManager.getBlockHeight()) * blockManager.getBlockHeight() + blockManager.getBlockHeight();
             } else {
                 return 0;
             }
@@ -630,6 +665,10 @@ public class GameController {
         return blockManager.blocksUnder(xStartPix, xEndPix, yPix);
     }
 
+    public int blocksUnder(int xStartPix, int xEndPix, int yPix, short[] under) {
+        return blockManager.blocksUnder(xStartPix, xEndPix, yPix, under);
+    }
+
     public boolean isIdInGroup(int id, String g) {
         return blockManager.isIdInGroup(id, g);
     }
@@ -638,12 +677,20 @@ public class GameController {
         return blockManager.getTownStartEnd(x, y);
     }
 
+    public int getDrawOffsetX() {
+        return drawOffsetX;
+    }
+
+    public int getDrawOffsetY() {
+        return drawOffsetY;
+    }
+
     public int mapToPanelX(int x) {
-        return x - mapOffsetX;
+        return x - drawOffsetX;
     }
 
     public int mapToPanelY(int y) {
-        return y - mapOffsetY;
+        return y - drawOffsetY;
     }
 
     public int panelToMapX(int x) {
@@ -1349,13 +1396,16 @@ public class GameController {
         return panelRect;
     }
 
-    public void update() {
+    public void update(long time) {
         if (gameError == null) {
-            registry.currentTime = System.currentTimeMillis();
+            registry.currentTime = time;
+            registry.tick++;
             registry.setStatusText("");
 
             int oldX = mapOffsetX;
             int oldY = mapOffsetY;
+            prevMapOffsetX = mapOffsetX;
+            prevMapOffsetY = mapOffsetY;
 
             if (!gamePanel.getIsPaused() && !gamePanel.getIsMasterPaused()) {
                 panelRect = new Rectangle(mapOffsetX, mapOffsetY, pWidth, pHeight);
@@ -1454,7 +1504,36 @@ public class GameController {
         }
     }
 
+    /**
+     * Draws with the map scrolled alpha of the way from where it was before
+     * the last update to where it is now. Jumps bigger than a screen (like
+     * respawning) aren't smoothed. Only what mapToPanelX and mapToPanelY
+     * draw against moves, the map offset the game plays with doesn't.
+     */
+    public void render(Graphics g, float alpha) {
+        int x = mapOffsetX;
+        int y = mapOffsetY;
+        int fromX = prevMapOffsetX;
+        int fromY = prevMapOffsetY;
+        if (Math.abs(x - fromX) < pWidth && Math.abs(y - fromY) < pHeight) {
+            x = fromX + Math.round((x - fromX) * alpha);
+            y = fromY + Math.round((y - fromY) * alpha);
+        }
+        drawOffsetX = x;
+        drawOffsetY = y;
+        registry.renderAlpha = alpha;
+        try {
+            renderGame(g);
+        } finally {
+            registry.renderAlpha = 1f;
+        }
+    }
+
     public void render(Graphics g) {
+        render(g, 1f);
+    }
+
+    private void renderGame(Graphics g) {
         if (gameError != null) {
             g.fillRect(0, 0, pWidth, pHeight);
             g.setFont(new Font("SansSerif", Font.BOLD, 18));
@@ -8,20 +8,30 @@ import javax.swing.event.MouseInputAdapter;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
 import java.awt.image.*;
+import java.util.concurrent.locks.*;
 
 public class GamePanel extends JPanel implements Runnable {
 
     private int pWidth;
     private int pHeight;
-    private static final int NO_DELAYS_PER_YIELD = 16;
     private static final int MAX_FRAME_SKIPS = 5;
+    private static final int DEFAULT_REFRESH_RATE = 60;
     private Thread animator;
+    private Thread renderer;
+    //updates and drawing take turns with the game state, fairly so neither starves
+    private final ReentrantLock stateLock = new ReentrantLock(true);
+    private volatile long lastTickTime;
+    private long renderPeriod;
     private volatile boolean isRunning = false;
     private volatile boolean isPaused = false;
     private volatile boolean isMasterPaused = false;
     private long period;
     private Graphics dbg;
     private Image dbImage = null;
+    //active rendering draws into video memory and flips pages on the frame
+    private volatile boolean activeRendering = false;
+    private VolatileImage sceneImage;
+    private BufferStrategy bufferStrategy;
     private Container container;
     private Game game;
     private GameController gameController;
@@ -281,9 +291,33 @@ public class GamePanel extends JPanel implements Runnable {
 
     private void startGame() {
         if (animator == null || !isRunning) {
-            animator = new Thread(this);
+            setActiveRendering(Settings.activeRendering);
+
+            isRunning = true;
+            animator = new Thread(this, "Simulation");
             animator.start();
+
+            renderPeriod = 1000000000L / getRefreshRate();
+            renderer = new Thread(new Runnable() {
+
+                public void run() {
+                    renderLoop();
+                }
+            }, "Renderer");
+            renderer.setDaemon(true);
+            renderer.start();
+        }
+    }
+
+    private int getRefreshRate() {
+        try {
+            int rate = getGraphicsConfiguration().getDevice().getDisplayMode().getRefreshRate();
+            if (rate > 0) {
+                return rate;
+            }
+        } catch (Exception e) {
         }
+        return DEFAULT_REFRESH_RATE;
     }
 
     public void setFullScreen(boolean f) {
@@ -378,70 +412,87 @@ public class GamePanel extends JPanel implements Runnable {
         gameController.quit();
     }
 
+    /**
+     * The simulation runs on its own thread at exactly one update per
+     * period. A late update is made up by running the next ones back to
+     * back; if it falls more than MAX_FRAME_SKIPS behind, the missed time is
+     * dropped instead. The game clock is the time each update was due, not
+     * when it happened to run.
+     */
     @Override
-    @SuppressWarnings({"SleepWhileInLoop", "CallToThreadYield"})
+    @SuppressWarnings("SleepWhileInLoop")
     public void run() {
-        long b, a, beforeTime, afterTime, timeDiff, sleepTime;
-        long overSleepTime = 0L;
-        int noDelays = 0;
-        long excess = 0L;
+        long startTime = System.nanoTime();
+        long startMillis = System.currentTimeMillis();
+        long nextTick = startTime;
 
-        beforeTime = System.nanoTime();
+        while (isRunning) {
+            long now = System.nanoTime();
+            if (now - nextTick > period * MAX_FRAME_SKIPS) {
+                //too far behind to catch up
+                nextTick = now;
+            }
 
-        isRunning = true;
+            if (now >= nextTick) {
+                stateLock.lock();
+                try {
+                    gameUpdate(startMillis + (nextTick - startTime) / 1000000L);
+                } finally {
+                    stateLock.unlock();
+                }
+                lastTickTime = nextTick;
+                nextTick += period;
+            } else {
+                sleepNanos(nextTick - now);
+            }
+        }
+        System.exit(0);
+    }
 
+    /**
+     * Draws as often as the display refreshes, placing things part way
+     * between the last two updates by how far into the current period it
+     * is, then shows the frame without holding up the simulation.
+     */
+    @SuppressWarnings("SleepWhileInLoop")
+    private void renderLoop() {
         while (isRunning) {
-            //b = System.nanoTime();
-            gameUpdate();
-            //a = System.nanoTime();
-            //System.out.println("Update: " + ((a - b) / 1000000));
-            //b = System.nanoTime();
-            //if (((a - b) / 1000000) > 100) {
-            //    System.exit(0);
-            //}
-            gameRender();
-            paintScreen();
-            // a = System.nanoTime();
-            //System.out.println("Draw: " + ((a - b) / 1000000));
-            //System.out.println("----------");
-
-            afterTime = System.nanoTime();
-            timeDiff = afterTime - beforeTime;
-            sleepTime = (period - timeDiff) - overSleepTime;
-
-            if (sleepTime > 0) {
+            long frameStart = System.nanoTime();
+            float alpha = (float) (frameStart - lastTickTime) / (float) period;
+            alpha = Math.max(0f, Math.min(1f, alpha));
+
+            if (activeRendering) {
+                activeRender(alpha);
+            } else {
+                stateLock.lock();
                 try {
-                    Thread.sleep(sleepTime / 1000000L);  // nano -> ms
-                } catch (InterruptedException ex) {
-                }
-                overSleepTime = (System.nanoTime() - afterTime) - sleepTime;
-            } else {    // sleepTime <= 0; the frame took longer than the period
-                excess -= sleepTime;
-                overSleepTime = 0L;
-
-                if (++noDelays >= NO_DELAYS_PER_YIELD) {
-                    Thread.yield();   // give another thread a chance to run
-                    noDelays = 0;
+                    gameRender(alpha);
+                } finally {
+                    stateLock.unlock();
                 }
+                paintScreen();
             }
 
-            beforeTime = System.nanoTime();
+            sleepNanos(renderPeriod - (System.nanoTime() - frameStart));
+        }
+    }
 
-            int skips = 0;
-            while ((excess > period) && (skips < MAX_FRAME_SKIPS)) {
-                excess -= period;
-                gameUpdate();
-                skips++;
-            }
+    private void sleepNanos(long nanos) {
+        if (nanos <= 0) {
+            Thread.yield();
+            return;
+        }
+        try {
+            Thread.sleep(nanos / 1000000L, (int) (nanos % 1000000L));
+        } catch (InterruptedException ex) {
         }
-        System.exit(0);
     }
 
-    private void gameUpdate() {
-        gameController.update();
+    private void gameUpdate(long time) {
+        gameController.update(time);
     }
 
-    private void gameRender() {
+    private void gameRender(float alpha) {
         if (dbImage == null) {
             dbImage = createImage(pWidth, pHeight);
             if (dbImage == null) {
@@ -455,7 +506,99 @@ public class GamePanel extends JPanel implements Runnable {
         dbg.setColor(Color.black);
         dbg.fillRect(0, 0, pWidth, pHeight);
 
-        gameController.render(dbg);
+        gameController.render(dbg, alpha);
+    }
+
+    public void setActiveRendering(boolean a) {
+        activeRendering = a;
+        VolatileImageCache.setEnabled(a);
+        setIgnoreRepaint(a);
+        game.setIgnoreRepaint(a);
+    }
+
+    public boolean getActiveRendering() {
+        return activeRendering;
+    }
+
+    /**
+     * Renders into a VolatileImage and shows it through a page flipping
+     * BufferStrategy on the frame. Either can lose its contents to the
+     * display at any time (switching modes, locking the screen), so both are
+     * redrawn until they come through intact. If the frame can't give us a
+     * strategy, this falls back to the normal path.
+     */
+    private void activeRender(float alpha) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc == null || !game.isDisplayable()) {
+            return;
+        }
+
+        stateLock.lock();
+        try {
+            do {
+                if (sceneImage == null || sceneImage.getWidth() != pWidth || sceneImage.getHeight() != pHeight
+                        || sceneImage.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    if (sceneImage != null) {
+                        sceneImage.flush();
+                    }
+                    sceneImage = createVolatileImage(pWidth, pHeight);
+                    if (sceneImage == null) {
+                        return;
+                    }
+                }
+
+                Graphics2D g2d = sceneImage.createGraphics();
+                try {
+                    g2d.setColor(Color.black);
+                    g2d.fillRect(0, 0, pWidth, pHeight);
+                    gameController.render(g2d, alpha);
+                } finally {
+                    g2d.dispose();
+                }
+            } while (sceneImage.contentsLost());
+        } finally {
+            stateLock.unlock();
+        }
+
+        try {
+            BufferStrategy strategy = getBufferStrategy();
+            if (strategy == null) {
+                EIError.debugMsg("No buffer strategy, using normal rendering", EIError.ErrorLevel.Warning);
+                setActiveRendering(false);
+                return;
+            }
+
+            Point offset = SwingUtilities.convertPoint(this, 0, 0, game);
+            do {
+                do {
+                    Graphics g = strategy.getDrawGraphics();
+                    try {
+                        g.drawImage(sceneImage, offset.x, offset.y, null);
+                    } finally {
+                        g.dispose();
+                    }
+                } while (strategy.contentsRestored());
+                strategy.show();
+            } while (strategy.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+        } catch (IllegalStateException e) {
+            //the frame was rebuilt, like going full screen, so start over
+            bufferStrategy = null;
+        }
+    }
+
+    private BufferStrategy getBufferStrategy() {
+        if (bufferStrategy == null || game.getBufferStrategy() != bufferStrategy) {
+            BufferCapabilities flip = new BufferCapabilities(new ImageCapabilities(true), new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED);
+            try {
+                game.createBufferStrategy(2, flip);
+            } catch (AWTException e) {
+                //no page flipping here, blitting to the screen will do
+                game.createBufferStrategy(2);
+            }
+            bufferStrategy = game.getBufferStrategy();
+        }
+        return bufferStrategy;
     }
 
     private void paintScreen() {
@@ -1,5 +1,6 @@
 package com.weem.epicinventor;
 
+import com.weem.epicinventor.actor.*;
 import com.weem.epicinventor.actor.monster.*;
 import com.weem.epicinventor.particle.*;
 import com.weem.epicinventor.projectile.*;
@@ -126,8 +127,8 @@ public abstract class Manager {
         return gameController.checkMobProjectileHit(p);
     }
     
-    public boolean checkMobParticleHit(Particle p) {
-        return gameController.checkMobParticleHit(p);
+    public boolean checkMobParticleHit(Rectangle r, int damage, Actor source, boolean placeable) {
+        return gameController.checkMobParticleHit(r, damage, source, placeable);
     }
     
     public boolean checkPlayerProjectileHit(Projectile p) {
@@ -151,11 +152,11 @@ public abstract class Manager {
     }
 
     public int mapToPanelX(int x) {
-        return x - gameController.getMapOffsetX();
+        return gameController.mapToPanelX(x);
     }
 
     public int mapToPanelY(int y) {
-        return y - gameController.getMapOffsetY();
+        return gameController.mapToPanelY(y);
     }
 
     public int panelToMapX(int x) {
@@ -180,11 +181,27 @@ public abstract class Manager {
         return gameController.getCurrentPower();
     }
     
-    public void shakeCamera(long time, int amount) {
+    public void shakeCamera(final long time, final int amount) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                shakeCamera(time, amount);
+            }
+        })) {
+            return;
+        }
         gameController.shakeCamera(time, amount);
     }
     
-    public void stunPlayersOnGround(long duration) {
+    public void stunPlayersOnGround(final long duration) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                stunPlayersOnGround(duration);
+            }
+        })) {
+            return;
+        }
         gameController.stunPlayersOnGround(duration);
     }
 
@@ -236,7 +253,15 @@ public abstract class Manager {
         return gameController.doesRectContainBlocks(mapX, mapY, width, height);
     }
 
-    public void monsterAttackPlaceable(Monster source, Rectangle attackRect, int meleeDamage) {
+    public void monsterAttackPlaceable(final Monster source, final Rectangle attackRect, final int meleeDamage) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                monsterAttackPlaceable(source, attackRect, meleeDamage);
+            }
+        })) {
+            return;
+        }
         gameController.monsterAttackPlaceable(source, attackRect, meleeDamage);
     }
 
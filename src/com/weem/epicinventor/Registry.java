@@ -1,6 +1,7 @@
 package com.weem.epicinventor;
 
 import com.weem.epicinventor.actor.*;
+import com.weem.epicinventor.ai.*;
 import com.weem.epicinventor.actor.monster.*;
 import com.weem.epicinventor.hud.*;
 import com.weem.epicinventor.indicator.*;
@@ -32,6 +33,7 @@ public class Registry {
     private MonsterManager monsterManager;
     private IndicatorManager indicatorManager;
     private PixelizeManager pixelizeManager;
+    private PathFinder pathFinder;
     private Inventory inventory;
     //private NetworkThread networkThread;
     private NetworkThread2 networkThread;
@@ -43,7 +45,10 @@ public class Registry {
     private String invHUDFrom = "";
     private String statusText = "";
     private int splitCount;
-    public long currentTime = 0;
+    public long currentTime = System.currentTimeMillis();
+    //counts simulation updates, and how far drawing is between the last two
+    public long tick = 0;
+    public float renderAlpha = 1f;
     private boolean bossFight;
     private int attackBonus = 0;
     private int hpBonus = 0;
@@ -105,6 +110,10 @@ public class Registry {
         return pixelizeManager;
     }
 
+    public PathFinder getPathFinder() {
+        return pathFinder;
+    }
+
     public NetworkThread2 getNetworkThread() {
         return networkThread;
     }
@@ -598,6 +607,10 @@ public class Registry {
         pixelizeManager = pm;
     }
 
+    public void setPathFinder(PathFinder pf) {
+        pathFinder = pf;
+    }
+
     public void setNetworkThread(NetworkThread2 nt) {
         networkThread = nt;
     }
@@ -614,7 +627,15 @@ public class Registry {
         hpBonus = b;
     }
 
-    public void setBossFight(boolean b) {
+    public void setBossFight(final boolean b) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                setBossFight(b);
+            }
+        })) {
+            return;
+        }
         bossFight = b;
     }
 
@@ -690,7 +711,15 @@ public class Registry {
         statusText = s;
     }
 
-    public void showMessage(String type, String message) {
+    public void showMessage(final String type, final String message) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                showMessage(type, message);
+            }
+        })) {
+            return;
+        }
         gameController.showMessage(type, message);
     }
 }
\ No newline at end of file
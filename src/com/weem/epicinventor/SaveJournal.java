@@ -0,0 +1,432 @@
+package com.weem.epicinventor;
+
+import com.weem.epicinventor.actor.*;
+import com.weem.epicinventor.actor.monster.*;
+import com.weem.epicinventor.placeable.*;
+import com.weem.epicinventor.world.block.*;
+import com.weem.epicinventor.utility.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Saves one player slot as a full snapshot (Player<N>.dat) plus an
+ * append-only journal (Player<N>.journal) of what changed since. An autosave
+ * only appends the tile chunks whose version moved and whichever of the
+ * player, placeables and monsters serialize differently from last time, so
+ * its cost follows how much was changed rather than how big the world is.
+ * Once the journal outgrows the snapshot they are folded into a new snapshot
+ * that replaces the old one with an atomic rename (java.nio.file, so the
+ * game needs Java 7).
+ *
+ * Every save ends with a commit record; on load anything after the last
+ * commit (a save cut off by a crash) is ignored. The journal header names the
+ * snapshot it belongs to, so a journal left behind by an interrupted
+ * compaction is never applied to the wrong snapshot. Either kind of leftover
+ * is cut off the file before anything more is appended to it.
+ */
+public class SaveJournal {
+
+    public final static int SNAPSHOT_VERSION = 3;
+    private final static int MAGIC = 0x45494a31;
+    private final static byte RECORD_CHUNK = 1;
+    private final static byte RECORD_PLAYER = 2;
+    private final static byte RECORD_PLACEABLES = 3;
+    private final static byte RECORD_MONSTERS = 4;
+    private final static byte RECORD_COMMIT = 5;
+    //don't bother compacting small journals
+    private final static long MIN_COMPACT_SIZE = 1024 * 1024;
+    private final static int MAX_RECORD_SIZE = 256 * 1024 * 1024;
+    private final static int HEADER_SIZE = 12;
+    private File snapshotFile;
+    private File journalFile;
+    private File tempFile;
+    private long snapshotId;
+    //how much of the journal holds committed saves
+    private long journalLength;
+    private BlockChunkStore tiles;
+    private int[] savedVersions;
+    private long playerChecksum;
+    private long placeablesChecksum;
+    private long monstersChecksum;
+    private Player player;
+    private BlockManager blockManager;
+    private PlaceableManager placeableManager;
+    private MonsterManager monsterManager;
+
+    public SaveJournal(int slot) {
+        snapshotFile = new File("Player" + slot + ".dat");
+        journalFile = new File("Player" + slot + ".journal");
+        tempFile = new File("Player" + slot + "Temp.dat");
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public BlockManager getBlockManager() {
+        return blockManager;
+    }
+
+    public PlaceableManager getPlaceableManager() {
+        return placeableManager;
+    }
+
+    public MonsterManager getMonsterManager() {
+        return monsterManager;
+    }
+
+    /**
+     * Reads the snapshot and replays every committed journal record on top
+     * of it.
+     */
+    public void load() throws IOException, ClassNotFoundException {
+        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+        try {
+            int version = ((Integer) in.readObject()).intValue();
+            snapshotId = 0;
+            if (version >= 3) {
+                snapshotId = ((Long) in.readObject()).longValue();
+            }
+            player = (Player) in.readObject();
+            blockManager = (BlockManager) in.readObject();
+            placeableManager = (PlaceableManager) in.readObject();
+            monsterManager = null;
+            if (version >= 2) {
+                monsterManager = (MonsterManager) in.readObject();
+            }
+        } finally {
+            in.close();
+        }
+
+        journalLength = 0;
+        if (snapshotId != 0 && journalFile.exists()) {
+            replay();
+        }
+
+        track(blockManager);
+        playerChecksum = checksum(player);
+        placeablesChecksum = checksum(placeableManager);
+        monstersChecksum = checksum(monsterManager);
+    }
+
+    private void replay() throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+        try {
+            boolean header;
+            try {
+                header = in.readInt() == MAGIC && in.readLong() == snapshotId;
+            } catch (EOFException e) {
+                header = false;
+            }
+            if (!header) {
+                EIError.debugMsg("Ignoring journal " + journalFile + " from another snapshot", EIError.ErrorLevel.Warning);
+                in.close();
+                truncate();
+                return;
+            }
+
+            ArrayList<Object[]> pending = new ArrayList<Object[]>();
+            int commits = 0;
+            long position = HEADER_SIZE;
+            journalLength = position;
+            while (true) {
+                byte type;
+                byte[] payload;
+                try {
+                    type = in.readByte();
+                    int length = in.readInt();
+                    if (length < 0 || length > MAX_RECORD_SIZE) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    //a save that didn't finish, everything since the last commit is dropped
+                    break;
+                }
+                position += 5 + payload.length;
+
+                if (type == RECORD_COMMIT) {
+                    for (int i = 0; i < pending.size(); i++) {
+                        apply(((Byte) pending.get(i)[0]).byteValue(), (byte[]) pending.get(i)[1]);
+                    }
+                    pending.clear();
+                    commits++;
+                    journalLength = position;
+                } else {
+                    pending.add(new Object[]{Byte.valueOf(type), payload});
+                }
+            }
+            EIError.debugMsg("Replayed " + commits + " saves from " + journalFile, EIError.ErrorLevel.Notice);
+            in.close();
+            truncate();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Cuts the journal back to its committed saves, dropping a torn or
+     * uncommitted save at the end, or the whole file if its header isn't
+     * this snapshot's, so appends start from a good record.
+     */
+    private void truncate() throws IOException {
+        if (!journalFile.exists()) {
+            journalLength = 0;
+            return;
+        }
+        if (journalFile.length() == journalLength) {
+            return;
+        }
+        EIError.debugMsg("Truncating journal " + journalFile + " to " + journalLength + " bytes", EIError.ErrorLevel.Notice);
+        RandomAccessFile file = new RandomAccessFile(journalFile, "rw");
+        try {
+            file.setLength(journalLength);
+        } finally {
+            file.close();
+        }
+    }
+
+    private void apply(byte type, byte[] payload) throws IOException, ClassNotFoundException {
+        if (type == RECORD_CHUNK) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            int chunkX = in.readInt();
+            int chunkY = in.readInt();
+            short[] chunk = new short[BlockChunkStore.CHUNK_SIZE * BlockChunkStore.CHUNK_SIZE];
+            if (in.readBoolean()) {
+                java.util.Arrays.fill(chunk, in.readShort());
+            } else {
+                for (int i = 0; i < chunk.length; i++) {
+                    chunk[i] = in.readShort();
+                }
+            }
+            if (blockManager != null) {
+                blockManager.getTiles().setChunk(chunkX, chunkY, chunk);
+            }
+        } else {
+            Object o = new ObjectInputStream(new ByteArrayInputStream(payload)).readObject();
+            if (type == RECORD_PLAYER) {
+                player = (Player) o;
+            } else if (type == RECORD_PLACEABLES) {
+                placeableManager = (PlaceableManager) o;
+            } else if (type == RECORD_MONSTERS) {
+                monsterManager = (MonsterManager) o;
+            }
+        }
+    }
+
+    private void track(BlockManager bm) {
+        tiles = bm == null ? null : bm.getTiles();
+        if (tiles == null) {
+            savedVersions = null;
+            return;
+        }
+        int chunkRows = tiles.getChunkRows();
+        savedVersions = new int[tiles.getChunkCols() * chunkRows];
+        for (int cx = 0; cx < tiles.getChunkCols(); cx++) {
+            for (int cy = 0; cy < chunkRows; cy++) {
+                savedVersions[cx * chunkRows + cy] = tiles.getChunkVersion(cx, cy);
+            }
+        }
+    }
+
+    /**
+     * Appends what changed since the last save, or writes a fresh snapshot
+     * when there is none yet, the world was replaced, or the journal has
+     * grown past the snapshot.
+     */
+    public void save(Player p, BlockManager bm, PlaceableManager pm, MonsterManager mm) throws IOException {
+        player = p;
+        blockManager = bm;
+        placeableManager = pm;
+        monsterManager = mm;
+
+        BlockChunkStore bmTiles = bm == null ? null : bm.getTiles();
+        if (snapshotId == 0 || !snapshotFile.exists() || bmTiles != tiles
+                || journalFile.length() > Math.max(MIN_COMPACT_SIZE, snapshotFile.length())) {
+            compact();
+        } else {
+            append();
+        }
+    }
+
+    private void append() throws IOException {
+        //a save that failed part way through
+        truncate();
+        boolean newJournal = journalLength == 0;
+        FileOutputStream file = new FileOutputStream(journalFile, true);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+            if (newJournal) {
+                out.writeInt(MAGIC);
+                out.writeLong(snapshotId);
+            }
+
+            int[] versions = null;
+            int chunks = 0;
+            if (tiles != null) {
+                int chunkRows = tiles.getChunkRows();
+                versions = savedVersions.clone();
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(2 * BlockChunkStore.CHUNK_SIZE * BlockChunkStore.CHUNK_SIZE + 16);
+                short[] chunk = new short[BlockChunkStore.CHUNK_SIZE * BlockChunkStore.CHUNK_SIZE];
+                for (int cx = 0; cx < tiles.getChunkCols(); cx++) {
+                    for (int cy = 0; cy < chunkRows; cy++) {
+                        int c = cx * chunkRows + cy;
+                        //read the version first, a tile changed while copying just gets saved again next time
+                        int version = tiles.getChunkVersion(cx, cy);
+                        if (version == versions[c]) {
+                            continue;
+                        }
+                        tiles.copyChunk(cx, cy, chunk);
+
+                        bytes.reset();
+                        DataOutputStream record = new DataOutputStream(bytes);
+                        record.writeInt(cx);
+                        record.writeInt(cy);
+                        if (tiles.isChunkUniform(cx, cy)) {
+                            record.writeBoolean(true);
+                            record.writeShort(chunk[0]);
+                        } else {
+                            record.writeBoolean(false);
+                            for (int i = 0; i < chunk.length; i++) {
+                                record.writeShort(chunk[i]);
+                            }
+                        }
+                        record.flush();
+                        writeRecord(out, RECORD_CHUNK, bytes.toByteArray());
+                        versions[c] = version;
+                        chunks++;
+                    }
+                }
+            }
+
+            long newPlayerChecksum = appendObject(out, RECORD_PLAYER, player, playerChecksum);
+            long newPlaceablesChecksum = appendObject(out, RECORD_PLACEABLES, placeableManager, placeablesChecksum);
+            long newMonstersChecksum = appendObject(out, RECORD_MONSTERS, monsterManager, monstersChecksum);
+
+            writeRecord(out, RECORD_COMMIT, new byte[0]);
+            out.flush();
+            file.getFD().sync();
+
+            if (versions != null) {
+                savedVersions = versions;
+            }
+            journalLength = journalFile.length();
+            playerChecksum = newPlayerChecksum;
+            placeablesChecksum = newPlaceablesChecksum;
+            monstersChecksum = newMonstersChecksum;
+            EIError.debugMsg("Journaled " + chunks + " chunks to " + journalFile, EIError.ErrorLevel.Notice);
+        } finally {
+            file.close();
+        }
+    }
+
+    //writes the object only if it serializes differently than last time, returns its new checksum
+    private long appendObject(DataOutputStream out, byte type, Object o, long lastChecksum) throws IOException {
+        if (o == null) {
+            return lastChecksum;
+        }
+        byte[] data = serialize(o);
+        long checksum = checksum(data);
+        if (checksum != lastChecksum) {
+            writeRecord(out, type, data);
+        }
+        return checksum;
+    }
+
+    private static byte[] serialize(Object o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        ObjectOutputStream os = new ObjectOutputStream(bytes);
+        os.writeObject(o);
+        os.close();
+        return bytes.toByteArray();
+    }
+
+    private static long checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        //keep 0 for "never written"
+        return crc.getValue() | (1L << 32);
+    }
+
+    private static long checksum(Object o) throws IOException {
+        return o == null ? 0 : checksum(serialize(o));
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        out.writeByte(type);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    /**
+     * Writes everything to a new snapshot, swaps it in and drops the
+     * journal.
+     */
+    public void compact() throws IOException {
+        long id = System.currentTimeMillis() ^ System.nanoTime();
+        if (id == 0 || id == snapshotId) {
+            id = snapshotId + 1;
+        }
+
+        FileOutputStream file = new FileOutputStream(tempFile);
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(file));
+            out.writeObject(Integer.valueOf(SNAPSHOT_VERSION));
+            out.writeObject(Long.valueOf(id));
+            out.writeObject(player);
+            track(blockManager);
+            out.writeObject(blockManager);
+            out.writeObject(placeableManager);
+            out.writeObject(monsterManager);
+            out.flush();
+            file.getFD().sync();
+        } finally {
+            file.close();
+        }
+
+        replaceFile(tempFile, snapshotFile);
+        snapshotId = id;
+        if (journalFile.exists() && !journalFile.delete()) {
+            EIError.debugMsg("Couldn't delete journal " + journalFile, EIError.ErrorLevel.Error);
+        }
+        journalLength = 0;
+        //what the snapshot holds, so the next append skips whatever hasn't changed
+        playerChecksum = checksum(player);
+        placeablesChecksum = checksum(placeableManager);
+        monstersChecksum = checksum(monsterManager);
+        EIError.debugMsg("Compacted " + snapshotFile, EIError.ErrorLevel.Notice);
+    }
+
+    /**
+     * Moves a file into place in one step, so readers see either the old file
+     * or the new one and never a half-written copy.
+     */
+    public static void replaceFile(File src, File dst) throws IOException {
+        try {
+            Files.move(src.toPath(), dst.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(src.toPath(), dst.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public void delete() {
+        try {
+            if (snapshotFile.exists()) {
+                replaceFile(snapshotFile, new File(snapshotFile.getPath().replace(".dat", "Deleted.dat")));
+            }
+            if (journalFile.exists()) {
+                replaceFile(journalFile, new File(journalFile.getPath().replace(".journal", "Deleted.journal")));
+            }
+        } catch (IOException e) {
+            EIError.debugMsg("Couldn't delete " + snapshotFile + " " + e.getMessage(), EIError.ErrorLevel.Error);
+        }
+        snapshotId = 0;
+        journalLength = 0;
+        tiles = null;
+        savedVersions = null;
+    }
+}
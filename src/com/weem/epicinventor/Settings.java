@@ -25,12 +25,14 @@ public class Settings {
     public static int buttonRobot;
     public static int buttonInventory;
     public static int buttonPause;
+    public static boolean activeRendering = true;
     private static Registry registry;
     private static ArrayList resolutions;
     private static ArrayList<Player> players;
     private static ArrayList<BlockManager> blockManagers;
     private static ArrayList<PlaceableManager> placeableManagers;
     private static ArrayList<MonsterManager> monsterManagers;
+    private static SaveJournal[] journals;
     private static int NUMBER_OF_PLAYER_SLOTS = 4;
 
     public Settings() {
@@ -81,6 +83,9 @@ public class Settings {
             buttonRobot = ((Integer) settings.readObject()).intValue();
             buttonInventory = ((Integer) settings.readObject()).intValue();
             buttonPause = ((Integer) settings.readObject()).intValue();
+            if (version >= 2) {
+                activeRendering = ((Boolean) settings.readObject()).booleanValue();
+            }
 
             settings.close();
         } catch (Exception e) {
@@ -130,26 +135,25 @@ public class Settings {
         }
 
         //try to load the players
+        journals = new SaveJournal[NUMBER_OF_PLAYER_SLOTS];
+        for (int i = 1; i <= NUMBER_OF_PLAYER_SLOTS; i++) {
+            journals[i - 1] = new SaveJournal(i);
+        }
         for (int i = 1; i <= NUMBER_OF_PLAYER_SLOTS; i++) {
             try {
-                FileInputStream playerFile = new FileInputStream("Player" + i + ".dat");
-                ObjectInputStream playerInfo = new ObjectInputStream(playerFile);
+                SaveJournal journal = journals[i - 1];
+                journal.load();
 
-                version = ((Integer) playerInfo.readObject()).intValue();
-                players.add((Player) playerInfo.readObject());
-                blockManagers.add((BlockManager) playerInfo.readObject());
-                placeableManagers.add((PlaceableManager) playerInfo.readObject());
+                players.add(journal.getPlayer());
+                blockManagers.add(journal.getBlockManager());
+                placeableManagers.add(journal.getPlaceableManager());
 
-                MonsterManager mm = null;
-                if (version >= 2) {
-                    mm = (MonsterManager) playerInfo.readObject();
-                }
+                MonsterManager mm = journal.getMonsterManager();
                 if (mm == null) {
                     mm = new MonsterManager(gc, r);
                 }
                 monsterManagers.add(mm);
 
-                playerInfo.close();
                 EIError.debugMsg("Added Player " + i);
             } catch (Exception e) {
                 if (players.size() >= i) {
@@ -209,7 +213,7 @@ public class Settings {
             FileOutputStream settingsFile = new FileOutputStream("SettingsTemp.dat");
             ObjectOutputStream settings = new ObjectOutputStream(settingsFile);
 
-            settings.writeObject(new Integer(1)); //settings file version
+            settings.writeObject(new Integer(2)); //settings file version
             settings.writeObject(new Integer(resolution));
             if (volumeMusic == 0) {
                 settings.writeObject(new Integer(-1));
@@ -228,6 +232,7 @@ public class Settings {
             settings.writeObject(new Integer(buttonRobot));
             settings.writeObject(new Integer(buttonInventory));
             settings.writeObject(new Integer(buttonPause));
+            settings.writeObject(Boolean.valueOf(activeRendering));
 
             settings.close();
 
@@ -242,23 +247,13 @@ public class Settings {
         for (int i = 1; i <= NUMBER_OF_PLAYER_SLOTS; i++) {
             try {
                 if (player == i - 1) {
-                    FileOutputStream playerFile = new FileOutputStream("PlayerTemp.dat");
-                    ObjectOutputStream playerInfo = new ObjectOutputStream(playerFile);
-
-                    playerInfo.writeObject(new Integer(2)); //settings file version
-                    playerInfo.writeObject(players.get(i - 1));
                     if (registry.getGameController().multiplayerMode != GameController.MultiplayerMode.CLIENT && player == i - 1) {
                         blockManagers.set(i - 1, registry.getBlockManager());
                         placeableManagers.set(i - 1, registry.getPlaceableManager());
                         monsterManagers.set(i - 1, registry.getMonsterManager());
                     }
-                    playerInfo.writeObject(blockManagers.get(i - 1));
-                    playerInfo.writeObject(placeableManagers.get(i - 1));
-                    playerInfo.writeObject(monsterManagers.get(i - 1));
+                    journals[i - 1].save(players.get(i - 1), blockManagers.get(i - 1), placeableManagers.get(i - 1), monsterManagers.get(i - 1));
 
-                    playerInfo.close();
-
-                    moveFile("PlayerTemp.dat", "Player" + i + ".dat");
                     EIError.debugMsg("Saved Player " + i, EIError.ErrorLevel.Notice);
                 }
             } catch (Exception e) {
@@ -370,47 +365,15 @@ public class Settings {
     }
 
     public static void deletePlayer(int i) {
-        moveFile("Player" + (i + 1) + ".dat", "Player" + (i + 1) + "Deleted.dat");
+        journals[i].delete();
     }
 
     private static void moveFile(String srFile, String dtFile) {
-        copyfile(srFile, dtFile);
-        deletefile(srFile);
-    }
-
-    private static void copyfile(String srFile, String dtFile) {
         try {
-            File f1 = new File(srFile);
-            File f2 = new File(dtFile);
-            InputStream in = new FileInputStream(f1);
-
-            //For Overwrite the file.
-            OutputStream out = new FileOutputStream(f2);
-
-            byte[] buf = new byte[1024];
-            int len;
-            while ((len = in.read(buf)) > 0) {
-                out.write(buf, 0, len);
-            }
-            in.close();
-            out.close();
-            EIError.debugMsg("File copied " + srFile + " " + dtFile, EIError.ErrorLevel.Notice);
-        } catch (Exception e) {
-            EIError.debugMsg("Couldn't copy file" + srFile + " " + dtFile + " " + e.getMessage(), EIError.ErrorLevel.Error);
-        }
-    }
-
-    private static void deletefile(String file) {
-        try {
-            File f1 = new File(file);
-            boolean success = f1.delete();
-            if (success) {
-                EIError.debugMsg("File deleted " + file, EIError.ErrorLevel.Notice);
-            } else {
-                EIError.debugMsg("Couldn't delete file " + file, EIError.ErrorLevel.Error);
-            }
-        } catch (Exception e) {
-            EIError.debugMsg("Couldn't delete file " + file + " " + e.getMessage(), EIError.ErrorLevel.Error);
+            SaveJournal.replaceFile(new File(srFile), new File(dtFile));
+            EIError.debugMsg("File moved " + srFile + " " + dtFile, EIError.ErrorLevel.Notice);
+        } catch (IOException e) {
+            EIError.debugMsg("Couldn't move file " + srFile + " " + dtFile + " " + e.getMessage(), EIError.ErrorLevel.Error);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.weem.epicinventor.actor;
 
 import com.weem.epicinventor.*;
+import com.weem.epicinventor.ai.*;
 import com.weem.epicinventor.network.*;
 import com.weem.epicinventor.utility.*;
 import com.weem.epicinventor.weapon.*;
@@ -43,6 +44,13 @@ public abstract class Actor implements Serializable {
     transient protected boolean shouldRender = true;
     protected int mapX, lastMapY, mapY;
     transient protected int lastMapX;
+    //where update() found this actor, and which update that was, for drawing in between
+    transient protected int prevMapX, prevMapY;
+    transient protected long positionTick = -1;
+    //how far the graphics are shifted for the actor being drawn, only used on the render thread
+    private static int drawShiftX, drawShiftY;
+    transient protected Path path;
+    transient protected int pathIndex = -1;
     transient protected int[] yx, ycm;
     protected int width, height;
     protected int xMoveSize;
@@ -288,6 +296,49 @@ public abstract class Actor implements Serializable {
         }
     }
 
+    /**
+     * Heads for p along the route the PathFinder found, jumping where the
+     * route needs it. Actors that fly, and everyone until a route comes
+     * back, go straight for p with moveTowardsPoint.
+     */
+    public void moveAlongPath(Point p) {
+        path = null;
+        pathIndex = -1;
+        PathFinder pathFinder = registry == null ? null : registry.getPathFinder();
+        if (p != null && pathFinder != null && !getCanFly() && knockBackX == 0) {
+            path = pathFinder.getPath(this, p);
+        }
+
+        if (path != null) {
+            int i = path.indexOf(pathFinder.getNode(this));
+            pathIndex = i;
+            if (i >= 0 && i < path.getLength() - 1) {
+                if (path.isJump(i) && vertMoveMode == VertMoveMode.NOT_JUMPING) {
+                    jump();
+                }
+                moveTowardsPoint(path.getPoint(path.getNextWaypoint(i), height));
+                return;
+            }
+        }
+
+        moveTowardsPoint(p);
+    }
+
+    /**
+     * True if the last moveAlongPath found a route all the way there.
+     */
+    public boolean hasPath() {
+        return path != null && path.isComplete();
+    }
+
+    /**
+     * Which node of the route the actor was on at the last moveAlongPath,
+     * or -1 if it wasn't on one.
+     */
+    public int getPathIndex() {
+        return pathIndex;
+    }
+
     public void updatePosition() {
         if (!statusStun) {
             if (knockBackX > 0) {
@@ -651,6 +702,14 @@ public abstract class Actor implements Serializable {
         return canFly;
     }
 
+    public int getStartJumpSize() {
+        return startJumpSize;
+    }
+
+    public int getGravity() {
+        return gravity;
+    }
+
     protected void setStatuses() {
         statusFear = false;
         if (isFeared) {
@@ -843,16 +902,7 @@ public abstract class Actor implements Serializable {
     }
 
     protected BufferedImage flipHorizontal(BufferedImage bi) {
-        AffineTransform tx;
-        AffineTransformOp op;
-
-        tx = AffineTransform.getScaleInstance(1, -1);
-        tx = AffineTransform.getScaleInstance(-1, 1);
-        tx.translate(-bi.getWidth(), 0);
-        op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-        bi = op.filter(bi, null);
-
-        return bi;
+        return registry.getImageLoader().getMirroredImage(bi);
     }
 
     private int getCollideXBackoffToBlock(int xPosChange, int blockWidth) {
@@ -1137,6 +1187,10 @@ public abstract class Actor implements Serializable {
         showRect = r;
     }
 
+    public boolean getShowGoals() {
+        return showGoals;
+    }
+
     public void setShowGoals(boolean g) {
         showGoals = g;
     }
@@ -1183,6 +1237,9 @@ public abstract class Actor implements Serializable {
     }
 
     public void update() {
+        prevMapX = mapX;
+        prevMapY = mapY;
+        positionTick = registry.tick;
         lastMapY = mapY;
         spriteRect = null;
         int offsetX = -1 * spriteRectOffestX;
@@ -1238,13 +1295,45 @@ public abstract class Actor implements Serializable {
         }
     }
 
+    /**
+     * Renders part way between where the last update moved this actor from
+     * and to, by registry.renderAlpha. Actors that didn't move through
+     * update() last time, or that jumped further than they could walk, are
+     * drawn where they are. The position itself is left alone, the drawing
+     * is just shifted.
+     */
+    public void renderInterpolated(Graphics g) {
+        int x = mapX;
+        int y = mapY;
+        int fromX = prevMapX;
+        int fromY = prevMapY;
+        int shiftX = 0, shiftY = 0;
+        if (positionTick == registry.tick && Math.abs(x - fromX) < width + 64 && Math.abs(y - fromY) < height + 64) {
+            shiftX = fromX + Math.round((x - fromX) * registry.renderAlpha) - x;
+            shiftY = fromY + Math.round((y - fromY) * registry.renderAlpha) - y;
+        }
+
+        //actors drawn inside another one's render (like a robot) only take their own shift
+        int outerX = drawShiftX;
+        int outerY = drawShiftY;
+        //panel y runs the other way
+        g.translate(shiftX - outerX, outerY - shiftY);
+        drawShiftX = shiftX;
+        drawShiftY = shiftY;
+        try {
+            render(g);
+        } finally {
+            g.translate(outerX - shiftX, shiftY - outerY);
+            drawShiftX = outerX;
+            drawShiftY = outerY;
+        }
+    }
+
     public void render(Graphics g) {
         if (shouldRender) {
             int xPos = 0, yPos = 0;
             BufferedImage im;
             BufferedImage imLeft;
-            AffineTransform tx;
-            AffineTransformOp op;
 
             if (isChatting) {
                 im = registry.getImageLoader().getImage("Misc/ChatBubble");
@@ -1265,14 +1354,8 @@ public abstract class Actor implements Serializable {
 
                 if (im != null) {
                     if (facing == Facing.LEFT) {
-                        tx = AffineTransform.getScaleInstance(1, -1);
-                        tx = AffineTransform.getScaleInstance(-1, 1);
-                        tx.translate(-width, 0);
-                        op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                        imLeft = op.filter(im, null);
-                        if (imLeft != null) {
-                            g.drawImage(imLeft, xPos, yPos, null);
-                        }
+                        imLeft = registry.getImageLoader().getMirroredImage(im);
+                        g.drawImage(imLeft, xPos + width - imLeft.getWidth(), yPos, null);
                     } else {
                         g.drawImage(im, xPos, yPos, null);
                     }
@@ -469,10 +469,6 @@ public class Player extends Actor implements Serializable {
         return INVENTORY_SIZE;
     }
 
-    public int getStartJumpSize() {
-        return startJumpSize;
-    }
-
     public int playerAddItem(int startSlot, String name, int qty) {
         return inventory.addToInventory(startSlot, name, qty);
     }
@@ -620,12 +616,7 @@ public class Player extends Actor implements Serializable {
                         weaponImages[j] = atop.filter(weaponImages[j], null);
                     }
                     for (int j = 0; j < 12; j++) {
-                        weaponImages[j + 12] = weaponImage;
-                        AffineTransform tx = null;
-                        tx = AffineTransform.getScaleInstance(-1, 1);
-                        tx.translate(-1 * weaponImages[j + 12].getWidth(), 0);
-                        AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                        weaponImages[j + 12] = op.filter(weaponImages[j + 12], null);
+                        weaponImages[j + 12] = registry.getImageLoader().getMirroredImage(weaponImage);
                         angle = (int) ((float) -j / 8.0f * 90.0f);
                         AffineTransform at = new AffineTransform();
                         at.rotate(Math.toRadians(angle), weaponImages[j + 12].getWidth() / 2, weaponImages[j + 12].getHeight() / 2);
@@ -2032,14 +2023,8 @@ public class Player extends Actor implements Serializable {
 
         if (im != null) {
             if (facing == Facing.LEFT && !imageOverride) {
-                AffineTransform tx = AffineTransform.getScaleInstance(1, -1);
-                tx = AffineTransform.getScaleInstance(-1, 1);
-                tx.translate(-width, 0);
-                AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                BufferedImage imLeft = op.filter(im, null);
-                if (imLeft != null) {
-                    g.drawImage(imLeft, xPos, yPos, null);
-                }
+                BufferedImage imLeft = registry.getImageLoader().getMirroredImage(im);
+                g.drawImage(imLeft, xPos + width - imLeft.getWidth(), yPos, null);
             } else {
                 g.drawImage(im, xPos, yPos, null);
             }
@@ -2294,11 +2279,8 @@ public class Player extends Actor implements Serializable {
             yPos -= height;
 
             if (facing == Facing.LEFT) {
-                AffineTransform tx = AffineTransform.getScaleInstance(1, -1);
-                tx = AffineTransform.getScaleInstance(-1, 1);
-                tx.translate(-width, 0);
-                AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                weaponImage = op.filter(weaponImage, null);
+                weaponImage = registry.getImageLoader().getMirroredImage(weaponImage);
+                xPos += width - weaponImage.getWidth();
             }
             g.drawImage(weaponImage, xPos, yPos, null);
         }
@@ -2355,14 +2337,8 @@ public class Player extends Actor implements Serializable {
 
             if (im != null) {
                 if (facing == Facing.LEFT && !imageOverride) {
-                    AffineTransform tx = AffineTransform.getScaleInstance(1, -1);
-                    tx = AffineTransform.getScaleInstance(-1, 1);
-                    tx.translate(-width, 0);
-                    AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                    BufferedImage imLeft = op.filter(im, null);
-                    if (imLeft != null) {
-                        g.drawImage(imLeft, xPos, yPos, null);
-                    }
+                    BufferedImage imLeft = registry.getImageLoader().getMirroredImage(im);
+                    g.drawImage(imLeft, xPos + width - imLeft.getWidth(), yPos, null);
                 } else {
                     g.drawImage(im, xPos, yPos, null);
                 }
@@ -2387,14 +2363,8 @@ public class Player extends Actor implements Serializable {
 
             if (im != null) {
                 if (facing == Facing.LEFT && !imageOverride) {
-                    AffineTransform tx = AffineTransform.getScaleInstance(1, -1);
-                    tx = AffineTransform.getScaleInstance(-1, 1);
-                    tx.translate(-width, 0);
-                    AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                    BufferedImage imLeft = op.filter(im, null);
-                    if (imLeft != null) {
-                        g.drawImage(imLeft, xPos, yPos, null);
-                    }
+                    BufferedImage imLeft = registry.getImageLoader().getMirroredImage(im);
+                    g.drawImage(imLeft, xPos + width - imLeft.getWidth(), yPos, null);
                 } else {
                     g.drawImage(im, xPos, yPos, null);
                 }
@@ -2419,14 +2389,8 @@ public class Player extends Actor implements Serializable {
 
             if (im != null) {
                 if (facing == Facing.LEFT && !imageOverride) {
-                    AffineTransform tx = AffineTransform.getScaleInstance(1, -1);
-                    tx = AffineTransform.getScaleInstance(-1, 1);
-                    tx.translate(-width, 0);
-                    AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                    BufferedImage imLeft = op.filter(im, null);
-                    if (imLeft != null) {
-                        g.drawImage(imLeft, xPos, yPos, null);
-                    }
+                    BufferedImage imLeft = registry.getImageLoader().getMirroredImage(im);
+                    g.drawImage(imLeft, xPos + width - imLeft.getWidth(), yPos, null);
                 } else {
                     g.drawImage(im, xPos, yPos, null);
                 }
@@ -2451,14 +2415,8 @@ public class Player extends Actor implements Serializable {
 
             if (im != null) {
                 if (facing == Facing.LEFT && !imageOverride) {
-                    AffineTransform tx = AffineTransform.getScaleInstance(1, -1);
-                    tx = AffineTransform.getScaleInstance(-1, 1);
-                    tx.translate(-width, 0);
-                    AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                    BufferedImage imLeft = op.filter(im, null);
-                    if (imLeft != null) {
-                        g.drawImage(imLeft, xPos, yPos, null);
-                    }
+                    BufferedImage imLeft = registry.getImageLoader().getMirroredImage(im);
+                    g.drawImage(imLeft, xPos + width - imLeft.getWidth(), yPos, null);
                 } else {
                     g.drawImage(im, xPos, yPos, null);
                 }
@@ -2474,11 +2432,11 @@ public class Player extends Actor implements Serializable {
         }
 
         if (robot != null) {
-            robot.render(g);
+            robot.renderInterpolated(g);
         }
 
         if (oobaboo != null) {
-            oobaboo.render(g);
+            oobaboo.renderInterpolated(g);
         }
 
         FontMetrics fm = g.getFontMetrics();
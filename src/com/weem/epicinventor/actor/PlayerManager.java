@@ -10,6 +10,7 @@ import com.weem.epicinventor.placeable.*;
 import com.weem.epicinventor.projectile.*;
 import com.weem.epicinventor.resource.*;
 import com.weem.epicinventor.utility.*;
+import com.weem.epicinventor.world.block.*;
 
 import java.awt.*;
 import java.awt.geom.Arc2D;
@@ -22,6 +23,9 @@ public class PlayerManager extends Manager {
     boolean isUpdating = false;
     private Player currentPlayer;
     private boolean currentPlayerSet = false;
+    private SpatialIndex<Player> playerIndex = new SpatialIndex<Player>();
+    private final static int INDEX_SLOP = 64;
+    private short[] standingBlocks = new short[8];
 
     public PlayerManager(GameController gc, Registry rg) {
         super(gc, rg);
@@ -32,6 +36,7 @@ public class PlayerManager extends Manager {
 
         p = new Player(this, registry, "Player/Standing", 226);
         players.put(p.getId(), p);
+        indexPlayer(p);
         setCurrentPlayer(p);
     }
 
@@ -39,6 +44,15 @@ public class PlayerManager extends Manager {
         players = null;
         currentPlayer = null;
         players = new HashMap<String, Player>();
+        playerIndex.clear();
+    }
+
+    private void indexPlayer(Player p) {
+        playerIndex.update(p,
+                p.getMapX() - INDEX_SLOP,
+                p.getMapY() - INDEX_SLOP,
+                p.getWidth() + INDEX_SLOP * 2,
+                p.getHeight() + INDEX_SLOP * 2);
     }
 
     public void giveXP(Monster m) {
@@ -64,6 +78,7 @@ public class PlayerManager extends Manager {
     public void registerPlayer(Player p) {
         if (!players.containsKey(p.getId())) {
             players.put(p.getId(), p);
+            indexPlayer(p);
             if (players.size() == 1) {
                 setCurrentPlayer(p);
             }
@@ -100,6 +115,7 @@ public class PlayerManager extends Manager {
                 }
             }
             players.remove(playerId);
+            playerIndex.remove(p);
         }
     }
 
@@ -136,30 +152,31 @@ public class PlayerManager extends Manager {
         }
     }
 
-    public Player getClosestPlayer(Point p, int maxDistance) {
-        Player player = null;
-        Player closestPlayer = null;
-
-        double closestDistance = 0;
+    public Player getClosestPlayer(final Point p, int maxDistance) {
+        return playerIndex.getClosest(p.x, p.y, maxDistance, new SpatialIndex.Scorer<Player>() {
 
-        try {
-            for (String key : players.keySet()) {
-                player = (Player) players.get(key);
-                if (p.distance(player.getCenterPoint()) < closestDistance || closestDistance == 0) {
-                    closestPlayer = player;
-                    closestDistance = p.distance(player.getCenterPoint());
-                }
+            public double score(Player player) {
+                return p.distance(player.getCenterPoint());
+            }
+        });
+    }
+
+    /**
+     * Whether r is on the screen of any player, local or remote, taking
+     * each one's view as a panel sized area centered on them.
+     */
+    public boolean isInAnyPlayerView(Rectangle r) {
+        int halfWidth = gameController.getPWidth() / 2;
+        int halfHeight = gameController.getPHeight() / 2;
+        ArrayList<Player> near = new ArrayList<Player>();
+        playerIndex.getInRect(r.x - halfWidth, r.y - halfHeight, r.width + halfWidth * 2, r.height + halfHeight * 2, near);
+        for (int i = 0; i < near.size(); i++) {
+            Point center = near.get(i).getCenterPoint();
+            if (r.intersects(center.x - halfWidth, center.y - halfHeight, halfWidth * 2, halfHeight * 2)) {
+                return true;
             }
-        } catch (ConcurrentModificationException concEx) {
-            //another thread was trying to modify players while iterating
-            //we'll continue and the new item can be grabbed on the next update
-        }
-
-        if (closestPlayer != null && closestDistance <= maxDistance) {
-            return closestPlayer;
         }
-
-        return null;
+        return false;
     }
 
     public boolean isInPlayerView(Point p) {
@@ -753,8 +770,14 @@ public class PlayerManager extends Manager {
     public boolean playerStandingOnTownBlocks() {
         boolean ret = true;
         boolean allNull = true;
-        short[] standingBlocks = gameController.blocksUnder(currentPlayer.getMapX() + currentPlayer.getBaseOffset(), currentPlayer.getMapX() + currentPlayer.getWidth() - currentPlayer.getBaseOffset(), currentPlayer.getMapY());
-        for (int i = 0; i < standingBlocks.length; i++) {
+        int xStart = currentPlayer.getMapX() + currentPlayer.getBaseOffset();
+        int xEnd = currentPlayer.getMapX() + currentPlayer.getWidth() - currentPlayer.getBaseOffset();
+        int needed = xEnd / BlockManager.getBlockWidth() - xStart / BlockManager.getBlockWidth() + 1;
+        if (standingBlocks.length < needed) {
+            standingBlocks = new short[needed];
+        }
+        int count = gameController.blocksUnder(xStart, xEnd, currentPlayer.getMapY(), standingBlocks);
+        for (int i = 0; i < count; i++) {
             if (!gameController.isIdInGroup(standingBlocks[i], "None")) {
                 allNull = false;
             }
@@ -851,6 +874,7 @@ public class PlayerManager extends Manager {
                 Player p = (Player) players.get(key);
                 if (p != null) {
                     p.update();
+                    indexPlayer(p);
                 }
             }
         } catch (ConcurrentModificationException concEx) {
@@ -1202,7 +1226,7 @@ public class PlayerManager extends Manager {
             for (String key : players.keySet()) {
                 Player p = (Player) players.get(key);
                 if (p != null) {
-                    p.render(g);
+                    p.renderInterpolated(g);
                     if (p != currentPlayer) {
                         renderPointer(g, p);
                     }
@@ -87,12 +87,7 @@ public class Robot extends Actor implements Serializable {
 
         //create shield images
         imageShieldRight = registry.getImageLoader().getImage("Robot/Shield");
-        imageShieldLeft = registry.getImageLoader().getImage("Robot/Shield");
-        AffineTransform tx = AffineTransform.getScaleInstance(1, -1);
-        tx = AffineTransform.getScaleInstance(-1, 1);
-        tx.translate(-imageShieldRight.getWidth(), 0);
-        AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-        imageShieldLeft = op.filter(imageShieldRight, null);
+        imageShieldLeft = registry.getImageLoader().getImage("Robot/Shield", true);
 
         ai.clearGoals();
         ai.setPlayer(player.getId());
@@ -742,8 +737,6 @@ public class Robot extends Actor implements Serializable {
             int offsetY = 0;
             BufferedImage im;
             BufferedImage imLeft;
-            AffineTransform tx;
-            AffineTransformOp op;
 
             if (isAnimating) {
                 im = registry.getImageLoader().getImage(image, currentAnimationFrame);
@@ -762,14 +755,8 @@ public class Robot extends Actor implements Serializable {
 
             if (im != null && width > 0) {
                 if (facing == Facing.LEFT) {
-                    tx = AffineTransform.getScaleInstance(1, -1);
-                    tx = AffineTransform.getScaleInstance(-1, 1);
-                    tx.translate(-width, 0);
-                    op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                    imLeft = op.filter(im, null);
-                    if (imLeft != null) {
-                        g.drawImage(imLeft, xPos, yPos, null);
-                    }
+                    imLeft = registry.getImageLoader().getMirroredImage(im);
+                    g.drawImage(imLeft, xPos + width - imLeft.getWidth(), yPos, null);
                 } else {
                     g.drawImage(im, xPos, yPos, null);
                 }
@@ -134,14 +134,8 @@ public class BlueThorn extends Monster {
 
             BufferedImage im = registry.getImageLoader().getImage(image);
             if (facing == Facing.LEFT) {
-                AffineTransform tx = AffineTransform.getScaleInstance(1, -1);
-                tx = AffineTransform.getScaleInstance(-1, 1);
-                tx.translate(-width, 0);
-                AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                BufferedImage imLeft = op.filter(im, null);
-                if (imLeft != null) {
-                    registry.getPixelizeManager().pixelize(imLeft, mapX, mapY);
-                }
+                BufferedImage imLeft = registry.getImageLoader().getMirroredImage(im);
+                registry.getPixelizeManager().pixelize(imLeft, mapX + width - imLeft.getWidth(), mapY);
             } else {
                 registry.getPixelizeManager().pixelize(im, mapX, mapY);
             }
@@ -98,7 +98,8 @@ public abstract class Monster extends Actor implements Serializable {
                 if (newDist > minDist && newDist < maxDist) {
                     if (!monsterManager.doesRectContainBlocks(x, y, width, height)) {
                         boolean touchingPlaceable = false;
-                        Placeable placeable = registry.getPlaceableManager().getClosest(new Point(x, y));
+                        //far enough for the widest placeable to still reach the spawn box
+                        Placeable placeable = registry.getPlaceableManager().getClosest(new Point(x, y), 600);
                         if (placeable != null) {
                             if (placeable.getPerimeter().intersects(new Rectangle(x, y, 120, 120))) {
                                 touchingPlaceable = true;
@@ -496,6 +497,22 @@ public abstract class Monster extends Actor implements Serializable {
         }
     }
 
+    private void showPortrait() {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                showPortrait();
+            }
+        })) {
+            return;
+        }
+        registry.setPortraitImage("Mob" + name);
+        registry.setPortraitHPCurrent(hitPoints);
+        registry.setPortraitHP(totalHitPoints);
+        registry.setPortraitAttack(touchDamage);
+        registry.getHUDManager().showPortrait(true);
+    }
+
     public void stopAttack() {
         actionMode = ActionMode.NONE;
     }
@@ -598,7 +615,7 @@ public abstract class Monster extends Actor implements Serializable {
                     mapX += checkCollide(knockBackX);
                 } else if (knockBackX < 0) {
                     mapX -= checkCollide(knockBackX);
-                } else {
+                } else if (ai.isDue(isInPanel)) {
                     if (registry.getGameController().multiplayerMode == registry.getGameController().multiplayerMode.CLIENT) {
                         ai.process(true);
                     } else {
@@ -620,19 +637,11 @@ public abstract class Monster extends Actor implements Serializable {
                 }
             }
             if (monsterManager.getSelectedMob() == this) {
-                registry.setPortraitImage("Mob" + name);
-                registry.setPortraitHPCurrent(hitPoints);
-                registry.setPortraitHP(totalHitPoints);
-                registry.setPortraitAttack(touchDamage);
-                registry.getHUDManager().showPortrait(true);
+                showPortrait();
             } else if (monsterManager.getSelectedMob() == null) {
                 Point mousePos = new Point(monsterManager.panelToMapX(registry.getMousePosition().x), monsterManager.panelToMapY(registry.getMousePosition().y));
                 if (this.isInside(mousePos) && !this.getIsHiding()) {
-                    registry.setPortraitImage("Mob" + name);
-                    registry.setPortraitHPCurrent(hitPoints);
-                    registry.setPortraitHP(totalHitPoints);
-                    registry.setPortraitAttack(touchDamage);
-                    registry.getHUDManager().showPortrait(true);
+                    showPortrait();
                 }
             }
         } else {
@@ -660,14 +669,8 @@ public abstract class Monster extends Actor implements Serializable {
 
             BufferedImage im = registry.getImageLoader().getImage(image);
             if (facing == Facing.LEFT) {
-                AffineTransform tx = AffineTransform.getScaleInstance(1, -1);
-                tx = AffineTransform.getScaleInstance(-1, 1);
-                tx.translate(-width, 0);
-                AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                BufferedImage imLeft = op.filter(im, null);
-                if (imLeft != null) {
-                    registry.getPixelizeManager().pixelize(imLeft, mapX, mapY);
-                }
+                BufferedImage imLeft = registry.getImageLoader().getMirroredImage(im);
+                registry.getPixelizeManager().pixelize(imLeft, mapX + width - imLeft.getWidth(), mapY);
             } else {
                 registry.getPixelizeManager().pixelize(im, mapX, mapY);
             }
@@ -788,14 +791,8 @@ public abstract class Monster extends Actor implements Serializable {
 
             if (im != null) {
                 if (facing == Facing.LEFT) {
-                    AffineTransform tx = AffineTransform.getScaleInstance(1, -1);
-                    tx = AffineTransform.getScaleInstance(-1, 1);
-                    tx.translate(-width, 0);
-                    AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                    BufferedImage imLeft = op.filter(im, null);
-                    if (imLeft != null) {
-                        g.drawImage(imLeft, xPos, yPos, null);
-                    }
+                    BufferedImage imLeft = registry.getImageLoader().getMirroredImage(im);
+                    g.drawImage(imLeft, xPos + width - imLeft.getWidth(), yPos, null);
                 } else {
                     g.drawImage(im, xPos, yPos, null);
                 }
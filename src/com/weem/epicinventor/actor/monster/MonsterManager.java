@@ -30,6 +30,9 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
     transient private long nextSnailRiderSpawn = 0;
     transient private boolean transmitting;
     transient private Monster selectedMob = null;
+    transient private SpatialIndex<Monster> monsterIndex;
+    //sprite rects can sit a little outside the perimeter, so index with some room
+    private final static int INDEX_SLOP = 64;
 
     public enum MonsterType {
 
@@ -72,14 +75,60 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
         }
     }
 
-    public void giveXP(Monster m) {
+    public void giveXP(final Monster m) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                giveXP(m);
+            }
+        })) {
+            return;
+        }
         gameController.giveXP(m);
     }
 
     public void registerMonster(Monster m) {
         if (!monsters.containsKey(m.getId())) {
             monsters.put(m.getId(), m);
+            indexMonster(m);
+        }
+    }
+
+    private void unregisterMonster(String id) {
+        Monster m = monsters.remove(id);
+        if (m != null) {
+            getMonsterIndex().remove(m);
+        }
+    }
+
+    private void indexMonster(Monster m) {
+        getMonsterIndex().update(m,
+                m.getMapX() - INDEX_SLOP,
+                m.getMapY() - INDEX_SLOP,
+                m.getWidth() + INDEX_SLOP * 2,
+                m.getHeight() + INDEX_SLOP * 2);
+    }
+
+    public SpatialIndex<Monster> getMonsterIndex() {
+        if (monsterIndex == null) {
+            monsterIndex = new SpatialIndex<Monster>();
+            try {
+                for (String key : monsters.keySet()) {
+                    Monster m = monsters.get(key);
+                    if (m != null) {
+                        monsterIndex.update(m,
+                                m.getMapX() - INDEX_SLOP,
+                                m.getMapY() - INDEX_SLOP,
+                                m.getWidth() + INDEX_SLOP * 2,
+                                m.getHeight() + INDEX_SLOP * 2);
+                    }
+                }
+            } catch (ConcurrentModificationException concEx) {
+                //another thread was trying to modify monsters while iterating
+                //anything missed is picked up on its next update
+            }
         }
+        return monsterIndex;
     }
 
     public Monster getMonsterById(String id) {
@@ -109,6 +158,7 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
                     monster = (Monster) monsters.get(key);
                     if (monster != null) {
                         monster.update();
+                        indexMonster(monster);
                         if (monster.getIsDead()) {
                             deadMonsters.add(key);
                         }
@@ -118,7 +168,7 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
                 if (deadMonsters.size() > 0) {
                     for (int i = 0; i < deadMonsters.size(); i++) {
                         //EIError.debugMsg((String) deadMonsters.get(i));
-                        monsters.remove((String) deadMonsters.get(i));
+                        unregisterMonster((String) deadMonsters.get(i));
                     }
                 }
             } catch (ConcurrentModificationException concEx) {
@@ -147,21 +197,16 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
                     vinePosition.y = this.findNextFloor(vinePosition.x, vinePosition.y, 60);
 
                     if (this.doesRectContainBlocks(vinePosition.x, vinePosition.y + 100, 17, 16)) {
-                        Monster monster = null;
-                        try {
-                            for (String key : monsters.keySet()) {
-                                monster = (Monster) monsters.get(key);
-                                if (monster.getName().equals("BlueThorn") || monster.getName().equals("VineThorn")) {
-                                    double distance = vinePosition.distance(monster.getCenterPoint());
-                                    if (distance < 750) {
-                                        canSpawn = false;
-                                        break;
-                                    }
+                        ArrayList<Monster> nearby = new ArrayList<Monster>();
+                        getMonsterIndex().getInRadius(vinePosition.x, vinePosition.y, 750, nearby);
+                        for (Monster monster : nearby) {
+                            if (monster.getName().equals("BlueThorn") || monster.getName().equals("VineThorn")) {
+                                double distance = vinePosition.distance(monster.getCenterPoint());
+                                if (distance < 750) {
+                                    canSpawn = false;
+                                    break;
                                 }
                             }
-                        } catch (ConcurrentModificationException concEx) {
-                            //another thread was trying to modify monsters while iterating
-                            //we'll continue and the new item can be grabbed on the next update
                         }
                         if (canSpawn) {
                             spawn("BlueThorn", "Roaming", vinePosition.x, vinePosition.y);
@@ -184,21 +229,16 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
                     vinePosition.y = this.findNextFloor(vinePosition.x, vinePosition.y, 60);
 
                     if (this.doesRectContainBlocks(vinePosition.x, vinePosition.y + 100, 17, 16)) {
-                        Monster monster = null;
-                        try {
-                            for (String key : monsters.keySet()) {
-                                monster = (Monster) monsters.get(key);
-                                if (monster.getName().equals("BlueThorn") || monster.getName().equals("VineThorn")) {
-                                    double distance = vinePosition.distance(monster.getCenterPoint());
-                                    if (distance < 750) {
-                                        canSpawn = false;
-                                        break;
-                                    }
+                        ArrayList<Monster> nearby = new ArrayList<Monster>();
+                        getMonsterIndex().getInRadius(vinePosition.x, vinePosition.y, 750, nearby);
+                        for (Monster monster : nearby) {
+                            if (monster.getName().equals("BlueThorn") || monster.getName().equals("VineThorn")) {
+                                double distance = vinePosition.distance(monster.getCenterPoint());
+                                if (distance < 750) {
+                                    canSpawn = false;
+                                    break;
                                 }
                             }
-                        } catch (ConcurrentModificationException concEx) {
-                            //another thread was trying to modify monsters while iterating
-                            //we'll continue and the new item can be grabbed on the next update
                         }
                         if (canSpawn) {
                             spawn("VineThorn", "Roaming", vinePosition.x, vinePosition.y);
@@ -469,26 +509,34 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
         return monster;
     }
 
-    public void dropLoot(Monster m, int x, int y, ArrayList<Drop> drops) {
+    public void dropLoot(final Monster m, final int x, final int y, final ArrayList<Drop> drops) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                dropLoot(m, x, y, drops);
+            }
+        })) {
+            return;
+        }
         gameController.dropLoot(m, x, y, drops);
     }
 
     public Damage getMonsterTouchDamage(Rectangle r, int x) {
         Damage damage = null;
-        Monster monster = null;
 
-        try {
-            for (String key : monsters.keySet()) {
-                monster = (Monster) monsters.get(key);
-                damage = monster.getMonsterTouchDamage(r, x);
+        if (r == null) {
+            return null;
+        }
 
-                if (damage != null) {
-                    break;
-                }
+        ArrayList<Monster> candidates = new ArrayList<Monster>();
+        getMonsterIndex().getInRect(r.x, r.y, r.width, r.height, candidates);
+
+        for (int i = 0; i < candidates.size(); i++) {
+            damage = candidates.get(i).getMonsterTouchDamage(r, x);
+
+            if (damage != null) {
+                break;
             }
-        } catch (ConcurrentModificationException concEx) {
-            //another thread was trying to modify monsters while iterating
-            //we'll continue and the new item can be grabbed on the next update
         }
 
         return damage;
@@ -500,9 +548,13 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
         Monster monster = null;
         ArrayList<String> monstersHit = new ArrayList<String>();
 
+        ArrayList<Monster> candidates = new ArrayList<Monster>();
+        Rectangle arcBounds = arc.getBounds();
+        getMonsterIndex().getInRect(arcBounds.x, arcBounds.y, arcBounds.width, arcBounds.height, candidates);
+
         try {
-            for (String key : monsters.keySet()) {
-                monster = (Monster) monsters.get(key);
+            for (int i = 0; i < candidates.size(); i++) {
+                monster = candidates.get(i);
 
                 if (weaponType != null) {
                     if (weaponType.equals("Net")) {
@@ -579,19 +631,16 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
     @Override
     public boolean checkMobProjectileHit(Projectile p) {
         if (gameController.multiplayerMode != gameController.multiplayerMode.CLIENT) {
-            Monster monster = null;
-
-            try {
-                for (String key : monsters.keySet()) {
-                    monster = (Monster) monsters.get(key);
-                    if (monster.getPerimeter().intersects(p.getRect())) {
-                        monster.applyDamage(p.getDamage(), p.getSource(), p.isFromPlaceable());
-                        return true;
-                    }
+            Rectangle r = p.getRect();
+            ArrayList<Monster> candidates = new ArrayList<Monster>();
+            getMonsterIndex().getInRect(r.x, r.y, r.width, r.height, candidates);
+
+            for (int i = 0; i < candidates.size(); i++) {
+                Monster monster = candidates.get(i);
+                if (monster.getPerimeter().intersects(r)) {
+                    monster.applyDamage(p.getDamage(), p.getSource(), p.isFromPlaceable());
+                    return true;
                 }
-            } catch (ConcurrentModificationException concEx) {
-                //another thread was trying to modify monsters while iterating
-                //we'll continue and the new item can be grabbed on the next update
             }
         }
 
@@ -599,21 +648,17 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
     }
 
     @Override
-    public boolean checkMobParticleHit(Particle p) {
+    public boolean checkMobParticleHit(Rectangle r, int damage, Actor source, boolean placeable) {
         if (gameController.multiplayerMode != gameController.multiplayerMode.CLIENT) {
-            Monster monster = null;
-
-            try {
-                for (String key : monsters.keySet()) {
-                    monster = (Monster) monsters.get(key);
-                    if (monster.getPerimeter().intersects(p.getRect())) {
-                        monster.applyDamage(p.getDamage(), p.getSource(), p.isFromPlaceable(), false);
-                        return true;
-                    }
+            ArrayList<Monster> candidates = new ArrayList<Monster>();
+            getMonsterIndex().getInRect(r.x, r.y, r.width, r.height, candidates);
+
+            for (int i = 0; i < candidates.size(); i++) {
+                Monster monster = candidates.get(i);
+                if (monster.getPerimeter().intersects(r)) {
+                    monster.applyDamage(damage, source, placeable, false);
+                    return true;
                 }
-            } catch (ConcurrentModificationException concEx) {
-                //another thread was trying to modify monsters while iterating
-                //we'll continue and the new item can be grabbed on the next update
             }
         }
 
@@ -626,6 +671,8 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
             super.update();
 
             ArrayList deadMonsters = new ArrayList();
+            ArrayList<String> keys = new ArrayList<String>();
+            ArrayList<Monster> updating = new ArrayList<Monster>();
 
             Monster monster = null;
 
@@ -633,17 +680,34 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
                 for (String key : monsters.keySet()) {
                     monster = (Monster) monsters.get(key);
                     if (monster != null) {
-                        monster.update();
-                        if (monster.getIsDead()) {
-                            deadMonsters.add(key);
-                        }
+                        keys.add(key);
+                        updating.add(monster);
+                    }
+                }
+
+                ParallelUpdate.update(updating, new ParallelUpdate.Updater<Monster>() {
+
+                    public int getMapX(Monster m) {
+                        return m.getMapX();
+                    }
+
+                    public void update(Monster m) {
+                        m.update();
+                    }
+                });
+
+                for (int i = 0; i < updating.size(); i++) {
+                    monster = updating.get(i);
+                    indexMonster(monster);
+                    if (monster.getIsDead()) {
+                        deadMonsters.add(keys.get(i));
                     }
                 }
 
                 if (deadMonsters.size() > 0) {
                     for (int i = 0; i < deadMonsters.size(); i++) {
                         //EIError.debugMsg((String) deadMonsters.get(i));
-                        monsters.remove((String) deadMonsters.get(i));
+                        unregisterMonster((String) deadMonsters.get(i));
                     }
                 }
             } catch (ConcurrentModificationException concEx) {
@@ -670,7 +734,7 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
             if (deadMonsters.size() > 0) {
                 for (int i = 0; i < deadMonsters.size(); i++) {
                     //EIError.debugMsg((String) deadMonsters.get(i));
-                    monsters.remove((String) deadMonsters.get(i));
+                    unregisterMonster((String) deadMonsters.get(i));
                 }
             }
         } catch (ConcurrentModificationException concEx) {
@@ -727,7 +791,7 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
 
             if (deadMonsters.size() > 0) {
                 for (int i = 0; i < deadMonsters.size(); i++) {
-                    monsters.remove((String) deadMonsters.get(i));
+                    unregisterMonster((String) deadMonsters.get(i));
                 }
             }
         } catch (ConcurrentModificationException concEx) {
@@ -760,7 +824,7 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
 
             if (deadMonsters.size() > 0) {
                 for (int i = 0; i < deadMonsters.size(); i++) {
-                    monsters.remove((String) deadMonsters.get(i));
+                    unregisterMonster((String) deadMonsters.get(i));
                 }
             }
         } catch (ConcurrentModificationException concEx) {
@@ -771,18 +835,14 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
 
     public int getCountByTypeWithinXRange(String type, int xStart, int xEnd) {
         int count = 0;
-        Monster monster = null;
+        ArrayList<Monster> candidates = new ArrayList<Monster>();
+        getMonsterIndex().getInRect(xStart, -getMapHeight(), xEnd - xStart, getMapHeight() * 3, candidates);
 
-        try {
-            for (String key : monsters.keySet()) {
-                monster = (Monster) monsters.get(key);
-                if (monster.getName().equals(type) && monster.getMapX() >= xStart && monster.getMapX() <= xEnd) {
-                    count++;
-                }
+        for (int i = 0; i < candidates.size(); i++) {
+            Monster monster = candidates.get(i);
+            if (monster.getName().equals(type) && monster.getMapX() >= xStart && monster.getMapX() <= xEnd) {
+                count++;
             }
-        } catch (ConcurrentModificationException concEx) {
-            //another thread was trying to modify monsters while iterating
-            //we'll continue and the new item can be grabbed on the next update
         }
 
         return count;
@@ -876,18 +936,16 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
                 int y = player.getMapY();
                 int groundLevel = registry.getBlockManager().getLevelByY(y);
                 count = -groundLevel;
-                try {
-                    for (String key2 : monsters.keySet()) {
-                        monster = (Monster) monsters.get(key2);
-                        if (monster.getCenterPoint().distance(player.getCenterPoint()) < MonsterManager.mobSpawnRangeMax * 3 / 2) {
-                            if (monster.getTouchDamage() > 0 && !monster.getName().equals("BlueThorn") && !monster.getName().equals("VineThorn")) {
-                                count++;
-                            }
+                Point playerCenter = player.getCenterPoint();
+                ArrayList<Monster> nearby = new ArrayList<Monster>();
+                getMonsterIndex().getInRadius(playerCenter.x, playerCenter.y, MonsterManager.mobSpawnRangeMax * 3 / 2, nearby);
+                for (int i = 0; i < nearby.size(); i++) {
+                    monster = nearby.get(i);
+                    if (monster.getCenterPoint().distance(playerCenter) < MonsterManager.mobSpawnRangeMax * 3 / 2) {
+                        if (monster.getTouchDamage() > 0 && !monster.getName().equals("BlueThorn") && !monster.getName().equals("VineThorn")) {
+                            count++;
                         }
                     }
-                } catch (ConcurrentModificationException concEx) {
-                    //another thread was trying to modify monsters while iterating
-                    //we'll continue and the new item can be grabbed on the next update
                 }
                 if (count < 4) {
                     for (MonsterType monsterType : MonsterType.values()) {
@@ -947,11 +1005,27 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
         }
     }
 
-    public void setNextBossOrcSpawn(int s) {
+    public void setNextBossOrcSpawn(final int s) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                setNextBossOrcSpawn(s);
+            }
+        })) {
+            return;
+        }
         nextBossOrcSpawn = s;
     }
 
-    public void setNextSnailRiderSpawn(int s) {
+    public void setNextSnailRiderSpawn(final int s) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                setNextSnailRiderSpawn(s);
+            }
+        })) {
+            return;
+        }
         nextSnailRiderSpawn = s;
     }
 
@@ -993,7 +1067,7 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
                 if (deadMonsters.size() > 0) {
                     for (int i = 0; i < deadMonsters.size(); i++) {
                         //EIError.debugMsg((String) deadMonsters.get(i));
-                        monsters.remove((String) deadMonsters.get(i));
+                        unregisterMonster((String) deadMonsters.get(i));
                     }
                 }
             } catch (ConcurrentModificationException concEx) {
@@ -1010,7 +1084,7 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
             try {
                 for (String key : monsters.keySet()) {
                     monster = (Monster) monsters.get(key);
-                    monster.render(g);
+                    monster.renderInterpolated(g);
                 }
             } catch (ConcurrentModificationException concEx) {
                 //another thread was trying to modify monsters while iterating
@@ -1060,57 +1134,25 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
     }
 
     public Monster getClosestInPanel(Point p) {
-        Monster monster = null;
-        Monster closestMonster = null;
-
-        double closestDistance = 0;
-
-        try {
-            for (String key : monsters.keySet()) {
-                monster = (Monster) monsters.get(key);
-                if (!monster.getName().equals("Pig") && !monster.getName().equals("BlueThorn") && !monster.getName().equals("VineThorn")) {
-                    if (monster.getIsInPanel()) {
-                        double distance = p.distance(monster.getCenterPoint());
-                        if (distance < closestDistance || closestDistance == 0) {
-                            closestMonster = monster;
-                            closestDistance = distance;
-                        }
-                    }
-                }
-            }
-        } catch (ConcurrentModificationException concEx) {
-            //another thread was trying to modify monsters while iterating
-            //we'll continue and the new item can be grabbed on the next update
-        }
-
-        return closestMonster;
+        //nothing in the panel is farther away than its farthest corner
+        Rectangle panel = getPanelRect();
+        long dx = Math.max(Math.abs(p.x - panel.x), Math.abs(panel.x + panel.width - p.x));
+        long dy = Math.max(Math.abs(p.y - panel.y), Math.abs(panel.y + panel.height - p.y));
+        return getClosestWithinMax(p, (int) Math.ceil(Math.sqrt(dx * dx + dy * dy)));
     }
 
-    public Monster getClosestWithinMax(Point p, int r) {
-        Monster monster = null;
-        Monster closestMonster = null;
-
-        double closestDistance = 0;
+    public Monster getClosestWithinMax(final Point p, int r) {
+        return getMonsterIndex().getClosest(p.x, p.y, r, new SpatialIndex.Scorer<Monster>() {
 
-        try {
-            for (String key : monsters.keySet()) {
-                monster = (Monster) monsters.get(key);
+            public double score(Monster monster) {
                 if (!monster.getName().equals("Pig") && !monster.getName().equals("BlueThorn") && !monster.getName().equals("VineThorn")) {
                     if (monster.getIsInPanel()) {
-                        double distance = p.distance(monster.getCenterPoint());
-                        if ((distance < closestDistance || closestDistance == 0) && distance <= r) {
-                            closestMonster = monster;
-                            closestDistance = distance;
-                        }
+                        return p.distance(monster.getCenterPoint());
                     }
                 }
+                return -1;
             }
-        } catch (ConcurrentModificationException concEx) {
-            //another thread was trying to modify monsters while iterating
-            //we'll continue and the new item can be grabbed on the next update
-        }
-
-        return closestMonster;
+        });
     }
 
     public Monster getMostAggroInPanel(Point p) {
@@ -1179,7 +1221,7 @@ public class MonsterManager extends Manager implements Serializable, Cloneable {
                 if (gameController.multiplayerMode == gameController.multiplayerMode.CLIENT && registry.getNetworkThread() != null) {
                     if (registry.getNetworkThread().readyForUpdates()) {
                         EIError.debugMsg("Monster not found - need " + um.id);
-                        registry.getNetworkThread().sendData("send monster data: " + um.id);
+                        registry.getNetworkThread().sendData(TCPMessage.text(Opcode.SEND_MONSTER_DATA, um.id));
                     }
                 }
             }
@@ -383,14 +383,8 @@ public abstract class Oobaboo extends Actor implements Serializable {
 
             BufferedImage im = registry.getImageLoader().getImage(image);
             if (facing == Facing.LEFT) {
-                AffineTransform tx = AffineTransform.getScaleInstance(1, -1);
-                tx = AffineTransform.getScaleInstance(-1, 1);
-                tx.translate(-width, 0);
-                AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                BufferedImage imLeft = op.filter(im, null);
-                if (imLeft != null) {
-                    registry.getPixelizeManager().pixelize(imLeft, mapX, mapY);
-                }
+                BufferedImage imLeft = registry.getImageLoader().getMirroredImage(im);
+                registry.getPixelizeManager().pixelize(imLeft, mapX + width - imLeft.getWidth(), mapY);
             } else {
                 registry.getPixelizeManager().pixelize(im, mapX, mapY);
             }
@@ -441,8 +435,6 @@ public abstract class Oobaboo extends Actor implements Serializable {
         int offsetY = 0;
         BufferedImage im;
         BufferedImage imLeft;
-        AffineTransform tx;
-        AffineTransformOp op;
 
         if (isAnimating) {
             im = registry.getImageLoader().getImage(image, currentAnimationFrame);
@@ -461,14 +453,8 @@ public abstract class Oobaboo extends Actor implements Serializable {
 
         if (im != null) {
             if (facing == Facing.LEFT) {
-                tx = AffineTransform.getScaleInstance(1, -1);
-                tx = AffineTransform.getScaleInstance(-1, 1);
-                tx.translate(-width, 0);
-                op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                imLeft = op.filter(im, null);
-                if (imLeft != null) {
-                    g.drawImage(imLeft, xPos, yPos, null);
-                }
+                imLeft = registry.getImageLoader().getMirroredImage(im);
+                g.drawImage(imLeft, xPos + width - imLeft.getWidth(), yPos, null);
             } else {
                 g.drawImage(im, xPos, yPos, null);
             }
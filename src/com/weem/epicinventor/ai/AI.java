@@ -19,6 +19,10 @@ public class AI implements Serializable {
     private Goal previousGoal;
     private boolean changed;
     private String player;
+    //which updates this thinks on when it isn't on screen, see AIScheduler
+    transient private int bucket = -1;
+    //how often it thinks, worked out again each time it does
+    transient private int interval;
 
     public enum GoalType {
         WANDER, FLEE, FOLLOW, STARE, BOSS_ORC, SNAIL_RIDER, RESOURCE_MONSTER, ATTACK_MOBS, ATTACK_PLAYER, ATTACK_PLAYER_LUNGE, ATTACK_PLAYER_RANGED, ATTACK_PLAYER_RANGED_AGGRESSIVE, ATTACK_PLACEABLE, ATTACK_TOWN, OOBABOO_GATHERER, OOBABOO_HEALER, OOBABOO_WARRIOR
@@ -87,6 +91,28 @@ public class AI implements Serializable {
         process(false);
     }
 
+    /**
+     * Whether this gets to think this update, at full rate when inView or
+     * on any other player's screen and less often the further it is from
+     * every player. Where it stands is only looked at again on updates it
+     * thinks on.
+     */
+    public boolean isDue(boolean inView) {
+        if (inView) {
+            interval = 1;
+            return true;
+        }
+        if (bucket < 0) {
+            bucket = AIScheduler.nextBucket();
+        }
+        if (interval > 0 && !AIScheduler.isDue(bucket, interval, registry.tick)) {
+            return false;
+        }
+        //the intervals divide each other, so a shorter one is due now too
+        interval = AIScheduler.getInterval(registry, actor, false);
+        return AIScheduler.isDue(bucket, interval, registry.tick);
+    }
+
     public void process(boolean skipDecide) {
         if (active) {
             if (!skipDecide) {
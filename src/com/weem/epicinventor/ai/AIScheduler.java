@@ -0,0 +1,40 @@
+package com.weem.epicinventor.ai;
+
+import com.weem.epicinventor.*;
+import com.weem.epicinventor.actor.*;
+import com.weem.epicinventor.actor.monster.*;
+
+/**
+ * Decides which updates an AI gets to think on. Mobs on any player's screen
+ * think every update; ones a player could soon reach think every
+ * NEAR_INTERVAL updates and the rest every FAR_INTERVAL. Each AI is dealt a
+ * bucket in turn when it first asks, and only thinks on updates that land on
+ * its bucket, so the slower ones are spread evenly over the updates rather
+ * than all thinking at once.
+ */
+public class AIScheduler {
+
+    public final static int NEAR_INTERVAL = 4;
+    public final static int FAR_INTERVAL = 16;
+    private static int nextBucket = 0;
+
+    public static synchronized int nextBucket() {
+        int bucket = nextBucket;
+        nextBucket = (nextBucket + 1) % FAR_INTERVAL;
+        return bucket;
+    }
+
+    public static int getInterval(Registry registry, Actor actor, boolean inView) {
+        if (inView || registry.getPlayerManager().isInAnyPlayerView(actor.getPerimeter())) {
+            return 1;
+        }
+        if (registry.getClosestPlayerX(actor.getCenterPoint(), MonsterManager.mobSpawnRangeMax) >= 0) {
+            return NEAR_INTERVAL;
+        }
+        return FAR_INTERVAL;
+    }
+
+    public static boolean isDue(int bucket, int interval, long tick) {
+        return (tick + bucket) % interval == 0;
+    }
+}
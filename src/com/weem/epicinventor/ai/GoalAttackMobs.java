@@ -95,7 +95,7 @@ public class GoalAttackMobs extends Goal {
                 actor.attack();
             }
         } else {
-            actor.moveTowardsPoint(monster.getCenterPoint());
+            actor.moveAlongPath(monster.getCenterPoint());
         }
     }
 
@@ -46,7 +46,9 @@ public class GoalAttackPlaceable extends Goal {
         desire *= bias;
         desire = validateDesire(desire);
         
-        ai.getActor().setDebugInfo(ai.getActor().getDebugInfo() + "Placeable (" + ((int) desire * 100) + ") - " + newTarget.toString() + "|");
+        if (ai.getActor().getShowGoals()) {
+            ai.getActor().setDebugInfo(ai.getActor().getDebugInfo() + "Placeable (" + ((int) desire * 100) + ") - " + newTarget.toString() + "|");
+        }
 
         return desire;
     }
@@ -79,7 +81,7 @@ public class GoalAttackPlaceable extends Goal {
                 if (actor.isAttacking()) {
                     actor.stopAttack();
                 }
-                actor.moveTowardsPoint(currentTarget.getCenterPoint());
+                actor.moveAlongPath(currentTarget.getCenterPoint());
             }
         }
     }
@@ -37,7 +37,9 @@ public class GoalAttackPlayer extends Goal {
         desire *= bias;
         desire = validateDesire(desire);
         
-        ai.getActor().setDebugInfo(ai.getActor().getDebugInfo() + "Player (" + ((int) desire * 100) + ")|");
+        if (ai.getActor().getShowGoals()) {
+            ai.getActor().setDebugInfo(ai.getActor().getDebugInfo() + "Player (" + ((int) desire * 100) + ")|");
+        }
 
         return desire;
     }
@@ -62,7 +64,7 @@ public class GoalAttackPlayer extends Goal {
         if (actor.isFeared() && actor.getFearedSource() != null) {
             actor.moveAwayFromPoint(actor.getFearedSource());
         } else {
-            actor.moveTowardsPoint(player.getCenterPoint());
+            actor.moveAlongPath(player.getCenterPoint());
         }
 
         if (player != null) {
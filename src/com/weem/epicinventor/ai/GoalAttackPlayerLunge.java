@@ -39,7 +39,9 @@ public class GoalAttackPlayerLunge extends Goal {
         desire *= bias;
         desire = validateDesire(desire);
 
-        ai.getActor().setDebugInfo(ai.getActor().getDebugInfo() + "Player (" + ((int) desire * 100) + ")|");
+        if (ai.getActor().getShowGoals()) {
+            ai.getActor().setDebugInfo(ai.getActor().getDebugInfo() + "Player (" + ((int) desire * 100) + ")|");
+        }
 
         return desire;
     }
@@ -65,7 +67,7 @@ public class GoalAttackPlayerLunge extends Goal {
             actor.moveAwayFromPoint(actor.getFearedSource());
         } else {
             if (actor.getCenterPoint().distance(player.getCenterPoint()) > actor.getMaxLungeRange()) {
-                actor.moveTowardsPoint(player.getCenterPoint());
+                actor.moveAlongPath(player.getCenterPoint());
             } else {
                 if (actor.getCenterPoint().x < player.getCenterPoint().x) {
                     if(actor.getFacing() != Actor.Facing.RIGHT) {
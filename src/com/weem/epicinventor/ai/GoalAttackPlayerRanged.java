@@ -37,7 +37,9 @@ public class GoalAttackPlayerRanged extends Goal {
         desire *= bias;
         desire = validateDesire(desire);
         
-        ai.getActor().setDebugInfo(ai.getActor().getDebugInfo() + "Player (" + ((int) desire * 100) + ")|");
+        if (ai.getActor().getShowGoals()) {
+            ai.getActor().setDebugInfo(ai.getActor().getDebugInfo() + "Player (" + ((int) desire * 100) + ")|");
+        }
 
         return desire;
     }
@@ -63,7 +65,7 @@ public class GoalAttackPlayerRanged extends Goal {
             actor.moveAwayFromPoint(actor.getFearedSource());
         } else {
             if(actor.getCenterPoint().distance(player.getCenterPoint()) > actor.getMaxShootRange()) {
-                actor.moveTowardsPoint(player.getCenterPoint());
+                actor.moveAlongPath(player.getCenterPoint());
             } else {
                 if(actor.isMoving()) {
                     actor.stopMove();
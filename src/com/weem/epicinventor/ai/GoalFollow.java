@@ -67,7 +67,7 @@ public class GoalFollow extends Goal {
         
         Point p = player.getCenterPoint();
         
-        actor.moveTowardsPoint(player.getCenterPoint());
+        actor.moveAlongPath(player.getCenterPoint());
     }
 
     @Override
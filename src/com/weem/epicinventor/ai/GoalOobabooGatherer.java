@@ -17,9 +17,11 @@ public class GoalOobabooGatherer extends Goal {
     private int healRange = 512;
     private int targetFollowDistance = 100;
     private int maxFollowDistance = 1000;
+    private int searchDistance = 3000;
     private long nextMove = 0;
     private Point searchPoint;
     private double lastDistance;
+    private int lastMapX, lastMapY, lastPathIndex;
     private int stillMovements = 0;
 
     public enum OobabooGathererState {
@@ -70,12 +72,15 @@ public class GoalOobabooGatherer extends Goal {
 
         switch (oobabooGathererState) {
             case MOVING_TOWARDS_RESOURCE:
-                Resource r = registry.getResourceManager().getClosest(actor.getCenterPoint());
+                Resource r = registry.getResourceManager().getClosest(actor.getCenterPoint(), searchDistance);
 
                 if (r == null) {
-                    actor.stopMove();
+                    //nothing nearby, move right and then check again
+                    nextMove = 0;
+                    searchPoint = new Point(actor.getMapX() + searchDistance, actor.getMapY());
+                    oobabooGathererState = OobabooGathererState.KEEP_SEARCHING;
                 } else {
-                    actor.moveTowardsPoint(r.getCenterPoint());
+                    actor.moveAlongPath(r.getCenterPoint());
 
                     Point p = player.getCenterPoint();
                     double distance = r.getCenterPoint().distance(actor.getCenterPoint());
@@ -84,22 +89,25 @@ public class GoalOobabooGatherer extends Goal {
                         actor.stopMove();
                         nextMove = 0;
                         oobabooGathererState = OobabooGathererState.ARRIVING;
-                    } else if (distance >= lastDistance && lastDistance > 0) {
-                        stillMovements++;
-                        if (stillMovements >= 2) {
+                    } else if (actor.hasPath()) {
+                        //getting closer along a route even when the straight line distance isn't
+                        if (actor.getMapX() != lastMapX || actor.getMapY() != lastMapY || actor.getPathIndex() != lastPathIndex) {
                             stillMovements = 0;
-                            //he hasn't found a resource in 15 seconds, move right and then check again
-                            nextMove = 0;
-                            searchPoint = new Point(actor.getMapX() + 3000, actor.getMapY());
-                            oobabooGathererState = OobabooGathererState.KEEP_SEARCHING;
+                        } else if (lastDistance > 0) {
+                            addStillMovement(actor);
                         }
+                    } else if (distance >= lastDistance && lastDistance > 0) {
+                        addStillMovement(actor);
                     }
 
                     lastDistance = distance;
+                    lastMapX = actor.getMapX();
+                    lastMapY = actor.getMapY();
+                    lastPathIndex = actor.getPathIndex();
                 }
                 break;
             case KEEP_SEARCHING:
-                actor.moveTowardsPoint(searchPoint);
+                actor.moveAlongPath(searchPoint);
                 if (nextMove == 0) {
                     nextMove = registry.currentTime + Rand.getRange(10000, 15000);
                 } else {
@@ -150,6 +158,17 @@ public class GoalOobabooGatherer extends Goal {
         }
     }
 
+    private void addStillMovement(Actor actor) {
+        stillMovements++;
+        if (stillMovements >= 2) {
+            stillMovements = 0;
+            //there's no way to the resource from here, move right and then check again
+            nextMove = 0;
+            searchPoint = new Point(actor.getMapX() + searchDistance, actor.getMapY());
+            oobabooGathererState = OobabooGathererState.KEEP_SEARCHING;
+        }
+    }
+
     private void turnAround(Actor actor) {
         if (actor != null) {
             if (actor.getFacing() == Actor.Facing.RIGHT) {
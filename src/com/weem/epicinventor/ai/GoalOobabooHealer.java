@@ -88,7 +88,7 @@ public class GoalOobabooHealer extends Goal {
                 actor.checkCollide(0);
                 break;
             case FOLLOWING:
-                actor.moveTowardsPoint(player.getCenterPoint());
+                actor.moveAlongPath(player.getCenterPoint());
 
                 if (distance <= healRange && player.getHitPointPercentage() < 100) {
                     //if player is low on life, try to heal
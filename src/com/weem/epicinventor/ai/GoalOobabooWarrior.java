@@ -103,7 +103,7 @@ public class GoalOobabooWarrior extends Goal {
                 actor.checkCollide(0);
                 break;
             case FOLLOWING:
-                actor.moveTowardsPoint(player.getCenterPoint());
+                actor.moveAlongPath(player.getCenterPoint());
 
                 if (!currentTarget.equals("")) {
                     actor.stopMove();
@@ -136,7 +136,7 @@ public class GoalOobabooWarrior extends Goal {
                             actor.attack();
                         }
                     } else {
-                        actor.moveTowardsPoint(monster.getCenterPoint());
+                        actor.moveAlongPath(monster.getCenterPoint());
                     }
                 }
                 break;
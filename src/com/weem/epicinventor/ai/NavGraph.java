@@ -0,0 +1,127 @@
+package com.weem.epicinventor.ai;
+
+import com.weem.epicinventor.world.block.*;
+
+/**
+ * Where on the map something can stand, kept per BlockChunkStore chunk. For
+ * every open tile with a solid one under it this holds how many open tiles
+ * are stacked from it upward, so a path search can tell in one lookup if an
+ * actor of a given height fits there. Each chunk remembers the versions of
+ * itself and the chunks above and below it that it was worked out from, and
+ * is worked out again the next time it's asked for after a setBlock changes
+ * any of them.
+ *
+ * Only the path finding thread uses this, so none of it is synchronized.
+ */
+public class NavGraph {
+
+    //tallest opening that's measured, anything taller counts as this
+    public final static int MAX_CLEARANCE = 15;
+    private final static int CHUNK_SIZE = BlockChunkStore.CHUNK_SIZE;
+    private BlockManager blockManager;
+    private BlockChunkStore tiles;
+    private int cols, rows;
+    private int chunkCols, chunkRows;
+    private byte[][] clearance;
+    private int[][] versions;
+
+    public NavGraph(BlockManager bm) {
+        blockManager = bm;
+    }
+
+    public BlockManager getBlockManager() {
+        return blockManager;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Starts over if the world has been swapped out for another one since
+     * the last call.
+     */
+    public boolean refresh(BlockManager bm) {
+        if (bm == null || bm.getTiles() == null) {
+            return false;
+        }
+        if (bm != blockManager || bm.getTiles() != tiles) {
+            blockManager = bm;
+            tiles = bm.getTiles();
+            cols = tiles.getCols();
+            rows = tiles.getRows();
+            chunkCols = tiles.getChunkCols();
+            chunkRows = tiles.getChunkRows();
+            clearance = new byte[chunkCols * chunkRows][];
+            versions = new int[chunkCols * chunkRows][];
+        }
+        return true;
+    }
+
+    public boolean isOpen(int x, int y) {
+        return x >= 0 && x < cols && y >= 0 && y < rows && !blockManager.isSolid(tiles.get(x, y));
+    }
+
+    /**
+     * How many open tiles there are from x, y up if something can stand
+     * there, or 0 if it can't.
+     */
+    public int getClearance(int x, int y) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
+            return 0;
+        }
+        byte[] chunk = getChunk(x / CHUNK_SIZE, y / CHUNK_SIZE);
+        return chunk[(x % CHUNK_SIZE) * CHUNK_SIZE + (y % CHUNK_SIZE)];
+    }
+
+    /**
+     * True if the h tiles from x, y up are all open.
+     */
+    public boolean isOpen(int x, int y, int h) {
+        for (int i = 0; i < h; i++) {
+            if (!isOpen(x, y + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] getChunk(int cx, int cy) {
+        int c = cx * chunkRows + cy;
+        int[] v = versions[c];
+        int self = tiles.getChunkVersion(cx, cy);
+        int below = tiles.getChunkVersion(cx, cy - 1);
+        int above = tiles.getChunkVersion(cx, cy + 1);
+        if (clearance[c] != null && v[0] == self && v[1] == below && v[2] == above) {
+            return clearance[c];
+        }
+
+        byte[] chunk = clearance[c];
+        if (chunk == null) {
+            chunk = new byte[CHUNK_SIZE * CHUNK_SIZE];
+            clearance[c] = chunk;
+            versions[c] = v = new int[3];
+        }
+        for (int x = 0; x < CHUNK_SIZE; x++) {
+            int mapX = cx * CHUNK_SIZE + x;
+            for (int y = 0; y < CHUNK_SIZE; y++) {
+                int mapY = cy * CHUNK_SIZE + y;
+                int open = 0;
+                if (mapY > 0 && !isOpen(mapX, mapY - 1)) {
+                    while (open < MAX_CLEARANCE && isOpen(mapX, mapY + open)) {
+                        open++;
+                    }
+                }
+                chunk[x * CHUNK_SIZE + y] = (byte) open;
+            }
+        }
+        v[0] = self;
+        v[1] = below;
+        v[2] = above;
+        return chunk;
+    }
+}
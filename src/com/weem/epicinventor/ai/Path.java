@@ -0,0 +1,135 @@
+package com.weem.epicinventor.ai;
+
+import com.weem.epicinventor.world.block.*;
+
+import java.awt.*;
+import java.util.*;
+
+/**
+ * A route the PathFinder found, as the tiles to stand on one after another.
+ * Any actor standing on one of its tiles can follow the rest of it, so one
+ * path is handed to everything heading for the same place. A path only
+ * reaching part of the way is kept as well, ending as close as the search
+ * got. It stops being valid once a setBlock touches any chunk it crosses.
+ */
+public class Path {
+
+    private int[] xs, ys;
+    private boolean[] jumps;
+    private boolean complete;
+    private HashMap<Integer, Integer> indexes = new HashMap<Integer, Integer>();
+    private BlockChunkStore tiles;
+    private int[] chunks;
+    private int[] versions;
+    private long created;
+
+    public Path(int[] x, int[] y, boolean[] j, boolean c, BlockChunkStore t, int clearance, long time) {
+        xs = x;
+        ys = y;
+        jumps = j;
+        complete = c;
+        tiles = t;
+        created = time;
+
+        for (int i = 0; i < xs.length; i++) {
+            indexes.put(Integer.valueOf(PathFinder.getNode(xs[i], ys[i])), Integer.valueOf(i));
+        }
+
+        //every chunk the route or the room above it is in
+        ArrayList<Integer> found = new ArrayList<Integer>();
+        for (int i = 0; i < xs.length; i++) {
+            int cx = xs[i] / BlockChunkStore.CHUNK_SIZE;
+            int top = Math.min((ys[i] + clearance) / BlockChunkStore.CHUNK_SIZE, tiles.getChunkRows() - 1);
+            for (int cy = (ys[i] - 1) / BlockChunkStore.CHUNK_SIZE; cy <= top; cy++) {
+                Integer chunk = Integer.valueOf(cx * tiles.getChunkRows() + cy);
+                if (!found.contains(chunk)) {
+                    found.add(chunk);
+                }
+            }
+        }
+        chunks = new int[found.size()];
+        versions = new int[found.size()];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = found.get(i).intValue();
+            versions[i] = tiles.getChunkVersion(chunks[i] / tiles.getChunkRows(), chunks[i] % tiles.getChunkRows());
+        }
+    }
+
+    public int getLength() {
+        return xs.length;
+    }
+
+    public int getX(int i) {
+        return xs[i];
+    }
+
+    public int getY(int i) {
+        return ys[i];
+    }
+
+    /**
+     * True if it gets all the way to where it was asked to go.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * True if getting from step i to the next needs a jump, rather than a
+     * walk, a step up or a drop.
+     */
+    public boolean isJump(int i) {
+        return i >= 0 && i < jumps.length && jumps[i];
+    }
+
+    /**
+     * Where along the path the tile is, or -1 if it isn't on it.
+     */
+    public int indexOf(int node) {
+        Integer i = indexes.get(Integer.valueOf(node));
+        return i == null ? -1 : i.intValue();
+    }
+
+    /**
+     * The next step after i worth heading for, skipping ahead over flat
+     * ground so the actor doesn't stop at every tile.
+     */
+    public int getNextWaypoint(int i) {
+        int next = i + 1;
+        while (next < xs.length - 1
+                && isFlat(next - 1)
+                && isFlat(next)
+                && xs[next + 1] - xs[next] == xs[next] - xs[next - 1]) {
+            next++;
+        }
+        return Math.min(next, xs.length - 1);
+    }
+
+    private boolean isFlat(int i) {
+        return !jumps[i] && ys[i + 1] == ys[i] && Math.abs(xs[i + 1] - xs[i]) == 1;
+    }
+
+    /**
+     * The map position of step i for an actor of the given height, matching
+     * what getCenterPoint returns for it standing there.
+     */
+    public Point getPoint(int i, int height) {
+        return new Point(xs[i] * BlockManager.getBlockWidth() + BlockManager.getBlockWidth() / 2, ys[i] * BlockManager.getBlockHeight() + height / 2);
+    }
+
+    public boolean isValid(BlockChunkStore t) {
+        if (t != tiles) {
+            return false;
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            if (tiles.getChunkVersion(chunks[i] / tiles.getChunkRows(), chunks[i] % tiles.getChunkRows()) != versions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
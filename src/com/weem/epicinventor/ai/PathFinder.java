@@ -0,0 +1,395 @@
+package com.weem.epicinventor.ai;
+
+import com.weem.epicinventor.*;
+import com.weem.epicinventor.actor.*;
+import com.weem.epicinventor.utility.*;
+import com.weem.epicinventor.world.block.*;
+
+import java.awt.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Finds routes over the terrain for actors that walk. Routes are A* searches
+ * over the tiles in a NavGraph, where from each tile an actor can walk or
+ * step to the next column, jump up as high as its jump reaches, drop off a
+ * ledge or jump a gap of a few tiles.
+ *
+ * Searches run on their own thread. getPath hands back a route right away if
+ * one to the same tile is already known and passes where the actor is
+ * standing, and otherwise returns null and starts looking, so the actor
+ * heads straight for its target until a route comes back.
+ */
+public class PathFinder {
+
+    //how far a search may spread before settling for the closest it got
+    private final static int MAX_EXPANSIONS = 8000;
+    private final static int MAX_PENDING = 64;
+    private final static int MAX_PATHS = 256;
+    private final static int MAX_GAP = 3;
+    private final static int MAX_FALL = 24;
+    //how long a route is handed out before it's looked for again
+    private final static long PATH_LIFETIME = 3000;
+    private final static float STEP_COST = 1.0f;
+    private final static float CLIMB_COST = 1.0f;
+    private final static float FALL_COST = 0.5f;
+    private final static float JUMP_COST = 2.0f;
+    private Registry registry;
+    private NavGraph navGraph;
+    private HashMap<String, ArrayList<Path>> paths = new HashMap<String, ArrayList<Path>>();
+    private HashSet<String> pending = new HashSet<String>();
+    private ExecutorService worker;
+
+    private static class Step implements Comparable<Step> {
+
+        int node;
+        float estimate;
+
+        Step(int n, float e) {
+            node = n;
+            estimate = e;
+        }
+
+        public int compareTo(Step s) {
+            return Float.compare(estimate, s.estimate);
+        }
+    }
+
+    public PathFinder(Registry rg) {
+        registry = rg;
+
+        worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "PathFinder");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            }
+        });
+    }
+
+    public static int getNode(int x, int y) {
+        return (x << 16) | y;
+    }
+
+    public static int getNodeX(int node) {
+        return node >>> 16;
+    }
+
+    public static int getNodeY(int node) {
+        return node & 0xFFFF;
+    }
+
+    /**
+     * The tile the actor is standing on, or will land on if it's in the air,
+     * or -1 if there's nothing under it.
+     */
+    public int getNode(Actor actor) {
+        BlockManager bm = registry.getBlockManager();
+        if (bm == null || bm.getTiles() == null) {
+            return -1;
+        }
+        return getGround(bm, (actor.getMapX() + actor.getWidth() / 2) / BlockManager.getBlockWidth(), actor.getMapY() / BlockManager.getBlockHeight());
+    }
+
+    private int getGround(BlockManager bm, int x, int y) {
+        BlockChunkStore tiles = bm.getTiles();
+        if (x < 0 || x >= tiles.getCols()) {
+            return -1;
+        }
+        y = Math.max(0, Math.min(y, tiles.getRows() - 1));
+
+        //sunk a little into the ground
+        for (int i = 0; i < 2 && y < tiles.getRows() - 1 && bm.isSolid(tiles.get(x, y)); i++) {
+            y++;
+        }
+        if (bm.isSolid(tiles.get(x, y))) {
+            return -1;
+        }
+
+        for (int i = 0; i < MAX_FALL; i++) {
+            if (y == 0) {
+                return -1;
+            }
+            if (bm.isSolid(tiles.get(x, y - 1))) {
+                return getNode(x, y);
+            }
+            y--;
+        }
+        return -1;
+    }
+
+    public static int getHeightTiles(Actor actor) {
+        int h = (actor.getHeight() + BlockManager.getBlockHeight() - 1) / BlockManager.getBlockHeight();
+        return Math.max(1, Math.min(h, NavGraph.MAX_CLEARANCE));
+    }
+
+    /**
+     * How many tiles up the actor can get onto with a jump, going by how
+     * jump() and updateJumping() move it.
+     */
+    public static int getJumpTiles(Actor actor) {
+        int rise = 0;
+        if (actor.getGravity() > 0) {
+            for (int v = actor.getStartJumpSize(); v > 0; v -= actor.getGravity()) {
+                rise += v;
+            }
+        }
+        int j = rise / BlockManager.getBlockHeight() - 1;
+        return Math.max(1, Math.min(j, NavGraph.MAX_CLEARANCE));
+    }
+
+    /**
+     * A route from where the actor is standing to the ground under target,
+     * or null if there isn't one yet. Routes that only get part of the way
+     * come back too, check isComplete.
+     */
+    public synchronized Path getPath(Actor actor, Point target) {
+        BlockManager bm = registry.getBlockManager();
+        if (bm == null || bm.getTiles() == null || target == null) {
+            return null;
+        }
+
+        final int start = getNode(actor);
+        final int goal = getGround(bm, target.x / BlockManager.getBlockWidth(), target.y / BlockManager.getBlockHeight());
+        if (start == -1 || goal == -1) {
+            return null;
+        }
+
+        final int h = getHeightTiles(actor);
+        final int j = getJumpTiles(actor);
+        final String key = goal + ":" + h + ":" + j;
+        final long time = registry.currentTime;
+
+        ArrayList<Path> known = paths.get(key);
+        if (known != null) {
+            for (int i = known.size() - 1; i >= 0; i--) {
+                Path path = known.get(i);
+                if (!path.isValid(bm.getTiles()) || time - path.getCreated() > PATH_LIFETIME) {
+                    known.remove(i);
+                } else if (path.indexOf(start) >= 0) {
+                    return path;
+                }
+            }
+            if (known.isEmpty()) {
+                paths.remove(key);
+            }
+        }
+
+        final String request = key + ":" + start;
+        if (pending.size() < MAX_PENDING && pending.add(request)) {
+            worker.submit(new Runnable() {
+
+                public void run() {
+                    search(key, request, start, goal, h, j, time);
+                }
+            });
+        }
+        return null;
+    }
+
+    private void search(String key, String request, int start, int goal, int h, int j, long time) {
+        Path path = null;
+        try {
+            if (navGraph == null) {
+                navGraph = new NavGraph(registry.getBlockManager());
+            }
+            if (navGraph.refresh(registry.getBlockManager())) {
+                path = findPath(start, goal, h, j, time);
+            }
+        } catch (Exception e) {
+            EIError.debugMsg("Path search failed " + e.getMessage(), EIError.ErrorLevel.Warning);
+        }
+
+        synchronized (this) {
+            pending.remove(request);
+            if (path != null) {
+                if (paths.size() >= MAX_PATHS) {
+                    removeExpired(time);
+                }
+                ArrayList<Path> known = paths.get(key);
+                if (known == null) {
+                    known = new ArrayList<Path>();
+                    paths.put(key, known);
+                }
+                known.add(path);
+            }
+        }
+    }
+
+    private void removeExpired(long time) {
+        Iterator<ArrayList<Path>> it = paths.values().iterator();
+        while (it.hasNext()) {
+            ArrayList<Path> known = it.next();
+            for (int i = known.size() - 1; i >= 0; i--) {
+                if (time - known.get(i).getCreated() > PATH_LIFETIME) {
+                    known.remove(i);
+                }
+            }
+            if (known.isEmpty()) {
+                it.remove();
+            }
+        }
+        if (paths.size() >= MAX_PATHS) {
+            paths.clear();
+        }
+    }
+
+    private Path findPath(int start, int goal, int h, int j, long time) {
+        int goalX = getNodeX(goal);
+        int goalY = getNodeY(goal);
+
+        HashMap<Integer, Float> costs = new HashMap<Integer, Float>();
+        HashMap<Integer, Integer> parents = new HashMap<Integer, Integer>();
+        HashSet<Integer> jumpedTo = new HashSet<Integer>();
+        HashSet<Integer> closed = new HashSet<Integer>();
+        PriorityQueue<Step> open = new PriorityQueue<Step>();
+
+        int size = 2 * (j + 2 + MAX_GAP * 4);
+        int[] nodes = new int[size];
+        float[] stepCosts = new float[size];
+        boolean[] jumps = new boolean[size];
+
+        costs.put(start, 0f);
+        open.add(new Step(start, estimate(start, goalX, goalY)));
+        int closest = start;
+        float closestEstimate = estimate(start, goalX, goalY);
+        boolean found = false;
+
+        while (!open.isEmpty() && closed.size() < MAX_EXPANSIONS) {
+            int node = open.poll().node;
+            if (!closed.add(node)) {
+                continue;
+            }
+            if (node == goal) {
+                found = true;
+                break;
+            }
+
+            float e = estimate(node, goalX, goalY);
+            if (e < closestEstimate) {
+                closest = node;
+                closestEstimate = e;
+            }
+
+            float cost = costs.get(node);
+            int count = expand(getNodeX(node), getNodeY(node), h, j, nodes, stepCosts, jumps);
+            for (int i = 0; i < count; i++) {
+                Integer next = nodes[i];
+                if (closed.contains(next)) {
+                    continue;
+                }
+                float nextCost = cost + stepCosts[i];
+                Float known = costs.get(next);
+                if (known == null || nextCost < known) {
+                    costs.put(next, nextCost);
+                    parents.put(next, node);
+                    if (jumps[i]) {
+                        jumpedTo.add(next);
+                    } else {
+                        jumpedTo.remove(next);
+                    }
+                    open.add(new Step(next, nextCost + estimate(next, goalX, goalY)));
+                }
+            }
+        }
+
+        ArrayList<Integer> route = new ArrayList<Integer>();
+        Integer node = found ? goal : closest;
+        while (node != null) {
+            route.add(node);
+            node = parents.get(node);
+        }
+        Collections.reverse(route);
+
+        int[] xs = new int[route.size()];
+        int[] ys = new int[route.size()];
+        boolean[] routeJumps = new boolean[route.size() - 1];
+        for (int i = 0; i < route.size(); i++) {
+            xs[i] = getNodeX(route.get(i));
+            ys[i] = getNodeY(route.get(i));
+            if (i > 0) {
+                routeJumps[i - 1] = jumpedTo.contains(route.get(i));
+            }
+        }
+        return new Path(xs, ys, routeJumps, found, navGraph.getBlockManager().getTiles(), h + 1, time);
+    }
+
+    private float estimate(int node, int goalX, int goalY) {
+        return Math.abs(getNodeX(node) - goalX) * STEP_COST + Math.abs(getNodeY(node) - goalY) * FALL_COST;
+    }
+
+    /**
+     * Fills in where an actor h tiles tall that can jump j tiles can get to
+     * from x, y in one move, and returns how many places that is.
+     */
+    private int expand(int x, int y, int h, int j, int[] nodes, float[] stepCosts, boolean[] jumps) {
+        int count = 0;
+
+        for (int dir = -1; dir <= 1; dir += 2) {
+            int nx = x + dir;
+
+            //walk, step up or jump up onto the next column
+            for (int k = 0; k <= j; k++) {
+                if (!navGraph.isOpen(x, y + h + k - 1)) {
+                    break;
+                }
+                if (navGraph.getClearance(nx, y + k) >= h) {
+                    nodes[count] = getNode(nx, y + k);
+                    stepCosts[count] = STEP_COST + k * CLIMB_COST;
+                    jumps[count] = k > 1;
+                    count++;
+                }
+            }
+
+            if (navGraph.getClearance(nx, y) > 0 || !navGraph.isOpen(nx, y, h)) {
+                continue;
+            }
+
+            //drop off the edge
+            for (int ny = y - 1; ny >= 0 && ny >= y - MAX_FALL; ny--) {
+                int c = navGraph.getClearance(nx, ny);
+                if (c > 0) {
+                    if (c >= h) {
+                        nodes[count] = getNode(nx, ny);
+                        stepCosts[count] = STEP_COST + (y - ny) * FALL_COST;
+                        jumps[count] = false;
+                        count++;
+                    }
+                    break;
+                }
+                if (!navGraph.isOpen(nx, ny)) {
+                    break;
+                }
+            }
+
+            //or jump the gap
+            if (!navGraph.isOpen(x, y, h + 1)) {
+                continue;
+            }
+            for (int d = 2; d <= MAX_GAP; d++) {
+                if (!navGraph.isOpen(x + dir * (d - 1), y, h + 1)) {
+                    break;
+                }
+                int gx = x + dir * d;
+                boolean landed = false;
+                for (int ny = y + 1; ny >= y - 2 && ny >= 0; ny--) {
+                    if (navGraph.getClearance(gx, ny) >= h && navGraph.isOpen(gx, Math.max(ny, y), h)) {
+                        nodes[count] = getNode(gx, ny);
+                        stepCosts[count] = d * STEP_COST + JUMP_COST;
+                        jumps[count] = true;
+                        count++;
+                        landed = true;
+                        break;
+                    }
+                }
+                if (landed) {
+                    break;
+                }
+            }
+        }
+
+        return count;
+    }
+}
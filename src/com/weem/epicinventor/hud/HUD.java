@@ -1,6 +1,7 @@
 package com.weem.epicinventor.hud;
 
 import com.weem.epicinventor.*;
+import com.weem.epicinventor.utility.*;
 
 import java.awt.*;
 import java.awt.image.*;
@@ -258,7 +259,7 @@ public abstract class HUD {
             }
 
             if (bgImage != null) {
-                g.drawImage(bgImage, positionX, positionY, width, height, null);
+                VolatileImageCache.drawImage(g, bgImage, positionX, positionY, width, height);
             }
 
             if (border) {
@@ -1,6 +1,7 @@
 package com.weem.epicinventor.hud;
 
 import com.weem.epicinventor.*;
+import com.weem.epicinventor.utility.*;
 
 import java.awt.*;
 import java.awt.image.*;
@@ -164,11 +165,10 @@ public class HUDArea {
     public void render(Graphics g) {
         if (isActive) {
             if (bgImage != null) {
-                g.drawImage(bgImage,
+                VolatileImageCache.drawImage(g, bgImage,
                         hud.getLocationX() + positionX,
                         hud.getLocationY() + positionY,
-                        width, height,
-                        null);
+                        width, height);
             }
 
             if (fgImage != null) {
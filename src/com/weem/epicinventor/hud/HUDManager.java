@@ -54,6 +54,9 @@ public class HUDManager extends Manager {
     public void loadHUD(HUDType whichHUD) {
         HUD hud = null;
 
+        //start on the rest of this HUD's images while it sets itself up
+        registry.getImageLoader().prefetch("HUD/" + whichHUD.name() + "/");
+
         switch (whichHUD) {
             case ArmorInfo:
                 armorHUD = new HUDArmorInfo(this, registry, (getPWidth() - 264) / 2, 242, 232, 184);
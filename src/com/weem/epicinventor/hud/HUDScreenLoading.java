@@ -19,6 +19,10 @@ public class HUDScreenLoading extends HUD {
     
     @Override
     public void update() {
-        setText(Game.loadingText);
+        if (Game.loadingProgress >= 0) {
+            setText(Game.loadingText + " " + Game.loadingProgress + "%");
+        } else {
+            setText(Game.loadingText);
+        }
     }
 }
\ No newline at end of file
@@ -60,11 +60,16 @@ public class HUDScreenSettings extends HUD {
     private final static int BUTTON_HELP_HEIGHT = 102;
     private final static int BUTTON_HELP_X = 646;
     private final static int BUTTON_HELP_Y = 155;
+    private final static int RENDERING_WIDTH = 119;
+    private final static int RENDERING_HEIGHT = 30;
+    private final static int RENDERING_X = 646;
+    private final static int RENDERING_Y = 170;
     private ArrayList resolutions;
     private int currentResolution;
     private float currentVolumeMusic;
     private float currentVolumeFX;
     private boolean allowSoundChanges;
+    private boolean currentActiveRendering;
 
     public HUDScreenSettings(HUDManager hm, Registry rg, int x, int y, int w, int h) {
         super(hm, rg, x, y, w, h);
@@ -132,6 +137,13 @@ public class HUDScreenSettings extends HUD {
         hudArea = addArea(BUTTON_SAVE_X, BUTTON_SAVE_Y, BUTTON_SAVE_WIDTH, BUTTON_SAVE_HEIGHT, "save");
         hudArea.setImage("HUD/ScreenSettings/ButtonSave");
 
+        //rendering
+        hudArea = addArea(RENDERING_X, RENDERING_Y, RENDERING_WIDTH, RENDERING_HEIGHT, "label_rendering");
+        hudArea.setFont("SansSerif", Font.BOLD, 16);
+        hudArea.setText("Rendering");
+        hudArea = addArea(RENDERING_X, RENDERING_Y + RENDERING_HEIGHT, RENDERING_WIDTH, RENDERING_HEIGHT, "rendering");
+        hudArea.setFont("SansSerif", Font.BOLD, 16);
+
         //donate
         hudArea = addArea(BUTTON_DONATE_X, BUTTON_DONATE_Y, BUTTON_DONATE_WIDTH, BUTTON_DONATE_HEIGHT, "donate");
         hudArea.setImage("HUD/Common/Donate");
@@ -162,6 +174,7 @@ public class HUDScreenSettings extends HUD {
         currentResolution = Settings.resolution;
         currentVolumeMusic = Settings.volumeMusic;
         currentVolumeFX = Settings.volumeFX;
+        currentActiveRendering = Settings.activeRendering;
     }
 
     @Override
@@ -178,6 +191,8 @@ public class HUDScreenSettings extends HUD {
                     hudArea.setText(Integer.toString((int) currentVolumeMusic));
                 } else if (hudArea.getType().equals("sound")) {
                     hudArea.setText(Integer.toString((int) currentVolumeFX));
+                } else if (hudArea.getType().equals("rendering")) {
+                    hudArea.setText(currentActiveRendering ? "Accelerated" : "Standard");
                 }
             }
         }
@@ -226,12 +241,16 @@ public class HUDScreenSettings extends HUD {
                         currentVolumeFX = 0;
                     }
                     SoundClip cl = new SoundClip("Projectile/Arrow", currentVolumeFX);
+                } else if (hudArea.getType().equals("rendering")) {
+                    currentActiveRendering = !currentActiveRendering;
                 } else if (hudArea.getType().equals("keys")) {
                     hudManager.loadHUD(HUDManager.HUDType.ScreenKeys);
                 } else if (hudArea.getType().equals("save")) {
                     Settings.resolution = currentResolution;
                     Settings.volumeMusic = (int) currentVolumeMusic;
                     Settings.volumeFX = (int) currentVolumeFX;
+                    Settings.activeRendering = currentActiveRendering;
+                    registry.getGameController().getGamePanel().setActiveRendering(currentActiveRendering);
                     registry.isSaving = false;
                     Settings.save();
                     hudManager.updateMusicVolume();
@@ -2,6 +2,7 @@ package com.weem.epicinventor.indicator;
 
 import com.weem.epicinventor.*;
 import com.weem.epicinventor.drop.*;
+import com.weem.epicinventor.utility.*;
 
 import java.awt.*;
 import java.util.ArrayList;
@@ -19,23 +20,23 @@ public class IndicatorManager extends Manager {
     }
 
     public void createIndicator(int x, int y, String text) {
-        indicators.add(new Indicator(registry, this, x, y, "", text, Color.RED, false));
+        addIndicator(new Indicator(registry, this, x, y, "", text, Color.RED, false));
     }
 
     public void createXPIndicator(int x, int y, String text) {
-        indicators.add(new Indicator(registry, this, x, y, "", text, Color.MAGENTA, true));
+        addIndicator(new Indicator(registry, this, x, y, "", text, Color.MAGENTA, true));
     }
 
     public void createNegativeXPIndicator(int x, int y, String text) {
-        indicators.add(new Indicator(registry, this, x, y, "", text, Color.RED, true));
+        addIndicator(new Indicator(registry, this, x, y, "", text, Color.RED, true));
     }
 
     public void createIndicator(int x, int y, String text, Color c) {
-        indicators.add(new Indicator(registry, this, x, y, "", text, c, false));
+        addIndicator(new Indicator(registry, this, x, y, "", text, c, false));
     }
 
     public void createImageIndicator(int x, int y, String image) {
-        indicators.add(new Indicator(registry, this, x, y, "Items/" + image, "", Color.RED, false));
+        addIndicator(new Indicator(registry, this, x, y, "Items/" + image, "", Color.RED, false));
     }
 
     public void createIndicator(int x, int y, ArrayList<Drop> drops) {
@@ -46,11 +47,23 @@ public class IndicatorManager extends Manager {
             for (int i = 0; i < drops.size(); i++) {
                 Drop d = drops.get(i);
                 int newXPos = x + (i * DROP_WIDTH) + (i * DROP_SPACING);
-                indicators.add(new Indicator(registry, this, newXPos, y, "Items/" + d.getItemName(), "", Color.RED, false));
+                addIndicator(new Indicator(registry, this, newXPos, y, "Items/" + d.getItemName(), "", Color.RED, false));
             }
         }
     }
 
+    private void addIndicator(final Indicator indicator) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                addIndicator(indicator);
+            }
+        })) {
+            return;
+        }
+        indicators.add(indicator);
+    }
+
     @Override
     public void update() {
         super.update();
@@ -0,0 +1,120 @@
+package com.weem.epicinventor.network;
+
+import java.io.*;
+import java.util.zip.*;
+
+/**
+ * One range of map columns on its way to a joining client. The tiles are
+ * walked column by column, stored as runs of (block id, run length) and then
+ * deflated, which shrinks the mostly air and dirt map to a small fraction of
+ * the raw short[][].
+ */
+public class BlockColumnData implements Serializable {
+
+    protected static final long serialVersionUID = 10000L;
+    public int startColumn;
+    public int columnCount;
+    public int rows;
+    public int index;
+    public int total;
+    public int spawnCount;
+    private byte[] data;
+
+    public BlockColumnData(int sc, int cc, int r, int i, int t, int s) {
+        startColumn = sc;
+        columnCount = cc;
+        rows = r;
+        index = i;
+        total = t;
+        spawnCount = s;
+    }
+
+    public boolean isSpawnArea() {
+        return index < spawnCount;
+    }
+
+    public void setColumns(short[][] columns, Deflater deflater) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        deflater.reset();
+        DeflaterOutputStream zip = new DeflaterOutputStream(bytes, deflater, 4096);
+        DataOutputStream out = new DataOutputStream(zip);
+
+        short current = 0;
+        int run = 0;
+        for (int x = 0; x < columnCount; x++) {
+            for (int y = 0; y < rows; y++) {
+                short id = columns[x][y];
+                if (run > 0 && id != current) {
+                    writeRun(out, current, run);
+                    run = 0;
+                }
+                current = id;
+                run++;
+            }
+        }
+        if (run > 0) {
+            writeRun(out, current, run);
+        }
+        out.flush();
+        zip.finish();
+
+        data = bytes.toByteArray();
+    }
+
+    public short[][] getColumns() throws IOException {
+        DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)));
+        short[][] columns = new short[columnCount][rows];
+
+        int x = 0;
+        int y = 0;
+        int remaining = columnCount * rows;
+        while (remaining > 0) {
+            short id = in.readShort();
+            int run = readVarInt(in);
+            remaining -= run;
+            while (run-- > 0) {
+                columns[x][y] = id;
+                if (++y == rows) {
+                    y = 0;
+                    x++;
+                }
+            }
+        }
+        in.close();
+
+        return columns;
+    }
+
+    public int getCompressedSize() {
+        return data == null ? 0 : data.length;
+    }
+
+    private static void writeRun(DataOutputStream out, short id, int run) throws IOException {
+        out.writeShort(id);
+        while ((run & ~0x7F) != 0) {
+            out.writeByte((run & 0x7F) | 0x80);
+            run >>>= 7;
+        }
+        out.writeByte(run);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int v = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return v;
+    }
+
+    private void readObject(ObjectInputStream aInputStream) throws Exception {
+        aInputStream.defaultReadObject();
+    }
+
+    private void writeObject(ObjectOutputStream aOutputStream) throws Exception {
+        aOutputStream.defaultWriteObject();
+    }
+}
@@ -11,6 +11,7 @@ import com.weem.epicinventor.world.block.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.*;
 
 class ClientReceiveThread extends Thread {
 
@@ -24,6 +25,11 @@ class ClientReceiveThread extends Thread {
     protected volatile boolean running = true;
     protected int totalReceived = 0;
     protected int totalReceivedCount = 0;
+    private UDPCodec codec;
+    private UDPDeltaReceiver deltaReceiver;
+    private boolean hasTick;
+    private int lastTick;
+    private byte[] receiveBuf = new byte[UDPCodec.MAX_PACKET_SIZE];
     protected int pl = 0;
     protected int pl_count = 0;
     protected int rb = 0;
@@ -41,6 +47,8 @@ class ClientReceiveThread extends Thread {
         registry = r;
         gameController = gc;
         socket = s;
+        codec = new UDPCodec(r);
+        deltaReceiver = new UDPDeltaReceiver(codec);
         try {
             address = InetAddress.getByName(a);
         } catch (IOException e) {
@@ -71,46 +79,38 @@ class ClientReceiveThread extends Thread {
     public synchronized void receivePacket() {
         try {
             //receive server packet
-            byte[] buf = new byte[4112];
-            packet = new DatagramPacket(buf, buf.length);
+            if (packet == null) {
+                packet = new DatagramPacket(receiveBuf, receiveBuf.length);
+            }
+            packet.setLength(receiveBuf.length);
             socket.receive(packet);
 
             int byteCount = packet.getLength();
             //totalReceived += byteCount;
             //totalReceivedCount++;
             //System.out.println(totalReceivedCount + ": " + totalReceived);
-            ByteArrayInputStream byteStream = new ByteArrayInputStream(buf);
-            ObjectInputStream is = new ObjectInputStream(new BufferedInputStream(byteStream));
-            Object o = is.readObject();
+            ByteBuffer buf = ByteBuffer.wrap(receiveBuf, 0, byteCount);
 
             //System.out.println("Client Receiving Data: " + o);
 
             if (gameController.multiplayerMode != gameController.multiplayerMode.NONE && registry.getNetworkThread() != null) {
                 //System.out.println("Client Receive: " + port);
-                if (o.getClass().equals(UDPPlayer.class)) {
-                    //pl += byteCount;
-                    //pl_count++;
-                    registry.getPlayerManager().processPlayerUpdateUDP((UDPPlayer) o);
-                } else if (o.getClass().equals(UDPRobot.class)) {
-                    //rb += byteCount;
-                    //rb_count++;
-                    registry.getPlayerManager().processRobotUpdateUDP((UDPRobot) o);
-                } else if (o.getClass().equals(UDPOobaboo.class)) {
-                    //oo += byteCount;
-                    //oo_count++;
-                    registry.getPlayerManager().processOobabooUpdateUDP((UDPOobaboo) o);
-                } else if (o.getClass().equals(UDPPlaceable.class)) {
-                    //pb += byteCount;
-                    //pb_count++;
-                    registry.getPlaceableManager().processPlaceableUpdateUDP((UDPPlaceable) o);
-                } else if (o.getClass().equals(UDPMonster.class)) {
-                    //mb += byteCount;
-                    //mb_count++;
-                    registry.getMonsterManager().processMonsterUpdateUDP((UDPMonster) o);
-                } else if (o.getClass().equals(UDPResource.class)) {
-                    //rs += byteCount;
-                    //rs_count++;
-                    registry.getResourceManager().processResourceUpdateUDP((UDPResource) o);
+                if (buf.get(0) == UDPCodec.TYPE_BATCH) {
+                    buf.get();
+                    int tick = UDPCodec.readVarInt(buf);
+                    if (hasTick && tick - lastTick < 0) {
+                        //arrived after a newer batch, its state is already stale
+                        return;
+                    }
+                    hasTick = true;
+                    lastTick = tick;
+                    while (buf.hasRemaining()) {
+                        int length = UDPCodec.readVarInt(buf);
+                        processUpdate(deltaReceiver.decode(ByteBuffer.wrap(receiveBuf, buf.position(), length)));
+                        buf.position(buf.position() + length);
+                    }
+                } else {
+                    processUpdate(deltaReceiver.decode(buf));
                 }
             } else {
                 setRunning(false);
@@ -130,4 +130,37 @@ class ClientReceiveThread extends Thread {
          * + ": " + rs + ")");
          */
     }
-}
\ No newline at end of file
+
+    private void processUpdate(Object o) {
+        if (o == null) {
+            //delta against a keyframe we missed
+            return;
+        }
+
+        if (o.getClass().equals(UDPPlayer.class)) {
+            //pl += byteCount;
+            //pl_count++;
+            registry.getPlayerManager().processPlayerUpdateUDP((UDPPlayer) o);
+        } else if (o.getClass().equals(UDPRobot.class)) {
+            //rb += byteCount;
+            //rb_count++;
+            registry.getPlayerManager().processRobotUpdateUDP((UDPRobot) o);
+        } else if (o.getClass().equals(UDPOobaboo.class)) {
+            //oo += byteCount;
+            //oo_count++;
+            registry.getPlayerManager().processOobabooUpdateUDP((UDPOobaboo) o);
+        } else if (o.getClass().equals(UDPPlaceable.class)) {
+            //pb += byteCount;
+            //pb_count++;
+            registry.getPlaceableManager().processPlaceableUpdateUDP((UDPPlaceable) o);
+        } else if (o.getClass().equals(UDPMonster.class)) {
+            //mb += byteCount;
+            //mb_count++;
+            registry.getMonsterManager().processMonsterUpdateUDP((UDPMonster) o);
+        } else if (o.getClass().equals(UDPResource.class)) {
+            //rs += byteCount;
+            //rs_count++;
+            registry.getResourceManager().processResourceUpdateUDP((UDPResource) o);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.weem.epicinventor.world.block.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.*;
 
 class ClientSendThread extends Thread {
 
@@ -22,6 +23,8 @@ class ClientSendThread extends Thread {
     protected volatile int port;
     protected volatile boolean running = true;
     protected UDPKeys oldUK;
+    private UDPCodec codec;
+    private ByteBuffer sendBuffer = UDPCodec.allocateBuffer();
 
     public ClientSendThread(Registry r, GameController gc, DatagramSocket s, InetAddress a, int p) {
         registry = r;
@@ -29,6 +32,7 @@ class ClientSendThread extends Thread {
         socket = s;
         address = a;
         port = p;
+        codec = new UDPCodec(r);
         
         System.out.println("ClientSendThread started");
 
@@ -84,17 +88,13 @@ class ClientSendThread extends Thread {
     public void sendPacket(Object o) throws IOException {
         //System.out.println("Client Sending Data: " + o + "(" + address.toString() + ":" + port + ")");
         
-        ByteArrayOutputStream byteStream = new ByteArrayOutputStream(5000);
-        ObjectOutputStream os = new ObjectOutputStream(new BufferedOutputStream(byteStream));
+        sendBuffer.clear();
+        codec.encode(o, sendBuffer);
 
-        os.flush();
-        os.writeObject(o);
-        os.flush();
-
-        byte[] sendBuf = byteStream.toByteArray();
-        DatagramPacket packet = new DatagramPacket(sendBuf, sendBuf.length, address, port);
-        int byteCount = packet.getLength();
+        if (packet == null) {
+            packet = new DatagramPacket(sendBuffer.array(), 0, address, port);
+        }
+        packet.setData(sendBuffer.array(), 0, sendBuffer.position());
         socket.send(packet);
-        os.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.weem.epicinventor.network;
+
+import com.weem.epicinventor.utility.*;
+
+import java.awt.*;
+import java.util.*;
+
+/**
+ * The block of spatial index cells one client is subscribed to. It is worked
+ * out once per send tick from where the client's player stands, and the send
+ * thread then only looks at entities filed in those cells.
+ */
+class InterestArea {
+
+    public final static int RADIUS = 1000;
+    private int cellSize;
+    private int cellX1, cellY1, cellX2, cellY2;
+    private boolean active;
+
+    public InterestArea() {
+        this(SpatialIndex.DEFAULT_CELL_SIZE);
+    }
+
+    public InterestArea(int cs) {
+        cellSize = cs;
+    }
+
+    public void update(Point center) {
+        if (center == null) {
+            active = false;
+            return;
+        }
+        cellX1 = toCell(center.x - RADIUS);
+        cellY1 = toCell(center.y - RADIUS);
+        cellX2 = toCell(center.x + RADIUS);
+        cellY2 = toCell(center.y + RADIUS);
+        active = true;
+    }
+
+    public void clear() {
+        active = false;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public <T> void collect(SpatialIndex<T> index, Collection<T> result) {
+        if (!active || index == null) {
+            return;
+        }
+        if (index.getCellSize() == cellSize) {
+            index.getInCells(cellX1, cellY1, cellX2, cellY2, result);
+        } else {
+            index.getInRect(cellX1 * cellSize, cellY1 * cellSize, (cellX2 - cellX1 + 1) * cellSize, (cellY2 - cellY1 + 1) * cellSize, result);
+        }
+    }
+
+    private int toCell(int v) {
+        return (int) Math.floor((double) v / cellSize);
+    }
+}
@@ -25,7 +25,7 @@ public class NetworkThread extends Thread {
     protected int currentStartCollumn;
     public boolean keepRunning = true;
     public boolean readyForUpdates = false;
-    public ServerReceiveThread serverReceiveThread;
+    public ServerUDPConnection serverUDPConnection;
     public ClientReceiveThread clientReceiveThread;
     protected static int collumnChunkSize;
 
@@ -90,10 +90,9 @@ public class NetworkThread extends Thread {
         try {
             clientSocket = serverSocket.accept();
 
-            DatagramSocket socket = new DatagramSocket(5556);
             System.out.println(port);
-            serverReceiveThread = new ServerReceiveThread(registry, gameController, socket, port);
-            serverReceiveThread.start();
+            serverUDPConnection = new ServerUDPConnection(registry, gameController, 5556);
+            serverUDPConnection.start();
         } catch (IOException e) {
             gameController.showMessage("Error", "Couldn't accept connection...");
             return;
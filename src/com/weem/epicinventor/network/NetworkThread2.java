@@ -34,7 +34,20 @@ public class NetworkThread2 {
         }
     }
 
-    public boolean sendData(Object data) {
+    /**
+     * Sends data to the server or every client. Called during a parallel
+     * update the send is only queued until the update is done, and true
+     * just means it was queued; whether it then went out isn't known.
+     */
+    public boolean sendData(final Object data) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                sendData(data);
+            }
+        })) {
+            return true;
+        }
         if(TCPServerManager != null)
         {
             return TCPServerManager.sendData(data);
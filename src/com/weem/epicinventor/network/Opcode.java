@@ -0,0 +1,116 @@
+package com.weem.epicinventor.network;
+
+import com.weem.epicinventor.actor.*;
+import com.weem.epicinventor.actor.monster.*;
+import com.weem.epicinventor.actor.oobaboo.*;
+import com.weem.epicinventor.placeable.*;
+import com.weem.epicinventor.resource.*;
+import com.weem.epicinventor.world.block.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Every message the TCP connection carries. The ordinal is written as the
+ * first byte of the frame, so both ends must be built from the same list;
+ * add new opcodes at the end.
+ */
+public enum Opcode {
+
+    //requests, with a small binary payload
+    GOODBYE(Payload.NONE),
+    SEND_BLOCK_MANAGER(Payload.NONE),
+    SEND_BLOCK_MANAGER_STREAM(Payload.INT),
+    SEND_PLACEABLE_MANAGER(Payload.NONE),
+    SEND_RESOURCE_MANAGER(Payload.NONE),
+    SEND_MONSTER_MANAGER(Payload.NONE),
+    SEND_PLAYER(Payload.NONE),
+    PLACE(Payload.PLACE),
+    SEND_MONSTER_DATA(Payload.TEXT),
+    SEND_OOBABOO_DATA(Payload.TEXT),
+    SEND_PLACEABLE_DATA(Payload.TEXT),
+    UDP_PORT(Payload.INT),
+    MESSAGE(Payload.TEXT),
+    //game objects, serialized
+    BLOCK_MANAGER(BlockManager.class),
+    BLOCK_COLUMNS(BlockColumnData.class),
+    PLACEABLE_MANAGER(PlaceableManager.class),
+    RESOURCE_MANAGER(ResourceManager.class),
+    MONSTER_MANAGER(MonsterManager.class),
+    PLAYER(Player.class),
+    OOBABOO(Oobaboo.class),
+    MONSTER(Monster.class),
+    PLACEABLE(Placeable.class),
+    RESOURCE(Resource.class),
+    UPDATE_PLAYER(UpdatePlayer.class),
+    UPDATE_MONSTER(UpdateMonster.class),
+    UPDATE_ROBOT(UpdateRobot.class),
+    UPDATE_OOBABOO(UpdateOobaboo.class),
+    UPDATE_PLACEABLE(UpdatePlaceable.class),
+    UPDATE_RESOURCE(UpdateResource.class),
+    UPDATE_PROJECTILE(UpdateProjectile.class),
+    OBJECT(Object.class);
+
+    public enum Payload {
+
+        NONE, INT, TEXT, PLACE, OBJECT
+    }
+    private final static Opcode[] byCode = values();
+    private final static Map<Class<?>, Opcode> byClass = new ConcurrentHashMap<Class<?>, Opcode>();
+    private final Payload payload;
+    private final Class<?> type;
+
+    static {
+        for (Opcode op : byCode) {
+            if (op.type != null) {
+                byClass.put(op.type, op);
+            }
+        }
+    }
+
+    Opcode(Payload p) {
+        payload = p;
+        type = null;
+    }
+
+    Opcode(Class<?> t) {
+        payload = Payload.OBJECT;
+        type = t;
+    }
+
+    public Payload getPayload() {
+        return payload;
+    }
+
+    public byte getCode() {
+        return (byte) ordinal();
+    }
+
+    public static Opcode fromCode(int code) {
+        if (code < 0 || code >= byCode.length) {
+            return null;
+        }
+        return byCode[code];
+    }
+
+    /**
+     * The opcode an object is sent under: its own class if it has one,
+     * otherwise the nearest superclass that does (every monster goes out as
+     * MONSTER). The answer is cached per class.
+     */
+    public static Opcode forClass(Class<?> c) {
+        Opcode op = byClass.get(c);
+        if (op == null) {
+            Class<?> parent = c.getSuperclass();
+            while (op == null && parent != null) {
+                op = byClass.get(parent);
+                parent = parent.getSuperclass();
+            }
+            if (op == null) {
+                op = OBJECT;
+            }
+            byClass.put(c, op);
+        }
+        return op;
+    }
+}
@@ -0,0 +1,164 @@
+package com.weem.epicinventor.network;
+
+import com.weem.epicinventor.*;
+import com.weem.epicinventor.network.*;
+import com.weem.epicinventor.actor.*;
+import com.weem.epicinventor.actor.monster.*;
+import com.weem.epicinventor.hud.*;
+import com.weem.epicinventor.placeable.*;
+import com.weem.epicinventor.resource.*;
+import com.weem.epicinventor.utility.*;
+import com.weem.epicinventor.world.block.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/**
+ * The UDP side of one client connection. The channel is non-blocking and is
+ * driven by whoever owns the selector it is registered with: received key
+ * states are handled in receive() and the world state goes out in tick().
+ * The first datagram from the client tells us where to send.
+ */
+class ServerUDPConnection {
+
+    public final static long TICK_LENGTH = 30;
+    private Registry registry;
+    private GameController gameController;
+    private ServerUpdateSender updateSender;
+    protected DatagramChannel channel;
+    protected volatile InetAddress address;
+    protected volatile int port;
+    protected volatile int clientPort;
+    public volatile boolean running = true;
+    protected int totalReceived = 0;
+    protected int totalReceivedCount = 0;
+    private UDPCodec codec;
+    private ByteBuffer receiveBuffer = UDPCodec.allocateBuffer();
+
+    public ServerUDPConnection(Registry r, GameController gc, int p) throws IOException {
+        registry = r;
+        gameController = gc;
+        codec = new UDPCodec(r);
+        port = p;
+
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().bind(new InetSocketAddress(port));
+
+        updateSender = new ServerUpdateSender(registry, gameController, channel);
+
+        EIError.debugMsg("UDP connection started on port " + port);
+    }
+
+    public void register(Selector selector) throws ClosedChannelException {
+        channel.register(selector, SelectionKey.OP_READ, this);
+    }
+
+    /**
+     * Runs this connection on its own selector thread, for servers that
+     * don't have a shared event loop.
+     */
+    public void start() {
+        Thread t = new Thread() {
+
+            @Override
+            public void run() {
+                try {
+                    Selector selector = Selector.open();
+                    register(selector);
+                    long nextTick = System.currentTimeMillis();
+                    while (running) {
+                        long wait = nextTick - System.currentTimeMillis();
+                        if (wait > 0) {
+                            selector.select(wait);
+                        } else {
+                            selector.selectNow();
+                        }
+                        if (!selector.selectedKeys().isEmpty()) {
+                            selector.selectedKeys().clear();
+                            receive();
+                        }
+                        if (System.currentTimeMillis() >= nextTick) {
+                            tick();
+                            nextTick = System.currentTimeMillis() + TICK_LENGTH;
+                        }
+                    }
+                    selector.close();
+                } catch (IOException e) {
+                    EIError.debugMsg("Network Error: " + e.getMessage());
+                }
+            }
+        };
+        t.start();
+    }
+
+    public void tick() {
+        if (running) {
+            updateSender.sendUpdates();
+        }
+    }
+
+    public void setPlayerId(String id) {
+        updateSender.playerId = id;
+    }
+
+    public void setRunning(boolean r) {
+        running = r;
+        if (!r) {
+            EIError.debugMsg("UDP connection stopped on port " + port);
+            try {
+                channel.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    //reads every datagram waiting on the channel
+    public void receive() {
+        while (running) {
+            try {
+                receiveBuffer.clear();
+                SocketAddress from = channel.receive(receiveBuffer);
+                if (from == null) {
+                    return;
+                }
+
+                if (updateSender.address == null && from instanceof InetSocketAddress) {
+                    address = ((InetSocketAddress) from).getAddress();
+                    clientPort = ((InetSocketAddress) from).getPort();
+                    updateSender.address = address;
+                    updateSender.port = clientPort;
+                }
+
+                //totalReceived += byteCount;
+                //totalReceivedCount++;
+                //System.out.println(totalReceivedCount + ": " + totalReceived);
+                receiveBuffer.flip();
+                Object o = codec.decode(receiveBuffer);
+
+                //System.out.println("Server Receiving Data: " + o);
+
+                if (gameController.multiplayerMode != gameController.multiplayerMode.NONE && registry.getNetworkThread() != null) {
+                    if (o.getClass().equals(UDPKeys.class)) {
+                        registry.getPlayerManager().processKeysUpdateUDP((UDPKeys) o);
+                    } else {
+                        EIError.debugMsg("Unexpected UDP data: " + o);
+                    }
+                } else {
+                    EIError.debugMsg("UDP port " + port + " closing, no multiplayer game running");
+                    setRunning(false);
+                }
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                EIError.debugMsg("Network Error: " + e.getMessage());
+                return;
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.weem.epicinventor.network;
+
+import com.weem.epicinventor.*;
+import com.weem.epicinventor.network.*;
+import com.weem.epicinventor.actor.*;
+import com.weem.epicinventor.actor.monster.*;
+import com.weem.epicinventor.hud.*;
+import com.weem.epicinventor.placeable.*;
+import com.weem.epicinventor.resource.*;
+import com.weem.epicinventor.utility.*;
+import com.weem.epicinventor.world.block.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/**
+ * Builds and sends one client's share of the world state each server tick:
+ * players, robots and oobaboos, plus the monsters, placeables and resources
+ * inside that client's interest area.
+ */
+class ServerUpdateSender {
+
+    private Registry registry;
+    private GameController gameController;
+    protected DatagramChannel channel;
+    public volatile InetAddress address;
+    public volatile int port;
+    protected volatile int playerUpdateID;
+    private UDPCodec codec;
+    private ByteBuffer sendBuffer = UDPCodec.allocateBuffer();
+    private UDPDeltaSender deltaSender;
+    private UDPPacketBuilder packetBuilder;
+    private int tick;
+    private InterestArea interestArea = new InterestArea();
+    protected volatile String playerId;
+
+    private int tickCount;
+
+    public ServerUpdateSender(Registry r, GameController gc, DatagramChannel c) {
+        registry = r;
+        gameController = gc;
+        channel = c;
+        codec = new UDPCodec(r);
+        deltaSender = new UDPDeltaSender(codec);
+        packetBuilder = new UDPPacketBuilder(channel, Integer.getInteger("epicinventor.udp.mtu", UDPPacketBuilder.DEFAULT_MTU));
+    }
+
+    public void sendUpdates() {
+        if (address == null || port <= 0) {
+            return;
+        }
+
+        packetBuilder.begin(tick++);
+        updateInterestArea();
+        sendPlayerData();
+        sendRobotData();
+        sendOobabooData();
+        sendMonsterData();
+        if (tickCount % 25 == 0) {
+            sendPlaceableData();
+        }
+        sendResourceData();
+        try {
+            packetBuilder.flush(address, port);
+        } catch (IOException e) {
+            EIError.debugMsg("Network Error: " + e.getMessage());
+        }
+        tickCount++;
+        if (tickCount > 100) {
+            tickCount = 0;
+        }
+    }
+
+    //entities are only sent if they sit in the cells around this client's player
+    private void updateInterestArea() {
+        Player p = null;
+        if (playerId != null) {
+            p = registry.getPlayerManager().getPlayerById(playerId);
+        }
+        if (p != null) {
+            interestArea.update(p.getCenterPoint());
+        } else {
+            interestArea.clear();
+        }
+    }
+
+    public void sendPlayerData() {
+        HashMap<String, Player> players = new HashMap<String, Player>(registry.getPlayerManager().getPlayers());
+        try {
+            for (String key : players.keySet()) {
+                Player p = players.get(key);
+                if (p != null) {
+                    UDPPlayer up = p.createUpdate();
+                    if (up != null) {
+                        try {
+                            up.playerUpdateID = playerUpdateID;
+                            sendPacket(up);
+                            playerUpdateID++;
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                            //running = false;
+                        }
+                    }
+                }
+            }
+        } catch (ConcurrentModificationException concEx) {
+            //another thread was trying to modify players while iterating
+            //we'll continue and the new item can be grabbed on the next update
+        }
+    }
+
+    public void sendRobotData() {
+        HashMap<String, Player> players = new HashMap<String, Player>(registry.getPlayerManager().getPlayers());
+        try {
+            for (String key : players.keySet()) {
+                Player p = players.get(key);
+                if (p != null && p.getRobot().getIsActivated()) {
+                    UDPRobot up = p.createRobotUpdate();
+                    if (up != null) {
+                        try {
+                            sendPacket(up);
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                            //running = false;
+                        }
+                    }
+                }
+            }
+        } catch (ConcurrentModificationException concEx) {
+            //another thread was trying to modify players while iterating
+            //we'll continue and the new item can be grabbed on the next update
+        }
+    }
+
+    public void sendOobabooData() {
+        HashMap<String, Player> players = new HashMap<String, Player>(registry.getPlayerManager().getPlayers());
+        try {
+            for (String key : players.keySet()) {
+                Player p = players.get(key);
+                if (p != null && p.getOobaboo() != null) {
+                    UDPOobaboo uo = p.createOobabooUpdate();
+                    if (uo != null) {
+                        try {
+                            sendPacket(uo);
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                            //running = false;
+                        }
+                    }
+                }
+            }
+        } catch (ConcurrentModificationException concEx) {
+            //another thread was trying to modify players while iterating
+            //we'll continue and the new item can be grabbed on the next update
+        }
+    }
+
+    public void sendPlaceableData() {
+        ArrayList<Placeable> placeables = new ArrayList<Placeable>();
+        interestArea.collect(registry.getPlaceableManager().getPlaceableIndex(), placeables);
+        for (int i = 0; i < placeables.size(); i++) {
+            UDPPlaceable up = placeables.get(i).createUpdate();
+            if (up != null) {
+                try {
+                    sendDelta(up, up.id);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    //running = false;
+                }
+            }
+        }
+    }
+
+    public void sendResourceData() {
+        ArrayList<Resource> resources = new ArrayList<Resource>();
+        interestArea.collect(registry.getResourceManager().getResourceIndex(), resources);
+        for (int i = 0; i < resources.size(); i++) {
+            UDPResource up = resources.get(i).createUpdate();
+            if (up != null) {
+                try {
+                    sendDelta(up, up.id);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    //running = false;
+                }
+            }
+        }
+    }
+
+    public void sendMonsterData() {
+        ArrayList<Monster> monsters = new ArrayList<Monster>();
+        interestArea.collect(registry.getMonsterManager().getMonsterIndex(), monsters);
+        for (int i = 0; i < monsters.size(); i++) {
+            Monster m = monsters.get(i);
+            if (!m.getName().equals("BlueThorn") && !m.getName().equals("VineThorn")) {
+                UDPMonster up = m.createUpdate();
+                if (up != null) {
+                    try {
+                        sendDelta(up, up.id);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        //running = false;
+                    }
+                }
+            }
+        }
+    }
+
+    public void sendDelta(Object o, String id) throws IOException {
+        try {
+            sendBuffer.clear();
+            if (deltaSender.write(o, id, sendBuffer)) {
+                packetBuilder.add(sendBuffer, address, port);
+            }
+        } catch (Exception e) {
+            EIError.debugMsg("Network Error: " + e.getMessage());
+        }
+    }
+
+    public void sendPacket(Object o) throws IOException {
+        //System.out.println("Server Sending Data: " + o + "(" + address.toString() + ":" + port + ")");
+        try {
+            sendBuffer.clear();
+            codec.encode(o, sendBuffer);
+            packetBuilder.add(sendBuffer, address, port);
+        } catch (Exception e) {
+            EIError.debugMsg("Network Error: " + e.getMessage());
+        }
+    }
+}
\ No newline at end of file
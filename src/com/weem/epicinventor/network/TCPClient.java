@@ -20,23 +20,22 @@ public class TCPClient extends Thread {
     private Socket socket;
     private String ip;
     private int port;
-    private ObjectInputStream input;
-    private ObjectOutputStream output;
+    private DataInputStream input;
+    private DataOutputStream output;
     private TCPClientBlockManagerDataReceive blockManagerReceive;
-    protected int currentStartCollumn;
     public boolean keepRunning = true;
     public boolean readyForUpdates = false;
     public ClientReceiveThread clientReceiveThread;
-    protected static int collumnChunkSize;
     protected int udpPort = 5555;
+    private TCPMessageHandler[] handlers = new TCPMessageHandler[Opcode.values().length];
 
     public TCPClient(Registry r, GameController gc, String i, int p) {
         registry = r;
         gameController = gc;
         ip = i;
         port = p;
-        currentStartCollumn = 0;
-        collumnChunkSize = 50;
+
+        registerHandlers();
     }
 
     @Override
@@ -51,9 +50,192 @@ public class TCPClient extends Thread {
         return;
     }
 
+    private void registerHandlers() {
+        handlers[Opcode.GOODBYE.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                keepRunning = false;
+            }
+        };
+        handlers[Opcode.UDP_PORT.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                EIError.debugMsg("Setting UDP port to: " + message.getValue());
+                udpPort = message.getValue();
+            }
+        };
+        handlers[Opcode.MESSAGE.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                if (!message.text.isEmpty()) {
+                    gameController.showMessage("Success", "Message: " + message.text);
+                }
+            }
+        };
+        handlers[Opcode.BLOCK_COLUMNS.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                if (blockManagerReceive.receive((BlockColumnData) message.data)) {
+                    //enough of the world is here to play, the rest keeps streaming in
+                    sendData(TCPMessage.command(Opcode.SEND_PLACEABLE_MANAGER));
+                    Game.loadingText = "Getting Building Data...";
+                }
+                if (!readyForUpdates) {
+                    Game.loadingProgress = blockManagerReceive.getProgress();
+                }
+            }
+        };
+        handlers[Opcode.PLACEABLE_MANAGER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                EIError.debugMsg("Setting Placeable Manager...");
+                PlaceableManager pm = (PlaceableManager) message.data;
+                pm.setTransient(registry);
+                gameController.setPlaceableManager(pm);
+                pm = null;
+                registry.getPlayerManager().getCurrentPlayer().init();
+                EIError.debugMsg("Placeable Manager set");
+                sendData(TCPMessage.command(Opcode.SEND_RESOURCE_MANAGER));
+                Game.loadingText = "Making Shinies...";
+            }
+        };
+        handlers[Opcode.RESOURCE_MANAGER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                EIError.debugMsg("Setting Resource Manager...");
+                ResourceManager rm = (ResourceManager) message.data;
+                rm.setTransient(registry);
+                gameController.setResourceManager(rm);
+                rm = null;
+                EIError.debugMsg("Resource Manager set");
+                sendData(TCPMessage.command(Opcode.SEND_MONSTER_MANAGER));
+                Game.loadingText = "Spawning Evil Bad Guys";
+            }
+        };
+        handlers[Opcode.MONSTER_MANAGER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                EIError.debugMsg("Setting Monster Manager...");
+                MonsterManager mm = (MonsterManager) message.data;
+                mm.setTransient(registry);
+                gameController.setMonsterManager(mm);
+                mm = null;
+                EIError.debugMsg("Monster Manager set");
+                sendData(TCPMessage.command(Opcode.SEND_PLAYER));
+                Game.loadingText = "Initializing Inventors";
+            }
+        };
+        handlers[Opcode.PLAYER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                EIError.debugMsg("Adding Player...");
+                Player p = (Player) message.data;
+                p.setTransient(registry);
+                registry.getPlayerManager().registerPlayer(p);
+                EIError.debugMsg("Player Added");
+
+                if (registry.getPlayerManager().getPlayers().size() <= 2) {
+                    EIError.debugMsg("Sending Player Data...");
+                    sendData(registry.getPlayerManager().getCurrentPlayer());
+                    EIError.debugMsg("Player Data Sent");
+
+                    Game.loadingText = "Here we go!";
+                    Game.loadingProgress = -1;
+
+                    gameController.setLoading(false);
+                    registry.getHUDManager().unloadHUD("ScreenLoading");
+                    registry.getBlockManager().updateResolution();
+                    gameController.setIsInGame(true);
+                    readyForUpdates = true;
+
+                    try {
+                        DatagramSocket socket = new DatagramSocket();
+                        clientReceiveThread = new ClientReceiveThread(registry, gameController, socket, ip, udpPort);
+                        clientReceiveThread.start();
+
+                        System.out.println("Socket Created");
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        };
+        handlers[Opcode.RESOURCE.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                Resource r = (Resource) message.data;
+                r.setTransient(registry, registry.getResourceManager());
+                registry.getResourceManager().registerResource(r);
+            }
+        };
+        handlers[Opcode.OOBABOO.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                registry.getPlayerManager().assignOobaboo((Oobaboo) message.data);
+            }
+        };
+        handlers[Opcode.MONSTER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                Monster m = (Monster) message.data;
+                m.setTransient(registry, registry.getMonsterManager());
+                registry.getMonsterManager().registerMonster(m);
+            }
+        };
+        handlers[Opcode.PLACEABLE.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                Placeable p = (Placeable) message.data;
+                p.setTransient(registry);
+                registry.getPlaceableManager().registerPlaceable(p);
+            }
+        };
+        handlers[Opcode.UPDATE_PLAYER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                registry.getPlayerManager().processPlayerUpdate((UpdatePlayer) message.data);
+            }
+        };
+        handlers[Opcode.UPDATE_MONSTER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                registry.getMonsterManager().processMonsterUpdate((UpdateMonster) message.data);
+            }
+        };
+        handlers[Opcode.UPDATE_ROBOT.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                registry.getPlayerManager().processRobotUpdate((UpdateRobot) message.data);
+            }
+        };
+        handlers[Opcode.UPDATE_OOBABOO.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                registry.getPlayerManager().processOobabooUpdate((UpdateOobaboo) message.data);
+            }
+        };
+        handlers[Opcode.UPDATE_PLACEABLE.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                registry.getPlaceableManager().processPlaceableUpdate((UpdatePlaceable) message.data);
+            }
+        };
+        handlers[Opcode.UPDATE_RESOURCE.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                registry.getResourceManager().processResourceUpdate((UpdateResource) message.data);
+            }
+        };
+        handlers[Opcode.UPDATE_PROJECTILE.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                registry.getProjectileManager().processProjectileUpdate((UpdateProjectile) message.data);
+            }
+        };
+    }
+
     private void doClient() {
-        Object data;
-        String[] parts;
+        TCPMessage message;
 
         gameController.setLoading(true);
         registry.getHUDManager().loadHUD(HUDManager.HUDType.ScreenLoading);
@@ -74,408 +256,43 @@ public class TCPClient extends Thread {
             Game.loadingText = "Establishing Connection";
             EIError.debugMsg("Creating output stream");
 
-            output = new ObjectOutputStream(socket.getOutputStream());
+            output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
 
             EIError.debugMsg("Creating input stream");
-            input = new ObjectInputStream(socket.getInputStream());
+            input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
 
             EIError.debugMsg("IO Created");
 
-            output.writeObject("send block manager");
-            data = input.readObject();
-            BlockManager bm = (BlockManager) data;
+            TCPFrame.write(output, TCPMessage.command(Opcode.SEND_BLOCK_MANAGER));
+            message = TCPFrame.read(input);
+            BlockManager bm = (BlockManager) message.data;
             bm.resetBlockArray(registry.getBlockManager().getMapCols(), registry.getBlockManager().getMapRows());
             bm.setTransient(registry);
             gameController.setBlockManager(bm);
             bm = null;
             EIError.debugMsg("Block Manager set");
 
-            data = input.readObject();
-            parts = data.toString().split(" ");
-            if (parts.length == 2) {
-                EIError.debugMsg("Setting UDP port to: " + parts[1]);
-                udpPort = Integer.parseInt(parts[1]);
-            }
-            output.writeObject("send block manager chunk");
-            boolean sendMore = true;
-            for (int i = 0; i < 4; i++) {
-                data = input.readObject();
-                if(i == 3) {
-                    sendMore = false;
-                }
-                blockManagerReceive = new TCPClientBlockManagerDataReceive(registry, this, output, data, currentStartCollumn, collumnChunkSize, false, sendMore);
-                currentStartCollumn += collumnChunkSize;
+            message = TCPFrame.read(input);
+            if (message.opcode == Opcode.UDP_PORT) {
+                handlers[Opcode.UDP_PORT.ordinal()].handle(message);
             }
-            sendData("send placable manager");
+            //the server streams every column range, nearest to our spawn first
+            blockManagerReceive = new TCPClientBlockManagerDataReceive(registry);
+            TCPFrame.write(output, TCPMessage.value(Opcode.SEND_BLOCK_MANAGER_STREAM, getSpawnColumn()));
             Game.loadingText = "Getting World Data...";
+            Game.loadingProgress = 0;
 
             while (keepRunning && socket.isConnected()) {
-                data = input.readObject();
-                
-                EIError.debugMsg("Received data: " + data.toString());
-
-                if (data.getClass().equals(String.class)) {
-                    data = (String) data;
-                    if (data.toString().equals("goodbye")) {
-                        keepRunning = false;
-                    } else if (data.toString().length() == 8 && data.toString().substring(0, 4).equals("udp ")) {
-                        parts = data.toString().split(" ");
-                        if (parts.length == 2) {
-                            EIError.debugMsg("Setting UDP port to: " + parts[1]);
-                            udpPort = Integer.parseInt(parts[1]);
-                        }
-                    } else {
-                        if (!data.toString().isEmpty()) {
-                            gameController.showMessage("Success", "Message: " + data);
-                        }
-                    }
-//                } else if (data.getClass().equals(BlockManager.class)) {
-//                    EIError.debugMsg("Setting Block Manager...");
-//                    BlockManager bm = (BlockManager) data;
-//                    bm.setTransient(registry);
-//                    gameController.setBlockManager(bm);
-//                    bm = null;
-//                    EIError.debugMsg("Block Manager set");
-//                    sendData("send placable manager");
-//                    Game.loadingText = "Getting Building Data...";
-                } else if (data.getClass().equals(short[][].class)) {
-                    blockManagerReceive = new TCPClientBlockManagerDataReceive(registry, this, output, data, currentStartCollumn, collumnChunkSize, true, true);
-                    currentStartCollumn += collumnChunkSize;
-
-//                    EIError.debugMsg("Setting Block Manager...");
-//                    short[][] blockChunk = (short[][]) data;
-//                    if (blockChunk.length >= collumnChunkSize) {
-//                        registry.getBlockManager().setBlockCollumns(blockChunk, currentStartCollumn, currentStartCollumn + collumnChunkSize);
-//                        if (currentStartCollumn == 0) {
-//                            sendData("send placable manager");
-//                        }
-//                        currentStartCollumn += collumnChunkSize;
-//                        EIError.debugMsg("Block Manager chunk " + currentStartCollumn + " " + currentStartCollumn + collumnChunkSize);
-//                        output.writeObject("send block manager chunk");
-//                        try {
-//                            sleep(10);
-//                        } catch (InterruptedException ex) {
-//                        }
-//                    } else {
-//                        EIError.debugMsg("Block Manager set");
-//                    }
-//                    blockChunk = null;
-//                    Game.loadingText = "Getting Building Data...";
-                } else if (data.getClass().equals(PlaceableManager.class)) {
-                    EIError.debugMsg("Setting Placeable Manager...");
-                    PlaceableManager pm = (PlaceableManager) data;
-                    pm.setTransient(registry);
-                    gameController.setPlaceableManager(pm);
-                    pm = null;
-                    registry.getPlayerManager().getCurrentPlayer().init();
-                    EIError.debugMsg("Placeable Manager set");
-                    sendData("send resource manager");
-                    Game.loadingText = "Making Shinies...";
-                } else if (data.getClass().equals(ResourceManager.class)) {
-                    EIError.debugMsg("Setting Resource Manager...");
-                    ResourceManager rm = (ResourceManager) data;
-                    rm.setTransient(registry);
-                    gameController.setResourceManager(rm);
-                    rm = null;
-                    EIError.debugMsg("Resource Manager set");
-                    sendData("send monster manager");
-                    Game.loadingText = "Spawning Evil Bad Guys";
-                } else if (data.getClass().equals(MonsterManager.class)) {
-                    EIError.debugMsg("Setting Monster Manager...");
-                    MonsterManager mm = (MonsterManager) data;
-                    mm.setTransient(registry);
-                    gameController.setMonsterManager(mm);
-                    mm = null;
-                    EIError.debugMsg("Monster Manager set");
-                    sendData("send player");
-                    Game.loadingText = "Initializing Inventors";
-                } else if (data.getClass().equals(Player.class)) {
-                    EIError.debugMsg("Adding Player...");
-                    Player p = (Player) data;
-                    p.setTransient(registry);
-                    registry.getPlayerManager().registerPlayer(p);
-                    EIError.debugMsg("Player Added");
-
-                    if (registry.getPlayerManager().getPlayers().size() <= 2) {
-                        EIError.debugMsg("Sending Player Data...");
-                        sendData(registry.getPlayerManager().getCurrentPlayer());
-                        EIError.debugMsg("Player Data Sent");
-
-                        Game.loadingText = "Here we go!";
-                        EIError.debugMsg("send block manager chunk");
-                        
-                        gameController.setLoading(false);
-                        registry.getHUDManager().unloadHUD("ScreenLoading");
-                        registry.getBlockManager().updateResolution();
-                        gameController.setIsInGame(true);
-                        readyForUpdates = true;
-
-                        try {
-                            DatagramSocket socket = new DatagramSocket();
-                            clientReceiveThread = new ClientReceiveThread(registry, gameController, socket, ip, udpPort);
-                            clientReceiveThread.start();
-
-                            System.out.println("Socket Created");
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                        output.writeObject("send block manager chunk");
-                    }
-                } else if (data.getClass().equals(Resource.class)) {
-                    Resource r = (Resource) data;
-                    EIError.debugMsg("Adding Resource (" + r.getId() + ")...");
-                    r.setTransient(registry, registry.getResourceManager());
-                    registry.getResourceManager().registerResource(r);
-                    EIError.debugMsg("Resource Added");
-                } else if (data.getClass().equals(OobabooGatherer.class)) {
-                    OobabooGatherer o = (OobabooGatherer) data;
-                    registry.getPlayerManager().assignOobaboo(o);
-                } else if (data.getClass().equals(OobabooHealer.class)) {
-                    OobabooHealer o = (OobabooHealer) data;
-                    registry.getPlayerManager().assignOobaboo(o);
-                } else if (data.getClass().equals(OobabooWarrior.class)) {
-                    OobabooWarrior o = (OobabooWarrior) data;
-                    registry.getPlayerManager().assignOobaboo(o);
-                } else if (data.getClass().equals(AggressiveSnake.class)) {
-                    AggressiveSnake m = (AggressiveSnake) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(BlueThorn.class)) {
-                    BlueThorn m = (BlueThorn) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(BossOrc.class)) {
-                    BossOrc m = (BossOrc) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(SnailRider.class)) {
-                    SnailRider m = (SnailRider) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(LionFly.class)) {
-                    LionFly m = (LionFly) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(Orc.class)) {
-                    Orc m = (Orc) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(Pig.class)) {
-                    Pig m = (Pig) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(Porcupine.class)) {
-                    Porcupine m = (Porcupine) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(RedOrc.class)) {
-                    RedOrc m = (RedOrc) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(RockMonster.class)) {
-                    RockMonster m = (RockMonster) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(Snail.class)) {
-                    Snail m = (Snail) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(Snake.class)) {
-                    Snake m = (Snake) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(SpiderWorm.class)) {
-                    SpiderWorm m = (SpiderWorm) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(VineThorn.class)) {
-                    VineThorn m = (VineThorn) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(ZombieWalrus.class)) {
-                    ZombieWalrus m = (ZombieWalrus) data;
-                    m.setTransient(registry, registry.getMonsterManager());
-                    registry.getMonsterManager().registerMonster(m);
-                } else if (data.getClass().equals(AutoXBow.class)) {
-                    AutoXBow p = (AutoXBow) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(BookShelf.class)) {
-                    BookShelf p = (BookShelf) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(BladeTrap.class)) {
-                    BladeTrap p = (BladeTrap) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(Box.class)) {
-                    Box p = (Box) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(Chest.class)) {
-                    Chest p = (Chest) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(CopperMine.class)) {
-                    CopperMine p = (CopperMine) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(Crate.class)) {
-                    Crate p = (Crate) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(EmeraldTeleporter.class)) {
-                    EmeraldTeleporter p = (EmeraldTeleporter) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(Forge.class)) {
-                    Forge p = (Forge) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(GoldMine.class)) {
-                    GoldMine p = (GoldMine) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(IronMine.class)) {
-                    IronMine p = (IronMine) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(ItemContainer.class)) {
-                    ItemContainer p = (ItemContainer) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(LargeFarm.class)) {
-                    LargeFarm p = (LargeFarm) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(LargeSafe.class)) {
-                    LargeSafe p = (LargeSafe) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(LionFlyStatue.class)) {
-                    LionFlyStatue p = (LionFlyStatue) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(MedicKit.class)) {
-                    MedicKit p = (MedicKit) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(MediumSafe.class)) {
-                    MediumSafe p = (MediumSafe) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(Pasture.class)) {
-                    Pasture p = (Pasture) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(PlatinumMine.class)) {
-                    PlatinumMine p = (PlatinumMine) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(PottedFlower.class)) {
-                    PottedFlower p = (PottedFlower) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(RubyTeleporter.class)) {
-                    RubyTeleporter p = (RubyTeleporter) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(SapphireTeleporter.class)) {
-                    SapphireTeleporter p = (SapphireTeleporter) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(SawMill.class)) {
-                    SawMill p = (SawMill) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(ScareCrow.class)) {
-                    ScareCrow p = (ScareCrow) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(SilverMine.class)) {
-                    SilverMine p = (SilverMine) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(SmallFarm.class)) {
-                    SmallFarm p = (SmallFarm) data;
-                    p.setTransient(registry);
-                } else if (data.getClass().equals(SmallSafe.class)) {
-                    SmallSafe p = (SmallSafe) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(SteamEngine.class)) {
-                    SteamEngine p = (SteamEngine) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(StoneMine.class)) {
-                    StoneMine p = (StoneMine) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(ThornTrap.class)) {
-                    ThornTrap p = (ThornTrap) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(TownBlock.class)) {
-                    TownBlock p = (TownBlock) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(Building.class)) {
-                    Building p = (Building) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(WeaponRack.class)) {
-                    WeaponRack p = (WeaponRack) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(WindMill.class)) {
-                    WindMill p = (WindMill) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(WorkBench.class)) {
-                    WorkBench p = (WorkBench) data;
-                    p.setTransient(registry);
-                    registry.getPlaceableManager().registerPlaceable(p);
-                } else if (data.getClass().equals(UpdatePlayer.class)) {
-                    UpdatePlayer up = (UpdatePlayer) data;
-                    EIError.debugMsg("Updating Player (" + up.id + ")...");
-                    registry.getPlayerManager().processPlayerUpdate(up);
-                    EIError.debugMsg("Player Updated");
-                } else if (data.getClass().equals(UpdateMonster.class)) {
-                    UpdateMonster um = (UpdateMonster) data;
-                    EIError.debugMsg("Updating Monster (" + um.id + ")...");
-                    registry.getMonsterManager().processMonsterUpdate(um);
-                    EIError.debugMsg("Monster Updated");
-                } else if (data.getClass().equals(UpdateRobot.class)) {
-                    UpdateRobot ur = (UpdateRobot) data;
-                    EIError.debugMsg("Updating Robot (" + ur.id + ")...");
-                    registry.getPlayerManager().processRobotUpdate(ur);
-                    EIError.debugMsg("Robot Updated");
-                } else if (data.getClass().equals(UpdateOobaboo.class)) {
-                    UpdateOobaboo uo = (UpdateOobaboo) data;
-                    EIError.debugMsg("Updating Oobaboo (" + uo.id + ")...");
-                    registry.getPlayerManager().processOobabooUpdate(uo);
-                    EIError.debugMsg("Oobaboo Updated");
-                } else if (data.getClass().equals(UpdatePlaceable.class)) {
-                    UpdatePlaceable up = (UpdatePlaceable) data;
-                    EIError.debugMsg("Updating Placeable (" + up.id + ")...");
-                    registry.getPlaceableManager().processPlaceableUpdate(up);
-                    EIError.debugMsg("Placeable Updated");
-                } else if (data.getClass().equals(UpdateResource.class)) {
-                    UpdateResource ur = (UpdateResource) data;
-                    EIError.debugMsg("Updating Resource (" + ur.id + ")...");
-                    registry.getResourceManager().processResourceUpdate(ur);
-                    EIError.debugMsg("Resource Updated");
-                } else if (data.getClass().equals(UpdateProjectile.class)) {
-                    UpdateProjectile up = (UpdateProjectile) data;
-                    EIError.debugMsg("Updating Projectile...");
-                    registry.getProjectileManager().processProjectileUpdate(up);
-                    EIError.debugMsg("Projectile Updated");
+                message = TCPFrame.read(input);
+
+                TCPMessageHandler handler = handlers[message.opcode.ordinal()];
+                if (handler != null) {
+                    handler.handle(message);
                 } else {
-                    System.out.println("ERROR DATA: " + data.getClass());
+                    System.out.println("ERROR DATA: " + message);
                 }
 
-                data = null;
+                message = null;
             }
         } catch (IOException e) {
             EIError.debugMsg("Network IO Error: " + e.getMessage());
@@ -508,7 +325,7 @@ public class TCPClient extends Thread {
         }
         if (socket != null) {
             try {
-                sendData("goodbye");
+                sendData(TCPMessage.command(Opcode.GOODBYE));
                 socket.close();
             } catch (IOException e) {
                 //oh well, ain't no thang
@@ -518,6 +335,14 @@ public class TCPClient extends Thread {
         socket = null;
     }
 
+    private int getSpawnColumn() {
+        Player p = registry.getPlayerManager().getCurrentPlayer();
+        if (p == null) {
+            return 0;
+        }
+        return p.getMapX() / BlockManager.getBlockWidth();
+    }
+
     public boolean sendData(Object data) {
         if (output == null || !socket.isConnected()) {
             return false;
@@ -525,23 +350,18 @@ public class TCPClient extends Thread {
 
         synchronized (this) {
             try {
-                output.flush();
-                output.writeObject(data);
-                output.flush();
-                output.reset();
-
-                if (data.getClass().equals(String.class)) {
-                    if (data.equals("goodbye")) {
-                        if (clientReceiveThread != null) {
-                            clientReceiveThread.setRunning(false);
-                        }
-                        socket.close();
-                        if (socket != null) {
-                            socket.close();
-                        }
+                TCPFrame.write(output, data);
 
-                        keepRunning = false;
+                if (data == TCPMessage.command(Opcode.GOODBYE)) {
+                    if (clientReceiveThread != null) {
+                        clientReceiveThread.setRunning(false);
                     }
+                    socket.close();
+                    if (socket != null) {
+                        socket.close();
+                    }
+
+                    keepRunning = false;
                 }
             } catch (IOException e) {
                 EIError.debugMsg("Network IO Error - Sending");
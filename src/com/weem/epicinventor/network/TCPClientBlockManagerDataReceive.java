@@ -10,94 +10,58 @@ import java.util.*;
 import java.util.zip.*;
 import java.nio.*;
 
-public class TCPClientBlockManagerDataReceive extends Thread {
+public class TCPClientBlockManagerDataReceive {
 
     private Registry registry;
-    protected TCPClient client;
-    protected ObjectOutputStream output;
-    protected int currentStartCollumn;
-    protected int collumnChunkSize;
-    private short[][] blockChunk;
-    private boolean sendMore;
-    //private byte[] blockChunkByteArray;
+    private int received;
+    private int spawnReceived;
+    private int total = -1;
+    private boolean spawnAreaLoaded;
 
-    public TCPClientBlockManagerDataReceive(Registry r, TCPClient c, ObjectOutputStream o, Object d, int sc, int cs, boolean asThread, boolean more) {
+    public TCPClientBlockManagerDataReceive(Registry r) {
         registry = r;
-        client = c;
-        output = o;
-        blockChunk = (short[][]) d;
-        //blockChunkByteArray = (byte[]) d;
-        currentStartCollumn = sc;
-        collumnChunkSize = cs;
-        sendMore = more;
-        if (asThread) {
-            start();
-        } else {
-            sendBlockMangerData();
-        }
     }
 
-    @Override
-    public void run() {
+    /**
+     * Unpacks one streamed column range into the block manager. Returns true
+     * the first time every range around the spawn point has arrived.
+     */
+    public boolean receive(BlockColumnData columnData) {
         try {
-            sendBlockMangerData();
-        } catch (Exception e) {
+            short[][] blockChunk = columnData.getColumns();
+            registry.getBlockManager().setBlockCollumns(blockChunk, columnData.startColumn, columnData.startColumn + columnData.columnCount);
+        } catch (IOException e) {
             EIError.debugMsg("Error Receiving Block Manager Data..." + e.getMessage());
         }
+
+        received++;
+        total = columnData.total;
+        if (columnData.isSpawnArea()) {
+            spawnReceived++;
+        }
+        if (received >= total) {
+            EIError.debugMsg("Block Manager set");
+        }
+
+        if (!spawnAreaLoaded && spawnReceived >= columnData.spawnCount) {
+            spawnAreaLoaded = true;
+            return true;
+        }
+        return false;
     }
 
-    private void sendBlockMangerData() {
-        try {
-            EIError.debugMsg("Setting Block Manager...");
-            //short[][] blockChunk = unzipBlockData(blockChunkByteArray);
-            if (blockChunk.length >= collumnChunkSize) {
-                registry.getBlockManager().setBlockCollumns(blockChunk, currentStartCollumn, currentStartCollumn + collumnChunkSize);
-                EIError.debugMsg("Block Manager chunk " + currentStartCollumn + " " + (currentStartCollumn + collumnChunkSize));
-                try {
-                    sleep(250);
-                } catch (InterruptedException ex) {
-                }
-                if(sendMore) {
-                    output.writeObject("send block manager chunk");
-                    EIError.debugMsg("Request: send block manager chunk");
-                }
-            } else {
-                EIError.debugMsg("Block Manager set");
-            }
-            //blockChunkByteArray = null;
-            blockChunk = null;
-        } catch (Exception e) {
-            EIError.debugMsg("Network Error: " + e.getMessage());
+    public boolean isSpawnAreaLoaded() {
+        return spawnAreaLoaded;
+    }
+
+    public boolean isComplete() {
+        return total >= 0 && received >= total;
+    }
+
+    public int getProgress() {
+        if (total <= 0) {
+            return 0;
         }
+        return received * 100 / total;
     }
-//    private short[][] unzipBlockData(byte[] data) {
-//        Inflater decompressor = new Inflater();
-//        decompressor.setInput(data);
-//        ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length);
-//        byte[] buf = new byte[1024];
-//        while (!decompressor.finished()) {
-//            try {
-//                int count = decompressor.inflate(buf);
-//                bos.write(buf, 0, count);
-//            } catch (DataFormatException e) {
-//                EIError.debugMsg("Error unzipBlockData "+e.getMessage());
-//            }
-//        }
-//        try {
-//            bos.close();
-//        } catch (IOException e) {
-//            EIError.debugMsg("Error unzipBlockData "+e.getMessage());
-//        }
-//        byte[] decompressedData = bos.toByteArray();
-//        
-//        int rows = registry.getBlockManager().getMapHeight() / registry.getBlockManager().getBlockHeight();
-//        int columns = decompressedData.length / 2 / rows;
-//        short[][] blockChunk = new short[columns][rows];
-//        for(int x = 0; x < blockChunk.length; x++) {
-//            for(int y = 0; y < blockChunk[0].length; y++) {
-//                blockChunk[x][y] = (short)((decompressedData[(2*x*blockChunk[0].length)+(2*y)+1] & 0xff << 8) | decompressedData[(2*x*blockChunk[0].length)+(2*y)] & 0xff);
-//            }
-//        }
-//        return blockChunk;
-//    }
 }
@@ -0,0 +1,93 @@
+package com.weem.epicinventor.network;
+
+import java.io.*;
+import java.nio.*;
+
+/**
+ * Length-prefixed framing for the TCP connection. Every message is an int
+ * byte count, an opcode byte and the payload for that opcode, so the server
+ * can read whole messages off a non-blocking channel without an
+ * ObjectInputStream tied to the socket. Requests carry a few raw fields;
+ * only game objects are serialized.
+ */
+public class TCPFrame {
+
+    public final static int HEADER_SIZE = 4;
+    public final static int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    public static ByteBuffer encode(Object o) throws IOException {
+        TCPMessage message = TCPMessage.object(o);
+        Opcode op = message.opcode;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(op.getPayload() == Opcode.Payload.OBJECT ? 1024 : 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeByte(op.getCode());
+        switch (op.getPayload()) {
+            case INT:
+                out.writeInt(message.x);
+                break;
+            case TEXT:
+                out.writeUTF(message.text == null ? "" : message.text);
+                break;
+            case PLACE:
+                out.writeUTF(message.text);
+                out.writeInt(message.x);
+                out.writeInt(message.y);
+                break;
+            case OBJECT:
+                ObjectOutputStream os = new ObjectOutputStream(out);
+                os.writeObject(message.data);
+                os.flush();
+                break;
+        }
+        out.flush();
+
+        ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+        frame.putInt(0, frame.limit() - HEADER_SIZE);
+        return frame;
+    }
+
+    public static TCPMessage decode(byte[] data, int offset, int length) throws IOException, ClassNotFoundException {
+        if (length < 1) {
+            throw new IOException("Empty frame");
+        }
+        Opcode op = Opcode.fromCode(data[offset] & 0xFF);
+        if (op == null) {
+            throw new IOException("Unknown opcode " + (data[offset] & 0xFF));
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset + 1, length - 1));
+        switch (op.getPayload()) {
+            case INT:
+                return TCPMessage.value(op, in.readInt());
+            case TEXT:
+                return TCPMessage.text(op, in.readUTF());
+            case PLACE:
+                String type = in.readUTF();
+                int x = in.readInt();
+                return TCPMessage.place(type, x, in.readInt());
+            case OBJECT:
+                ObjectInputStream is = new ObjectInputStream(in);
+                return TCPMessage.object(op, is.readObject());
+            default:
+                return TCPMessage.command(op);
+        }
+    }
+
+    public static void write(OutputStream out, Object o) throws IOException {
+        ByteBuffer frame = encode(o);
+        out.write(frame.array(), 0, frame.limit());
+        out.flush();
+    }
+
+    public static TCPMessage read(DataInputStream in) throws IOException, ClassNotFoundException {
+        int length = in.readInt();
+        if (length < 1 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Bad frame length " + length);
+        }
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return decode(data, 0, length);
+    }
+}
@@ -0,0 +1,85 @@
+package com.weem.epicinventor.network;
+
+/**
+ * One decoded TCP message: its opcode plus whichever payload fields that
+ * opcode carries. Requests without a payload are shared instances.
+ */
+public class TCPMessage {
+
+    private final static TCPMessage[] commands = new TCPMessage[Opcode.values().length];
+    public final Opcode opcode;
+    public final String text;
+    public final int x;
+    public final int y;
+    public final Object data;
+
+    static {
+        for (Opcode op : Opcode.values()) {
+            if (op.getPayload() == Opcode.Payload.NONE) {
+                commands[op.ordinal()] = new TCPMessage(op, null, 0, 0, null);
+            }
+        }
+    }
+
+    private TCPMessage(Opcode op, String t, int px, int py, Object d) {
+        opcode = op;
+        text = t;
+        x = px;
+        y = py;
+        data = d;
+    }
+
+    public static TCPMessage command(Opcode op) {
+        if (op.getPayload() != Opcode.Payload.NONE) {
+            throw new IllegalArgumentException(op + " needs a payload");
+        }
+        return commands[op.ordinal()];
+    }
+
+    public static TCPMessage value(Opcode op, int v) {
+        return new TCPMessage(op, null, v, 0, null);
+    }
+
+    public static TCPMessage text(Opcode op, String t) {
+        return new TCPMessage(op, t, 0, 0, null);
+    }
+
+    public static TCPMessage place(String type, int x, int y) {
+        return new TCPMessage(Opcode.PLACE, type, x, y, null);
+    }
+
+    public static TCPMessage object(Object o) {
+        if (o instanceof TCPMessage) {
+            return (TCPMessage) o;
+        }
+        if (o instanceof String) {
+            //plain text from older call sites is shown as a message
+            return text(Opcode.MESSAGE, (String) o);
+        }
+        return new TCPMessage(Opcode.forClass(o.getClass()), null, 0, 0, o);
+    }
+
+    public static TCPMessage object(Opcode op, Object o) {
+        return new TCPMessage(op, null, 0, 0, o);
+    }
+
+    public int getValue() {
+        return x;
+    }
+
+    @Override
+    public String toString() {
+        switch (opcode.getPayload()) {
+            case INT:
+                return opcode + " " + x;
+            case TEXT:
+                return opcode + " " + text;
+            case PLACE:
+                return opcode + " " + text + " " + x + " " + y;
+            case OBJECT:
+                return opcode + " " + data;
+            default:
+                return opcode.toString();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.weem.epicinventor.network;
+
+/**
+ * Handles every message of one opcode; connections keep a table of these
+ * indexed by opcode.
+ */
+interface TCPMessageHandler {
+
+    public void handle(TCPMessage message);
+}
@@ -12,288 +12,396 @@ import com.weem.epicinventor.world.block.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
 import java.util.*;
 
-public class TCPServer extends Thread {
-
+/**
+ * One connected client. Owned by TCPServerManager's selector loop: reads
+ * whole frames off the non-blocking channel and handles them. sendData hands
+ * the object to the manager's encoder thread, which serializes it and queues
+ * the finished frame, so neither the selector nor any other caller waits on
+ * serialization or on a slow peer.
+ */
+public class TCPServer {
+
+    //a client that lets this much pile up unread is dropped
+    public final static int MAX_QUEUED_BYTES = 32 * 1024 * 1024;
     private Registry registry;
     private GameController gameController;
-    private Socket socket;
-    private ObjectInputStream input;
-    private ObjectOutputStream output;
-    private TCPServerBlockManagerDataSend blockManagerSend;
-    protected int currentStartCollumn;
-    public boolean keepRunning = true;
-    public boolean readyForUpdates = false;
-    public ServerReceiveThread serverReceiveThread;
-    protected static int collumnChunkSize;
+    private TCPServerManager manager;
+    private SocketChannel channel;
+    private SelectionKey selectionKey;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+    private LinkedList<ByteBuffer> writeQueue = new LinkedList<ByteBuffer>();
+    private int queuedBytes;
+    private boolean closeAfterWrite;
+    private boolean closed;
+    public volatile boolean keepRunning = true;
+    public volatile boolean readyForUpdates = false;
+    public ServerUDPConnection udp;
     protected int udpPort;
+    private String playerId = "";
+    private TCPMessageHandler[] handlers = new TCPMessageHandler[Opcode.values().length];
 
-    public TCPServer(Registry r, GameController gc, Socket s, int u) {
+    public TCPServer(Registry r, GameController gc, TCPServerManager m, SocketChannel c, int u) {
         registry = r;
         gameController = gc;
-        socket = s;
+        manager = m;
+        channel = c;
         udpPort = u;
-        currentStartCollumn = 0;
-        collumnChunkSize = 50;
+
+        registerHandlers();
+    }
+
+    public void open(Selector selector) throws IOException {
+        channel.configureBlocking(false);
+        selectionKey = channel.register(selector, SelectionKey.OP_READ, this);
+
+        udp = new ServerUDPConnection(registry, gameController, udpPort);
+        udp.register(selector);
     }
 
-    @Override
-    public void run() // read server messages and act on them.
-    {
+    public void tick() {
+        if (udp != null) {
+            udp.tick();
+        }
+    }
+
+    public void read() {
         try {
-            DatagramSocket socket = new DatagramSocket(udpPort);
-            serverReceiveThread = new ServerReceiveThread(registry, gameController, socket, udpPort);
-            serverReceiveThread.start();
+            int count = channel.read(readBuffer);
+            if (count < 0) {
+                disconnect();
+                return;
+            }
+
+            readBuffer.flip();
+            while (keepRunning && readBuffer.remaining() >= TCPFrame.HEADER_SIZE) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (length < 1 || length > TCPFrame.MAX_FRAME_SIZE) {
+                    EIError.debugMsg("Network Error: bad frame length " + length);
+                    disconnect();
+                    return;
+                }
+                if (readBuffer.remaining() < TCPFrame.HEADER_SIZE + length) {
+                    break;
+                }
+                int frameStart = readBuffer.position();
+                readBuffer.position(frameStart + TCPFrame.HEADER_SIZE + length);
+                handleData(TCPFrame.decode(readBuffer.array(), frameStart + TCPFrame.HEADER_SIZE, length));
+            }
+            readBuffer.compact();
+
+            //a frame bigger than the buffer, make room for the rest of it
+            if (!readBuffer.hasRemaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(readBuffer.capacity() * 2);
+                readBuffer.flip();
+                bigger.put(readBuffer);
+                readBuffer = bigger;
+            }
         } catch (IOException e) {
-            gameController.showMessage("Error", "Couldn't accept connection...");
-            return;
+            EIError.debugMsg("Network IO Error: " + e.getMessage());
+            disconnect();
+        } catch (ClassNotFoundException e) {
+            EIError.debugMsg("Network Class Error: " + e.getMessage());
+        } catch (Exception e) {
+            EIError.debugMsg("Network Error: " + e.getMessage());
+            e.printStackTrace();
         }
+    }
 
-        doServer();
-
-        if (serverReceiveThread != null) {
-            serverReceiveThread.setRunning(false);
+    public void write() {
+        try {
+            synchronized (writeQueue) {
+                while (!writeQueue.isEmpty()) {
+                    ByteBuffer frame = writeQueue.getFirst();
+                    channel.write(frame);
+                    if (frame.hasRemaining()) {
+                        return;
+                    }
+                    queuedBytes -= frame.limit();
+                    writeQueue.removeFirst();
+                }
+                if (selectionKey.isValid()) {
+                    selectionKey.interestOps(SelectionKey.OP_READ);
+                }
+            }
+            if (closeAfterWrite) {
+                disconnect();
+            }
+        } catch (IOException e) {
+            EIError.debugMsg("Network IO Error - Sending");
+            disconnect();
         }
+    }
 
-        return;
+    public void enableWrite() {
+        if (selectionKey != null && selectionKey.isValid()) {
+            selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
     }
 
-    private void doServer() {
-        Object data;
-        String playerId = "";
+    private void registerHandlers() {
+        handlers[Opcode.GOODBYE.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                disconnect();
+            }
+        };
+        handlers[Opcode.SEND_BLOCK_MANAGER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                EIError.debugMsg("Sending Block Manager Data...");
+                BlockManager bm = (BlockManager) (registry.getBlockManager().clone());
+                bm.clearBlockArray();
+                sendData(bm);
+                bm = null;
+                EIError.debugMsg("Block Manager Data Sent");
+
+                System.out.println("Setting new client UDP to: " + udpPort);
+                sendData(TCPMessage.value(Opcode.UDP_PORT, udpPort));
+            }
+        };
+        handlers[Opcode.SEND_BLOCK_MANAGER_STREAM.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                new TCPServerBlockManagerDataSend(registry, TCPServer.this, message.getValue()).start();
+            }
+        };
+        handlers[Opcode.SEND_PLACEABLE_MANAGER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                EIError.debugMsg("Sending Placeable Manager Data...");
+                PlaceableManager pm = registry.getPlaceableManager();
+                sendData(pm);
+                pm = null;
+                EIError.debugMsg("Placeable Manager Data Sent");
+            }
+        };
+        handlers[Opcode.SEND_RESOURCE_MANAGER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                EIError.debugMsg("Sending Resource Manager Data...");
+                ResourceManager rm = registry.getResourceManager();
+                sendData(rm);
+                rm = null;
+                EIError.debugMsg("Resource Manager Data Sent");
+            }
+        };
+        handlers[Opcode.SEND_MONSTER_MANAGER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                EIError.debugMsg("Sending Monster Manager Data...");
+                MonsterManager mm = registry.getMonsterManager();
+                sendData(mm);
+                mm = null;
+                EIError.debugMsg("Monster Manager Data Sent");
+            }
+        };
+        handlers[Opcode.SEND_PLAYER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                HashMap<String, Player> players = new HashMap<String, Player>(registry.getPlayerManager().getPlayers());
 
-        if (socket != null) {
-            if (socket.isConnected()) {
                 try {
-                    EIError.debugMsg("Creating output stream");
-
-                    output = new ObjectOutputStream(socket.getOutputStream());
-
-                    EIError.debugMsg("Creating input stream");
-                    input = new ObjectInputStream(socket.getInputStream());
-
-                    EIError.debugMsg("IO Created");
-
-                    while (keepRunning && socket.isConnected()) {
-                        data = input.readObject();
-                        EIError.debugMsg("Received data: " + data.toString());
-
-                        if (data.getClass().equals(String.class)) {
-                            data = (String) data;
-                            if (data.toString().equals("goodbye")) {
-                                keepRunning = false;
-                            } else if (data.toString().equals("send block manager")) {
-                                EIError.debugMsg("Sending Block Manager Data...");
-                                BlockManager bm = (BlockManager) (registry.getBlockManager().clone());
-                                bm.clearBlockArray();
-                                sendData(bm);
-                                bm = null;
-                                EIError.debugMsg("Block Manager Data Sent");
-
-                                System.out.println("Setting new client UDP to: " + udpPort);
-                                sendData("udp " + udpPort);
-                            } else if (data.toString().equals("send block manager chunk")) {
-                                //EIError.debugMsg("Received block man request (" + currentStartCollumn + ":" + collumnChunkSize);
-                                blockManagerSend = new TCPServerBlockManagerDataSend(registry, this, currentStartCollumn, collumnChunkSize);
-                                blockManagerSend.start();
-                                currentStartCollumn += collumnChunkSize;
-                                //EIError.debugMsg("Thread Made");
-
-//                                EIError.debugMsg("Sending Block Manager Data...");
-//                                //BlockManager bm = registry.getBlockManager();
-//                                short[][] blockChunk = registry.getBlockManager().getBlockCollumns(currentStartCollumn, currentStartCollumn + collumnChunkSize);
-//                                currentStartCollumn += collumnChunkSize;
-//                                sendData(blockChunk);
-//                                blockChunk = null;
-//                                EIError.debugMsg("Block Manager Data Sent 0..200");
-//                                try {
-//                                    sleep(10);
-//                                } catch (InterruptedException ex) {
-//                                }
-                            } else if (data.toString().equals("send placable manager")) {
-                                EIError.debugMsg("Sending Placeable Manager Data...");
-                                PlaceableManager pm = registry.getPlaceableManager();
-                                sendData(pm);
-                                pm = null;
-                                EIError.debugMsg("Placeable Manager Data Sent");
-                            } else if (data.toString().equals("send resource manager")) {
-                                EIError.debugMsg("Sending Resource Manager Data...");
-                                ResourceManager rm = registry.getResourceManager();
-                                sendData(rm);
-                                rm = null;
-                                EIError.debugMsg("Resource Manager Data Sent");
-                            } else if (data.toString().equals("send monster manager")) {
-                                EIError.debugMsg("Sending Monster Manager Data...");
-                                MonsterManager mm = registry.getMonsterManager();
-                                sendData(mm);
-                                mm = null;
-                                EIError.debugMsg("Monster Manager Data Sent");
-                            } else if (data.toString().equals("send player")) {
-                                HashMap<String, Player> players = new HashMap<String, Player>(registry.getPlayerManager().getPlayers());
-
-                                try {
-                                    for (String key : players.keySet()) {
-                                        Player p = (Player) players.get(key);
-                                        if (p != null) {
-                                            EIError.debugMsg("Sending Player Data...");
-                                            sendData(p);
-                                            EIError.debugMsg("Player Data Sent");
-                                        }
-                                    }
-                                } catch (ConcurrentModificationException concEx) {
-                                    //another thread was trying to modify players while iterating
-                                    //we'll continue and the new item can be grabbed on the next update
-                                }
-                            } else if (data.toString().length() >= 6 && data.toString().substring(0, 6).equals("place ")) {
-                                String parts[] = data.toString().split(" ");
-                                if (parts.length == 4) {
-                                    EIError.debugMsg("Adding placeable...");
-                                    registry.getPlaceableManager().loadPlaceable(parts[1], Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Placeable.State.Placed);
-                                }
-                            } else if (data.toString().length() >= 18 && data.toString().substring(0, 18).equals("send monster data:")) {
-                                String id = data.toString().substring(19);
-                                Monster monster = registry.getMonsterManager().getMonsterById(id);
-                                if (monster != null) {
-                                    EIError.debugMsg("Sending Monster Data (" + monster.getId() + ")...");
-                                    sendData(monster);
-                                    EIError.debugMsg("Monster Data Sent");
-                                }
-                            } else if (data.toString().length() >= 18 && data.toString().substring(0, 18).equals("send oobaboo data:")) {
-                                String id = data.toString().substring(19);
-                                Player player = registry.getPlayerManager().getPlayerById(id);
-                                if (player != null) {
-                                    EIError.debugMsg("Sending Oobaboo Data (" + player.getId() + ")...");
-                                    sendData(player.getOobaboo());
-                                    EIError.debugMsg("Oobaboo Data Sent");
-                                }
-                            } else if (data.toString().length() >= 20 && data.toString().substring(0, 20).equals("send placeable data:")) {
-                                String id = data.toString().substring(21);
-                                Placeable placeable = registry.getPlaceableManager().getPlaceableById(id);
-                                if (placeable != null) {
-                                    EIError.debugMsg("Sending Placeable Data (" + placeable.getId() + ")...");
-                                    sendData(placeable);
-                                    EIError.debugMsg("Placeable Data Sent");
-                                }
-                            } else {
-                                
-                            EIError.debugMsg("Other Data:" + data);
-                                if (!data.toString().isEmpty()) {
-                                    gameController.showMessage("Success", "Message: " + data);
-                                }
-                            }
-                        } else if (data.getClass().equals(Player.class)) {
-                            EIError.debugMsg("Adding Player...");
-                            Player p = (Player) data;
-                            p.setTransient(registry);
-                            registry.getPlayerManager().registerPlayer(p);
-                            playerId = p.getId();
-                            EIError.debugMsg("Player Added");
-                            readyForUpdates = true;
-                        } else if (data.getClass().equals(OobabooGatherer.class)) {
-                            OobabooGatherer o = (OobabooGatherer) data;
-                            registry.getPlayerManager().assignOobaboo(o);
-                        } else if (data.getClass().equals(OobabooHealer.class)) {
-                            OobabooHealer o = (OobabooHealer) data;
-                            registry.getPlayerManager().assignOobaboo(o);
-                        } else if (data.getClass().equals(OobabooWarrior.class)) {
-                            OobabooWarrior o = (OobabooWarrior) data;
-                            registry.getPlayerManager().assignOobaboo(o);
-                        } else if (data.getClass().equals(UpdatePlayer.class)) {
-                            UpdatePlayer up = (UpdatePlayer) data;
-                            EIError.debugMsg("Updating Player (" + up.id + ")...");
-                            registry.getPlayerManager().processPlayerUpdate(up);
-                            EIError.debugMsg("Player Updated");
-                        } else if (data.getClass().equals(UpdatePlaceable.class)) {
-                            UpdatePlaceable up = (UpdatePlaceable) data;
-                            EIError.debugMsg("Updating Placeable (" + up.id + ")...");
-                            registry.getPlaceableManager().processPlaceableUpdate(up);
-                            EIError.debugMsg("Placeable Updated");
-                        } else {
-                            EIError.debugMsg("Rec Data:" + data);
+                    for (String key : players.keySet()) {
+                        Player p = (Player) players.get(key);
+                        if (p != null) {
+                            EIError.debugMsg("Sending Player Data...");
+                            sendData(p);
+                            EIError.debugMsg("Player Data Sent");
                         }
-
-                        data = null;
                     }
-                } catch (IOException e) {
-                    EIError.debugMsg("Network IO Error: " + e.getMessage());
-                } catch (ClassNotFoundException e) {
-                    EIError.debugMsg("Network Class Error: " + e.getMessage());
-                } catch (Exception e) {
-                    EIError.debugMsg("Network Error: " + e.getMessage());
-                    e.printStackTrace();
+                } catch (ConcurrentModificationException concEx) {
+                    //another thread was trying to modify players while iterating
+                    //we'll continue and the new item can be grabbed on the next update
+                }
+            }
+        };
+        handlers[Opcode.PLACE.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                EIError.debugMsg("Adding placeable...");
+                registry.getPlaceableManager().loadPlaceable(message.text, message.x, message.y, Placeable.State.Placed);
+            }
+        };
+        handlers[Opcode.SEND_MONSTER_DATA.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                Monster monster = registry.getMonsterManager().getMonsterById(message.text);
+                if (monster != null) {
+                    EIError.debugMsg("Sending Monster Data (" + monster.getId() + ")...");
+                    sendData(monster);
+                    EIError.debugMsg("Monster Data Sent");
+                }
+            }
+        };
+        handlers[Opcode.SEND_OOBABOO_DATA.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                Player player = registry.getPlayerManager().getPlayerById(message.text);
+                if (player != null) {
+                    EIError.debugMsg("Sending Oobaboo Data (" + player.getId() + ")...");
+                    sendData(player.getOobaboo());
+                    EIError.debugMsg("Oobaboo Data Sent");
                 }
             }
+        };
+        handlers[Opcode.SEND_PLACEABLE_DATA.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                Placeable placeable = registry.getPlaceableManager().getPlaceableById(message.text);
+                if (placeable != null) {
+                    EIError.debugMsg("Sending Placeable Data (" + placeable.getId() + ")...");
+                    sendData(placeable);
+                    EIError.debugMsg("Placeable Data Sent");
+                }
+            }
+        };
+        handlers[Opcode.MESSAGE.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                if (!message.text.isEmpty()) {
+                    gameController.showMessage("Success", "Message: " + message.text);
+                }
+            }
+        };
+        handlers[Opcode.PLAYER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                EIError.debugMsg("Adding Player...");
+                Player p = (Player) message.data;
+                p.setTransient(registry);
+                registry.getPlayerManager().registerPlayer(p);
+                playerId = p.getId();
+                if (udp != null) {
+                    udp.setPlayerId(playerId);
+                }
+                EIError.debugMsg("Player Added");
+                readyForUpdates = true;
+            }
+        };
+        handlers[Opcode.OOBABOO.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                registry.getPlayerManager().assignOobaboo((Oobaboo) message.data);
+            }
+        };
+        handlers[Opcode.UPDATE_PLAYER.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                UpdatePlayer up = (UpdatePlayer) message.data;
+                registry.getPlayerManager().processPlayerUpdate(up);
+            }
+        };
+        handlers[Opcode.UPDATE_PLACEABLE.ordinal()] = new TCPMessageHandler() {
+
+            public void handle(TCPMessage message) {
+                UpdatePlaceable up = (UpdatePlaceable) message.data;
+                registry.getPlaceableManager().processPlaceableUpdate(up);
+            }
+        };
+    }
+
+    private void handleData(TCPMessage message) {
+        TCPMessageHandler handler = handlers[message.opcode.ordinal()];
+        if (handler != null) {
+            handler.handle(message);
+        } else {
+            EIError.debugMsg("Rec Data:" + message);
         }
+    }
 
-        if (serverReceiveThread != null) {
-            serverReceiveThread.setRunning(false);
+    public void disconnect() {
+        if (closed) {
+            return;
         }
+        closed = true;
+        keepRunning = false;
+        readyForUpdates = false;
 
+        if (udp != null) {
+            udp.setRunning(false);
+        }
+        if (selectionKey != null) {
+            selectionKey.cancel();
+        }
         try {
-            socket.close();
+            channel.close();
         } catch (IOException e) {
             EIError.debugMsg("Socket Close Error: " + e.getMessage());
         }
 
-        readyForUpdates = false;
-
         PlayerManager pm = registry.getPlayerManager();
         if (pm != null) {
             pm.removePlayer(playerId);
         }
+        manager.removeConnection(this);
     }
 
     public void close() {
         EIError.debugMsg("Closing");
 
-        if (serverReceiveThread != null) {
-            serverReceiveThread.setRunning(false);
-        }
-
-        if (socket != null) {
-            try {
-                sendData("goodbye");
-                socket.close();
-            } catch (IOException e) {
-                //oh well, ain't no thang
-            }
+        if (udp != null) {
+            udp.setRunning(false);
         }
-        keepRunning = false;
-        socket = null;
+        sendData(TCPMessage.command(Opcode.GOODBYE));
     }
 
-    public boolean sendData(Object data) {
-        if (output == null || !socket.isConnected()) {
+    public boolean sendData(final Object data) {
+        if (closed || !channel.isOpen()) {
             return false;
         }
 
-        synchronized (this) {
-            try {
-                output.flush();
-                output.writeObject(data);
-                output.flush();
-                //output.reset();
-
-                if (data.getClass().equals(String.class)) {
-                    if (data.equals("goodbye")) {
-                        if (serverReceiveThread != null) {
-                            serverReceiveThread.setRunning(false);
-                        }
+        final boolean goodbye = data == TCPMessage.command(Opcode.GOODBYE);
+        return encode(new Runnable() {
 
-                        socket.close();
-                        if (socket != null) {
-                            socket.close();
-                        }
-
-                        keepRunning = false;
-                    }
+            public void run() {
+                try {
+                    queueFrame(TCPFrame.encode(data), goodbye);
+                } catch (IOException e) {
+                    EIError.debugMsg("Network IO Error - Sending");
                 }
-            } catch (IOException e) {
-                EIError.debugMsg("Network IO Error - Sending");
             }
+        });
+    }
+
+    //runs the task on the encoder thread, after everything already sent to this client
+    public boolean encode(Runnable task) {
+        return manager.encode(task);
+    }
+
+    /**
+     * Adds a finished frame to the write queue. Returns false when the
+     * connection is closing or the client has fallen too far behind.
+     */
+    public boolean queueFrame(ByteBuffer frame, boolean goodbye) {
+        if (closed) {
+            return false;
+        }
 
-            return true;
+        synchronized (writeQueue) {
+            if (closeAfterWrite) {
+                return false;
+            }
+            if (queuedBytes + frame.limit() > MAX_QUEUED_BYTES) {
+                EIError.debugMsg("Network Error: client too far behind, dropping");
+                writeQueue.clear();
+                queuedBytes = 0;
+                closeAfterWrite = true;
+                manager.requestWrite(this);
+                return false;
+            }
+            writeQueue.addLast(frame);
+            queuedBytes += frame.limit();
+            if (goodbye) {
+                keepRunning = false;
+                closeAfterWrite = true;
+            }
         }
+        manager.requestWrite(this);
+
+        return true;
     }
 }
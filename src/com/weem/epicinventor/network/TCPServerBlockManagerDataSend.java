@@ -10,67 +10,90 @@ import java.util.*;
 import java.util.zip.*;
 import java.nio.*;
 
-public class TCPServerBlockManagerDataSend extends Thread {
+/**
+ * Streams the block tiles to a joining client one range of columns at a
+ * time. Each range is compressed and encoded as its own task on the encoder
+ * thread, so other clients' frames are not held up behind a whole map.
+ */
+public class TCPServerBlockManagerDataSend implements Runnable {
 
+    public final static int COLUMNS_PER_RANGE = 64;
+    //columns either side of the spawn point the client needs before it can play
+    public final static int SPAWN_COLUMNS = 128;
     private Registry registry;
     protected TCPServer server;
-    protected int currentStartCollumn;
-    protected int collumnChunkSize;
+    protected int spawnColumn;
+    private BlockChunkStore tiles;
+    private Integer[] order;
+    private int spawnCount;
+    private int next;
+    private int sentBytes;
+    private Deflater deflater;
 
-    public TCPServerBlockManagerDataSend(Registry r, TCPServer s, int sc, int cs) {
+    public TCPServerBlockManagerDataSend(Registry r, TCPServer s, int sc) {
         registry = r;
         server = s;
-        currentStartCollumn = sc;
-        collumnChunkSize = cs;
+        spawnColumn = sc;
+    }
+
+    public void start() {
+        EIError.debugMsg("Sending Block Manager Data...");
+        tiles = registry.getBlockManager().getTiles();
+        int cols = tiles.getCols();
+
+        //send the ranges closest to the spawn point first so the client can start early
+        int total = (cols + COLUMNS_PER_RANGE - 1) / COLUMNS_PER_RANGE;
+        order = new Integer[total];
+        for (int i = 0; i < total; i++) {
+            order[i] = i;
+        }
+        final int spawnRange = Math.max(0, Math.min(total - 1, spawnColumn / COLUMNS_PER_RANGE));
+        Arrays.sort(order, new Comparator<Integer>() {
+
+            public int compare(Integer a, Integer b) {
+                return Math.abs(a - spawnRange) - Math.abs(b - spawnRange);
+            }
+        });
+        spawnCount = 0;
+        for (int i = 0; i < total; i++) {
+            if (Math.abs(order[i] - spawnRange) * COLUMNS_PER_RANGE <= SPAWN_COLUMNS) {
+                spawnCount++;
+            }
+        }
+
+        deflater = new Deflater(Deflater.BEST_SPEED);
+        if (total == 0 || !server.encode(this)) {
+            finish();
+        }
     }
 
-    @Override
     public void run() {
         try {
-            sendBlockMangerData();
+            if (sendRange() && next < order.length && server.keepRunning && server.encode(this)) {
+                return;
+            }
         } catch (Exception e) {
             EIError.debugMsg("Error Sending Block Manager Data..." + e.getMessage());
         }
+        finish();
     }
 
-    private void sendBlockMangerData() {
-        EIError.debugMsg("Sending Block Manager Data...");
-        short[][] blockChunk = registry.getBlockManager().getBlockCollumns(currentStartCollumn, currentStartCollumn + collumnChunkSize);
-        
-        //byte[] blockChunkByteArray = zipBlockData(blockChunk);
-        //EIError.debugMsg("Now...");
-        server.sendData(blockChunk);
-        //EIError.debugMsg("Sent...");
-        //blockChunkByteArray = null;
-        //blockChunk = null;
-        EIError.debugMsg("Block Manager Data Sent "+currentStartCollumn+".."+(currentStartCollumn + collumnChunkSize));
+    private boolean sendRange() throws IOException {
+        int cols = tiles.getCols();
+        int start = order[next] * COLUMNS_PER_RANGE;
+        int count = Math.min(COLUMNS_PER_RANGE, cols - start);
+        BlockColumnData columnData = new BlockColumnData(start, count, tiles.getRows(), next, order.length, spawnCount);
+        columnData.setColumns(tiles.getColumns(start, start + count), deflater);
+        if (!server.queueFrame(TCPFrame.encode(columnData), false)) {
+            return false;
+        }
+        sentBytes += columnData.getCompressedSize();
+        next++;
+        return true;
     }
 
-//    private byte[] zipBlockData(short[][] blockChunk) {
-//        ByteBuffer byteBuf = ByteBuffer.allocate(blockChunk.length*blockChunk[0].length*2);
-//        for(int x = 0; x < blockChunk.length; x++) {
-//            for(int y = 0; y < blockChunk[0].length; y++) {
-//                byteBuf.put((byte)(blockChunk[x][y] & 0xff));
-//                byteBuf.put((byte)((blockChunk[x][y] >> 8) & 0xff));
-//            }
-//        }
-//        byte[] input = byteBuf.array();
-//        Deflater compressor = new Deflater();
-//        compressor.setLevel(Deflater.BEST_COMPRESSION);
-//        compressor.setInput(input);
-//        compressor.finish();
-//        ByteArrayOutputStream bos = new ByteArrayOutputStream(input.length);
-//        byte[] buf = new byte[1024];
-//        while (!compressor.finished()) {
-//            int count = compressor.deflate(buf);
-//            bos.write(buf, 0, count);
-//        }
-//        try {
-//            bos.close();
-//        } catch (Exception e) {
-//            EIError.debugMsg("Error zipBlockData "+e.getMessage());
-//        }
-//        byte[] compressedData = bos.toByteArray();
-//        return compressedData;
-//    }
+    private void finish() {
+        deflater.end();
+        EIError.debugMsg("Block Manager Data Sent (" + next + " of " + order.length + " ranges, " + sentBytes + " bytes)");
+    }
 }
@@ -11,34 +11,57 @@ import com.weem.epicinventor.world.block.*;
 
 import java.net.*;
 import java.io.*;
-import java.util.ArrayList;
-
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs the whole server side of the network on one thread. A single selector
+ * accepts connections, reads and writes every client's TCP channel and
+ * receives on every client's UDP channel, and every ServerUDPConnection.TICK_LENGTH
+ * it sends each client its world update. Serializing what goes out is left
+ * to a single encoder thread, which keeps each client's frames in order.
+ */
 public class TCPServerManager extends Thread {
 
     private Registry registry;
     private GameController gameController;
     private int port;
-    private ArrayList<TCPServer> tcpServers;
+    private CopyOnWriteArrayList<TCPServer> tcpServers;
+    private ConcurrentLinkedQueue<TCPServer> pendingWrites;
+    private ExecutorService encoder;
     private static int maxConnections = 0;
     public boolean readyForUpdates = true;
-    private ServerSocket listenerSocket;
-    private boolean shuttingDown = false;
+    private Selector selector;
+    private ServerSocketChannel listenerChannel;
+    private volatile boolean shuttingDown = false;
+    private int connectionCount;
 
     public TCPServerManager(Registry r, GameController gc, int p) {
         registry = r;
         gameController = gc;
         port = p;
 
-        tcpServers = new ArrayList<TCPServer>();
+        tcpServers = new CopyOnWriteArrayList<TCPServer>();
+        pendingWrites = new ConcurrentLinkedQueue<TCPServer>();
+        encoder = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "TCPEncoder");
+                t.setDaemon(true);
+                return t;
+            }
+        });
     }
 
     @Override
     public void run() {
-        int i = 0;
-
         try {
-            listenerSocket = new ServerSocket(port);
-            Socket socket;
+            selector = Selector.open();
+            listenerChannel = ServerSocketChannel.open();
+            listenerChannel.configureBlocking(false);
+            listenerChannel.socket().bind(new InetSocketAddress(port));
+            listenerChannel.register(selector, SelectionKey.OP_ACCEPT);
 
             EIError.debugMsg("Listening");
 
@@ -47,18 +70,48 @@ public class TCPServerManager extends Thread {
 
             EIError.debugMsg("Waiting for Connection...");
 
-            while ((i++ < maxConnections) || (maxConnections == 0)) {
-                socket = listenerSocket.accept();
+            long nextTick = System.currentTimeMillis();
+            while (!shuttingDown) {
+                long wait = nextTick - System.currentTimeMillis();
+                if (wait > 0) {
+                    selector.select(wait);
+                } else {
+                    selector.selectNow();
+                }
 
-                if (!shuttingDown) {
-                    TCPServer connection = new TCPServer(registry, gameController, socket, port + (i - 1));
-                    tcpServers.add(connection);
-                    connection.start();
+                TCPServer pending;
+                while ((pending = pendingWrites.poll()) != null) {
+                    pending.enableWrite();
+                }
 
-                    EIError.debugMsg("Connected");
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
 
-                    gameController.setNetworkMode(true);
-                    gameController.showMessage("Success", "Network Connection Established");
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.attachment() instanceof ServerUDPConnection) {
+                        ((ServerUDPConnection) key.attachment()).receive();
+                    } else if (key.attachment() instanceof TCPServer) {
+                        TCPServer connection = (TCPServer) key.attachment();
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    }
+                }
+
+                if (System.currentTimeMillis() >= nextTick) {
+                    for (int i = 0; i < tcpServers.size(); i++) {
+                        tcpServers.get(i).tick();
+                    }
+                    nextTick = System.currentTimeMillis() + ServerUDPConnection.TICK_LENGTH;
                 }
             }
         } catch (IOException ioe) {
@@ -68,6 +121,74 @@ public class TCPServerManager extends Thread {
                 ioe.printStackTrace();
             }
         }
+
+        //last chance to get the goodbyes out before the channels close
+        encoder.shutdown();
+        try {
+            encoder.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+        }
+        for (TCPServer connection : tcpServers) {
+            connection.write();
+            connection.disconnect();
+        }
+        try {
+            if (listenerChannel != null) {
+                listenerChannel.close();
+            }
+            if (selector != null) {
+                selector.close();
+            }
+        } catch (IOException e) {
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = listenerChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        if (shuttingDown || (maxConnections > 0 && connectionCount >= maxConnections)) {
+            channel.close();
+            return;
+        }
+
+        connectionCount++;
+        TCPServer connection = new TCPServer(registry, gameController, this, channel, port + (connectionCount - 1));
+        try {
+            connection.open(selector);
+        } catch (IOException e) {
+            gameController.showMessage("Error", "Couldn't accept connection...");
+            channel.close();
+            return;
+        }
+        tcpServers.add(connection);
+
+        EIError.debugMsg("Connected");
+
+        gameController.setNetworkMode(true);
+        gameController.showMessage("Success", "Network Connection Established");
+    }
+
+    //called from any thread when a connection has something queued to write
+    public void requestWrite(TCPServer connection) {
+        pendingWrites.add(connection);
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    public boolean encode(Runnable task) {
+        try {
+            encoder.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    public void removeConnection(TCPServer connection) {
+        tcpServers.remove(connection);
     }
 
     public boolean sendData(Object data) {
@@ -96,20 +217,17 @@ public class TCPServerManager extends Thread {
         for (int i = 0; i < tcpServers.size(); i++) {
             tcpServer = tcpServers.get(i);
             if (tcpServer != null) {
-                tcpServer.keepRunning = false;
+                tcpServer.close();
             }
         }
 
         shuttingDown = true;
 
-        if (listenerSocket != null) {
-            try {
-                listenerSocket.close();
-            } catch (IOException e) {
-            }
+        if (selector != null) {
+            selector.wakeup();
         }
 
         gameController.setNetworkMode(false);
         gameController.multiplayerMode = gameController.multiplayerMode.NONE;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,635 @@
+package com.weem.epicinventor.network;
+
+import com.weem.epicinventor.*;
+import com.weem.epicinventor.actor.*;
+import com.weem.epicinventor.armor.*;
+import com.weem.epicinventor.resource.*;
+import com.weem.epicinventor.weapon.*;
+
+import java.nio.*;
+import java.nio.charset.Charset;
+
+/**
+ * Hand written wire format for the UDP snapshots. Every message starts with a
+ * one byte type tag followed by that type's fields in a fixed order. Ints are
+ * zigzag varints, booleans are packed into a single flags varint and the
+ * armor, weapon and resource types travel by name and are looked up again on
+ * the receiving side.
+ */
+class UDPCodec {
+
+    public final static byte TYPE_STRING = 1;
+    public final static byte TYPE_KEYS = 2;
+    public final static byte TYPE_PLAYER = 3;
+    public final static byte TYPE_ROBOT = 4;
+    public final static byte TYPE_OOBABOO = 5;
+    public final static byte TYPE_MONSTER = 6;
+    public final static byte TYPE_PLACEABLE = 7;
+    public final static byte TYPE_RESOURCE = 8;
+    public final static byte TYPE_KEYFRAME = 9;
+    public final static byte TYPE_DELTA = 10;
+    public final static byte TYPE_BATCH = 11;
+    public final static int TYPE_COUNT = 12;
+    public final static int MAX_PACKET_SIZE = 4112;
+    //field layouts used to walk an encoded body one field at a time:
+    //v = varint (ints, longs, enums, flags), f = float, s = string
+    private final static String MONSTER_FIELDS = "svvvvvvvvvvvvvvvvvvvvvvvvvvvvffvvvvv";
+    private final static String PLACEABLE_FIELDS = "svvvvvv";
+    private final static String RESOURCE_FIELDS = "sv";
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+    private final static Actor.ActionMode[] ACTION_MODES = Actor.ActionMode.values();
+    private final static Actor.VertMoveMode[] VERT_MOVE_MODES = Actor.VertMoveMode.values();
+    private final static Actor.Facing[] FACINGS = Actor.Facing.values();
+    private Registry registry;
+
+    public UDPCodec(Registry r) {
+        registry = r;
+    }
+
+    public static ByteBuffer allocateBuffer() {
+        return ByteBuffer.allocate(MAX_PACKET_SIZE);
+    }
+
+    public static boolean canEncode(Object o) {
+        return o instanceof String
+                || o instanceof UDPKeys
+                || o instanceof UDPPlayer
+                || o instanceof UDPRobot
+                || o instanceof UDPOobaboo
+                || o instanceof UDPMonster
+                || o instanceof UDPPlaceable
+                || o instanceof UDPResource;
+    }
+
+    public void encode(Object o, ByteBuffer buf) {
+        if (o instanceof UDPKeys) {
+            buf.put(TYPE_KEYS);
+            writeKeys(buf, (UDPKeys) o);
+        } else if (o instanceof UDPPlayer) {
+            buf.put(TYPE_PLAYER);
+            writePlayer(buf, (UDPPlayer) o);
+        } else if (o instanceof UDPRobot) {
+            buf.put(TYPE_ROBOT);
+            writeRobot(buf, (UDPRobot) o);
+        } else if (o instanceof UDPOobaboo) {
+            buf.put(TYPE_OOBABOO);
+            writeOobaboo(buf, (UDPOobaboo) o);
+        } else if (o instanceof UDPMonster) {
+            buf.put(TYPE_MONSTER);
+            writeMonster(buf, (UDPMonster) o);
+        } else if (o instanceof UDPPlaceable) {
+            buf.put(TYPE_PLACEABLE);
+            writePlaceable(buf, (UDPPlaceable) o);
+        } else if (o instanceof UDPResource) {
+            buf.put(TYPE_RESOURCE);
+            writeResource(buf, (UDPResource) o);
+        } else if (o instanceof String) {
+            buf.put(TYPE_STRING);
+            writeString(buf, (String) o);
+        } else {
+            throw new IllegalArgumentException("Can't encode " + o);
+        }
+    }
+
+    public Object decode(ByteBuffer buf) {
+        byte type = buf.get();
+        switch (type) {
+            case TYPE_KEYS:
+                return readKeys(buf);
+            case TYPE_PLAYER:
+                return readPlayer(buf);
+            case TYPE_ROBOT:
+                return readRobot(buf);
+            case TYPE_OOBABOO:
+                return readOobaboo(buf);
+            case TYPE_MONSTER:
+                return readMonster(buf);
+            case TYPE_PLACEABLE:
+                return readPlaceable(buf);
+            case TYPE_RESOURCE:
+                return readResource(buf);
+            case TYPE_STRING:
+                return readString(buf);
+            default:
+                throw new IllegalArgumentException("Unknown packet type " + type);
+        }
+    }
+
+    /**
+     * Returns the field layout for types that can be sent as deltas, or null
+     * if the type is always sent whole.
+     */
+    public static String getFieldLayout(byte type) {
+        switch (type) {
+            case TYPE_MONSTER:
+                return MONSTER_FIELDS;
+            case TYPE_PLACEABLE:
+                return PLACEABLE_FIELDS;
+            case TYPE_RESOURCE:
+                return RESOURCE_FIELDS;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Fills offsets with the start of each field of an encoded body that
+     * begins at pos, plus the end of the last field.
+     */
+    public static void splitFields(byte[] data, int pos, String layout, int[] offsets) {
+        for (int i = 0; i < layout.length(); i++) {
+            offsets[i] = pos;
+            pos = skipField(data, pos, layout.charAt(i));
+        }
+        offsets[layout.length()] = pos;
+    }
+
+    public static int skipField(byte[] data, int pos, char kind) {
+        switch (kind) {
+            case 'f':
+                return pos + 4;
+            case 's':
+                int len = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    len |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                return pos + Math.max(len - 1, 0);
+            default:
+                while ((data[pos++] & 0x80) != 0) {
+                }
+                return pos;
+        }
+    }
+
+    private void writeKeys(ByteBuffer buf, UDPKeys uk) {
+        writeString(buf, uk.id);
+        writeFlags(buf, uk.keySpacePressed, uk.keyRightPressed, uk.keyLeftPressed, uk.keyGatherPressed, uk.keyRobotPressed);
+    }
+
+    private UDPKeys readKeys(ByteBuffer buf) {
+        String id = readString(buf);
+        int flags = readVarInt(buf);
+        return new UDPKeys(id, flag(flags, 0), flag(flags, 1), flag(flags, 2), flag(flags, 3), flag(flags, 4));
+    }
+
+    private void writePlayer(ByteBuffer buf, UDPPlayer up) {
+        writeInt(buf, up.playerUpdateID);
+        writeString(buf, up.id);
+        writeInt(buf, up.mapX);
+        writeInt(buf, up.lastMapY);
+        writeInt(buf, up.mapY);
+        writeInt(buf, up.width);
+        writeInt(buf, up.height);
+        writeInt(buf, up.xMoveSize);
+        writeEnum(buf, up.actionMode);
+        writeEnum(buf, up.vertMoveMode);
+        writeEnum(buf, up.facing);
+        writeInt(buf, up.jumpSize);
+        writeInt(buf, up.startJumpSize);
+        writeInt(buf, up.totalHitPoints);
+        writeInt(buf, up.hitPoints);
+        writeInt(buf, up.totalArmorPoints);
+        writeInt(buf, up.armorPoints);
+        writeInt(buf, up.knockBackX);
+        writeArmorType(buf, up.armorHead);
+        writeArmorType(buf, up.armorChest);
+        writeArmorType(buf, up.armorLegs);
+        writeArmorType(buf, up.armorFeet);
+        writeInt(buf, up.armorHeadLevel);
+        writeInt(buf, up.armorChestLevel);
+        writeInt(buf, up.armorLegsLevel);
+        writeInt(buf, up.armorFeetLevel);
+        writeInt(buf, up.selectedItem);
+        writeResourceType(buf, up.currentResourceType);
+        writeInt(buf, up.xp);
+        writeFlags(buf, up.isStill, up.isTryingToMove, up.invulnerable, up.insideRobot, up.robotActive, up.oobabooActive);
+    }
+
+    private UDPPlayer readPlayer(ByteBuffer buf) {
+        int playerUpdateID = readInt(buf);
+        UDPPlayer up = new UDPPlayer(readString(buf));
+        up.playerUpdateID = playerUpdateID;
+        up.mapX = readInt(buf);
+        up.lastMapY = readInt(buf);
+        up.mapY = readInt(buf);
+        up.width = readInt(buf);
+        up.height = readInt(buf);
+        up.xMoveSize = readInt(buf);
+        up.actionMode = readActionMode(buf);
+        up.vertMoveMode = readVertMoveMode(buf);
+        up.facing = readFacing(buf);
+        up.jumpSize = readInt(buf);
+        up.startJumpSize = readInt(buf);
+        up.totalHitPoints = readInt(buf);
+        up.hitPoints = readInt(buf);
+        up.totalArmorPoints = readInt(buf);
+        up.armorPoints = readInt(buf);
+        up.knockBackX = readInt(buf);
+        up.armorHead = readArmorType(buf);
+        up.armorChest = readArmorType(buf);
+        up.armorLegs = readArmorType(buf);
+        up.armorFeet = readArmorType(buf);
+        up.armorHeadLevel = readInt(buf);
+        up.armorChestLevel = readInt(buf);
+        up.armorLegsLevel = readInt(buf);
+        up.armorFeetLevel = readInt(buf);
+        up.selectedItem = readInt(buf);
+        up.currentResourceType = readResourceType(buf);
+        up.xp = readInt(buf);
+        int flags = readVarInt(buf);
+        up.isStill = flag(flags, 0);
+        up.isTryingToMove = flag(flags, 1);
+        up.invulnerable = flag(flags, 2);
+        up.insideRobot = flag(flags, 3);
+        up.robotActive = flag(flags, 4);
+        up.oobabooActive = flag(flags, 5);
+        return up;
+    }
+
+    private void writeRobot(ByteBuffer buf, UDPRobot ur) {
+        writeString(buf, ur.id);
+        writeInt(buf, ur.mapX);
+        writeInt(buf, ur.lastMapY);
+        writeInt(buf, ur.mapY);
+        writeInt(buf, ur.width);
+        writeInt(buf, ur.height);
+        writeInt(buf, ur.xMoveSize);
+        writeEnum(buf, ur.actionMode);
+        writeEnum(buf, ur.vertMoveMode);
+        writeEnum(buf, ur.facing);
+        writeInt(buf, ur.jumpSize);
+        writeInt(buf, ur.startJumpSize);
+        writeInt(buf, ur.totalHitPoints);
+        writeInt(buf, ur.hitPoints);
+        writeInt(buf, ur.totalArmorPoints);
+        writeInt(buf, ur.armorPoints);
+        writeInt(buf, ur.knockBackX);
+        writeLong(buf, ur.batteryTimeRemaining);
+        writeLong(buf, ur.batteryTimeTotal);
+        writeString(buf, ur.mode);
+        writeString(buf, ur.meleeWeaponType == null ? null : ur.meleeWeaponType.getItemName());
+        writeInt(buf, ur.weaponLevel);
+        writeFlags(buf, ur.isStill, ur.isTryingToMove, ur.isFollowing, ur.invulnerable, ur.isSwinging);
+    }
+
+    private UDPRobot readRobot(ByteBuffer buf) {
+        UDPRobot ur = new UDPRobot(readString(buf));
+        ur.mapX = readInt(buf);
+        ur.lastMapY = readInt(buf);
+        ur.mapY = readInt(buf);
+        ur.width = readInt(buf);
+        ur.height = readInt(buf);
+        ur.xMoveSize = readInt(buf);
+        ur.actionMode = readActionMode(buf);
+        ur.vertMoveMode = readVertMoveMode(buf);
+        ur.facing = readFacing(buf);
+        ur.jumpSize = readInt(buf);
+        ur.startJumpSize = readInt(buf);
+        ur.totalHitPoints = readInt(buf);
+        ur.hitPoints = readInt(buf);
+        ur.totalArmorPoints = readInt(buf);
+        ur.armorPoints = readInt(buf);
+        ur.knockBackX = readInt(buf);
+        ur.batteryTimeRemaining = readLong(buf);
+        ur.batteryTimeTotal = readLong(buf);
+        ur.mode = readString(buf);
+        String weaponName = readString(buf);
+        ur.meleeWeaponType = weaponName == null ? null : Weapon.getWeaponType(weaponName);
+        ur.weaponLevel = readInt(buf);
+        int flags = readVarInt(buf);
+        ur.isStill = flag(flags, 0);
+        ur.isTryingToMove = flag(flags, 1);
+        ur.isFollowing = flag(flags, 2);
+        ur.invulnerable = flag(flags, 3);
+        ur.isSwinging = flag(flags, 4);
+        return ur;
+    }
+
+    private void writeOobaboo(ByteBuffer buf, UDPOobaboo uo) {
+        writeString(buf, uo.id);
+        writeInt(buf, uo.mapX);
+        writeInt(buf, uo.lastMapY);
+        writeInt(buf, uo.mapY);
+        writeInt(buf, uo.width);
+        writeInt(buf, uo.height);
+        writeInt(buf, uo.xMoveSize);
+        writeEnum(buf, uo.actionMode);
+        writeEnum(buf, uo.vertMoveMode);
+        writeEnum(buf, uo.facing);
+        writeInt(buf, uo.jumpSize);
+        writeInt(buf, uo.ascendOriginalSize);
+        writeInt(buf, uo.ascendSize);
+        writeInt(buf, uo.ascendCount);
+        writeInt(buf, uo.ascendMax);
+        writeInt(buf, uo.fallSize);
+        writeInt(buf, uo.startJumpSize);
+        writeInt(buf, uo.maxFallSize);
+        writeInt(buf, uo.gravity);
+        writeInt(buf, uo.totalFall);
+        writeInt(buf, uo.completeFall);
+        writeInt(buf, uo.totalHitPoints);
+        writeInt(buf, uo.hitPoints);
+        writeInt(buf, uo.totalArmorPoints);
+        writeInt(buf, uo.armorPoints);
+        writeInt(buf, uo.knockBackX);
+        writeResourceType(buf, uo.currentResourceType);
+        writeFlags(buf, uo.isStill, uo.isTryingToMove, uo.isDead, uo.isSwinging);
+    }
+
+    private UDPOobaboo readOobaboo(ByteBuffer buf) {
+        UDPOobaboo uo = new UDPOobaboo(readString(buf));
+        uo.mapX = readInt(buf);
+        uo.lastMapY = readInt(buf);
+        uo.mapY = readInt(buf);
+        uo.width = readInt(buf);
+        uo.height = readInt(buf);
+        uo.xMoveSize = readInt(buf);
+        uo.actionMode = readActionMode(buf);
+        uo.vertMoveMode = readVertMoveMode(buf);
+        uo.facing = readFacing(buf);
+        uo.jumpSize = readInt(buf);
+        uo.ascendOriginalSize = readInt(buf);
+        uo.ascendSize = readInt(buf);
+        uo.ascendCount = readInt(buf);
+        uo.ascendMax = readInt(buf);
+        uo.fallSize = readInt(buf);
+        uo.startJumpSize = readInt(buf);
+        uo.maxFallSize = readInt(buf);
+        uo.gravity = readInt(buf);
+        uo.totalFall = readInt(buf);
+        uo.completeFall = readInt(buf);
+        uo.totalHitPoints = readInt(buf);
+        uo.hitPoints = readInt(buf);
+        uo.totalArmorPoints = readInt(buf);
+        uo.armorPoints = readInt(buf);
+        uo.knockBackX = readInt(buf);
+        uo.currentResourceType = readResourceType(buf);
+        int flags = readVarInt(buf);
+        uo.isStill = flag(flags, 0);
+        uo.isTryingToMove = flag(flags, 1);
+        uo.isDead = flag(flags, 2);
+        uo.isSwinging = flag(flags, 3);
+        return uo;
+    }
+
+    private void writeMonster(ByteBuffer buf, UDPMonster um) {
+        writeString(buf, um.id);
+        writeInt(buf, um.mapX);
+        writeInt(buf, um.lastMapY);
+        writeInt(buf, um.mapY);
+        writeInt(buf, um.width);
+        writeInt(buf, um.height);
+        writeInt(buf, um.xMoveSize);
+        writeEnum(buf, um.actionMode);
+        writeEnum(buf, um.vertMoveMode);
+        writeEnum(buf, um.facing);
+        writeInt(buf, um.jumpSize);
+        writeInt(buf, um.ascendOriginalSize);
+        writeInt(buf, um.ascendSize);
+        writeInt(buf, um.ascendCount);
+        writeInt(buf, um.ascendMax);
+        writeInt(buf, um.fallSize);
+        writeInt(buf, um.startJumpSize);
+        writeInt(buf, um.maxFallSize);
+        writeInt(buf, um.gravity);
+        writeInt(buf, um.totalFall);
+        writeInt(buf, um.completeFall);
+        writeInt(buf, um.totalHitPoints);
+        writeInt(buf, um.hitPoints);
+        writeInt(buf, um.totalArmorPoints);
+        writeInt(buf, um.armorPoints);
+        writeInt(buf, um.knockBackX);
+        writeInt(buf, um.touchDamage);
+        writeInt(buf, um.meleeDamage);
+        writeInt(buf, um.meleeSpeed);
+        buf.putFloat(um.mapXMin);
+        buf.putFloat(um.mapXMax);
+        writeInt(buf, um.groundLevel);
+        writeInt(buf, um.playerDamage);
+        writeInt(buf, um.placeableDamage);
+        writeInt(buf, um.level);
+        writeFlags(buf, um.isStill, um.isTryingToMove, um.isDead, um.isDirty, um.isHiding);
+    }
+
+    private UDPMonster readMonster(ByteBuffer buf) {
+        UDPMonster um = new UDPMonster(readString(buf));
+        um.mapX = readInt(buf);
+        um.lastMapY = readInt(buf);
+        um.mapY = readInt(buf);
+        um.width = readInt(buf);
+        um.height = readInt(buf);
+        um.xMoveSize = readInt(buf);
+        um.actionMode = readActionMode(buf);
+        um.vertMoveMode = readVertMoveMode(buf);
+        um.facing = readFacing(buf);
+        um.jumpSize = readInt(buf);
+        um.ascendOriginalSize = readInt(buf);
+        um.ascendSize = readInt(buf);
+        um.ascendCount = readInt(buf);
+        um.ascendMax = readInt(buf);
+        um.fallSize = readInt(buf);
+        um.startJumpSize = readInt(buf);
+        um.maxFallSize = readInt(buf);
+        um.gravity = readInt(buf);
+        um.totalFall = readInt(buf);
+        um.completeFall = readInt(buf);
+        um.totalHitPoints = readInt(buf);
+        um.hitPoints = readInt(buf);
+        um.totalArmorPoints = readInt(buf);
+        um.armorPoints = readInt(buf);
+        um.knockBackX = readInt(buf);
+        um.touchDamage = readInt(buf);
+        um.meleeDamage = readInt(buf);
+        um.meleeSpeed = readInt(buf);
+        um.mapXMin = buf.getFloat();
+        um.mapXMax = buf.getFloat();
+        um.groundLevel = readInt(buf);
+        um.playerDamage = readInt(buf);
+        um.placeableDamage = readInt(buf);
+        um.level = readInt(buf);
+        int flags = readVarInt(buf);
+        um.isStill = flag(flags, 0);
+        um.isTryingToMove = flag(flags, 1);
+        um.isDead = flag(flags, 2);
+        um.isDirty = flag(flags, 3);
+        um.isHiding = flag(flags, 4);
+        return um;
+    }
+
+    private void writePlaceable(ByteBuffer buf, UDPPlaceable up) {
+        writeString(buf, up.id);
+        writeLong(buf, up.buildingTime);
+        writeInt(buf, up.totalBuildTime);
+        writeInt(buf, up.totalHitPoints);
+        writeInt(buf, up.hitPoints);
+        writeLong(buf, up.destroyingTime);
+        writeFlags(buf, up.isActive, up.isBuilding, up.isDirty, up.isDestroying);
+    }
+
+    private UDPPlaceable readPlaceable(ByteBuffer buf) {
+        UDPPlaceable up = new UDPPlaceable(readString(buf));
+        up.buildingTime = readLong(buf);
+        up.totalBuildTime = readInt(buf);
+        up.totalHitPoints = readInt(buf);
+        up.hitPoints = readInt(buf);
+        up.destroyingTime = readLong(buf);
+        int flags = readVarInt(buf);
+        up.isActive = flag(flags, 0);
+        up.isBuilding = flag(flags, 1);
+        up.isDirty = flag(flags, 2);
+        up.isDestroying = flag(flags, 3);
+        return up;
+    }
+
+    private void writeResource(ByteBuffer buf, UDPResource ur) {
+        writeString(buf, ur.id);
+        writeFlags(buf, ur.isCollecting);
+    }
+
+    private UDPResource readResource(ByteBuffer buf) {
+        UDPResource ur = new UDPResource(readString(buf));
+        ur.isCollecting = flag(readVarInt(buf), 0);
+        return ur;
+    }
+
+    private void writeArmorType(ByteBuffer buf, ArmorType at) {
+        writeString(buf, at == null ? null : at.getName());
+    }
+
+    private ArmorType readArmorType(ByteBuffer buf) {
+        String name = readString(buf);
+        return name == null ? null : Armor.getArmorType(name);
+    }
+
+    private void writeResourceType(ByteBuffer buf, ResourceType rt) {
+        writeString(buf, rt == null ? null : rt.getName());
+    }
+
+    private ResourceType readResourceType(ByteBuffer buf) {
+        String name = readString(buf);
+        if (name == null || registry == null || registry.getResourceManager() == null) {
+            return null;
+        }
+        ResourceType rt = registry.getResourceManager().getResourceTypeByName(name);
+        if (rt != null && rt.getName().equals(name)) {
+            return rt;
+        }
+        return null;
+    }
+
+    private Actor.ActionMode readActionMode(ByteBuffer buf) {
+        int i = readVarInt(buf);
+        return i == 0 ? null : ACTION_MODES[i - 1];
+    }
+
+    private Actor.VertMoveMode readVertMoveMode(ByteBuffer buf) {
+        int i = readVarInt(buf);
+        return i == 0 ? null : VERT_MOVE_MODES[i - 1];
+    }
+
+    private Actor.Facing readFacing(ByteBuffer buf) {
+        int i = readVarInt(buf);
+        return i == 0 ? null : FACINGS[i - 1];
+    }
+
+    public static void writeEnum(ByteBuffer buf, Enum e) {
+        writeVarInt(buf, e == null ? 0 : e.ordinal() + 1);
+    }
+
+    public static void writeFlags(ByteBuffer buf, boolean... flags) {
+        int bits = 0;
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i]) {
+                bits |= 1 << i;
+            }
+        }
+        writeVarInt(buf, bits);
+    }
+
+    public static boolean flag(int flags, int bit) {
+        return (flags & (1 << bit)) != 0;
+    }
+
+    public static void writeInt(ByteBuffer buf, int v) {
+        writeVarInt(buf, (v << 1) ^ (v >> 31));
+    }
+
+    public static int readInt(ByteBuffer buf) {
+        int v = readVarInt(buf);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public static void writeLong(ByteBuffer buf, long v) {
+        writeVarLong(buf, (v << 1) ^ (v >> 63));
+    }
+
+    public static long readLong(ByteBuffer buf) {
+        long v = readVarLong(buf);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public static void writeVarInt(ByteBuffer buf, int v) {
+        while ((v & ~0x7F) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    public static int readVarInt(ByteBuffer buf) {
+        int v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf.get();
+            v |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 35);
+        return v;
+    }
+
+    public static void writeVarLong(ByteBuffer buf, long v) {
+        while ((v & ~0x7FL) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    public static long readVarLong(ByteBuffer buf) {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf.get();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 70);
+        return v;
+    }
+
+    //strings are written as length + 1 so that 0 can stand for null
+    public static void writeString(ByteBuffer buf, String s) {
+        if (s == null) {
+            writeVarInt(buf, 0);
+            return;
+        }
+        byte[] bytes = s.getBytes(UTF8);
+        writeVarInt(buf, bytes.length + 1);
+        buf.put(bytes);
+    }
+
+    public static String readString(ByteBuffer buf) {
+        int len = readVarInt(buf) - 1;
+        if (len < 0) {
+            return null;
+        }
+        String s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, UTF8);
+        buf.position(buf.position() + len);
+        return s;
+    }
+}
@@ -0,0 +1,122 @@
+package com.weem.epicinventor.network;
+
+import java.nio.*;
+import java.util.*;
+
+/**
+ * Client side of the delta replication. Remembers the last keyframe received
+ * for each entity and rebuilds full updates from the deltas sent against it,
+ * so the managers keep receiving whole UDPMonster, UDPPlaceable and
+ * UDPResource objects.
+ */
+class UDPDeltaReceiver {
+
+    private final static long BASELINE_TIMEOUT = 5000;
+    private UDPCodec codec;
+    private HashMap<String, Baseline>[] baselines;
+    private ByteBuffer scratch = UDPCodec.allocateBuffer();
+    private long lastPrune;
+
+    private static class Baseline {
+
+        int keyframeNumber;
+        long receivedTime;
+        byte[] keyframe;
+        int[] keyframeOffsets;
+    }
+
+    public UDPDeltaReceiver(UDPCodec c) {
+        codec = c;
+        baselines = new HashMap[UDPCodec.TYPE_COUNT];
+    }
+
+    /**
+     * Decodes a packet body. Returns null for a delta whose keyframe we never
+     * got; the entity catches up on its next keyframe.
+     */
+    public Object decode(ByteBuffer buf) {
+        byte tag = buf.get(buf.position());
+        if (tag == UDPCodec.TYPE_KEYFRAME) {
+            buf.get();
+            int keyframeNumber = UDPCodec.readVarInt(buf);
+            int start = buf.position();
+            Object o = codec.decode(buf);
+            storeKeyframe(Arrays.copyOfRange(buf.array(), buf.arrayOffset() + start, buf.arrayOffset() + buf.position()), keyframeNumber);
+            return o;
+        } else if (tag == UDPCodec.TYPE_DELTA) {
+            buf.get();
+            byte type = buf.get();
+            String id = UDPCodec.readString(buf);
+            int keyframeNumber = UDPCodec.readVarInt(buf);
+            long mask = UDPCodec.readVarLong(buf);
+
+            Baseline b = baselines[type] == null ? null : baselines[type].get(id);
+            if (b == null || b.keyframeNumber != keyframeNumber) {
+                return null;
+            }
+
+            String layout = UDPCodec.getFieldLayout(type);
+            byte[] data = buf.array();
+            int pos = buf.arrayOffset() + buf.position();
+            scratch.clear();
+            scratch.put(type);
+            for (int i = 0; i < layout.length(); i++) {
+                if ((mask & (1L << i)) != 0) {
+                    int end = UDPCodec.skipField(data, pos, layout.charAt(i));
+                    scratch.put(data, pos, end - pos);
+                    pos = end;
+                } else {
+                    scratch.put(b.keyframe, b.keyframeOffsets[i], b.keyframeOffsets[i + 1] - b.keyframeOffsets[i]);
+                }
+            }
+            buf.position(pos - buf.arrayOffset());
+            scratch.flip();
+            return codec.decode(scratch);
+        }
+        return codec.decode(buf);
+    }
+
+    private void storeKeyframe(byte[] keyframe, int keyframeNumber) {
+        byte type = keyframe[0];
+        String layout = UDPCodec.getFieldLayout(type);
+        if (layout == null) {
+            return;
+        }
+
+        if (baselines[type] == null) {
+            baselines[type] = new HashMap<String, Baseline>();
+        }
+        String id = UDPCodec.readString(ByteBuffer.wrap(keyframe, 1, keyframe.length - 1));
+        Baseline b = baselines[type].get(id);
+        if (b == null) {
+            b = new Baseline();
+            baselines[type].put(id, b);
+        }
+        b.keyframeNumber = keyframeNumber;
+        b.keyframe = keyframe;
+        b.keyframeOffsets = new int[layout.length() + 1];
+        UDPCodec.splitFields(keyframe, 1, layout, b.keyframeOffsets);
+
+        long now = System.currentTimeMillis();
+        b.receivedTime = now;
+        if (now - lastPrune > BASELINE_TIMEOUT) {
+            prune(now);
+        }
+    }
+
+    //keyframes arrive every second for everything in range, so anything older is gone
+    private void prune(long now) {
+        lastPrune = now;
+        for (int i = 0; i < baselines.length; i++) {
+            if (baselines[i] == null) {
+                continue;
+            }
+            Iterator<Baseline> it = baselines[i].values().iterator();
+            while (it.hasNext()) {
+                if (now - it.next().receivedTime > BASELINE_TIMEOUT) {
+                    it.remove();
+                }
+            }
+        }
+    }
+}
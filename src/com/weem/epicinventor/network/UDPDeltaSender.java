@@ -0,0 +1,161 @@
+package com.weem.epicinventor.network;
+
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server side of the delta replication. Keeps, for one client, the last
+ * keyframe sent for every entity and writes later updates as only the fields
+ * that differ from it. UDP gives us no acknowledgements, so deltas are always
+ * taken against the keyframe rather than the previous delta; a lost delta is
+ * simply replaced by the next one and a lost keyframe is noticed by the client
+ * from the keyframe number. Keyframe numbers come from one counter shared by
+ * every baseline, so a baseline dropped and created again for the same entity
+ * never reuses a number the client may still hold.
+ */
+class UDPDeltaSender {
+
+    public final static long KEYFRAME_INTERVAL = 1000;
+    private final static long BASELINE_TIMEOUT = 5000;
+    private final static AtomicInteger nextKeyframeNumber = new AtomicInteger();
+    private UDPCodec codec;
+    private HashMap<String, Baseline>[] baselines;
+    private ByteBuffer scratch = UDPCodec.allocateBuffer();
+    private int[] offsets = new int[64];
+    private long lastPrune;
+
+    private static class Baseline {
+
+        int keyframeNumber;
+        long keyframeTime;
+        long lastSentTime;
+        byte[] keyframe;
+        int[] keyframeOffsets;
+        byte[] lastSent;
+    }
+
+    public UDPDeltaSender(UDPCodec c) {
+        codec = c;
+        baselines = new HashMap[UDPCodec.TYPE_COUNT];
+    }
+
+    /**
+     * Writes the update for the entity with the given id to out as a
+     * keyframe or delta. Returns false when the client already has this exact
+     * state and nothing needs to be sent.
+     */
+    public boolean write(Object update, String id, ByteBuffer out) {
+        scratch.clear();
+        codec.encode(update, scratch);
+        byte[] data = scratch.array();
+        int length = scratch.position();
+        byte type = data[0];
+        String layout = UDPCodec.getFieldLayout(type);
+        if (layout == null || id == null) {
+            out.put(data, 0, length);
+            return true;
+        }
+
+        if (baselines[type] == null) {
+            baselines[type] = new HashMap<String, Baseline>();
+        }
+        long now = System.currentTimeMillis();
+        Baseline b = baselines[type].get(id);
+        boolean keyframeDue = b == null || now - b.keyframeTime >= KEYFRAME_INTERVAL;
+
+        if (!keyframeDue && sameBytes(b.lastSent, data, length)) {
+            b.lastSentTime = now;
+            return false;
+        }
+
+        if (keyframeDue) {
+            if (b == null) {
+                b = new Baseline();
+                baselines[type].put(id, b);
+            }
+            b.keyframeNumber = nextKeyframeNumber.incrementAndGet();
+            b.keyframeTime = now;
+            b.keyframe = Arrays.copyOf(data, length);
+            b.keyframeOffsets = new int[layout.length() + 1];
+            UDPCodec.splitFields(b.keyframe, 1, layout, b.keyframeOffsets);
+
+            out.put(UDPCodec.TYPE_KEYFRAME);
+            UDPCodec.writeVarInt(out, b.keyframeNumber);
+            out.put(data, 0, length);
+        } else {
+            UDPCodec.splitFields(data, 1, layout, offsets);
+            long mask = 0;
+            for (int i = 0; i < layout.length(); i++) {
+                if (!sameField(data, offsets[i], offsets[i + 1], b.keyframe, b.keyframeOffsets[i], b.keyframeOffsets[i + 1])) {
+                    mask |= 1L << i;
+                }
+            }
+
+            out.put(UDPCodec.TYPE_DELTA);
+            out.put(type);
+            UDPCodec.writeString(out, id);
+            UDPCodec.writeVarInt(out, b.keyframeNumber);
+            UDPCodec.writeVarLong(out, mask);
+            for (int i = 0; i < layout.length(); i++) {
+                if ((mask & (1L << i)) != 0) {
+                    out.put(data, offsets[i], offsets[i + 1] - offsets[i]);
+                }
+            }
+        }
+
+        b.lastSent = Arrays.copyOf(data, length);
+        b.lastSentTime = now;
+
+        if (now - lastPrune > BASELINE_TIMEOUT) {
+            prune(now);
+        }
+        return true;
+    }
+
+    public void clear() {
+        for (int i = 0; i < baselines.length; i++) {
+            baselines[i] = null;
+        }
+    }
+
+    //drop baselines for entities we haven't sent in a while (dead, out of range...)
+    private void prune(long now) {
+        lastPrune = now;
+        for (int i = 0; i < baselines.length; i++) {
+            if (baselines[i] == null) {
+                continue;
+            }
+            Iterator<Baseline> it = baselines[i].values().iterator();
+            while (it.hasNext()) {
+                if (now - it.next().lastSentTime > BASELINE_TIMEOUT) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static boolean sameBytes(byte[] a, byte[] data, int length) {
+        if (a == null || a.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (a[i] != data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameField(byte[] a, int aStart, int aEnd, byte[] b, int bStart, int bEnd) {
+        if (aEnd - aStart != bEnd - bStart) {
+            return false;
+        }
+        for (int i = 0; i < aEnd - aStart; i++) {
+            if (a[aStart + i] != b[bStart + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
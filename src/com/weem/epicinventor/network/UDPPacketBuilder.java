@@ -0,0 +1,61 @@
+package com.weem.epicinventor.network;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+/**
+ * Packs many encoded updates into as few datagrams as possible. A batch
+ * starts with the batch tag and the sender's tick number, followed by each
+ * update as a length and its bytes. When the next update would push the
+ * datagram past the MTU the current one is sent and a new one started for
+ * the same tick.
+ */
+class UDPPacketBuilder {
+
+    public final static int DEFAULT_MTU = 1200;
+    private DatagramChannel channel;
+    private ByteBuffer buffer = UDPCodec.allocateBuffer();
+    private int mtu;
+    private int tick;
+    private int count;
+
+    public UDPPacketBuilder(DatagramChannel c, int m) {
+        channel = c;
+        mtu = Math.min(m, UDPCodec.MAX_PACKET_SIZE - 8);
+    }
+
+    public void begin(int t) {
+        tick = t;
+        count = 0;
+        buffer.clear();
+        buffer.put(UDPCodec.TYPE_BATCH);
+        UDPCodec.writeVarInt(buffer, tick);
+    }
+
+    /**
+     * Adds the bytes written to entry (position 0 up to its current
+     * position) to the batch, sending the batch first if it is full.
+     */
+    public void add(ByteBuffer entry, InetAddress address, int port) throws IOException {
+        int length = entry.position();
+        if (count > 0 && buffer.position() + length + 3 > mtu) {
+            flush(address, port);
+            begin(tick);
+        }
+        UDPCodec.writeVarInt(buffer, length);
+        buffer.put(entry.array(), 0, length);
+        count++;
+    }
+
+    public void flush(InetAddress address, int port) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        buffer.flip();
+        //a non-blocking channel drops the datagram if the socket buffer is full, same as the network would
+        channel.send(buffer, new InetSocketAddress(address, port));
+        count = 0;
+    }
+}
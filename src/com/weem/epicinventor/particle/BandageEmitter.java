@@ -5,6 +5,7 @@ import com.weem.epicinventor.actor.*;
 
 import com.weem.epicinventor.utility.Rand;
 import java.awt.*;
+import java.awt.image.*;
 import java.util.*;
 import java.util.ArrayList;
 import java.awt.geom.Arc2D;
@@ -23,30 +24,34 @@ public class BandageEmitter extends ParticleEmitter {
 
     @Override
     public void update() {
-        Particle particle = null;
-
         if (active) {
             for (int i = 0; i < particlesPerGeneration; i++) {
-                if (i % 100 == 0) {
-                    particles.add(generateNewParticle());
-                } else {
-                    particles.add(generateNewParticle());
-                }
+                generateNewParticle();
             }
             active = false;
         }
 
-        for (int i = 0; i < particles.size(); i++) {
-            particle = particles.get(i);
-            particle.update();
-            if (particle.isDirty) {
-                particles.remove(i);
+        updateParticles();
+    }
+
+    @Override
+    protected boolean updateParticle(int i) {
+        particles.ttl[i]--;
+        move(i);
+
+        if (registry.getGameController().multiplayerMode != registry.getGameController().multiplayerMode.CLIENT) {
+            //check for hitting a block
+            if (!isDisregardingTerrain(i) && hitsBlock(i)) {
+                return false;
             }
         }
+
+        particles.age[i]++;
+        return particles.age[i] <= 20;
     }
 
     @Override
-    protected Particle generateNewParticle() {
+    protected void generateNewParticle() {
         float velocityX = (float) Rand.getRange(0, 1) + Rand.getFloat();
         float velocityY = (float) Rand.getRange(0, 1) + Rand.getFloat();
         if (Rand.getRange(0, 1) == 1) {
@@ -56,29 +61,25 @@ public class BandageEmitter extends ParticleEmitter {
             velocityY *= -1f;
         }
 
-        float angle = 0;
-        float angularVelocity = ((float) Rand.getRange(1, 5));
-
         double v = Math.sqrt(Math.pow(velocityY, 2) + Math.pow(velocityX, 2));
         int ttl = (int) (maxDistance / v);
 
-        return new Bandage(
-                this,
-                registry,
-                source,
-                images.get(Rand.getRange(0, images.size() - 1)),
-                mapX,
-                mapY,
-                velocityX,
-                velocityY,
-                0f,
-                angularVelocity,
-                Rand.getFloat(),
-                ttl,
-                friendly,
-                placeable,
-                disregardTerrain,
-                damage,
-                velocityBasedRotation);
+        addParticle(images.get(Rand.getRange(0, images.size() - 1)), mapX, mapY, velocityX, velocityY, Rand.getFloat(), ttl, disregardTerrain);
+    }
+
+    @Override
+    protected void renderParticle(Graphics g, int i) {
+        BufferedImage image = particles.image[i];
+        if (image != null) {
+            int xPos = getPanelX(i);
+            int yPos = getPanelY(i);
+
+            int updates = particles.age[i];
+            if (updates > 10) {
+                drawFaded(g, image, xPos, yPos, image.getWidth(), image.getHeight(), 1f - (((float) updates - 10f) / 20f));
+            } else {
+                g.drawImage(image, xPos, yPos, null);
+            }
+        }
     }
 }
@@ -5,6 +5,7 @@ import com.weem.epicinventor.actor.*;
 
 import com.weem.epicinventor.utility.Rand;
 import java.awt.*;
+import java.awt.image.*;
 import java.util.*;
 import java.util.ArrayList;
 import java.awt.geom.Arc2D;
@@ -23,14 +24,12 @@ public class LeafEmitter extends ParticleEmitter {
 
     @Override
     public void update() {
-        Particle particle = null;
-
         if (active) {
             for (int i = 0; i < particlesPerGeneration; i++) {
                 if (i % 100 == 0) {
-                    particles.add(generateNewParticle(true));
+                    generateNewParticle(true);
                 } else {
-                    particles.add(generateNewParticle(false));
+                    generateNewParticle(false);
                 }
             }
         }
@@ -42,16 +41,48 @@ public class LeafEmitter extends ParticleEmitter {
             active = false;
         }
 
-        for (int i = 0; i < particles.size(); i++) {
-            particle = particles.get(i);
-            particle.update();
-            if (particle.isDirty) {
-                particles.remove(i);
+        updateParticles();
+    }
+
+    @Override
+    protected boolean updateParticle(int i) {
+        boolean alive = true;
+        particles.ttl[i]--;
+        move(i);
+
+        //check for hitting a block
+        if (!isDisregardingTerrain(i) && hitsBlock(i)) {
+            alive = false;
+        }
+
+        if ((particles.flags[i] & ParticlePool.BIG) != 0) {
+            if (particles.vy[i] > 0) {
+                particles.vy[i] -= 0.10;
+            } else {
+                particles.vy[i] -= 0.02;
+            }
+            if (particles.vy[i] < -10) {
+                particles.vy[i] = -10;
+            }
+            particles.stretch[i] += 0.25f;
+            if (particles.stretch[i] > 20) {
+                particles.stretch[i] = 20;
+                alive = false;
+            }
+        } else {
+            if (particles.vy[i] > 0) {
+                particles.vy[i] -= 0.40;
+            } else {
+                particles.vy[i] -= 0.08;
+            }
+            if (particles.vy[i] < -10) {
+                particles.vy[i] = -10;
             }
         }
+        return alive;
     }
 
-    protected Particle generateNewParticle(boolean bigAssLeaf) {
+    protected void generateNewParticle(boolean bigAssLeaf) {
         float velocityX = 0;
         float velocityY = 0;
 
@@ -71,9 +102,6 @@ public class LeafEmitter extends ParticleEmitter {
             }
         }
 
-        float angle = 0;
-        float angularVelocity = ((float) Rand.getRange(1, 5));
-
         double v = Math.sqrt(Math.pow(velocityY, 2) + Math.pow(velocityX, 2));
         int ttl = (int) (maxDistance / v);
 
@@ -85,45 +113,45 @@ public class LeafEmitter extends ParticleEmitter {
         }
 
         if (bigAssLeaf) {
-            return new Leaf(
-                    this,
-                    registry,
-                    source,
-                    images.get(Rand.getRange(5, images.size() - 1)),
-                    newMapX,
-                    mapY,
-                    velocityX,
-                    velocityY,
-                    0f,
-                    angularVelocity,
-                    Rand.getFloat(),
-                    ttl,
-                    friendly,
-                    placeable,
-                    true,
-                    damage,
-                    velocityBasedRotation,
-                    bigAssLeaf);
+            if (velocityX > 5) {
+                velocityX = 5;
+            } else if (velocityX < 0) {
+                velocityX = -5;
+            }
+            if (velocityY > 5) {
+                velocityY = 5;
+            } else if (velocityY < 0) {
+                velocityY = -5;
+            }
+            int i = addParticle(images.get(Rand.getRange(5, images.size() - 1)), newMapX, mapY, velocityX, velocityY, Rand.getFloat(), ttl, true);
+            if (i != -1) {
+                particles.flags[i] |= ParticlePool.BIG;
+                particles.stretch[i] = 1;
+            }
         } else {
-            return new Leaf(
-                    this,
-                    registry,
-                    source,
-                    images.get(Rand.getRange(0, images.size() - 1)),
-                    newMapX,
-                    mapY,
-                    velocityX,
-                    velocityY,
-                    0f,
-                    angularVelocity,
-                    Rand.getFloat(),
-                    ttl,
-                    friendly,
-                    placeable,
-                    disregardTerrain,
-                    damage,
-                    velocityBasedRotation,
-                    bigAssLeaf);
+            addParticle(images.get(Rand.getRange(0, images.size() - 1)), newMapX, mapY, velocityX, velocityY, Rand.getFloat(), ttl, false);
+        }
+    }
+
+    @Override
+    protected void renderParticle(Graphics g, int i) {
+        BufferedImage image = particles.image[i];
+        if (image != null) {
+            int xPos = getPanelX(i);
+            int yPos = getPanelY(i);
+
+            if ((particles.flags[i] & ParticlePool.BIG) != 0) {
+                float stretchFactor = particles.stretch[i];
+                int finalWidth = (int) ((float) particles.width[i] * stretchFactor);
+                int finalHeight = (int) ((float) particles.height[i] * stretchFactor);
+                if (stretchFactor > 10) {
+                    drawFaded(g, image, xPos, yPos, finalWidth, finalHeight, 1f - ((stretchFactor - 10f) / 10f));
+                } else {
+                    g.drawImage(image, xPos, yPos, finalWidth, finalHeight, null);
+                }
+            } else {
+                g.drawImage(image, xPos, yPos, null);
+            }
         }
     }
 }
@@ -5,15 +5,20 @@ import com.weem.epicinventor.actor.*;
 
 import com.weem.epicinventor.utility.Rand;
 import java.awt.*;
+import java.awt.image.*;
+import java.awt.geom.AffineTransform;
 import java.util.*;
 import java.util.ArrayList;
-import java.awt.geom.Arc2D;
 
 public class ParticleEmitter extends Manager {
 
+    protected final static int MAX_PARTICLES = 1024;
+    //velocity based rotation picks from this many turned copies of each image
+    private final static int ROTATIONS = 32;
+    private static HashMap<String, BufferedImage[]> rotatedImages = new HashMap<String, BufferedImage[]>();
     int mapX;
     int mapY;
-    protected ArrayList<Particle> particles;
+    protected ParticlePool particles;
     protected ArrayList<String> images;
     protected float particlesPerGeneration = 2;
     protected boolean active;
@@ -27,23 +32,11 @@ public class ParticleEmitter extends Manager {
     protected float maxSpread;
     protected int maxDistance;
     protected boolean velocityBasedRotation;
+    private Rectangle hitRect = new Rectangle();
+    private Point hitPoint = new Point();
 
     public ParticleEmitter(GameController gc, Registry rg, Actor as, int x, int y, ArrayList<String> im, boolean f, boolean p, boolean dt, int d, float sp, float ms, int md) {
-        super(gc, rg);
-
-        source = as;
-        mapX = x;
-        mapY = y;
-        particles = new ArrayList<Particle>();
-        images = im;
-        friendly = f;
-        placeable = p;
-        disregardTerrain = dt;
-        damage = d;
-        speed = sp;
-        maxSpread = ms;
-        maxDistance = md;
-        velocityBasedRotation = false;
+        this(gc, rg, as, x, y, im, f, p, dt, d, sp, ms, md, false);
     }
 
     public ParticleEmitter(GameController gc, Registry rg, Actor as, int x, int y, ArrayList<String> im, boolean f, boolean p, boolean dt, int d, float sp, float ms, int md, boolean vbr) {
@@ -52,7 +45,7 @@ public class ParticleEmitter extends Manager {
         source = as;
         mapX = x;
         mapY = y;
-        particles = new ArrayList<Particle>();
+        particles = new ParticlePool(MAX_PARTICLES);
         images = im;
         friendly = f;
         placeable = p;
@@ -85,23 +78,71 @@ public class ParticleEmitter extends Manager {
     public void update() {
         super.update();
 
-        Particle particle = null;
-
         if (active) {
             for (int i = 0; i < particlesPerGeneration; i++) {
-                particles.add(generateNewParticle());
+                generateNewParticle();
             }
         }
 
-        for (int i = 0; i < particles.size(); i++) {
-            particle = particles.get(i);
-            particle.update();
-            if (particle.ttl <= 0 || particle.isDirty) {
+        updateParticles();
+    }
+
+    protected void updateParticles() {
+        int i = 0;
+        while (i < particles.count) {
+            if (updateParticle(i)) {
+                i++;
+            } else {
                 particles.remove(i);
             }
         }
     }
-    
+
+    /**
+     * Moves particle i along and returns whether it's still alive.
+     */
+    protected boolean updateParticle(int i) {
+        particles.ttl[i]--;
+        move(i);
+
+        if (registry.getGameController().multiplayerMode != registry.getGameController().multiplayerMode.CLIENT) {
+            //check to see if it hit any monsters
+            if (friendly && hitsMob(i)) {
+                return false;
+            }
+
+            //check for hitting a block
+            if (!isDisregardingTerrain(i) && hitsBlock(i)) {
+                return false;
+            }
+        }
+
+        return particles.ttl[i] > 0;
+    }
+
+    protected void move(int i) {
+        if ((particles.flags[i] & ParticlePool.NEW) == 0) {
+            particles.x[i] += particles.vx[i];
+            particles.y[i] += particles.vy[i];
+        } else {
+            particles.flags[i] &= ~ParticlePool.NEW;
+        }
+    }
+
+    protected boolean isDisregardingTerrain(int i) {
+        return (particles.flags[i] & ParticlePool.DISREGARD_TERRAIN) != 0;
+    }
+
+    protected boolean hitsMob(int i) {
+        hitRect.setBounds((int) particles.x[i], (int) particles.y[i], particles.width[i], particles.height[i]);
+        return checkMobParticleHit(hitRect, damage, source, placeable);
+    }
+
+    protected boolean hitsBlock(int i) {
+        hitPoint.setLocation((int) (particles.x[i] + (particles.width[i] / 2.0f)), (int) (particles.y[i] + (particles.height[i] / 2.0f)));
+        return checkForBlock(hitPoint) != 0;
+    }
+
     protected double getAngleFromSlope() {
         double angle = 0.0f;
         float slope = 0.0f;
@@ -120,11 +161,26 @@ public class ParticleEmitter extends Manager {
         }
         return angle;
     }
-    
-    protected Particle generateNewParticle() {
+
+    protected double getAngleFromVelocity(float velocityX, float velocityY) {
+        double angle = 0.0f;
+        float slope = 0.0f;
+        if(velocityX == 0.0f) {
+            angle = -Math.PI / 2;
+        } else {
+            slope = -velocityY / velocityX;
+            angle = Math.atan(slope);
+            if (velocityX < 0) {
+                angle += Math.PI;
+            }
+        }
+        return angle;
+    }
+
+    protected void generateNewParticle() {
         float velocityX = 0;
         float velocityY = 0;
-        
+
         targetPoint = registry.getMouseMapPosition();
 
         if (targetPoint != null) {
@@ -141,46 +197,103 @@ public class ParticleEmitter extends Manager {
             }
         }
 
-        float angle = 0;
-        float angularVelocity = ((float) Rand.getRange(1, 5));
-        
         double v = Math.sqrt(Math.pow(velocityY, 2) + Math.pow(velocityX, 2));
         int ttl = (int) (maxDistance / v);
-        
-        return new Particle(
-                this,
-                registry,
-                source,
-                images.get(Rand.getRange(0, images.size() - 1)),
-                mapX,
-                mapY,
-                velocityX,
-                velocityY,
-                0f,
-                angularVelocity,
-                Rand.getFloat(),
-                ttl,
-                friendly,
-                placeable,
-                disregardTerrain,
-                damage,
-                velocityBasedRotation);
+
+        addParticle(images.get(Rand.getRange(0, images.size() - 1)), mapX, mapY, velocityX, velocityY, Rand.getFloat(), ttl, disregardTerrain);
     }
 
-    public void render(Graphics g) {
-        Particle particle = null;
+    /**
+     * Starts a particle and returns its slot, or -1 if there's no room or
+     * no image for it.
+     */
+    protected int addParticle(String im, int x, int y, float vx, float vy, float size, int ttl, boolean dt) {
+        BufferedImage image = getParticleImage(im, vx, vy);
+        if (image == null) {
+            return -1;
+        }
 
-        for (int i = 0; i < particles.size(); i++) {
-            particle = particles.get(i);
-            particle.render(g);
+        int i = particles.add();
+        if (i == -1) {
+            return -1;
         }
+        particles.x[i] = x;
+        particles.y[i] = y;
+        particles.vx[i] = vx;
+        particles.vy[i] = vy;
+        particles.ttl[i] = ttl;
+        particles.image[i] = image;
+        particles.width[i] = (int) ((float) image.getWidth() * size);
+        particles.height[i] = (int) ((float) image.getHeight() * size);
+        particles.flags[i] = ParticlePool.NEW | (dt ? ParticlePool.DISREGARD_TERRAIN : 0);
+        return i;
     }
 
-    public void destroy() {
-        Particle particle = null;
+    private BufferedImage getParticleImage(String im, float vx, float vy) {
+        BufferedImage image = registry.getImageLoader().getImage(im);
+        if (image == null || !velocityBasedRotation) {
+            return image;
+        }
 
-        for (int i = 0; i < particles.size(); i++) {
-            particles.remove(i);
+        double angle = getAngleFromVelocity(vx, vy);
+        int r = (int) Math.round(angle * ROTATIONS / (2 * Math.PI)) % ROTATIONS;
+        if (r < 0) {
+            r += ROTATIONS;
+        }
+
+        synchronized (rotatedImages) {
+            BufferedImage[] rotations = rotatedImages.get(im);
+            if (rotations == null) {
+                rotations = new BufferedImage[ROTATIONS];
+                rotatedImages.put(im, rotations);
+            }
+            if (rotations[r] == null) {
+                AffineTransform at = new AffineTransform();
+                at.rotate(r * 2 * Math.PI / ROTATIONS, image.getWidth() / 2, image.getHeight() / 2);
+                AffineTransformOp atop = new AffineTransformOp(at, AffineTransformOp.TYPE_BILINEAR);
+                rotations[r] = atop.filter(image, null);
+            }
+            return rotations[r];
         }
     }
+
+    public void render(Graphics g) {
+        for (int i = 0; i < particles.count; i++) {
+            renderParticle(g, i);
+        }
+    }
+
+    protected void renderParticle(Graphics g, int i) {
+        BufferedImage image = particles.image[i];
+        if (image != null) {
+            g.drawImage(image, getPanelX(i), getPanelY(i), null);
+        }
+    }
+
+    protected int getPanelX(int i) {
+        return mapToPanelX((int) particles.x[i]);
+    }
+
+    protected int getPanelY(int i) {
+        int yPos = mapToPanelY((int) particles.y[i]);
+
+        //flip the yPos since drawing happens top down versus bottom up
+        yPos = getPHeight() - yPos;
+
+        //subtract the block height since points are bottom left and drawing starts from top left
+        return yPos - particles.height[i];
+    }
+
+    //draws at an alpha without making a faded copy of the image
+    protected void drawFaded(Graphics g, BufferedImage image, int x, int y, int w, int h, float alpha) {
+        Graphics2D g2d = (Graphics2D) g;
+        Composite composite = g2d.getComposite();
+        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, Math.max(0f, Math.min(1f, alpha))));
+        g2d.drawImage(image, x, y, w, h, null);
+        g2d.setComposite(composite);
+    }
+
+    public void destroy() {
+        particles.clear();
+    }
 }
@@ -0,0 +1,90 @@
+package com.weem.epicinventor.particle;
+
+import java.awt.image.*;
+import java.util.*;
+
+/**
+ * A fixed number of particles kept as parallel arrays rather than one
+ * object each. Slots are handed out from the front and a dead particle is
+ * replaced by the last live one, so adding and removing never allocate or
+ * shift the rest. When every slot is in use new particles are dropped.
+ */
+public class ParticlePool {
+
+    public final static int NEW = 1;
+    public final static int DISREGARD_TERRAIN = 2;
+    public final static int BIG = 4;
+    public final float[] x, y;
+    public final float[] vx, vy;
+    public final float[] stretch;
+    public final int[] ttl;
+    public final int[] age;
+    public final int[] width, height;
+    //where in image to draw from, for particles cut from a bigger picture
+    public final int[] srcX, srcY;
+    public final int[] flags;
+    public final BufferedImage[] image;
+    public int count;
+
+    public ParticlePool(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        stretch = new float[capacity];
+        ttl = new int[capacity];
+        age = new int[capacity];
+        width = new int[capacity];
+        height = new int[capacity];
+        srcX = new int[capacity];
+        srcY = new int[capacity];
+        flags = new int[capacity];
+        image = new BufferedImage[capacity];
+    }
+
+    public int getCapacity() {
+        return x.length;
+    }
+
+    /**
+     * Claims a slot with its counters cleared, or returns -1 if the pool is
+     * full.
+     */
+    public int add() {
+        if (count == x.length) {
+            return -1;
+        }
+        int i = count++;
+        stretch[i] = 0;
+        age[i] = 0;
+        srcX[i] = 0;
+        srcY[i] = 0;
+        flags[i] = 0;
+        return i;
+    }
+
+    public void remove(int i) {
+        int last = --count;
+        if (i != last) {
+            x[i] = x[last];
+            y[i] = y[last];
+            vx[i] = vx[last];
+            vy[i] = vy[last];
+            stretch[i] = stretch[last];
+            ttl[i] = ttl[last];
+            age[i] = age[last];
+            width[i] = width[last];
+            height[i] = height[last];
+            srcX[i] = srcX[last];
+            srcY[i] = srcY[last];
+            flags[i] = flags[last];
+            image[i] = image[last];
+        }
+        image[last] = null;
+    }
+
+    public void clear() {
+        Arrays.fill(image, 0, count, null);
+        count = 0;
+    }
+}
@@ -2,7 +2,9 @@ package com.weem.epicinventor.pixelize;
 
 import com.weem.epicinventor.*;
 import com.weem.epicinventor.actor.*;
+import com.weem.epicinventor.particle.*;
 import com.weem.epicinventor.utility.Rand;
+import com.weem.epicinventor.utility.ParallelUpdate;
 
 import java.awt.*;
 import java.awt.image.*;
@@ -10,19 +12,31 @@ import java.util.*;
 
 public class PixelizeManager extends Manager {
 
-    private ArrayList<Pixelize> pixelizes;
+    private final static int MAX_PIXELIZES = 8192;
+    //nothing should fall this long without landing on something
+    private final static int MAX_TTL = 600;
+    private ParticlePool pixelizes;
+    private Point hitPoint = new Point();
 
     public PixelizeManager(GameController gc, Registry rg) {
         super(gc, rg);
 
-        pixelizes = new ArrayList<Pixelize>();
+        pixelizes = new ParticlePool(MAX_PIXELIZES);
     }
 
     public void pixelize(BufferedImage image, int mapX, int mapY) {
         pixelize(image, mapX, mapY, 5);
     }
 
-    public void pixelize(BufferedImage image, int mapX, int mapY, int pixelSize) {
+    public void pixelize(final BufferedImage image, final int mapX, final int mapY, final int pixelSize) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                pixelize(image, mapX, mapY, pixelSize);
+            }
+        })) {
+            return;
+        }
         if (image != null) {
             int width = image.getWidth();
             int height = image.getHeight();
@@ -50,9 +64,21 @@ public class PixelizeManager extends Manager {
                         pixelizeY = y - pixelSize + pixelizeHeight;
                     }
 
-                    BufferedImage tmpImage = image.getSubimage(x, y, pixelizeWidth, pixelizeHeight);
-                    Pixelize pixelize = new Pixelize(this, registry, tmpImage, mapX + pixelizeX, mapY + height - pixelizeY - pixelSize, velocityX, velocityY);
-                    pixelizes.add(pixelize);
+                    //each piece draws its part of the shared image
+                    int i = pixelizes.add();
+                    if (i == -1) {
+                        return;
+                    }
+                    pixelizes.image[i] = image;
+                    pixelizes.srcX[i] = x;
+                    pixelizes.srcY[i] = y;
+                    pixelizes.width[i] = pixelizeWidth;
+                    pixelizes.height[i] = pixelizeHeight;
+                    pixelizes.x[i] = mapX + pixelizeX;
+                    pixelizes.y[i] = mapY + height - pixelizeY - pixelSize;
+                    pixelizes.vx[i] = velocityX;
+                    pixelizes.vy[i] = velocityY;
+                    pixelizes.ttl[i] = MAX_TTL;
                 }
             }
         }
@@ -62,23 +88,43 @@ public class PixelizeManager extends Manager {
     public void update() {
         super.update();
 
-        Pixelize pixelize = null;
+        ParticlePool p = pixelizes;
+        int i = 0;
+        while (i < p.count) {
+            p.x[i] += p.vx[i];
+            p.y[i] += p.vy[i];
 
-        for (int i = 0; i < pixelizes.size(); i++) {
-            pixelize = pixelizes.get(i);
-            pixelize.update();
-            if (pixelize.isDirty) {
-                pixelizes.remove(i);
+            p.vy[i] -= 0.25f;
+            p.ttl[i]--;
+
+            hitPoint.setLocation((int) (p.x[i] + (p.width[i] / 2.0f)), (int) (p.y[i] + (p.height[i] / 2.0f)));
+            if (p.ttl[i] <= 0 || checkForBlock(hitPoint) != 0) {
+                p.remove(i);
+            } else {
+                i++;
             }
         }
     }
 
     public void render(Graphics g) {
-        Pixelize pixelize = null;
+        ParticlePool p = pixelizes;
+        for (int i = 0; i < p.count; i++) {
+            BufferedImage image = p.image[i];
+            if (image != null) {
+                int xPos = mapToPanelX((int) p.x[i]);
+                int yPos = mapToPanelY((int) p.y[i]);
+
+                //flip the yPos since drawing happens top down versus bottom up
+                yPos = getPHeight() - yPos;
 
-        for (int i = 0; i < pixelizes.size(); i++) {
-            pixelize = pixelizes.get(i);
-            pixelize.render(g);
+                //subtract the block height since points are bottom left and drawing starts from top left
+                yPos -= p.height[i];
+
+                g.drawImage(image,
+                        xPos, yPos, xPos + p.width[i], yPos + p.height[i],
+                        p.srcX[i], p.srcY[i], p.srcX[i] + p.width[i], p.srcY[i] + p.height[i],
+                        null);
+            }
         }
     }
 }
@@ -506,8 +506,6 @@ public abstract class Placeable implements Serializable {
             if (currentState != Placeable.State.New) {
                 BufferedImage im;
                 BufferedImage imLeft;
-                AffineTransform tx;
-                AffineTransformOp op;
 
                 int xPos = placeableManager.mapToPanelX(mapX);
                 int yPos = placeableManager.mapToPanelY(mapY);
@@ -609,14 +607,8 @@ public abstract class Placeable implements Serializable {
                         if (facingRight) {
                             g.drawImage(im, xPos, yPos, null);
                         } else {
-                            tx = AffineTransform.getScaleInstance(1, -1);
-                            tx = AffineTransform.getScaleInstance(-1, 1);
-                            tx.translate(-width, 0);
-                            op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                            imLeft = op.filter(im, null);
-                            if (imLeft != null) {
-                                g.drawImage(imLeft, xPos, yPos, null);
-                            }
+                            imLeft = registry.getImageLoader().getMirroredImage(im);
+                            g.drawImage(imLeft, xPos + width - imLeft.getWidth(), yPos, null);
                         }
                     }
                 }
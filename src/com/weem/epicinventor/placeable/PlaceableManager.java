@@ -62,6 +62,8 @@ public class PlaceableManager extends Manager implements Serializable, Cloneable
     private HashMap<String, Placeable> placeables;
     Placeable currentlyPlacing;
     private final static int MAX_POWER_DISTANCE = 550; //in pixels
+    transient private SpatialIndex<Placeable> placeableIndex;
+    transient private int maxFearDistance;
 
     public PlaceableManager() {
         super();
@@ -148,22 +150,58 @@ public class PlaceableManager extends Manager implements Serializable, Cloneable
     }
 
     public boolean isPlaceableWithin(Point p, int dist) {
-        boolean ret = false;
-        for (String key : placeables.keySet()) {
-            Placeable placeable = placeables.get(key);
-            if (placeable.getCenterPoint().distance(p) <= dist) {
-                ret = true;
+        ArrayList<Placeable> nearby = new ArrayList<Placeable>();
+        getPlaceableIndex().getInRadius(p.x, p.y, dist, nearby);
+        for (int i = 0; i < nearby.size(); i++) {
+            if (nearby.get(i).getCenterPoint().distance(p) <= dist) {
+                return true;
             }
         }
-        return ret;
+        return false;
     }
 
     public void registerPlaceable(Placeable p) {
         if (!placeables.containsKey(p.getId())) {
             placeables.put(p.getId(), p);
+            indexPlaceable(p);
+        }
+    }
+
+    private void unregisterPlaceable(String id) {
+        Placeable p = placeables.remove(id);
+        if (p != null) {
+            getPlaceableIndex().remove(p);
         }
     }
 
+    private void indexPlaceable(Placeable p) {
+        getPlaceableIndex().update(p, p.getMapX(), p.getMapY(), p.getWidth(), p.getHeight());
+        if (p.getFearDistance() > maxFearDistance) {
+            maxFearDistance = p.getFearDistance();
+        }
+    }
+
+    public SpatialIndex<Placeable> getPlaceableIndex() {
+        if (placeableIndex == null) {
+            placeableIndex = new SpatialIndex<Placeable>();
+            try {
+                for (String key : placeables.keySet()) {
+                    Placeable p = placeables.get(key);
+                    if (p != null) {
+                        placeableIndex.update(p, p.getMapX(), p.getMapY(), p.getWidth(), p.getHeight());
+                        if (p.getFearDistance() > maxFearDistance) {
+                            maxFearDistance = p.getFearDistance();
+                        }
+                    }
+                }
+            } catch (ConcurrentModificationException concEx) {
+                //another thread was trying to modify placeables while iterating
+                //anything missed is picked up on its next update
+            }
+        }
+        return placeableIndex;
+    }
+
     public HashMap<String, Placeable> getPlaceables() {
         return placeables;
     }
@@ -402,21 +440,16 @@ public class PlaceableManager extends Manager implements Serializable, Cloneable
     @Override
     public boolean checkPlaceableProjectileHit(Projectile p) {
         if (gameController.multiplayerMode != gameController.multiplayerMode.CLIENT) {
-            Placeable placeable = null;
-
-            try {
-                for (String key : placeables.keySet()) {
-                    placeable = (Placeable) placeables.get(key);
-                    if (placeable != null) {
-                        if (placeable.getPerimeter().contains(p.getCenterPoint())) {
-                            placeable.applyDamage((Monster) p.getSource(), p.getDamage());
-                            return true;
-                        }
-                    }
+            Point center = p.getCenterPoint();
+            ArrayList<Placeable> candidates = new ArrayList<Placeable>();
+            getPlaceableIndex().getInRect(center.x, center.y, 0, 0, candidates);
+
+            for (int i = 0; i < candidates.size(); i++) {
+                Placeable placeable = candidates.get(i);
+                if (placeable.getPerimeter().contains(center)) {
+                    placeable.applyDamage((Monster) p.getSource(), p.getDamage());
+                    return true;
                 }
-            } catch (ConcurrentModificationException concEx) {
-                //another thread was trying to modify placeables while iterating
-                //we'll continue and the new item can be grabbed on the next update
             }
         }
 
@@ -657,7 +690,7 @@ public class PlaceableManager extends Manager implements Serializable, Cloneable
                 }
             } else if (gameController.multiplayerMode == gameController.multiplayerMode.CLIENT && registry.getNetworkThread() != null) {
                 if (registry.getNetworkThread().readyForUpdates()) {
-                    registry.getNetworkThread().sendData("place " + currentlyPlacing.getType() + " " + currentlyPlacing.getMapX() + " " + currentlyPlacing.getMapY());
+                    registry.getNetworkThread().sendData(TCPMessage.place(currentlyPlacing.getType(), currentlyPlacing.getMapX(), currentlyPlacing.getMapY()));
                 }
                 currentlyPlacing.isDirty = true;
             }
@@ -672,7 +705,7 @@ public class PlaceableManager extends Manager implements Serializable, Cloneable
         if (p == registry.getPlayerManager().getCurrentPlayer()) {
             if (currentlyPlacing()) {
                 if (placeables.containsKey(currentlyPlacing.getId())) {
-                    placeables.remove(currentlyPlacing.getId());
+                    unregisterPlaceable(currentlyPlacing.getId());
                 }
                 currentlyPlacing = null;
             }
@@ -694,19 +727,19 @@ public class PlaceableManager extends Manager implements Serializable, Cloneable
     @Override
     public void monsterAttackPlaceable(Monster source, Rectangle attackRect, int meleeDamage) {
         int dmg = 0;
-        Placeable placeable = null;
 
-        try {
-            for (String key : placeables.keySet()) {
-                placeable = (Placeable) placeables.get(key);
-                dmg = placeable.attackDamage(source, attackRect, meleeDamage);
-                if (dmg > 0) {
-                    break;
-                }
+        if (attackRect == null) {
+            return;
+        }
+
+        ArrayList<Placeable> candidates = new ArrayList<Placeable>();
+        getPlaceableIndex().getInRect(attackRect.x, attackRect.y, attackRect.width, attackRect.height, candidates);
+
+        for (int i = 0; i < candidates.size(); i++) {
+            dmg = candidates.get(i).attackDamage(source, attackRect, meleeDamage);
+            if (dmg > 0) {
+                break;
             }
-        } catch (ConcurrentModificationException concEx) {
-            //another thread was trying to modify placeables while iterating
-            //we'll continue and the new item can be grabbed on the next update
         }
     }
 
@@ -772,29 +805,16 @@ public class PlaceableManager extends Manager implements Serializable, Cloneable
         return closestPlaceable;
     }
 
-    public Placeable getClosest(Point p) {
-        Placeable placeable = null;
-        Placeable closestPlaceable = null;
-
-        double closestDistance = 0;
+    public Placeable getClosest(final Point p, int maxDistance) {
+        return getPlaceableIndex().getClosest(p.x, p.y, maxDistance, new SpatialIndex.Scorer<Placeable>() {
 
-        try {
-            for (String key : placeables.keySet()) {
-                placeable = (Placeable) placeables.get(key);
+            public double score(Placeable placeable) {
                 if (!placeable.getItemName().equals("ItemContainer")) {
-                    double distance = p.distance(placeable.getCenterPoint());
-                    if ((distance < closestDistance || closestDistance == 0)) {
-                        closestPlaceable = placeable;
-                        closestDistance = distance;
-                    }
+                    return p.distance(placeable.getCenterPoint());
                 }
+                return -1;
             }
-        } catch (ConcurrentModificationException concEx) {
-            //another thread was trying to modify placeables while iterating
-            //we'll continue and the new item can be grabbed on the next update
-        }
-
-        return closestPlaceable;
+        });
     }
 
     @Override
@@ -857,54 +877,51 @@ public class PlaceableManager extends Manager implements Serializable, Cloneable
         int fearValue;
         Placeable placeable = null;
 
-        if (gameController.multiplayerMode != gameController.multiplayerMode.CLIENT) {
-            try {
-                for (String key : placeables.keySet()) {
-                    placeable = (Placeable) placeables.get(key);
-                    fearValue = placeable.getFearGenerated();
-                    if (fearValue > 0 && placeable.canDestroy()) {
-                        if (placeable.getCenterPoint().distance(m.getCenterPoint()) <= placeable.getFearDistance()) {
-                            if (Rand.getRange(1, fearValue) == 1) {
-                                m.fear(placeable.getCenterPoint(), placeable.getFearDuration());
-
-                                if (gameController.multiplayerMode == gameController.multiplayerMode.SERVER && registry.getNetworkThread() != null) {
-                                    if (registry.getNetworkThread().readyForUpdates()) {
-                                        UpdateMonster um = new UpdateMonster(m.getId());
-                                        um.mapX = m.getMapX();
-                                        um.mapY = m.getMapY();
-                                        um.action = "Fear";
-                                        um.dataPoint = placeable.getCenterPoint();
-                                        um.dataLong = placeable.getFearDuration();
-                                        registry.getNetworkThread().sendData(um);
-                                    }
+        SpatialIndex<Placeable> index = getPlaceableIndex();
+        if (gameController.multiplayerMode != gameController.multiplayerMode.CLIENT && maxFearDistance > 0) {
+            Point center = m.getCenterPoint();
+            ArrayList<Placeable> candidates = new ArrayList<Placeable>();
+            index.getInRadius(center.x, center.y, maxFearDistance, candidates);
+
+            for (int i = 0; i < candidates.size(); i++) {
+                placeable = candidates.get(i);
+                fearValue = placeable.getFearGenerated();
+                if (fearValue > 0 && placeable.canDestroy()) {
+                    if (placeable.getCenterPoint().distance(m.getCenterPoint()) <= placeable.getFearDistance()) {
+                        if (Rand.getRange(1, fearValue) == 1) {
+                            m.fear(placeable.getCenterPoint(), placeable.getFearDuration());
+
+                            if (gameController.multiplayerMode == gameController.multiplayerMode.SERVER && registry.getNetworkThread() != null) {
+                                if (registry.getNetworkThread().readyForUpdates()) {
+                                    UpdateMonster um = new UpdateMonster(m.getId());
+                                    um.mapX = m.getMapX();
+                                    um.mapY = m.getMapY();
+                                    um.action = "Fear";
+                                    um.dataPoint = placeable.getCenterPoint();
+                                    um.dataLong = placeable.getFearDuration();
+                                    registry.getNetworkThread().sendData(um);
                                 }
                             }
                         }
                     }
                 }
-            } catch (ConcurrentModificationException concEx) {
-                //another thread was trying to modify placeables while iterating
-                //we'll continue and the new item can be grabbed on the next update
             }
         }
     }
 
     public void checkPlaceableDamageAgainstMob(Monster m) {
         if (gameController.multiplayerMode != gameController.multiplayerMode.CLIENT) {
-            Placeable placeable = null;
+            Rectangle r = m.getPerimeter();
+            ArrayList<Placeable> candidates = new ArrayList<Placeable>();
+            getPlaceableIndex().getInRect(r.x, r.y, r.width, r.height, candidates);
 
-            try {
-                for (String key : placeables.keySet()) {
-                    placeable = (Placeable) placeables.get(key);
-                    if (placeable.canDestroy()) {
-                        if (placeable.getPerimeter().intersects(m.getPerimeter()) && placeable.isActivated()) {
-                            m.applyDamage(placeable.getTouchDamage(), registry.getPlayerManager().getCurrentPlayer(), true);
-                        }
+            for (int i = 0; i < candidates.size(); i++) {
+                Placeable placeable = candidates.get(i);
+                if (placeable.canDestroy()) {
+                    if (placeable.getPerimeter().intersects(r) && placeable.isActivated()) {
+                        m.applyDamage(placeable.getTouchDamage(), registry.getPlayerManager().getCurrentPlayer(), true);
                     }
                 }
-            } catch (ConcurrentModificationException concEx) {
-                //another thread was trying to modify placeables while iterating
-                //we'll continue and the new item can be grabbed on the next update
             }
         }
     }
@@ -923,6 +940,9 @@ public class PlaceableManager extends Manager implements Serializable, Cloneable
 
                     if (placeable.isDirty()) {
                         placeables.remove(key);
+                        getPlaceableIndex().remove(placeable);
+                    } else {
+                        indexPlaceable(placeable);
                     }
                 }
             }
@@ -997,42 +1017,29 @@ public class PlaceableManager extends Manager implements Serializable, Cloneable
 
     @Override
     public boolean isInFrontOfPlaceable(Rectangle r) {
-        Placeable placeable = null;
+        ArrayList<Placeable> candidates = new ArrayList<Placeable>();
+        getPlaceableIndex().getInRect(r.x, r.y, r.width, r.height, candidates);
 
-        try {
-            for (String key : placeables.keySet()) {
-                placeable = (Placeable) placeables.get(key);
-                if (placeable != null) {
-                    if (placeable.getPerimeter().intersects(r)) {
-                        return true;
-                    }
-                }
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.get(i).getPerimeter().intersects(r)) {
+                return true;
             }
-        } catch (ConcurrentModificationException concEx) {
-            //another thread was trying to modify placeables while iterating
-            //we'll continue and the new item can be grabbed on the next update
         }
 
         return false;
     }
 
     public Placeable getPasture(Rectangle r) {
-        Placeable placeable = null;
-
-        try {
-            for (String key : placeables.keySet()) {
-                placeable = (Placeable) placeables.get(key);
-                if (placeable != null) {
-                    if (placeable.getType().equals("Pasture")) {
-                        if (placeable.getPerimeter().intersects(r)) {
-                            return placeable;
-                        }
-                    }
+        ArrayList<Placeable> candidates = new ArrayList<Placeable>();
+        getPlaceableIndex().getInRect(r.x, r.y, r.width, r.height, candidates);
+
+        for (int i = 0; i < candidates.size(); i++) {
+            Placeable placeable = candidates.get(i);
+            if (placeable.getType().equals("Pasture")) {
+                if (placeable.getPerimeter().intersects(r)) {
+                    return placeable;
                 }
             }
-        } catch (ConcurrentModificationException concEx) {
-            //another thread was trying to modify placeables while iterating
-            //we'll continue and the new item can be grabbed on the next update
         }
 
         return null;
@@ -1133,7 +1140,7 @@ public class PlaceableManager extends Manager implements Serializable, Cloneable
                 if (gameController.multiplayerMode == gameController.multiplayerMode.CLIENT && registry.getNetworkThread() != null) {
                     if (registry.getNetworkThread().readyForUpdates()) {
                         EIError.debugMsg("Placeable not found - need " + up.id);
-                        registry.getNetworkThread().sendData("send placeable data: " + up.id);
+                        registry.getNetworkThread().sendData(TCPMessage.text(Opcode.SEND_PLACEABLE_DATA, up.id));
                     }
                 }
             }
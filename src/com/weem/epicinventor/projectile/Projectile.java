@@ -8,7 +8,6 @@ import com.weem.epicinventor.utility.*;
 import java.awt.*;
 import java.awt.image.*;
 import java.awt.Rectangle.*;
-import java.awt.geom.AffineTransform;
 import java.util.*;
 
 public class Projectile {
@@ -18,6 +17,9 @@ public class Projectile {
     protected String id = "";
     protected String name = "";
     protected int mapX, mapY;
+    //where the last update moved from, for drawing in between
+    protected int prevMapX, prevMapY;
+    protected long positionTick = -1;
     protected int width, height;
     protected int speed;
     protected BufferedImage image;
@@ -78,7 +80,6 @@ public class Projectile {
             direction = Direction.LEFT;
         }
         name = im;
-        images = new BufferedImage[8];
         setImage("Projectiles/" + im);
 
         spriteRect = new Rectangle();
@@ -113,7 +114,6 @@ public class Projectile {
             direction = Direction.LEFT;
         }
         name = im;
-        images = new BufferedImage[8];
         setImage("Projectiles/" + im);
 
         spriteRect = new Rectangle();
@@ -197,55 +197,19 @@ public class Projectile {
     private void setImage(String name) {
         BufferedImage im = registry.getImageLoader().getImage(name);
         if (im != null) {
-            AffineTransform tx = null;
-            AffineTransformOp op = null;
-
-            if (direction == Direction.LEFT) {
-                //rotate the image based on where you're shooting
-                tx = new AffineTransform();
-                tx.rotate(Math.atan(slope), im.getWidth() / 2, im.getHeight() / 2);
-
-                op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                image = op.filter(im, null);
-
-                width = im.getWidth();
-                height = im.getHeight();
-
-                //flip horizontally
-                tx = new AffineTransform();
-                tx = AffineTransform.getScaleInstance(-1, 1);
-                tx.translate(-width, 0);
-                op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                image = op.filter(image, null);
-            } else {
-                //rotate the image based on where you're shooting
-                tx = new AffineTransform();
-                tx.rotate(-Math.atan(slope), im.getWidth() / 2, im.getHeight() / 2);
-
-                op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                image = op.filter(im, null);
+            //rotated to where you're shooting, and flipped if that's left
+            image = projectileManager.getAimedImage(name, slope, direction == Direction.LEFT);
 
-                width = im.getWidth();
-                height = im.getHeight();
-            }
+            width = im.getWidth();
+            height = im.getHeight();
         }
     }
 
     public void setSpinning(String name) {
-        numAnimationFrames = 8;
         BufferedImage im = registry.getImageLoader().getImage("Projectiles/" + name);
         if (im != null) {
-            for (int i = 0; i < numAnimationFrames; i++) {
-                AffineTransform tx = null;
-                AffineTransformOp op = null;
-
-                //rotate the image based on where you're shooting
-                tx = new AffineTransform();
-                tx.rotate(Math.toRadians(i * 45), im.getWidth() / 2, im.getHeight() / 2);
-
-                op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                images[i] = op.filter(im, null);
-            }
+            images = projectileManager.getSpinImages("Projectiles/" + name);
+            numAnimationFrames = images.length;
 
             width = im.getWidth();
             height = im.getHeight();
@@ -267,6 +231,10 @@ public class Projectile {
     public void update() {
         Point ePoint = null;
 
+        prevMapX = mapX;
+        prevMapY = mapY;
+        positionTick = registry.tick;
+
         if (numAnimationFrames > 0) {
             currentAnimationFrame++;
             if (currentAnimationFrame >= numAnimationFrames) {
@@ -346,8 +314,14 @@ public class Projectile {
 
     public void render(Graphics g) {
         if (image != null && !isDirty) {
-            int xPos = projectileManager.mapToPanelX(mapX);
-            int yPos = projectileManager.mapToPanelY(mapY);
+            int x = mapX;
+            int y = mapY;
+            if (positionTick == registry.tick) {
+                x = prevMapX + Math.round((mapX - prevMapX) * registry.renderAlpha);
+                y = prevMapY + Math.round((mapY - prevMapY) * registry.renderAlpha);
+            }
+            int xPos = projectileManager.mapToPanelX(x);
+            int yPos = projectileManager.mapToPanelY(y);
 
             //flip the yPos since drawing happens top down versus bottom up
             yPos = projectileManager.getPHeight() - yPos;
@@ -7,18 +7,82 @@ import com.weem.epicinventor.utility.*;
 
 import com.weem.epicinventor.utility.EIError;
 import java.awt.*;
+import java.awt.image.*;
 import java.util.*;
 import java.util.ArrayList;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Arc2D;
 
 public class ProjectileManager extends Manager {
 
     private HashMap<String, Projectile> projectiles;
+    //rotated copies of each projectile image, shared by every shot
+    private final static int AIM_STEPS = 32;
+    private final static int SPIN_FRAMES = 8;
+    private HashMap<String, BufferedImage[][]> aimedImages;
+    private HashMap<String, BufferedImage[]> spinImages;
 
     public ProjectileManager(GameController gc, Registry rg) {
         super(gc, rg);
 
         projectiles = new HashMap<String, Projectile>();
+        aimedImages = new HashMap<String, BufferedImage[][]>();
+        spinImages = new HashMap<String, BufferedImage[]>();
+    }
+
+    /**
+     * Returns the image turned to point along slope, facing right or left.
+     * The first shot of each image builds every angle at once.
+     */
+    public synchronized BufferedImage getAimedImage(String name, double slope, boolean left) {
+        BufferedImage[][] aimed = aimedImages.get(name);
+        if (aimed == null) {
+            BufferedImage im = registry.getImageLoader().getImage(name);
+            if (im == null) {
+                return null;
+            }
+
+            aimed = new BufferedImage[2][AIM_STEPS + 1];
+            for (int i = 0; i <= AIM_STEPS; i++) {
+                double angle = i * Math.PI / AIM_STEPS - Math.PI / 2;
+                aimed[0][i] = rotateImage(im, -angle);
+
+                //flip horizontally
+                AffineTransform tx = AffineTransform.getScaleInstance(-1, 1);
+                tx.translate(-im.getWidth(), 0);
+                AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
+                aimed[1][i] = op.filter(rotateImage(im, angle), null);
+            }
+            aimedImages.put(name, aimed);
+        }
+
+        int i = (int) Math.round((Math.atan(slope) + Math.PI / 2) * AIM_STEPS / Math.PI);
+        return aimed[left ? 1 : 0][i];
+    }
+
+    public synchronized BufferedImage[] getSpinImages(String name) {
+        BufferedImage[] spin = spinImages.get(name);
+        if (spin == null) {
+            BufferedImage im = registry.getImageLoader().getImage(name);
+            if (im == null) {
+                return null;
+            }
+
+            spin = new BufferedImage[SPIN_FRAMES];
+            for (int i = 0; i < SPIN_FRAMES; i++) {
+                spin[i] = rotateImage(im, Math.toRadians(i * 360 / SPIN_FRAMES));
+            }
+            spinImages.put(name, spin);
+        }
+        return spin;
+    }
+
+    private BufferedImage rotateImage(BufferedImage im, double angle) {
+        AffineTransform tx = new AffineTransform();
+        tx.rotate(angle, im.getWidth() / 2, im.getHeight() / 2);
+
+        AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
+        return op.filter(im, null);
     }
 
     public void registerProjectile(Projectile p) {
@@ -27,7 +91,15 @@ public class ProjectileManager extends Manager {
         }
     }
 
-    public void createProjectile(Actor source, String im, int sp, Point start, Point end, boolean f, boolean p, boolean dt, int d) {
+    public void createProjectile(final Actor source, final String im, final int sp, final Point start, final Point end, final boolean f, final boolean p, final boolean dt, final int d) {
+        if (ParallelUpdate.defer(new Runnable() {
+
+            public void run() {
+                createProjectile(source, im, sp, start, end, f, p, dt, d);
+            }
+        })) {
+            return;
+        }
         if (gameController.multiplayerMode != gameController.multiplayerMode.CLIENT) {
             Projectile projectile = new Projectile(this, registry, source, im, sp, start, end, f, p, dt, d);
 
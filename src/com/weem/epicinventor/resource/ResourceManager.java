@@ -19,6 +19,7 @@ public class ResourceManager extends Manager implements Serializable {
     private ArrayList<ResourceType> resourceTypes;
     private final static String CONFIG_FILE = "Resources.dat";
     transient private boolean transmitting;
+    transient private SpatialIndex<Resource> resourceIndex;
 
     public ResourceManager(GameController gc, Registry rg) {
         super(gc, rg);
@@ -56,9 +57,34 @@ public class ResourceManager extends Manager implements Serializable {
     public void registerResource(Resource r) {
         if (!resources.containsKey(r.getId())) {
             resources.put(r.getId(), r);
+            indexResource(r);
         }
     }
 
+    private void indexResource(Resource r) {
+        Rectangle perimeter = r.getPerimeter();
+        getResourceIndex().update(r, perimeter.x, perimeter.y, perimeter.width, perimeter.height);
+    }
+
+    public SpatialIndex<Resource> getResourceIndex() {
+        if (resourceIndex == null) {
+            resourceIndex = new SpatialIndex<Resource>();
+            try {
+                for (String key : resources.keySet()) {
+                    Resource r = resources.get(key);
+                    if (r != null) {
+                        Rectangle perimeter = r.getPerimeter();
+                        resourceIndex.update(r, perimeter.x, perimeter.y, perimeter.width, perimeter.height);
+                    }
+                }
+            } catch (ConcurrentModificationException concEx) {
+                //another thread was trying to modify resources while iterating
+                //anything missed is picked up on its next update
+            }
+        }
+        return resourceIndex;
+    }
+
     private void loadResourceTypes(String fn) {
         String line;
         String parts[];
@@ -119,27 +145,13 @@ public class ResourceManager extends Manager implements Serializable {
         }
     }
 
-    public Resource getClosest(Point p) {
-        Resource resource = null;
-        Resource closestResource = null;
-
-        double closestDistance = 0;
+    public Resource getClosest(final Point p, int maxDistance) {
+        return getResourceIndex().getClosest(p.x, p.y, maxDistance, new SpatialIndex.Scorer<Resource>() {
 
-        try {
-            for (String key : resources.keySet()) {
-                resource = (Resource) resources.get(key);
-                double distance = p.distance(resource.getCenterPoint());
-                if ((distance < closestDistance || closestDistance == 0)) {
-                    closestResource = resource;
-                    closestDistance = distance;
-                }
+            public double score(Resource resource) {
+                return p.distance(resource.getCenterPoint());
             }
-        } catch (ConcurrentModificationException concEx) {
-            //another thread was trying to modify placeables while iterating
-            //we'll continue and the new item can be grabbed on the next update
-        }
-
-        return closestResource;
+        });
     }
 
     public ResourceType getResourceTypeByName(String name) {
@@ -305,29 +317,18 @@ public class ResourceManager extends Manager implements Serializable {
         return startGather(player, p, maxDistance, false);
     }
 
-    public String startGather(Player player, Point p, int maxDistance, boolean npc) {
-        Resource resource = null;
-        Resource closestResource = null;
-
-        double closestDistance = 0;
+    public String startGather(Player player, final Point p, int maxDistance, boolean npc) {
+        Resource closestResource = getResourceIndex().getClosest(p.x, p.y, maxDistance, new SpatialIndex.Scorer<Resource>() {
 
-        try {
-            for (String key : resources.keySet()) {
-                resource = (Resource) resources.get(key);
+            public double score(Resource resource) {
                 if (!resource.getIsCollecting()) {
-                    //resource.setCollecting(player, false);
-                    if (p.distance(resource.getCenterPoint()) < closestDistance || closestDistance == 0) {
-                        closestResource = resource;
-                        closestDistance = p.distance(resource.getCenterPoint());
-                    }
+                    return p.distance(resource.getCenterPoint());
                 }
+                return -1;
             }
-        } catch (ConcurrentModificationException concEx) {
-            //another thread was trying to modify resources while iterating
-            //we'll continue and the new item can be grabbed on the next update
-        }
+        });
 
-        if (closestResource != null && closestDistance <= maxDistance) {
+        if (closestResource != null) {
             closestResource.setCollecting(player, true, npc);
             collectingResources.put(closestResource.getId(), closestResource);
             return closestResource.getId();
@@ -461,6 +462,8 @@ public class ResourceManager extends Manager implements Serializable {
 
                         if (resource.isDirty()) {
                             dirtyResources.add(key);
+                        } else {
+                            indexResource(resource);
                         }
                     }
                 }
@@ -472,7 +475,10 @@ public class ResourceManager extends Manager implements Serializable {
             if (dirtyResources.size() > 0) {
                 resourcesUpdated = true;
                 for (int i = 0; i < dirtyResources.size(); i++) {
-                    resources.remove((String) dirtyResources.get(i));
+                    resource = resources.remove((String) dirtyResources.get(i));
+                    if (resource != null) {
+                        getResourceIndex().remove(resource);
+                    }
                 }
             }
 
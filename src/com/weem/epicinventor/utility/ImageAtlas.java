@@ -0,0 +1,344 @@
+package com.weem.epicinventor.utility;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/**
+ * A binary cache of everything an image config file loads. The frames are
+ * packed onto large pages stored as raw premultiplied ARGB ints, followed by
+ * an index of which frames make up each image name and how transparent each
+ * frame is. Reading it back is a memory map and a row copy per frame into an
+ * image compatible with the screen, with no PNG decoding at all, so single
+ * names can be loaded on demand and dropped again.
+ *
+ * The cache is keyed on the text of the config file; if that changes, the
+ * cache is ignored and rewritten after the next normal load. To build it
+ * ahead of time run this class with the config file names as arguments.
+ */
+public class ImageAtlas {
+
+    public final static int PAGE_SIZE = 2048;
+    private final static int MAGIC = 0x45494154;
+    private final static int VERSION = 2;
+    //page, x, y, width, height and transparency of every frame
+    private final static int FRAME_FIELDS = 6;
+
+    public static class Entry {
+
+        public String name;
+        public ArrayList<BufferedImage> images = new ArrayList<BufferedImage>();
+        //only for image groups, the name of each frame
+        public ArrayList<String> groupNames;
+
+        public Entry(String n) {
+            name = n;
+        }
+    }
+
+    private static class Frame {
+
+        BufferedImage image;
+        int page, x, y;
+    }
+
+    public static File getCacheFile(String configFile) {
+        int pos = configFile.lastIndexOf('.');
+        return new File((pos == -1 ? configFile : configFile.substring(0, pos)) + ".atlas");
+    }
+
+    private MappedByteBuffer buffer;
+    private int[] pageWidths;
+    private int[] pageOffsets;
+    private TreeMap<String, int[]> frames = new TreeMap<String, int[]>();
+    private HashMap<String, ArrayList<String>> groupNames = new HashMap<String, ArrayList<String>>();
+
+    private ImageAtlas() {
+    }
+
+    /**
+     * Opens a cache written for the given key, or returns null if there is
+     * no usable one. Only the index is read; the pixels stay mapped until an
+     * image is asked for.
+     */
+    public static ImageAtlas open(File file, long key) {
+        if (!file.exists()) {
+            return null;
+        }
+
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+            ImageAtlas atlas = new ImageAtlas();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            atlas.buffer = buffer;
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != key) {
+                return null;
+            }
+
+            int pageCount = buffer.getInt();
+            atlas.pageWidths = new int[pageCount];
+            atlas.pageOffsets = new int[pageCount];
+            for (int i = 0; i < pageCount; i++) {
+                atlas.pageWidths[i] = buffer.getInt();
+                buffer.getInt();
+                atlas.pageOffsets[i] = buffer.getInt();
+            }
+
+            int entryCount = buffer.getInt();
+            for (int i = 0; i < entryCount; i++) {
+                String name = readString(buffer);
+                int[] f = new int[buffer.getInt() * FRAME_FIELDS];
+                for (int j = 0; j < f.length; j++) {
+                    f[j] = buffer.getInt();
+                }
+                atlas.frames.put(name, f);
+                int groupCount = buffer.getInt();
+                if (groupCount >= 0) {
+                    ArrayList<String> names = new ArrayList<String>(groupCount);
+                    for (int g = 0; g < groupCount; g++) {
+                        names.add(readString(buffer));
+                    }
+                    atlas.groupNames.put(name, names);
+                }
+            }
+            return atlas;
+        } catch (Exception e) {
+            EIError.debugMsg("Couldn't read image cache " + file + " " + e.getMessage(), EIError.ErrorLevel.Warning);
+            return null;
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    public Set<String> getNames() {
+        return frames.keySet();
+    }
+
+    public ArrayList<String> getGroupNames(String name) {
+        return groupNames.get(name);
+    }
+
+    /**
+     * Copies the frames of one image name out of the mapped pages into
+     * images of their own, so dropping them later frees the memory. Opaque
+     * frames come back opaque, in whatever format suits the display.
+     */
+    public Entry load(String name, ImageLoader imageLoader) {
+        int[] f = frames.get(name);
+        if (f == null) {
+            return null;
+        }
+
+        Entry entry = new Entry(name);
+        entry.groupNames = groupNames.get(name);
+        //each caller gets its own view so loads can run on several threads
+        ByteBuffer view = buffer.duplicate();
+        view.position(0);
+        IntBuffer pixels = view.asIntBuffer();
+        for (int j = 0; j < f.length; j += FRAME_FIELDS) {
+            int page = f[j], x = f[j + 1], y = f[j + 2], w = f[j + 3], h = f[j + 4], transparency = f[j + 5];
+            BufferedImage image = imageLoader.createCompatibleImage(w, h, transparency);
+            //the stored ints can go straight in when the layout matches, otherwise convert through a copy
+            boolean direct = image.getType() == BufferedImage.TYPE_INT_ARGB_PRE
+                    || (image.getType() == BufferedImage.TYPE_INT_RGB && transparency == Transparency.OPAQUE);
+            BufferedImage pixelImage = direct ? image : new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+            //setDataElements keeps the image managed, grabbing its int[] would not
+            WritableRaster raster = pixelImage.getRaster();
+            int[] row = new int[w];
+            for (int r = 0; r < h; r++) {
+                pixels.position(pageOffsets[page] / 4 + (y + r) * pageWidths[page] + x);
+                pixels.get(row);
+                raster.setDataElements(0, r, w, 1, row);
+            }
+            if (!direct) {
+                Graphics2D g2d = image.createGraphics();
+                g2d.setComposite(AlphaComposite.Src);
+                g2d.drawImage(pixelImage, 0, 0, null);
+                g2d.dispose();
+            }
+            entry.images.add(image);
+        }
+        return entry;
+    }
+
+    public static boolean write(File file, long key, ArrayList<Entry> entries) {
+        //shelf pack every frame, tallest first
+        ArrayList<Frame> frames = new ArrayList<Frame>();
+        HashMap<BufferedImage, Frame> byImage = new HashMap<BufferedImage, Frame>();
+        for (int i = 0; i < entries.size(); i++) {
+            for (int j = 0; j < entries.get(i).images.size(); j++) {
+                BufferedImage image = entries.get(i).images.get(j);
+                if (!byImage.containsKey(image)) {
+                    Frame frame = new Frame();
+                    frame.image = image;
+                    frames.add(frame);
+                    byImage.put(image, frame);
+                }
+            }
+        }
+        ArrayList<Frame> sorted = new ArrayList<Frame>(frames);
+        Collections.sort(sorted, new Comparator<Frame>() {
+
+            public int compare(Frame a, Frame b) {
+                return b.image.getHeight() - a.image.getHeight();
+            }
+        });
+
+        ArrayList<int[]> pageSizes = new ArrayList<int[]>();
+        int x = 0, y = 0, shelfHeight = 0;
+        int page = -1;
+        for (int i = 0; i < sorted.size(); i++) {
+            Frame frame = sorted.get(i);
+            int w = frame.image.getWidth();
+            int h = frame.image.getHeight();
+            if (w > PAGE_SIZE || h > PAGE_SIZE) {
+                //too big to share a page
+                pageSizes.add(new int[]{w, h});
+                frame.page = pageSizes.size() - 1;
+                frame.x = 0;
+                frame.y = 0;
+                page = -1;
+                continue;
+            }
+            if (page >= 0 && x + w > PAGE_SIZE) {
+                x = 0;
+                y += shelfHeight;
+                shelfHeight = 0;
+            }
+            if (page < 0 || y + h > PAGE_SIZE) {
+                pageSizes.add(new int[]{0, 0});
+                page = pageSizes.size() - 1;
+                x = y = shelfHeight = 0;
+            }
+            frame.page = page;
+            frame.x = x;
+            frame.y = y;
+            x += w;
+            shelfHeight = Math.max(shelfHeight, h);
+            int[] size = pageSizes.get(page);
+            size[0] = Math.max(size[0], x);
+            size[1] = Math.max(size[1], y + h);
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+            DataOutputStream index = new DataOutputStream(indexBytes);
+            index.writeInt(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                index.writeUTF(entry.name);
+                index.writeInt(entry.images.size());
+                for (int j = 0; j < entry.images.size(); j++) {
+                    Frame frame = byImage.get(entry.images.get(j));
+                    index.writeInt(frame.page);
+                    index.writeInt(frame.x);
+                    index.writeInt(frame.y);
+                    index.writeInt(frame.image.getWidth());
+                    index.writeInt(frame.image.getHeight());
+                    index.writeInt(frame.image.getColorModel().getTransparency());
+                }
+                if (entry.groupNames == null) {
+                    index.writeInt(-1);
+                } else {
+                    index.writeInt(entry.groupNames.size());
+                    for (int g = 0; g < entry.groupNames.size(); g++) {
+                        index.writeUTF(entry.groupNames.get(g));
+                    }
+                }
+            }
+            index.flush();
+
+            //page data starts after the header, page table and index, on an int boundary
+            int offset = 4 + 4 + 8 + 4 + pageSizes.size() * 12 + indexBytes.size();
+            offset = (offset + 3) & ~3;
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(key);
+                out.writeInt(pageSizes.size());
+                int pageOffset = offset;
+                for (int i = 0; i < pageSizes.size(); i++) {
+                    int[] size = pageSizes.get(i);
+                    out.writeInt(size[0]);
+                    out.writeInt(size[1]);
+                    out.writeInt(pageOffset);
+                    pageOffset += size[0] * size[1] * 4;
+                }
+                indexBytes.writeTo(out);
+                while (out.size() < offset) {
+                    out.writeByte(0);
+                }
+
+                for (int i = 0; i < pageSizes.size(); i++) {
+                    int[] size = pageSizes.get(i);
+                    BufferedImage pageImage = new BufferedImage(Math.max(1, size[0]), Math.max(1, size[1]), BufferedImage.TYPE_INT_ARGB_PRE);
+                    Graphics2D g2d = pageImage.createGraphics();
+                    g2d.setComposite(AlphaComposite.Src);
+                    for (int f = 0; f < frames.size(); f++) {
+                        Frame frame = frames.get(f);
+                        if (frame.page == i) {
+                            g2d.drawImage(frame.image, frame.x, frame.y, null);
+                        }
+                    }
+                    g2d.dispose();
+
+                    int[] row = new int[size[0]];
+                    WritableRaster raster = pageImage.getRaster();
+                    for (int py = 0; py < size[1]; py++) {
+                        raster.getDataElements(0, py, size[0], 1, row);
+                        for (int px = 0; px < row.length; px++) {
+                            out.writeInt(row[px]);
+                        }
+                    }
+                }
+            } finally {
+                out.close();
+            }
+
+            if (file.exists() && !file.delete()) {
+                temp.delete();
+                return false;
+            }
+            return temp.renameTo(file);
+        } catch (IOException e) {
+            EIError.debugMsg("Couldn't write image cache " + file + " " + e.getMessage(), EIError.ErrorLevel.Warning);
+            temp.delete();
+            return false;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) throws UTFDataFormatException {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new UTFDataFormatException(e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) {
+        ImageLoader imageLoader = new ImageLoader(0);
+        for (int i = 0; i < args.length; i++) {
+            getCacheFile(args[i]).delete();
+            imageLoader.loadImagesFile(args[i]);
+            System.out.println("Wrote " + getCacheFile(args[i]));
+        }
+        System.exit(0);
+    }
+}
@@ -9,13 +9,37 @@ import java.io.*;
 import javax.imageio.*;
 import javax.swing.*;
 import java.awt.color.ColorSpace;
-
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+/**
+ * Loads the images named in the config files and hands them out by name.
+ * Names are registered up front but their pixels are only held while they
+ * are in use: everything that isn't pinned is kept in least recently used
+ * order and dropped once the total passes a byte budget, to be copied back
+ * out of the image cache (or decoded again) the next time it's asked for.
+ * The budget defaults to a quarter of the heap and can be set in megabytes
+ * with -Depicinventor.images.budget.
+ */
 public class ImageLoader extends Thread {
 
-    private static HashMap imagesMap;
+    //resident images, least recently used first
+    private static LinkedHashMap imagesMap;
     private static HashMap gNamesMap;
+    //where each name can be loaded from again, an ImageAtlas or its config line
+    private static TreeMap<String, Object> sources;
+    private static HashMap<String, FutureTask<ArrayList>> loading;
+    private static HashMap<String, Long> imageBytes;
+    private static ArrayList<String> pinned;
+    private static long residentBytes;
+    private static long budget;
+    private static ExecutorService prefetcher;
+    //left facing copies, dropped along with the images they were made from
+    private static WeakHashMap<BufferedImage, BufferedImage> mirroredImages = new WeakHashMap<BufferedImage, BufferedImage>();
+    private final static Object lock = new Object();
     private GraphicsConfiguration gc;
     private long period;
+    private int failedImages;
     private static String CONFIG_FILE = "Images.dat";
 
     public ImageLoader(long p) {
@@ -28,11 +52,92 @@ public class ImageLoader extends Thread {
     }
 
     private void initLoader() {
-        imagesMap = new HashMap();
+        imagesMap = new LinkedHashMap(256, 0.75f, true);
         gNamesMap = new HashMap();
+        sources = new TreeMap<String, Object>();
+        loading = new HashMap<String, FutureTask<ArrayList>>();
+        imageBytes = new HashMap<String, Long>();
+        pinned = new ArrayList<String>();
+        residentBytes = 0;
+        budget = getBudget();
 
         GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-        gc = ge.getDefaultScreenDevice().getDefaultConfiguration();
+        if (!GraphicsEnvironment.isHeadless()) {
+            gc = ge.getDefaultScreenDevice().getDefaultConfiguration();
+        }
+    }
+
+    private static long getBudget() {
+        String mb = System.getProperty("epicinventor.images.budget");
+        if (mb != null) {
+            try {
+                return Long.parseLong(mb.trim()) * 1024L * 1024L;
+            } catch (NumberFormatException e) {
+                EIError.debugMsg("Bad image budget " + mb, EIError.ErrorLevel.Warning);
+            }
+        }
+        return Runtime.getRuntime().maxMemory() / 4;
+    }
+
+    /**
+     * Keeps every name starting with prefix loaded for good. Anything
+     * already registered is loaded in the background; anything registered
+     * later is loaded along with its config file.
+     */
+    public void pin(String prefix) {
+        synchronized (lock) {
+            if (!pinned.contains(prefix)) {
+                pinned.add(prefix);
+            }
+        }
+        prefetch(prefix);
+    }
+
+    public void unpin(String prefix) {
+        synchronized (lock) {
+            pinned.remove(prefix);
+            trim(null);
+        }
+    }
+
+    /**
+     * A hint that the names starting with prefix will be wanted soon, so
+     * load any that aren't resident on a background thread.
+     */
+    public void prefetch(String prefix) {
+        final ArrayList<String> names = new ArrayList<String>();
+        synchronized (lock) {
+            Iterator<String> it = sources.subMap(prefix, prefix + Character.MAX_VALUE).keySet().iterator();
+            while (it.hasNext()) {
+                String name = it.next();
+                if (!imagesMap.containsKey(name) && !loading.containsKey(name)) {
+                    names.add(name);
+                }
+            }
+            if (names.isEmpty()) {
+                return;
+            }
+            if (prefetcher == null) {
+                prefetcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "ImagePrefetch");
+                        t.setDaemon(true);
+                        t.setPriority(Thread.MIN_PRIORITY);
+                        return t;
+                    }
+                });
+            }
+        }
+
+        prefetcher.execute(new Runnable() {
+
+            public void run() {
+                for (int i = 0; i < names.size(); i++) {
+                    getImageList(names.get(i));
+                }
+            }
+        });
     }
 
     public void loadImagesFile(String fnm) /* Formats:
@@ -43,9 +148,9 @@ public class ImageLoader extends Thread {
     
     and blank lines and comment lines.
      */ {
-        char ch;
         String line;
-        String test = GameController.CONFIG_DIR + fnm;
+        ArrayList<String> lines = new ArrayList<String>();
+        CRC32 crc = new CRC32();
 
         try {
             InputStream in = getClass().getResourceAsStream(GameController.CONFIG_DIR + fnm);
@@ -58,32 +163,353 @@ public class ImageLoader extends Thread {
                 if (line.startsWith("//")) {
                     continue;
                 }
-
-                ch = Character.toLowerCase(line.charAt(0));
-                if (ch == 'o') {
-                    getFileNameImage(line);
-                } else if (ch == 'n') {
-                    getNumberedImages(line);
-                } else if (ch == 's') {
-                    getStripImages(line);
-                } else if (ch == 'g') {
-                    getGroupImages(line);
-                } else {
-                    EIError.debugMsg("Do not recognize line: " + line, EIError.ErrorLevel.Error);
-                }
+                lines.add(line);
+                crc.update(line.getBytes("UTF-8"));
             }
             in.close();
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
+            return;
+        }
+
+        //a new release can change the pictures without touching the config
+        long key = crc.getValue() ^ ((long) Game.VERSION.hashCode() << 32);
+        File cacheFile = ImageAtlas.getCacheFile(fnm);
+        ImageAtlas atlas = ImageAtlas.open(cacheFile, key);
+        if (atlas != null) {
+            //only the pinned names are loaded now, the rest when they're asked for
+            ArrayList<String> names = new ArrayList<String>(atlas.getNames());
+            for (int i = 0; i < names.size(); i++) {
+                ImageAtlas.Entry entry = new ImageAtlas.Entry(names.get(i));
+                entry.groupNames = atlas.getGroupNames(entry.name);
+                registerImages(entry, atlas);
+            }
+            for (int i = 0; i < names.size(); i++) {
+                if (isPinned(names.get(i))) {
+                    getImageList(names.get(i));
+                }
+            }
+            EIError.debugMsg("Registered " + names.size() + " images from " + cacheFile, EIError.ErrorLevel.Notice);
+            return;
+        }
+
+        failedImages = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        ArrayList<ImageAtlas.Entry> entries;
+        try {
+            entries = decodeImages(lines, pool);
+        } finally {
+            pool.shutdownNow();
+        }
+        //don't cache a load that was missing pictures
+        if (failedImages == 0 && !entries.isEmpty() && ImageAtlas.write(cacheFile, key, entries)) {
+            //reload dropped images from the cache rather than decoding them again
+            atlas = ImageAtlas.open(cacheFile, key);
+            if (atlas != null) {
+                synchronized (lock) {
+                    Iterator<String> it = atlas.getNames().iterator();
+                    while (it.hasNext()) {
+                        sources.put(it.next(), atlas);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes every image the config lines name on a pool of threads, and
+     * registers them in file order as they finish.
+     */
+    private ArrayList<ImageAtlas.Entry> decodeImages(ArrayList<String> lines, ExecutorService pool) {
+        ArrayList<ImageAtlas.Entry> entries = new ArrayList<ImageAtlas.Entry>();
+        ArrayList<PendingImages> pending = new ArrayList<PendingImages>();
+        //the disk cache only slows down decoding from the jar
+        ImageIO.setUseCache(false);
+
+        try {
+            for (int i = 0; i < lines.size(); i++) {
+                PendingImages p = submitLine(lines.get(i), pool);
+                if (p != null) {
+                    pending.add(p);
+                }
+            }
+
+            for (int i = 0; i < pending.size(); i++) {
+                PendingImages p = pending.get(i);
+                ImageAtlas.Entry entry = collect(p);
+                failedImages += p.failed;
+
+                if (entry.images.isEmpty()) {
+                    EIError.debugMsg("No images loaded for " + p.name, EIError.ErrorLevel.Warning);
+                } else if (registerImages(entry, p.line)) {
+                    //a name defined again is only cached as its last definition
+                    for (int j = entries.size() - 1; j >= 0; j--) {
+                        if (entries.get(j).name.equals(entry.name)) {
+                            entries.remove(j);
+                        }
+                    }
+                    entries.add(entry);
+                }
+            }
+        } catch (InterruptedException e) {
+            EIError.debugMsg("Image loading interrupted", EIError.ErrorLevel.Error);
+            failedImages++;
+        }
+
+        return entries;
+    }
+
+    private PendingImages submitLine(String line, ExecutorService pool) {
+        char ch = Character.toLowerCase(line.charAt(0));
+        PendingImages p = null;
+        if (ch == 'o') {
+            p = getFileNameImage(line, pool);
+        } else if (ch == 'n') {
+            p = getNumberedImages(line, pool);
+        } else if (ch == 's') {
+            p = getStripImages(line, pool);
+        } else if (ch == 'g') {
+            p = getGroupImages(line, pool);
+        } else {
+            EIError.debugMsg("Do not recognize line: " + line, EIError.ErrorLevel.Error);
+        }
+        if (p != null) {
+            p.line = line;
+        }
+        return p;
+    }
+
+    private ImageAtlas.Entry collect(PendingImages p) throws InterruptedException {
+        ImageAtlas.Entry entry = new ImageAtlas.Entry(p.name.replace("/Images/", ""));
+        if (p.frameNames != null) {
+            entry.groupNames = new ArrayList<String>();
+        }
+        for (int f = 0; f < p.frames.size(); f++) {
+            BufferedImage[] images = null;
+            try {
+                images = p.frames.get(f).get();
+            } catch (ExecutionException e) {
+                EIError.debugMsg("Load Image error for " + p.name + ":\n" + e.getCause(), EIError.ErrorLevel.Error);
+            }
+            if (images == null) {
+                p.failed++;
+            } else {
+                for (int j = 0; j < images.length; j++) {
+                    entry.images.add(images[j]);
+                }
+                if (p.frameNames != null) {
+                    entry.groupNames.add(p.frameNames.get(f));
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Adds a name and where to reload it from, along with its images if
+     * they have been loaded already. A name defined again replaces what it
+     * was defined as before.
+     */
+    private boolean registerImages(ImageAtlas.Entry entry, Object source) {
+        synchronized (lock) {
+            if (isKnown(entry.name)) {
+                evict(entry.name);
+                gNamesMap.remove(entry.name);
+            }
+
+            sources.put(entry.name, source);
+            if (entry.groupNames != null) {
+                gNamesMap.put(entry.name, new ArrayList(entry.groupNames));
+            }
+            if (!entry.images.isEmpty()) {
+                makeResident(entry.name, new ArrayList(entry.images));
+            }
         }
+        String imageName[] = entry.name.split("/");
+        Game.loadingText = "Loading (" + imageName[imageName.length - 1] + ")";
+        return true;
+    }
+
+    private boolean isKnown(String name) {
+        return imagesMap.containsKey(name) || sources.containsKey(name);
     }
 
-    private void getFileNameImage(String line) {
+    private boolean isPinned(String name) {
+        synchronized (lock) {
+            for (int i = 0; i < pinned.size(); i++) {
+                if (name.startsWith(pinned.get(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private void evict(String name) {
+        if (imagesMap.remove(name) != null) {
+            residentBytes -= imageBytes.remove(name);
+        }
+    }
+
+    private void makeResident(String name, ArrayList imsList) {
+        long bytes = 0;
+        for (int i = 0; i < imsList.size(); i++) {
+            BufferedImage bi = (BufferedImage) imsList.get(i);
+            bytes += (long) bi.getWidth() * bi.getHeight() * 4;
+        }
+        imagesMap.put(name, imsList);
+        imageBytes.put(name, bytes);
+        residentBytes += bytes;
+        trim(name);
+    }
+
+    /**
+     * Drops the least recently used images until the budget is met, except
+     * pinned ones, ones with nowhere to reload from and keep.
+     */
+    private void trim(String keep) {
+        Iterator it = imagesMap.keySet().iterator();
+        while (residentBytes > budget && it.hasNext()) {
+            String name = (String) it.next();
+            if (name.equals(keep) || !sources.containsKey(name) || isPinned(name)) {
+                continue;
+            }
+            it.remove();
+            residentBytes -= imageBytes.remove(name);
+        }
+    }
+
+    /**
+     * Returns the images for a name, loading them again if they were
+     * dropped. A name already being loaded on another thread is waited for
+     * rather than loaded twice.
+     */
+    private ArrayList getImageList(final String name) {
+        FutureTask<ArrayList> task;
+        boolean owner = false;
+        synchronized (lock) {
+            ArrayList imsList = (ArrayList) imagesMap.get(name);
+            if (imsList != null) {
+                return imsList;
+            }
+            final Object source = sources.get(name);
+            if (source == null) {
+                return null;
+            }
+            task = loading.get(name);
+            if (task == null) {
+                task = new FutureTask<ArrayList>(new Callable<ArrayList>() {
+
+                    public ArrayList call() {
+                        return reload(name, source);
+                    }
+                });
+                loading.put(name, task);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            task.run();
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            EIError.debugMsg("Load Image error for " + name + ":\n" + e.getCause(), EIError.ErrorLevel.Error);
+        }
+        return null;
+    }
+
+    private ArrayList reload(String name, Object source) {
+        ImageAtlas.Entry entry = null;
+        ArrayList imsList = null;
+        boolean finished = false;
+        try {
+            if (source instanceof ImageAtlas) {
+                entry = ((ImageAtlas) source).load(name, this);
+            } else {
+                PendingImages p = submitLine((String) source, null);
+                if (p != null) {
+                    entry = collect(p);
+                }
+            }
+            finished = true;
+        } catch (InterruptedException e) {
+            //leave it to be loaded again the next time it's asked for
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (lock) {
+                loading.remove(name);
+                //unless the load was cut short, or the name was defined again while it ran
+                if (finished && sources.get(name) == source) {
+                    if (entry != null && !entry.images.isEmpty()) {
+                        imsList = new ArrayList(entry.images);
+                        makeResident(name, imsList);
+                    } else {
+                        //don't try again every time it's drawn
+                        EIError.debugMsg("No images loaded for " + name, EIError.ErrorLevel.Warning);
+                        sources.remove(name);
+                    }
+                }
+            }
+        }
+        return imsList;
+    }
+
+    private static class PendingImages {
+
+        String name;
+        String line;
+        int failed;
+        ArrayList<Future<BufferedImage[]>> frames = new ArrayList<Future<BufferedImage[]>>();
+        //only for groups, the name of each frame
+        ArrayList<String> frameNames;
+
+        PendingImages(String n) {
+            name = n;
+        }
+    }
+
+    private static Future<BufferedImage[]> submit(ExecutorService pool, Callable<BufferedImage[]> task) {
+        if (pool != null) {
+            return pool.submit(task);
+        }
+        //reloading a single name, on the thread that wants it
+        FutureTask<BufferedImage[]> future = new FutureTask<BufferedImage[]>(task);
+        future.run();
+        return future;
+    }
+
+    private Future<BufferedImage[]> submitImage(ExecutorService pool, final String fnm, final float transperancy, final short red, final short green, final short blue) {
+        return submit(pool, new Callable<BufferedImage[]>() {
+
+            public BufferedImage[] call() {
+                BufferedImage bi = loadImage(fnm);
+                if (bi == null) {
+                    return null;
+                }
+                if (transperancy < 1.0f) {
+                    bi = changeTransperancy(bi, transperancy);
+                }
+                if (red > -1 && green > -1 && blue > -1) {
+                    bi = changeColor(bi, red, green, blue);
+                }
+                return new BufferedImage[]{bi};
+            }
+        });
+    }
+
+    private PendingImages getFileNameImage(String line, ExecutorService pool) {
         StringTokenizer tokens = new StringTokenizer(line);
 
         if (tokens.countTokens() == 2) {
             tokens.nextToken();    // skip command label
-            loadSingleImage(GameController.IMAGES_DIR + tokens.nextToken(), "", 1.0f, (short) -1, (short) -1, (short) -1);
+            String fnm = GameController.IMAGES_DIR + tokens.nextToken();
+            PendingImages p = new PendingImages(getPrefix(fnm));
+            p.frames.add(submitImage(pool, fnm, 1.0f, (short) -1, (short) -1, (short) -1));
+            return p;
         } else if (tokens.countTokens() == 7) {
             tokens.nextToken();    // skip command label
             String name = tokens.nextToken();
@@ -92,18 +518,109 @@ public class ImageLoader extends Thread {
             short red = Short.valueOf(tokens.nextToken());
             short green = Short.valueOf(tokens.nextToken());
             short blue = Short.valueOf(tokens.nextToken());
-            loadSingleImage(GameController.IMAGES_DIR + img, name, transperancy, red, green, blue);
+            String fnm = GameController.IMAGES_DIR + img;
+            PendingImages p = new PendingImages(name.equals("") ? getPrefix(fnm) : name);
+            p.frames.add(submitImage(pool, fnm, transperancy, red, green, blue));
+            return p;
         } else {
             EIError.debugMsg("Wrong no. of arguments for " + line, EIError.ErrorLevel.Error);
+            return null;
         }
     }
 
+    private PendingImages getNumberedImages(String line, ExecutorService pool) {
+        StringTokenizer tokens = new StringTokenizer(line);
+
+        if (tokens.countTokens() != 3) {
+            EIError.debugMsg("Wrong no. of arguments for " + line, EIError.ErrorLevel.Error);
+            return null;
+        }
+        tokens.nextToken();    // skip command label
+
+        String fnm = GameController.IMAGES_DIR + tokens.nextToken();
+        int number = -1;
+        try {
+            number = Integer.parseInt(tokens.nextToken());
+        } catch (Exception e) {
+            EIError.debugMsg("Number is incorrect for " + line, EIError.ErrorLevel.Error);
+        }
+
+        String prefix = null;
+        String postfix = null;
+        int starPosn = fnm.lastIndexOf("*");   // find the '*'
+        if (starPosn == -1) {
+            EIError.debugMsg("No '*' in filename: " + fnm, EIError.ErrorLevel.Error);
+            prefix = getPrefix(fnm);
+        } else {   // treat the fnm as prefix + "*" + postfix
+            prefix = fnm.substring(0, starPosn);
+            postfix = fnm.substring(starPosn + 1);
+        }
+
+        PendingImages p = new PendingImages(prefix);
+        if (number <= 0) {
+            EIError.debugMsg("Error: Number <= 0: ", EIError.ErrorLevel.Error);
+            p.frames.add(submitImage(pool, prefix + postfix, 1.0f, (short) -1, (short) -1, (short) -1));
+        } else {   // load prefix + <i> + postfix, where i = 0 to <number-1>
+            for (int i = 0; i < number; i++) {
+                p.frames.add(submitImage(pool, prefix + i + postfix, 1.0f, (short) -1, (short) -1, (short) -1));
+            }
+        }
+        return p;
+    }
+
+    private PendingImages getStripImages(String line, ExecutorService pool) {
+        StringTokenizer tokens = new StringTokenizer(line);
+
+        if (tokens.countTokens() != 3) {
+            EIError.debugMsg("Wrong no. of arguments for ", EIError.ErrorLevel.Error);
+            return null;
+        }
+        tokens.nextToken();    // skip command label
+
+        final String fnm = GameController.IMAGES_DIR + tokens.nextToken();
+        int n = -1;
+        try {
+            n = Integer.parseInt(tokens.nextToken());
+        } catch (Exception e) {
+            EIError.debugMsg("Number is incorrect for " + line, EIError.ErrorLevel.Error);
+        }
+        final int number = n;
+
+        PendingImages p = new PendingImages(getPrefix(fnm));
+        p.frames.add(submit(pool, new Callable<BufferedImage[]>() {
+
+            public BufferedImage[] call() {
+                return loadStripImageArray(fnm, number);
+            }
+        }));
+        return p;
+    }
+
+    private PendingImages getGroupImages(String line, ExecutorService pool) {
+        StringTokenizer tokens = new StringTokenizer(line);
+
+        if (tokens.countTokens() < 3) {
+            EIError.debugMsg("Wrong no. of arguments for " + line, EIError.ErrorLevel.Error);
+            return null;
+        }
+        tokens.nextToken();    // skip command label
+
+        PendingImages p = new PendingImages(GameController.IMAGES_DIR + tokens.nextToken());
+        p.frameNames = new ArrayList<String>();
+        while (tokens.hasMoreTokens()) {
+            String fnm = tokens.nextToken();
+            p.frames.add(submitImage(pool, fnm, 1.0f, (short) -1, (short) -1, (short) -1));
+            p.frameNames.add(getPrefix(fnm));
+        }
+        return p;
+    }
+
     public boolean loadSingleImage(String fnm, String name, float transperancy, short red, short green, short blue) {
         if (name.equals("")) {
             name = getPrefix(fnm);
         }
 
-        if (imagesMap.containsKey(name)) {
+        if (isLoaded(name)) {
             EIError.debugMsg("Error: " + name + "already used", EIError.ErrorLevel.Error);
             return false;
         }
@@ -116,7 +633,7 @@ public class ImageLoader extends Thread {
         if (bi != null) {
             ArrayList imsList = new ArrayList();
             imsList.add(bi);
-            imagesMap.put(name.replace("/Images/", ""), imsList);
+            putImages(name.replace("/Images/", ""), imsList, null);
             String imageName[] = name.split("/");
             Game.loadingText = "Loading (" + imageName[imageName.length - 1] + ")";
             return true;
@@ -125,6 +642,16 @@ public class ImageLoader extends Thread {
         }
     }
 
+    //images loaded by hand have nowhere to reload from, so they are never dropped
+    private void putImages(String name, ArrayList imsList, ArrayList groupNames) {
+        synchronized (lock) {
+            if (groupNames != null) {
+                gNamesMap.put(name, groupNames);
+            }
+            makeResident(name, imsList);
+        }
+    }
+
     private String getPrefix(String fnm) {
         int pos;
         if ((pos = fnm.lastIndexOf(".")) == -1) {
@@ -135,25 +662,6 @@ public class ImageLoader extends Thread {
         }
     }
 
-    private void getNumberedImages(String line) {
-        StringTokenizer tokens = new StringTokenizer(line);
-
-        if (tokens.countTokens() != 3) {
-            EIError.debugMsg("Wrong no. of arguments for " + line, EIError.ErrorLevel.Error);
-        } else {
-            tokens.nextToken();    // skip command label
-
-            String fnm = tokens.nextToken();
-            int number = -1;
-            try {
-                number = Integer.parseInt(tokens.nextToken());
-            } catch (Exception e) {
-                EIError.debugMsg("Number is incorrect for " + line, EIError.ErrorLevel.Error);
-            }
-
-            loadNumImages(GameController.IMAGES_DIR + fnm, number);
-        }
-    }
 
     public int loadNumImages(String fnm, int number) {
         String prefix = null;
@@ -167,7 +675,7 @@ public class ImageLoader extends Thread {
             postfix = fnm.substring(starPosn + 1);
         }
 
-        if (imagesMap.containsKey(prefix)) {
+        if (isLoaded(prefix)) {
             EIError.debugMsg("Error: " + prefix + "already used", EIError.ErrorLevel.Error);
             return 0;
         }
@@ -201,36 +709,16 @@ public class ImageLoader extends Thread {
         if (loadCount == 0) {
             EIError.debugMsg("No images loaded for " + prefix, EIError.ErrorLevel.Warning);
         } else {
-            imagesMap.put(prefix.replace("/Images/", ""), imsList);
+            putImages(prefix.replace("/Images/", ""), imsList, null);
         }
 
         return loadCount;
     }
 
-    private void getStripImages(String line) {
-        StringTokenizer tokens = new StringTokenizer(line);
-
-        if (tokens.countTokens() != 3) {
-            
-            EIError.debugMsg("Wrong no. of arguments for ", EIError.ErrorLevel.Error);
-        } else {
-            tokens.nextToken();    // skip command label
-
-            String fnm = tokens.nextToken();
-            int number = -1;
-            try {
-                number = Integer.parseInt(tokens.nextToken());
-            } catch (Exception e) {
-                EIError.debugMsg("Number is incorrect for " + line, EIError.ErrorLevel.Error);
-            }
-
-            loadStripImages(GameController.IMAGES_DIR + fnm, number);
-        }
-    }
 
     public int loadStripImages(String fnm, int number) {
         String name = getPrefix(fnm);
-        if (imagesMap.containsKey(name)) {
+        if (isLoaded(name)) {
             EIError.debugMsg("Error: " + name + "already used", EIError.ErrorLevel.Error);
             return 0;
         }
@@ -250,7 +738,7 @@ public class ImageLoader extends Thread {
         if (loadCount == 0) {
             EIError.debugMsg("No images loaded for " + name, EIError.ErrorLevel.Warning);
         } else {
-            imagesMap.put(name.replace("/Images/", ""), imsList);
+            putImages(name.replace("/Images/", ""), imsList, null);
             String imageName[] = name.split("/");
             Game.loadingText = "Loading (" + imageName[imageName.length - 1] + ")";
         }
@@ -258,28 +746,9 @@ public class ImageLoader extends Thread {
         return loadCount;
     }
 
-    private void getGroupImages(String line) {
-        StringTokenizer tokens = new StringTokenizer(line);
-
-        if (tokens.countTokens() < 3) {
-            EIError.debugMsg("Wrong no. of arguments for " + line, EIError.ErrorLevel.Error);
-        } else {
-            tokens.nextToken();    // skip command label
-
-            String name = tokens.nextToken();
-
-            ArrayList fnms = new ArrayList();
-            fnms.add(tokens.nextToken());  // read filenames
-            while (tokens.hasMoreTokens()) {
-                fnms.add(tokens.nextToken());
-            }
-
-            loadGroupImages(GameController.IMAGES_DIR + name, fnms);
-        }
-    }
 
     public int loadGroupImages(String name, ArrayList fnms) {
-        if (imagesMap.containsKey(name)) {
+        if (isLoaded(name)) {
             EIError.debugMsg("Error: " + name + "already used", EIError.ErrorLevel.Error);
             return 0;
         }
@@ -308,8 +777,7 @@ public class ImageLoader extends Thread {
         if (loadCount == 0) {
             EIError.debugMsg("No images loaded for " + name, EIError.ErrorLevel.Warning);
         } else {
-            imagesMap.put(name.replace("/Images/", ""), imsList);
-            gNamesMap.put(name.replace("/Images/", ""), nms);
+            putImages(name.replace("/Images/", ""), imsList, nms);
         }
 
         return loadCount;
@@ -322,7 +790,7 @@ public class ImageLoader extends Thread {
 
     // ------------------ access methods -------------------
     public BufferedImage getImage(String name) {
-        ArrayList imsList = (ArrayList) imagesMap.get(name);
+        ArrayList imsList = getImageList(name);
         if (imsList == null) {
             //EIError.debugMsg("No image(s) stored under " + name, EIError.ErrorLevel.Warning);
             return null;
@@ -332,7 +800,7 @@ public class ImageLoader extends Thread {
     }
 
     public BufferedImage getImage(String name, int pos) {
-        ArrayList imsList = (ArrayList) imagesMap.get(name);
+        ArrayList imsList = getImageList(name);
         if (imsList == null) {
             ////EIError.debugMsg("No image(s) stored under " + name, EIError.ErrorLevel.Warning);
             return null;
@@ -349,8 +817,47 @@ public class ImageLoader extends Thread {
         return (BufferedImage) imsList.get(pos);
     }
 
+    public BufferedImage getImage(String name, boolean mirrored) {
+        BufferedImage im = getImage(name);
+        return mirrored ? getMirroredImage(im) : im;
+    }
+
+    public BufferedImage getImage(String name, int pos, boolean mirrored) {
+        BufferedImage im = getImage(name, pos);
+        return mirrored ? getMirroredImage(im) : im;
+    }
+
+    /**
+     * Returns im flipped left to right. Each image is only flipped once; the
+     * copy is kept for as long as the original is.
+     */
+    public BufferedImage getMirroredImage(BufferedImage im) {
+        if (im == null) {
+            return null;
+        }
+
+        synchronized (mirroredImages) {
+            BufferedImage mirrored = mirroredImages.get(im);
+            if (mirrored == null) {
+                int w = im.getWidth();
+                int h = im.getHeight();
+                int type = im.getType();
+                if (type != BufferedImage.TYPE_INT_ARGB_PRE && type != BufferedImage.TYPE_INT_RGB) {
+                    type = BufferedImage.TYPE_INT_ARGB;
+                }
+                mirrored = new BufferedImage(w, h, type);
+                Graphics2D g2d = mirrored.createGraphics();
+                g2d.setComposite(AlphaComposite.Src);
+                g2d.drawImage(im, w, 0, -w, h, null);
+                g2d.dispose();
+                mirroredImages.put(im, mirrored);
+            }
+            return mirrored;
+        }
+    }
+
     public BufferedImage getImage(String name, String fnmPrefix) {
-        ArrayList imsList = (ArrayList) imagesMap.get(name);
+        ArrayList imsList = getImageList(name);
         if (imsList == null) {
             //EIError.debugMsg("No image(s) stored under " + name, EIError.ErrorLevel.Warning);
             return null;
@@ -365,7 +872,10 @@ public class ImageLoader extends Thread {
     }
 
     private int getGroupPosition(String name, String fnmPrefix) {
-        ArrayList groupNames = (ArrayList) gNamesMap.get(name);
+        ArrayList groupNames;
+        synchronized (lock) {
+            groupNames = (ArrayList) gNamesMap.get(name);
+        }
         if (groupNames == null) {
             EIError.debugMsg("No group names for " + name, EIError.ErrorLevel.Error);
             return -1;
@@ -384,7 +894,7 @@ public class ImageLoader extends Thread {
     }
 
     public ArrayList getImages(String name) {
-        ArrayList imsList = (ArrayList) imagesMap.get(name);
+        ArrayList imsList = getImageList(name);
         if (imsList == null) {
             //EIError.debugMsg("No image(s) stored under " + name, EIError.ErrorLevel.Warning);
             return null;
@@ -394,16 +904,18 @@ public class ImageLoader extends Thread {
         return imsList;
     }
 
+    /**
+     * Whether images are stored under name, even if they have been dropped
+     * for now and will be loaded again when asked for.
+     */
     public boolean isLoaded(String name) {
-        ArrayList imsList = (ArrayList) imagesMap.get(name);
-        if (imsList == null) {
-            return false;
+        synchronized (lock) {
+            return isKnown(name);
         }
-        return true;
     }
 
     public int numImages(String name) {
-        ArrayList imsList = (ArrayList) imagesMap.get(name);
+        ArrayList imsList = getImageList(name);
         if (imsList == null) {
             //EIError.debugMsg("No image(s) stored under " + name, EIError.ErrorLevel.Warning);
             return 0;
@@ -417,7 +929,7 @@ public class ImageLoader extends Thread {
             //ImageIO.read(Art.class.getResource(fileName));
 
             int transparency = im.getColorModel().getTransparency();
-            BufferedImage copy = gc.createCompatibleImage(
+            BufferedImage copy = createCompatibleImage(
                     im.getWidth(), im.getHeight(), transparency);
 
             Graphics2D g2d = copy.createGraphics();
@@ -431,6 +943,14 @@ public class ImageLoader extends Thread {
         }
     }
 
+    BufferedImage createCompatibleImage(int width, int height, int transparency) {
+        if (gc == null) {
+            //building the image cache without a screen
+            return new BufferedImage(width, height, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        }
+        return gc.createCompatibleImage(width, height, transparency);
+    }
+
     private BufferedImage makeBIM(Image im, int width, int height) {
         BufferedImage copy = new BufferedImage(width, height,
                 BufferedImage.TYPE_INT_ARGB);
@@ -462,7 +982,7 @@ public class ImageLoader extends Thread {
         Graphics2D stripGC;
 
         for (int i = 0; i < number; i++) {
-            strip[i] = gc.createCompatibleImage(imWidth, height, transparency);
+            strip[i] = createCompatibleImage(imWidth, height, transparency);
 
             stripGC = strip[i].createGraphics();
 
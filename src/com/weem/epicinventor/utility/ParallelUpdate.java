@@ -0,0 +1,179 @@
+package com.weem.epicinventor.utility;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Updates a list of entities on several cores. Entities are grouped into
+ * regions of the map, each region is updated in order on one thread, and
+ * anything an update does to the rest of the game (damage, spawns, drops,
+ * network messages) is held back with defer() and carried out once every
+ * update has finished, in the order of the list. The game then sees the
+ * same sequence of side effects it would have if the list had been updated
+ * one entity at a time. Random numbers drawn during an update come from a
+ * stream of the region's own, seeded from the shared Rand once per call, so
+ * what happens doesn't depend on how the threads were scheduled; the numbers
+ * are not the ones a one at a time update would have drawn.
+ *
+ * The work runs on one ForkJoinPool shared with anything else that splits
+ * itself up through invokeAll. Small lists, or machines with one core, are
+ * just updated in place.
+ */
+public class ParallelUpdate {
+
+    //below this many entities handing out the work costs more than it saves
+    public final static int MIN_PARALLEL = 32;
+    public final static int REGION_WIDTH = 1024;
+    private final static int THREADS = Runtime.getRuntime().availableProcessors();
+    private static ForkJoinPool pool;
+    private static ThreadLocal<ArrayList<Runnable>> deferred = new ThreadLocal<ArrayList<Runnable>>();
+
+    public static abstract class Updater<T> {
+
+        public abstract int getMapX(T entity);
+
+        public abstract void update(T entity);
+    }
+
+    /**
+     * Holds back r until the parallel update it was called from is done,
+     * returning true, or returns false if there's no parallel update going
+     * and r should be done now.
+     */
+    public static boolean defer(Runnable r) {
+        ArrayList<Runnable> buffer = deferred.get();
+        if (buffer == null) {
+            return false;
+        }
+        buffer.add(r);
+        return true;
+    }
+
+    //updates the entities of one region in list order
+    private static class RegionUpdate<T> extends RecursiveAction {
+
+        private List<T> entities;
+        private Updater<T> updater;
+        private ArrayList<Integer> indices;
+        private ArrayList<Runnable>[] buffers;
+        private Random random;
+        private RuntimeException failure;
+
+        RegionUpdate(List<T> e, Updater<T> u, ArrayList<Integer> i, ArrayList<Runnable>[] b, Random r) {
+            entities = e;
+            updater = u;
+            indices = i;
+            buffers = b;
+            random = r;
+        }
+
+        @Override
+        protected void compute() {
+            Rand.setThreadRandom(random);
+            try {
+                for (int i = 0; i < indices.size(); i++) {
+                    int index = indices.get(i);
+                    buffers[index] = new ArrayList<Runnable>();
+                    deferred.set(buffers[index]);
+                    try {
+                        updater.update(entities.get(index));
+                    } finally {
+                        deferred.remove();
+                    }
+                }
+            } catch (RuntimeException e) {
+                //kept until the side effects of the other regions have been carried out
+                failure = e;
+            } finally {
+                Rand.setThreadRandom(null);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> void update(List<T> entities, Updater<T> updater) {
+        int count = entities.size();
+        if (count < MIN_PARALLEL || THREADS < 2 || deferred.get() != null) {
+            for (int i = 0; i < count; i++) {
+                updater.update(entities.get(i));
+            }
+            return;
+        }
+
+        TreeMap<Integer, ArrayList<Integer>> regions = new TreeMap<Integer, ArrayList<Integer>>();
+        for (int i = 0; i < count; i++) {
+            Integer region = Integer.valueOf((int) Math.floor((double) updater.getMapX(entities.get(i)) / REGION_WIDTH));
+            ArrayList<Integer> indices = regions.get(region);
+            if (indices == null) {
+                indices = new ArrayList<Integer>();
+                regions.put(region, indices);
+            }
+            indices.add(i);
+        }
+
+        ArrayList<Runnable>[] buffers = new ArrayList[count];
+        long seed = Rand.getRandom().nextLong();
+        ArrayList<RegionUpdate<T>> tasks = new ArrayList<RegionUpdate<T>>(regions.size());
+        for (Map.Entry<Integer, ArrayList<Integer>> region : regions.entrySet()) {
+            tasks.add(new RegionUpdate<T>(entities, updater, region.getValue(), buffers, Rand.getRandom(seed, region.getKey().intValue())));
+        }
+        invokeAll(tasks);
+
+        RuntimeException failure = null;
+        for (int i = 0; i < tasks.size() && failure == null; i++) {
+            failure = tasks.get(i).failure;
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (buffers[i] != null) {
+                for (int j = 0; j < buffers[i].size(); j++) {
+                    buffers[i].get(j).run();
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Runs tasks on the shared pool and waits for all of them, rethrowing
+     * the first failure. Called from inside the pool it forks them from the
+     * current task instead.
+     */
+    public static void invokeAll(final Collection<? extends ForkJoinTask<?>> tasks) {
+        if (tasks.size() < 2 || THREADS < 2) {
+            for (ForkJoinTask<?> task : tasks) {
+                task.invoke();
+            }
+        } else if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            getPool().invoke(new RecursiveAction() {
+
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                }
+            });
+        }
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(THREADS, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+
+                private int count = 0;
+
+                public synchronized ForkJoinWorkerThread newThread(ForkJoinPool p) {
+                    ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                    t.setName("Update-" + (++count));
+                    t.setDaemon(true);
+                    return t;
+                }
+            }, null, false);
+        }
+        return pool;
+    }
+}
@@ -5,6 +5,8 @@ import java.util.Random;
 public class Rand {
 
     private static Random random;
+    //set while a thread works on its own seeded piece, see ParallelUpdate
+    private static ThreadLocal<Random> threadRandom = new ThreadLocal<Random>();
 
     private Rand() {
     }
@@ -13,11 +15,51 @@ public class Rand {
         random = new Random();
     }
 
-    public static int getRange(int min, int max) {
+    public static Random getRandom() {
+        Random r = threadRandom.get();
+        if (r != null) {
+            return r;
+        }
         if (random == null) {
             init();
         }
 
+        return random;
+    }
+
+    /**
+     * A generator of its own for one piece of work seeded from seed, so
+     * pieces done on different threads, or in a different order, still
+     * get the same numbers. Different streams give unrelated sequences.
+     */
+    public static Random getRandom(long seed, long stream) {
+        return new Random(mix(seed ^ mix(stream + 0x9E3779B97F4A7C15L)));
+    }
+
+    /**
+     * Makes getRandom, getRange and getFloat on this thread draw from r,
+     * until it's set back to null.
+     */
+    public static void setThreadRandom(Random r) {
+        if (r == null) {
+            threadRandom.remove();
+        } else {
+            threadRandom.set(r);
+        }
+    }
+
+    //spreads the bits of z so nearby seeds and streams don't give similar generators
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static int getRange(int min, int max) {
+        return getRange(getRandom(), min, max);
+    }
+
+    public static int getRange(Random r, int min, int max) {
         if (max < min) {
             return 0;
         }
@@ -30,14 +72,10 @@ public class Rand {
             return 0;
         }
 
-        return random.nextInt(range) + min;
+        return r.nextInt(range) + min;
     }
 
     public static float getFloat() {
-        if (random == null) {
-            init();
-        }
-
-        return random.nextFloat();
+        return getRandom().nextFloat();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,332 @@
+package com.weem.epicinventor.utility;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.sound.sampled.*;
+
+/**
+ * Plays every sound effect through one SourceDataLine. Each WAV is decoded
+ * once into 16 bit samples at the output rate and kept by name, and a fixed
+ * set of voices mixes them in software on a thread of its own. Starting a
+ * sound just claims a voice, so the game never waits on the audio system;
+ * a sound that hasn't been decoded yet is handed to a decoder thread and
+ * starts as soon as it's ready, while the other voices keep playing.
+ *
+ * Sounds are referred to by an int handle, the voice number plus a
+ * generation count, so a handle kept after its sound ended can't touch
+ * whatever reused the voice.
+ */
+public class SoundMixer implements Runnable {
+
+    public final static int VOICES = 16;
+    private final static float SAMPLE_RATE = 44100f;
+    private final static AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+    //frames mixed per pass, and how far ahead of the speakers the line is kept
+    private final static int CHUNK_FRAMES = 512;
+    private final static int LINE_FRAMES = 2048;
+    private final static Object lock = new Object();
+    private static Voice[] voices;
+    private static HashMap<String, Sample> samples = new HashMap<String, Sample>();
+    private static HashSet<String> decoding = new HashSet<String>();
+    private static ExecutorService decoder;
+    private static Thread thread;
+    private static boolean available = true;
+    private static long started;
+
+    private static class Sample {
+
+        short[] data;
+        int channels;
+        int frames;
+    }
+
+    private static class Voice {
+
+        int generation;
+        //waiting for this sample to be decoded
+        String pending;
+        Sample sample;
+        int position;
+        float gain;
+        boolean looping;
+        boolean active;
+        long startedAt;
+    }
+
+    /**
+     * Starts a sound at a linear gain and returns its handle, or -1 if it
+     * can't be played.
+     */
+    public static int play(String fileName, float gain, boolean looping) {
+        synchronized (lock) {
+            if (!available) {
+                return -1;
+            }
+            if (thread == null) {
+                voices = new Voice[VOICES];
+                for (int i = 0; i < VOICES; i++) {
+                    voices[i] = new Voice();
+                }
+                thread = new Thread(new SoundMixer(), "SoundMixer");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY);
+                thread.start();
+
+                decoder = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "SoundDecoder");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            }
+
+            int index = findVoice();
+            if (index == -1) {
+                return -1;
+            }
+
+            Voice voice = voices[index];
+            voice.generation = (voice.generation + 1) & 0x7FFFFF;
+            voice.sample = samples.get(fileName);
+            voice.pending = voice.sample == null ? fileName : null;
+            if (voice.pending != null && decoding.add(fileName)) {
+                startDecode(fileName);
+            }
+            voice.position = 0;
+            voice.gain = gain;
+            voice.looping = looping;
+            voice.active = true;
+            voice.startedAt = started++;
+            lock.notifyAll();
+            return index | (voice.generation << 8);
+        }
+    }
+
+    private static void startDecode(final String fileName) {
+        decoder.execute(new Runnable() {
+
+            public void run() {
+                Sample sample = decode(fileName);
+                synchronized (lock) {
+                    samples.put(fileName, sample);
+                    decoding.remove(fileName);
+                    lock.notifyAll();
+                }
+            }
+        });
+    }
+
+    //a free voice, or else the oldest one that isn't looping
+    private static int findVoice() {
+        int oldest = -1;
+        for (int i = 0; i < VOICES; i++) {
+            if (!voices[i].active) {
+                return i;
+            }
+            if (!voices[i].looping && (oldest == -1 || voices[i].startedAt < voices[oldest].startedAt)) {
+                oldest = i;
+            }
+        }
+        return oldest;
+    }
+
+    private static Voice getVoice(int handle) {
+        if (handle < 0 || voices == null) {
+            return null;
+        }
+        Voice voice = voices[handle & 0xFF];
+        if (!voice.active || voice.generation != handle >>> 8) {
+            return null;
+        }
+        return voice;
+    }
+
+    public static void setLooping(int handle, boolean looping) {
+        synchronized (lock) {
+            Voice voice = getVoice(handle);
+            if (voice != null) {
+                voice.looping = looping;
+            }
+        }
+    }
+
+    public static void stop(int handle) {
+        synchronized (lock) {
+            Voice voice = getVoice(handle);
+            if (voice != null) {
+                voice.active = false;
+            }
+        }
+    }
+
+    public void run() {
+        SourceDataLine line;
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, LINE_FRAMES * FORMAT.getFrameSize());
+            line.start();
+        } catch (Exception e) {
+            EIError.debugMsg("No sound output: " + e.getMessage(), EIError.ErrorLevel.Error);
+            synchronized (lock) {
+                available = false;
+                for (int i = 0; i < VOICES; i++) {
+                    voices[i].active = false;
+                }
+            }
+            return;
+        }
+
+        int[] mix = new int[CHUNK_FRAMES * 2];
+        byte[] out = new byte[CHUNK_FRAMES * 4];
+        while (true) {
+            synchronized (lock) {
+                boolean playing = false;
+                for (int i = 0; i < VOICES; i++) {
+                    Voice voice = voices[i];
+                    if (voice.active && voice.pending != null) {
+                        voice.sample = samples.get(voice.pending);
+                        if (voice.sample != null) {
+                            voice.pending = null;
+                        }
+                    }
+                    playing |= voice.active && voice.sample != null;
+                }
+
+                if (!playing) {
+                    //let the line run dry rather than feed it silence, until a sound starts or is decoded
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                    continue;
+                }
+
+                Arrays.fill(mix, 0);
+                for (int i = 0; i < VOICES; i++) {
+                    if (voices[i].active && voices[i].sample != null) {
+                        mixVoice(voices[i], mix);
+                    }
+                }
+            }
+
+            for (int i = 0; i < mix.length; i++) {
+                int s = mix[i];
+                if (s > Short.MAX_VALUE) {
+                    s = Short.MAX_VALUE;
+                } else if (s < Short.MIN_VALUE) {
+                    s = Short.MIN_VALUE;
+                }
+                out[i * 2] = (byte) s;
+                out[i * 2 + 1] = (byte) (s >> 8);
+            }
+            //blocks until the line has room, which paces the loop
+            line.write(out, 0, out.length);
+        }
+        line.close();
+    }
+
+    private static void mixVoice(Voice voice, int[] mix) {
+        Sample sample = voice.sample;
+        short[] data = sample.data;
+        int frame = 0;
+        while (frame < CHUNK_FRAMES) {
+            if (voice.position >= sample.frames) {
+                if (voice.looping && sample.frames > 0) {
+                    voice.position = 0;
+                } else {
+                    voice.active = false;
+                    return;
+                }
+            }
+
+            int count = Math.min(CHUNK_FRAMES - frame, sample.frames - voice.position);
+            float gain = voice.gain;
+            if (sample.channels == 1) {
+                for (int i = 0; i < count; i++) {
+                    int s = (int) (data[voice.position + i] * gain);
+                    mix[(frame + i) * 2] += s;
+                    mix[(frame + i) * 2 + 1] += s;
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    int p = (voice.position + i) * 2;
+                    mix[(frame + i) * 2] += (int) (data[p] * gain);
+                    mix[(frame + i) * 2 + 1] += (int) (data[p + 1] * gain);
+                }
+            }
+            frame += count;
+            voice.position += count;
+        }
+    }
+
+    /**
+     * Reads a WAV into 16 bit samples at the output rate. Anything that
+     * can't be read comes back empty, so it's only tried once.
+     */
+    private static Sample decode(String fileName) {
+        Sample sample = new Sample();
+        sample.data = new short[0];
+        sample.channels = 1;
+
+        try {
+            AudioInputStream in = AudioSystem.getAudioInputStream(SoundMixer.class.getResource(fileName));
+            AudioFormat source = in.getFormat();
+            int channels = Math.min(2, source.getChannels());
+            AudioFormat pcm = new AudioFormat(source.getSampleRate(), 16, source.getChannels(), true, false);
+            if (!source.matches(pcm)) {
+                in = AudioSystem.getAudioInputStream(pcm, in);
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            in.close();
+
+            byte[] raw = bytes.toByteArray();
+            int frames = raw.length / (2 * source.getChannels());
+            short[] data = new short[frames * channels];
+            for (int f = 0; f < frames; f++) {
+                for (int c = 0; c < channels; c++) {
+                    int p = (f * source.getChannels() + c) * 2;
+                    data[f * channels + c] = (short) ((raw[p] & 0xFF) | (raw[p + 1] << 8));
+                }
+            }
+
+            sample.channels = channels;
+            sample.data = resample(data, channels, source.getSampleRate());
+            sample.frames = sample.data.length / channels;
+        } catch (Exception e) {
+            EIError.debugMsg("Problem with " + fileName + ": " + e.getMessage(), EIError.ErrorLevel.Error);
+        }
+        return sample;
+    }
+
+    //linear interpolation is plenty for short effects
+    private static short[] resample(short[] data, int channels, float rate) {
+        if (rate == SAMPLE_RATE || rate <= 0) {
+            return data;
+        }
+
+        int frames = data.length / channels;
+        int outFrames = (int) ((long) frames * SAMPLE_RATE / rate);
+        short[] out = new short[outFrames * channels];
+        double step = rate / SAMPLE_RATE;
+        for (int f = 0; f < outFrames; f++) {
+            double pos = f * step;
+            int i = (int) pos;
+            double t = pos - i;
+            int next = Math.min(i + 1, frames - 1);
+            for (int c = 0; c < channels; c++) {
+                out[f * channels + c] = (short) (data[i * channels + c] * (1 - t) + data[next * channels + c] * t);
+            }
+        }
+        return out;
+    }
+}
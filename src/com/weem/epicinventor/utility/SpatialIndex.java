@@ -0,0 +1,327 @@
+package com.weem.epicinventor.utility;
+
+import java.util.*;
+
+/**
+ * Uniform grid over map coordinates used by the managers to answer
+ * proximity questions without walking every entity they own. Each entry is
+ * filed in the cell holding the center of its bounds; queries widen their
+ * search by the largest bounds seen so nothing that overlaps is missed.
+ */
+public class SpatialIndex<T> {
+
+    public final static int DEFAULT_CELL_SIZE = 256;
+    private final static int BUCKET_COUNT = 4096;
+    private final static int BUCKET_MASK = BUCKET_COUNT - 1;
+    private int cellSize;
+    private ArrayList<Entry<T>>[] buckets;
+    private IdentityHashMap<T, Entry<T>> entries;
+    private int maxWidth, maxHeight;
+    private int minCellX, maxCellX, minCellY, maxCellY;
+
+    public interface Scorer<T> {
+
+        //return the distance used to rank the item, or a negative number to skip it
+        public double score(T item);
+    }
+
+    private static class Entry<T> {
+
+        T item;
+        int x, y, width, height;
+        int cellX, cellY;
+    }
+
+    public SpatialIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public SpatialIndex(int cs) {
+        cellSize = cs;
+        clear();
+    }
+
+    public synchronized void clear() {
+        buckets = new ArrayList[BUCKET_COUNT];
+        entries = new IdentityHashMap<T, Entry<T>>();
+        maxWidth = maxHeight = 0;
+        minCellX = minCellY = Integer.MAX_VALUE;
+        maxCellX = maxCellY = Integer.MIN_VALUE;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    public synchronized void update(T item, int x, int y, int width, int height) {
+        if (item == null) {
+            return;
+        }
+
+        int cx = toCell(x + width / 2);
+        int cy = toCell(y + height / 2);
+
+        Entry<T> e = entries.get(item);
+        if (e == null) {
+            e = new Entry<T>();
+            e.item = item;
+            entries.put(item, e);
+            getBucket(cx, cy, true).add(e);
+        } else if (e.cellX != cx || e.cellY != cy) {
+            getBucket(e.cellX, e.cellY, true).remove(e);
+            getBucket(cx, cy, true).add(e);
+        }
+
+        e.x = x;
+        e.y = y;
+        e.width = width;
+        e.height = height;
+        e.cellX = cx;
+        e.cellY = cy;
+
+        if (width > maxWidth) {
+            maxWidth = width;
+        }
+        if (height > maxHeight) {
+            maxHeight = height;
+        }
+        if (cx < minCellX) {
+            minCellX = cx;
+        }
+        if (cx > maxCellX) {
+            maxCellX = cx;
+        }
+        if (cy < minCellY) {
+            minCellY = cy;
+        }
+        if (cy > maxCellY) {
+            maxCellY = cy;
+        }
+    }
+
+    public synchronized void remove(T item) {
+        Entry<T> e = entries.remove(item);
+        if (e != null) {
+            getBucket(e.cellX, e.cellY, true).remove(e);
+        }
+    }
+
+    public synchronized void getInRect(int x, int y, int width, int height, Collection<T> result) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        int cx1 = Math.max(toCell(x - maxWidth / 2), minCellX);
+        int cx2 = Math.min(toCell(x + width + maxWidth / 2), maxCellX);
+        int cy1 = Math.max(toCell(y - maxHeight / 2), minCellY);
+        int cy2 = Math.min(toCell(y + height + maxHeight / 2), maxCellY);
+
+        for (int cx = cx1; cx <= cx2; cx++) {
+            for (int cy = cy1; cy <= cy2; cy++) {
+                ArrayList<Entry<T>> bucket = getBucket(cx, cy, false);
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size(); i++) {
+                    Entry<T> e = bucket.get(i);
+                    if (e.cellX == cx && e.cellY == cy
+                            && e.x <= x + width && e.x + e.width >= x
+                            && e.y <= y + height && e.y + e.height >= y) {
+                        result.add(e.item);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds every item whose center falls in the given range of cells,
+     * inclusive.
+     */
+    public synchronized void getInCells(int cellX1, int cellY1, int cellX2, int cellY2, Collection<T> result) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        cellX1 = Math.max(cellX1, minCellX);
+        cellX2 = Math.min(cellX2, maxCellX);
+        cellY1 = Math.max(cellY1, minCellY);
+        cellY2 = Math.min(cellY2, maxCellY);
+
+        for (int cx = cellX1; cx <= cellX2; cx++) {
+            for (int cy = cellY1; cy <= cellY2; cy++) {
+                ArrayList<Entry<T>> bucket = getBucket(cx, cy, false);
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size(); i++) {
+                    Entry<T> e = bucket.get(i);
+                    if (e.cellX == cx && e.cellY == cy) {
+                        result.add(e.item);
+                    }
+                }
+            }
+        }
+    }
+
+    public synchronized void getInRadius(int x, int y, int radius, Collection<T> result) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        long r2 = (long) radius * radius;
+
+        int cx1 = Math.max(toCell(x - radius - maxWidth / 2), minCellX);
+        int cx2 = Math.min(toCell(x + radius + maxWidth / 2), maxCellX);
+        int cy1 = Math.max(toCell(y - radius - maxHeight / 2), minCellY);
+        int cy2 = Math.min(toCell(y + radius + maxHeight / 2), maxCellY);
+
+        for (int cx = cx1; cx <= cx2; cx++) {
+            for (int cy = cy1; cy <= cy2; cy++) {
+                ArrayList<Entry<T>> bucket = getBucket(cx, cy, false);
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size(); i++) {
+                    Entry<T> e = bucket.get(i);
+                    if (e.cellX == cx && e.cellY == cy && distanceSq(e, x, y) <= r2) {
+                        result.add(e.item);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills result with up to k items closest to the point, nearest first.
+     * Distance is measured to the edge of each item's bounds.
+     */
+    public synchronized void getNearest(int x, int y, int k, int maxDistance, List<T> result) {
+        if (entries.isEmpty() || k <= 0) {
+            return;
+        }
+
+        final IdentityHashMap<T, Long> distances = new IdentityHashMap<T, Long>();
+        ArrayList<T> candidates = new ArrayList<T>();
+        int radius = cellSize;
+        while (true) {
+            if (radius > maxDistance) {
+                radius = maxDistance;
+            }
+            candidates.clear();
+            getInRadius(x, y, radius, candidates);
+            if (candidates.size() >= k || radius >= maxDistance || coversAll(x, y, radius)) {
+                break;
+            }
+            radius = (radius > maxDistance / 2) ? maxDistance : radius * 2;
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            T item = candidates.get(i);
+            distances.put(item, distanceSq(entries.get(item), x, y));
+        }
+        Collections.sort(candidates, new Comparator<T>() {
+
+            public int compare(T a, T b) {
+                return distances.get(a).compareTo(distances.get(b));
+            }
+        });
+
+        for (int i = 0; i < candidates.size() && i < k; i++) {
+            result.add(candidates.get(i));
+        }
+    }
+
+    /**
+     * Returns the item with the lowest score within maxDistance of the point.
+     * The search starts small and widens until it finds something; the
+     * scorer is free to use its own notion of distance as long as it is never
+     * smaller than the distance to the item's indexed bounds.
+     */
+    public T getClosest(int x, int y, int maxDistance, Scorer<T> scorer) {
+        ArrayList<T> candidates = new ArrayList<T>();
+        T closest = null;
+        double closestScore = 0;
+        int radius = cellSize;
+
+        while (true) {
+            if (radius > maxDistance) {
+                radius = maxDistance;
+            }
+            candidates.clear();
+            getInRadius(x, y, radius, candidates);
+
+            closest = null;
+            closestScore = 0;
+            for (int i = 0; i < candidates.size(); i++) {
+                T item = candidates.get(i);
+                double score = scorer.score(item);
+                if (score >= 0 && (closest == null || score < closestScore)) {
+                    closest = item;
+                    closestScore = score;
+                }
+            }
+
+            if (closest != null) {
+                //something closer may still sit just outside the radius searched
+                if (closestScore > radius && radius < maxDistance) {
+                    radius = (int) Math.min(Math.ceil(closestScore), maxDistance);
+                    continue;
+                }
+                break;
+            }
+            if (radius >= maxDistance || coversAll(x, y, radius)) {
+                break;
+            }
+            radius = (radius > maxDistance / 2) ? maxDistance : radius * 2;
+        }
+
+        if (closest != null && closestScore > maxDistance) {
+            return null;
+        }
+        return closest;
+    }
+
+    private synchronized boolean coversAll(int x, int y, int radius) {
+        return toCell(x - radius) <= minCellX && toCell(x + radius) >= maxCellX
+                && toCell(y - radius) <= minCellY && toCell(y + radius) >= maxCellY;
+    }
+
+    private long distanceSq(Entry<T> e, int x, int y) {
+        long dx = 0;
+        long dy = 0;
+        if (x < e.x) {
+            dx = e.x - x;
+        } else if (x > e.x + e.width) {
+            dx = x - (e.x + e.width);
+        }
+        if (y < e.y) {
+            dy = e.y - y;
+        } else if (y > e.y + e.height) {
+            dy = y - (e.y + e.height);
+        }
+        return dx * dx + dy * dy;
+    }
+
+    private int toCell(int v) {
+        return (int) Math.floor((double) v / cellSize);
+    }
+
+    private ArrayList<Entry<T>> getBucket(int cx, int cy, boolean create) {
+        int h = ((cx * 73856093) ^ (cy * 19349663)) & BUCKET_MASK;
+        ArrayList<Entry<T>> bucket = buckets[h];
+        if (bucket == null && create) {
+            bucket = new ArrayList<Entry<T>>();
+            buckets[h] = bucket;
+        }
+        return bucket;
+    }
+}
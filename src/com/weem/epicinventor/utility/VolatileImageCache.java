@@ -0,0 +1,92 @@
+package com.weem.epicinventor.utility;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+
+/**
+ * Video memory copies of images that are drawn every frame but never change,
+ * like the sky and HUD frames. Copies are made the first time an image is
+ * drawn and redrawn from the original whenever the display loses them, so
+ * callers just draw through here. When turned off, or when a copy can't be
+ * made, the original image is drawn instead.
+ */
+public class VolatileImageCache {
+
+    private static volatile boolean enabled = false;
+    private static WeakHashMap<BufferedImage, VolatileImage> images = new WeakHashMap<BufferedImage, VolatileImage>();
+
+    public static void setEnabled(boolean e) {
+        enabled = e;
+        if (!e) {
+            clear();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void clear() {
+        synchronized (images) {
+            for (VolatileImage vi : images.values()) {
+                vi.flush();
+            }
+            images.clear();
+        }
+    }
+
+    public static void drawImage(Graphics g, BufferedImage image, int x, int y) {
+        drawImage(g, image, x, y, image.getWidth(), image.getHeight());
+    }
+
+    public static void drawImage(Graphics g, BufferedImage image, int x, int y, int w, int h) {
+        if (enabled && g instanceof Graphics2D) {
+            GraphicsConfiguration gc = ((Graphics2D) g).getDeviceConfiguration();
+            if (gc != null) {
+                VolatileImage vi = getVolatileImage(gc, image);
+                if (vi != null) {
+                    g.drawImage(vi, x, y, w, h, null);
+                    if (!vi.contentsLost()) {
+                        return;
+                    }
+                }
+            }
+        }
+        g.drawImage(image, x, y, w, h, null);
+    }
+
+    private static VolatileImage getVolatileImage(GraphicsConfiguration gc, BufferedImage image) {
+        synchronized (images) {
+            VolatileImage vi = images.get(image);
+            int status = vi == null ? VolatileImage.IMAGE_INCOMPATIBLE : vi.validate(gc);
+            boolean restore = status == VolatileImage.IMAGE_RESTORED;
+
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (vi != null) {
+                    vi.flush();
+                }
+                try {
+                    vi = gc.createCompatibleVolatileImage(image.getWidth(), image.getHeight(), image.getTransparency());
+                } catch (Exception e) {
+                    EIError.debugMsg("Couldn't accelerate image " + e.getMessage(), EIError.ErrorLevel.Warning);
+                    vi = null;
+                }
+                if (vi == null) {
+                    images.remove(image);
+                    return null;
+                }
+                images.put(image, vi);
+                restore = true;
+            }
+
+            if (restore) {
+                Graphics2D g2d = vi.createGraphics();
+                g2d.setComposite(AlphaComposite.Src);
+                g2d.drawImage(image, 0, 0, null);
+                g2d.dispose();
+            }
+            return vi;
+        }
+    }
+}
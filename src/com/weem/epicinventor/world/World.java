@@ -4,7 +4,8 @@ import com.weem.epicinventor.*;
 import com.weem.epicinventor.utility.*;
 import com.weem.epicinventor.world.block.*;
 
-import java.util.Random;
+import java.util.*;
+import java.util.concurrent.RecursiveAction;
 import java.io.Serializable;
 import java.io.ObjectOutputStream;
 import java.io.FileOutputStream;
@@ -18,7 +19,6 @@ import java.io.IOException;
  */
 public class World implements Serializable {
 
-    private static Random randGen = new Random();
     private static int SIZE = 2048;
     public static int HORIZ_BLOCKS = 2;
     private static int NUMBER_TOWN_AREAS = HORIZ_BLOCKS;
@@ -31,13 +31,26 @@ public class World implements Serializable {
     private static int CAVERN_FACTOR = 25;
     private static int CAVE_RADIUS = 3;
     private static float CAVE_TERM = 0.25f;
+    //steps of generation, each drawing from its own random streams
+    final static int STEP_MAIN = 0;
+    final static int STEP_GROUND = 1;
+    final static int STEP_GAPS = 2;
+    final static int STEP_STONE = 3;
+    final static int STEP_ORE = 4;
+    final static int STEP_SAND = 5;
+    final static int STEP_MUD = 6;
+    final static int STEP_CAVES = 7;
+    //set on the streams octaves of noise draw from, to keep them apart from the rest
+    private final static long NOISE_STREAMS = 1L << 62;
     public WorldCavern cavern;
     private BlockManager blockManager;
     private int[] worldGround;
     private int worldGroundMax;
     private int worldGroundMin;
     private WorldImagePainting imagePainting;
-    public int[][] blockArray;
+    private long seed;
+    transient private Random random;
+    public short[][] blockArray;
 
     enum direction {
 
@@ -48,7 +61,30 @@ public class World implements Serializable {
         Down
     }
 
+    //one block of paint from a random walk, or a rectangle if it has a width
+    private static class Stroke {
+
+        int x, z, radius;
+        int width, height;
+
+        Stroke(int x, int z, int radius) {
+            this.x = x;
+            this.z = z;
+            this.radius = radius;
+        }
+    }
+
     public World(String filename) {
+        this(filename, new Random().nextLong());
+    }
+
+    /**
+     * Generates the world for seed, or reads it from filename along with the
+     * seed it was made from. The same seed always generates the same world.
+     */
+    public World(String filename, long s) {
+        seed = s;
+        random = Rand.getRandom(seed, getStream(STEP_MAIN, 0));
         if (filename.equals("")) {
             blockManager = new BlockManager();
 
@@ -56,6 +92,7 @@ public class World implements Serializable {
         } else {
             World w = Read(filename);
             blockArray = w.blockArray;
+            seed = w.seed;
         }
         worldGround = null;
     }
@@ -65,6 +102,8 @@ public class World implements Serializable {
             int cavern_factor, float cave_term) {
         
         blockManager = new BlockManager();
+        seed = new Random().nextLong();
+        random = Rand.getRandom(seed, getStream(STEP_MAIN, 0));
         
         SIZE = size;
         HORIZ_BLOCKS = horiz_blocks;
@@ -80,6 +119,7 @@ public class World implements Serializable {
         } else {
             World w = Read(filename);
             blockArray = w.blockArray;
+            seed = w.seed;
         }
         worldGround = null;
     }
@@ -114,122 +154,156 @@ public class World implements Serializable {
         return w;
     }
 
-    public int[][] GenerateWorld(int size, int oreFactor, boolean includeLava) {
+    public short[][] GenerateWorld(int size, int oreFactor, boolean includeLava) {
         EIError.debugMsg("GenerateWorld Start", EIError.ErrorLevel.Notice);
         Game.loadingText = "Generating World";
-        float[][] noise;
-        int xMin,xMax;
         
-        int[][] newBlockArray = GenerateConstant(size * HORIZ_BLOCKS, size, GROUND_LEVEL, "Dirt");
+        short[][] newBlockArray = GenerateConstant(STEP_GROUND, size * HORIZ_BLOCKS, size, GROUND_LEVEL, "Dirt");
 
         // Add gaps.
-        for (int b = 0; b < HORIZ_BLOCKS; b++) {
-            noise = GeneratePerlinNoise(32);
-            noise = InterpolateData(noise, 32, size);
-            for (int i = 0; i < MNT_FACTOR; i++) {
-                if(randGen.nextFloat() > .10) {
-                    xMin = Rand.getRange(b*size, (b+1)*size) / 2;
-                    xMax = xMin + Rand.getRange(xMin, (b+1)*size);
-                    PaintWithRandomWalk(newBlockArray, noise, size, Math.max(randGen.nextInt(size / 64), 1), "None", false, xMin, xMax, 0, GROUND_LEVEL, size / 8);
-                } else {
-                    PaintRectangle(newBlockArray, blockManager.getRandomIdByGroup("None"), randGen.nextInt(HORIZ_BLOCKS*size - 1), randGen.nextInt(GROUND_LEVEL), Rand.getRange(30, size / 4), Rand.getRange(25, size / 16), 0, HORIZ_BLOCKS*size, 0, GROUND_LEVEL);
-                }
-            }
-        }
+        PaintBlocks(newBlockArray, size, STEP_GAPS, MNT_FACTOR, "None", 0, GROUND_LEVEL, size / 8, true);
 
         //all fall down
         EIError.debugMsg("Fall Down", EIError.ErrorLevel.Notice);
         Game.loadingText = "Digging Terrain";
-        int moveTo = -1;
-        int tmpBlock = blockManager.getRandomIdByGroup("None");
-        for (int x = 0; x < size * HORIZ_BLOCKS; x++) {
-            moveTo = -1;
-            for (int z = 0; z < GROUND_LEVEL; z++) {
-                if (blockManager.isIdInGroup(newBlockArray[x][z], "None")) {
-                    if (moveTo == -1) {
-                        moveTo = z;
-                    }
-                } else {
-                    if (moveTo > -1) {
-                        tmpBlock = newBlockArray[x][moveTo];
-                        newBlockArray[x][moveTo] = newBlockArray[x][z];
-                        newBlockArray[x][z] = tmpBlock;
-                        moveTo++;
-                    }
-                }
-            }
-        }
+        FallDown(newBlockArray, size);
         
         SmoothSerface(newBlockArray, size);
 
-        WorldTown wt = new WorldTown(randGen);
+        WorldTown wt = new WorldTown(random);
         wt.addTownAreas(newBlockArray, worldGround, blockManager, NUMBER_TOWN_AREAS, TOWN_SIZE, 0, size * HORIZ_BLOCKS);
         
         // Add Stone.
         EIError.debugMsg("Add Stone", EIError.ErrorLevel.Notice);
         Game.loadingText = "Dropping Rocks";
-        for (int b = 0; b < HORIZ_BLOCKS; b++) {
-            noise = GeneratePerlinNoise(32);
-            noise = InterpolateData(noise, 32, size);
-            for (int i = 0; i < oreFactor; i++) {
-                xMin = Rand.getRange(b*size, (b+1)*size) / 2;
-                xMax = xMin + Rand.getRange(xMin, (b+1)*size);
-                PaintWithRandomWalk(newBlockArray, noise, size, Math.max(randGen.nextInt(size / 64), 1), "Stone", false, xMin, xMax, 20, GROUND_LEVEL, size / 2);
-            }
-        }
+        PaintBlocks(newBlockArray, size, STEP_STONE, oreFactor, "Stone", 20, GROUND_LEVEL, size / 2, false);
 
         // Add ore.
         EIError.debugMsg("Add Ore", EIError.ErrorLevel.Notice);
-        for (int b = 0; b < HORIZ_BLOCKS; b++) {
-            noise = GeneratePerlinNoise(32);
-            noise = InterpolateData(noise, 32, size);
-            for (int i = 0; i < oreFactor; i++) {
-                xMin = Rand.getRange(b*size, (b+1)*size) / 2;
-                xMax = xMin + Rand.getRange(xMin, (b+1)*size);
-                PaintWithRandomWalk(newBlockArray, noise, size, Math.max(randGen.nextInt(size / 64), 1), "Stone", false, xMin, xMax, 20, GROUND_LEVEL, size / 2);
-            }
-        }
+        PaintBlocks(newBlockArray, size, STEP_ORE, oreFactor, "Stone", 20, GROUND_LEVEL, size / 2, false);
 
         // Add sand.
         Game.loadingText = "Sprinkling in Some Sand";
         EIError.debugMsg("Add Sand", EIError.ErrorLevel.Notice);
-        for (int b = 0; b < HORIZ_BLOCKS; b++) {
-            noise = GeneratePerlinNoise(32);
-            noise = InterpolateData(noise, 32, size);
-            for (int i = 0; i < oreFactor; i++) {
-                xMin = Rand.getRange(b*size, (b+1)*size) / 2;
-                xMax = xMin + Rand.getRange(xMin, (b+1)*size);
-                PaintWithRandomWalk(newBlockArray, noise, size, Math.max(randGen.nextInt(size / 64), 1), "Sand", false, xMin, xMax, 20, GROUND_LEVEL, size / 2);
-            }
-        }
+        PaintBlocks(newBlockArray, size, STEP_SAND, oreFactor, "Sand", 20, GROUND_LEVEL, size / 2, false);
 
         // Add mud.
         Game.loadingText = "Making Mud";
         EIError.debugMsg("Add Mud", EIError.ErrorLevel.Notice);
-        for (int b = 0; b < HORIZ_BLOCKS; b++) {
-            noise = GeneratePerlinNoise(32);
-            noise = InterpolateData(noise, 32, size);
-            for (int i = 0; i < oreFactor; i++) {
-                xMin = Rand.getRange(b*size, (b+1)*size) / 2;
-                xMax = xMin + Rand.getRange(xMin, (b+1)*size);
-                PaintWithRandomWalk(newBlockArray, noise, size, Math.max(randGen.nextInt(size / 64), 1), "Mud", false, xMin, xMax, 20, GROUND_LEVEL, size / 2);
-            }
-        }
+        PaintBlocks(newBlockArray, size, STEP_MUD, oreFactor, "Mud", 20, GROUND_LEVEL, size / 2, false);
 
         // Carve some caves into the ground.
-//        cavern = new WorldCavern(this, wt, CAVERN_FACTOR, CAVE_RADIUS, CAVE_TERM, worldGround);
+//        cavern = new WorldCavern(this, wt, CAVERN_FACTOR, CAVE_RADIUS, CAVE_TERM, worldGround, random);
 //        newBlockArray = cavern.carveCavern(newBlockArray, size, (HORIZ_BLOCKS * size - size * 3 / 4), (HORIZ_BLOCKS * size - size / 4), (size / 16), (GROUND_LEVEL / 4), size / 32, 0.1f);
 
-        imagePainting = new WorldImagePainting(this, wt, blockManager, worldGround);
+        imagePainting = new WorldImagePainting(this, wt, blockManager, worldGround, random);
         newBlockArray = imagePainting.paintImages(newBlockArray, 20, SIZE*HORIZ_BLOCKS-20, 20, GROUND_LEVEL);
 
-        noise = null;
-        System.gc();
-
         EIError.debugMsg("GenerateWorld End", EIError.ErrorLevel.Notice);
         return newBlockArray;
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
+    Random getRandom() {
+        return random;
+    }
+
+    static long getStream(int step, int block) {
+        return ((long) step << 32) | block;
+    }
+
+    /**
+     * Works out count random walks of group in every horizontal block, each
+     * block as its own task with its own noise and random stream, then paints
+     * them in block order so it doesn't matter which task finished first.
+     */
+    private void PaintBlocks(short[][] currentBlockArray, final int size, final int step, final int count, final String group, final int zMin, final int zMax, final int maxLoops, final boolean gaps) {
+        ArrayList<PlanBlock> tasks = new ArrayList<PlanBlock>();
+        for (int b = 0; b < HORIZ_BLOCKS; b++) {
+            final int block = b;
+            tasks.add(new PlanBlock() {
+
+                @Override
+                protected void compute() {
+                    Random r = Rand.getRandom(seed, getStream(step, block));
+                    WorldNoise noise = GeneratePerlinNoise(32, size, getStream(step, block));
+                    int xMin, xMax;
+                    for (int i = 0; i < count; i++) {
+                        if (!gaps || r.nextFloat() > .10) {
+                            xMin = Rand.getRange(r, block*size, (block+1)*size) / 2;
+                            xMax = xMin + Rand.getRange(r, xMin, (block+1)*size);
+                            PlanRandomWalk(strokes, noise, r, size, Math.max(r.nextInt(size / 64), 1), false, xMin, xMax, zMin, zMax, maxLoops);
+                        } else {
+                            Stroke rect = new Stroke(r.nextInt(HORIZ_BLOCKS*size - 1), r.nextInt(GROUND_LEVEL), 0);
+                            rect.width = Rand.getRange(r, 30, size / 4);
+                            rect.height = Rand.getRange(r, 25, size / 16);
+                            strokes.add(rect);
+                        }
+                    }
+                }
+            });
+        }
+
+        ParallelUpdate.invokeAll(tasks);
+        for (int b = 0; b < tasks.size(); b++) {
+            Paint(currentBlockArray, tasks.get(b).strokes, group, size);
+        }
+    }
+
+    //plans the strokes for one horizontal block
+    private static abstract class PlanBlock extends RecursiveAction {
+
+        ArrayList<Stroke> strokes = new ArrayList<Stroke>();
+    }
+
+    private void Paint(short[][] currentBlockArray, ArrayList<Stroke> strokes, String group, int size) {
+        for (int i = 0; i < strokes.size(); i++) {
+            Stroke stroke = strokes.get(i);
+            if (stroke.width > 0) {
+                PaintRectangle(currentBlockArray, blockManager.getRandomIdByGroup(group, random), stroke.x, stroke.z, stroke.width, stroke.height, 0, HORIZ_BLOCKS*size, 0, GROUND_LEVEL);
+            } else {
+                PaintAtPoint(currentBlockArray, group, stroke.radius, stroke.x, stroke.z, 0, size * HORIZ_BLOCKS, 0, size);
+            }
+        }
+    }
+
+    //drops everything above a gap down into it, a horizontal block per task
+    private void FallDown(final short[][] newBlockArray, final int size) {
+        ArrayList<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+        for (int b = 0; b < HORIZ_BLOCKS; b++) {
+            final int block = b;
+            tasks.add(new RecursiveAction() {
+
+                @Override
+                protected void compute() {
+                    int moveTo = -1;
+                    short tmpBlock;
+                    for (int x = block * size; x < (block + 1) * size; x++) {
+                        moveTo = -1;
+                        for (int z = 0; z < GROUND_LEVEL; z++) {
+                            if (blockManager.isIdInGroup(newBlockArray[x][z], "None")) {
+                                if (moveTo == -1) {
+                                    moveTo = z;
+                                }
+                            } else {
+                                if (moveTo > -1) {
+                                    tmpBlock = newBlockArray[x][moveTo];
+                                    newBlockArray[x][moveTo] = newBlockArray[x][z];
+                                    newBlockArray[x][z] = tmpBlock;
+                                    moveTo++;
+                                }
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        ParallelUpdate.invokeAll(tasks);
+    }
+
     public int getWipZMin() {
         return imagePainting.getWipZMin();
     }
@@ -246,14 +320,14 @@ public class World implements Serializable {
         return worldGroundMax;
     }
 
-    public int[][] SmoothSerface(int[][] newBlockArray, int size) {
+    public short[][] SmoothSerface(short[][] newBlockArray, int size) {
         //Curve fit ground
         EIError.debugMsg("Curve Fit", EIError.ErrorLevel.Notice);
         int[] ptsIn = new int[size * HORIZ_BLOCKS];
         int lastZ = 0;
         Bspline spline = new Bspline(size / MNT_SMOOTHING);
         for (int z = GROUND_LEVEL; z > 0; z--) {
-            if (newBlockArray[0][z] != blockManager.getRandomIdByGroup("None")) {
+            if (newBlockArray[0][z] != blockManager.getRandomIdByGroup("None", random)) {
                 ptsIn[0] = z;
                 lastZ = z;
                 spline.addPoint(0, z);
@@ -261,7 +335,7 @@ public class World implements Serializable {
             }
         }
         for (int x = 1; x < size * HORIZ_BLOCKS; x++) {
-            if (newBlockArray[x][lastZ] != blockManager.getRandomIdByGroup("None")) {
+            if (newBlockArray[x][lastZ] != blockManager.getRandomIdByGroup("None", random)) {
                 for (int z = lastZ; z < GROUND_LEVEL + 1; z++) {
                     if (blockManager.isIdInGroup(newBlockArray[x][z], "None")) {
                         ptsIn[x] = z - 1;
@@ -274,7 +348,7 @@ public class World implements Serializable {
                 }
             } else {
                 for (int z = lastZ; z > 0; z--) {
-                    if (newBlockArray[x][z] != blockManager.getRandomIdByGroup("None")) {
+                    if (newBlockArray[x][z] != blockManager.getRandomIdByGroup("None", random)) {
                         ptsIn[x] = z;
                         lastZ = z;
                         if (x % (size / MNT_SMOOTHING) == 0 || x == size * HORIZ_BLOCKS - 1) {
@@ -302,9 +376,9 @@ public class World implements Serializable {
                             if(z > worldGroundMax) {
                                 worldGroundMax = z;
                             }
-                            newBlockArray[x][z] = blockManager.getRandomIdByGroup("Grass");
+                            newBlockArray[x][z] = (short) blockManager.getRandomIdByGroup("Grass", random);
                         } else {
-                            newBlockArray[x][z] = blockManager.getRandomIdByGroup("Dirt");
+                            newBlockArray[x][z] = (short) blockManager.getRandomIdByGroup("Dirt", random);
                         }
                     }
                 } else {
@@ -316,9 +390,9 @@ public class World implements Serializable {
                             if(z > worldGroundMax) {
                                 worldGroundMax = z;
                             }
-                            newBlockArray[x][z] = blockManager.getRandomIdByGroup("Grass");
+                            newBlockArray[x][z] = (short) blockManager.getRandomIdByGroup("Grass", random);
                         } else {
-                            newBlockArray[x][z] = blockManager.getRandomIdByGroup("None");
+                            newBlockArray[x][z] = (short) blockManager.getRandomIdByGroup("None", random);
                         }
                     }
                 }
@@ -329,18 +403,31 @@ public class World implements Serializable {
         return newBlockArray;
     }
 
-    // Generates a set of constant values.
-    public int[][] GenerateConstant(int sizeX, int sizeZ, int fillZ, String group) {
-        int[][] data = new int[sizeX][sizeZ];
-        for (int x = 0; x < sizeX; x++) {
-            for (int z = 0; z < sizeZ; z++) {
-                if (z < fillZ) {
-                    data[x][z] = blockManager.getRandomIdByGroup(group);
-                } else {
-                    data[x][z] = blockManager.getRandomIdByGroup("None");
+    // Generates a set of constant values, a horizontal block per task, drawing from the streams of step.
+    public short[][] GenerateConstant(final int step, final int sizeX, final int sizeZ, final int fillZ, final String group) {
+        final short[][] data = new short[sizeX][sizeZ];
+        final int blockSize = (sizeX + HORIZ_BLOCKS - 1) / HORIZ_BLOCKS;
+        ArrayList<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+        for (int b = 0; b < HORIZ_BLOCKS; b++) {
+            final int block = b;
+            tasks.add(new RecursiveAction() {
+
+                @Override
+                protected void compute() {
+                    Random r = Rand.getRandom(seed, getStream(step, block));
+                    for (int x = block * blockSize; x < sizeX && x < (block + 1) * blockSize; x++) {
+                        for (int z = 0; z < sizeZ; z++) {
+                            if (z < fillZ) {
+                                data[x][z] = (short) blockManager.getRandomIdByGroup(group, r);
+                            } else {
+                                data[x][z] = (short) blockManager.getRandomIdByGroup("None", r);
+                            }
+                        }
+                    }
                 }
-            }
+            });
         }
+        ParallelUpdate.invokeAll(tasks);
         return data;
     }
 
@@ -379,31 +466,30 @@ public class World implements Serializable {
         return value;
     }
 
-    // Generates some perlin noise!
-    public float[][] GeneratePerlinNoise(int size) {
+    // Generates some perlin noise! Each octave has its own random stream
+    // off stream, and the result is sampled at sizeOut without resizing it.
+    public WorldNoise GeneratePerlinNoise(int size, int sizeOut, long stream) {
         float[][] data = new float[size][size];
 
         float[][] noise = null;
+        int octave = 0;
         for (int f = 4; f <= 32; f *= 2) {
-            EIError.debugMsg("GenerateNoise", EIError.ErrorLevel.Notice);
-            noise = GenerateNoise(f, 2f / f);
-            EIError.debugMsg("InterpolateData", EIError.ErrorLevel.Notice);
+            Random r = Rand.getRandom(seed, NOISE_STREAMS | (stream << 3) | octave++);
+            noise = GenerateNoise(f, 2f / f, r);
             noise = InterpolateData(noise, f, size);
-            EIError.debugMsg("AddDataTo", EIError.ErrorLevel.Notice);
             AddDataTo(data, noise, size);
-            EIError.debugMsg("AddDataTo End", EIError.ErrorLevel.Notice);
         }
 
-        return data;
+        return new WorldNoise(data, size, sizeOut);
     }
 
     // Generates a cube of noise with sides of length size. Noise falls in a linear
     // distribution ranging from 0 to magnitude.
-    public float[][] GenerateNoise(int size, float magnitude) {
+    public float[][] GenerateNoise(int size, float magnitude, Random r) {
         float[][] noiseArray = new float[size + (size / 8)][size + (size / 8)];
         for (int x = 0; x < size; x++) {
             for (int z = 0; z < size; z++) {
-                noiseArray[x][z] = randGen.nextFloat() * magnitude;
+                noiseArray[x][z] = r.nextFloat() * magnitude;
             }
         }
         return noiseArray;
@@ -462,10 +548,10 @@ public class World implements Serializable {
 
     // Does a random walk of noiseData, setting cells to 0 in BlockArray in the process.
     public void PaintWithRandomWalk(
-            int[][] currentBlockArray, float[][] noiseData, int size,
+            short[][] currentBlockArray, WorldNoise noiseData, int size,
             int paintRadius, String group, boolean dontStopAtEdge) {
-        int x = Rand.getRange(paintRadius, size - paintRadius);
-        int z = Rand.getRange(paintRadius, size - paintRadius);
+        int x = Rand.getRange(random, paintRadius, size - paintRadius);
+        int z = Rand.getRange(random, paintRadius, size - paintRadius);
         EIError.debugMsg("Start 1 " + x + " " + z + " " + paintRadius, EIError.ErrorLevel.Notice);
         PaintWithRandomWalk(
                 currentBlockArray, noiseData, size,
@@ -474,22 +560,42 @@ public class World implements Serializable {
     }
 
     public void PaintWithRandomWalk(
-            int[][] currentBlockArray, float[][] noiseData, int size,
+            short[][] currentBlockArray, WorldNoise noiseData, int size,
             int paintRadius, String group, boolean dontStopAtEdge,
             int xMin, int xMax, int zMin, int zMax, int maxLoops) {
-        int x = Rand.getRange(xMin + paintRadius, xMax - paintRadius);
-        int z = Rand.getRange(zMin + paintRadius, zMax - paintRadius);
-        EIError.debugMsg("Start 2 " + zMax + " " + zMin + " " + paintRadius, EIError.ErrorLevel.Notice);
-        PaintWithRandomWalk(
-                currentBlockArray, noiseData, size,
-                paintRadius, group, dontStopAtEdge,
-                x, z, xMin, maxLoops);
+        ArrayList<Stroke> strokes = new ArrayList<Stroke>();
+        PlanRandomWalk(strokes, noiseData, random, size, paintRadius, dontStopAtEdge, xMin, xMax, zMin, zMax, maxLoops);
+        Paint(currentBlockArray, strokes, group, size);
     }
 
     public void PaintWithRandomWalk(
-            int[][] currentBlockArray, float[][] noiseData, int size,
+            short[][] currentBlockArray, WorldNoise noiseData, int size,
             int paintRadius, String group, boolean dontStopAtEdge,
             int x, int z, int xOffset, int maxLoops) {
+        ArrayList<Stroke> strokes = new ArrayList<Stroke>();
+        PlanRandomWalk(strokes, noiseData, random, size, paintRadius, dontStopAtEdge, x, z, xOffset, maxLoops);
+        Paint(currentBlockArray, strokes, group, size);
+    }
+
+    private void PlanRandomWalk(
+            ArrayList<Stroke> strokes, WorldNoise noiseData, Random r, int size,
+            int paintRadius, boolean dontStopAtEdge,
+            int xMin, int xMax, int zMin, int zMax, int maxLoops) {
+        int x = Rand.getRange(r, xMin + paintRadius, xMax - paintRadius);
+        int z = Rand.getRange(r, zMin + paintRadius, zMax - paintRadius);
+        EIError.debugMsg("Start 2 " + zMax + " " + zMin + " " + paintRadius, EIError.ErrorLevel.Notice);
+        PlanRandomWalk(
+                strokes, noiseData, r, size,
+                paintRadius, dontStopAtEdge,
+                x, z, xMin, maxLoops);
+    }
+
+    // Works out the walk without painting it, adding where to paint to strokes.
+    // Only reads noiseData and the ground, so walks can be worked out side by side.
+    private void PlanRandomWalk(
+            ArrayList<Stroke> strokes, WorldNoise noiseData, Random r, int size,
+            int paintRadius, boolean dontStopAtEdge,
+            int x, int z, int xOffset, int maxLoops) {
         EIError.debugMsg("Start 3 " + size + " " + paintRadius + " " + dontStopAtEdge + " " + x + " " + z + " " + xOffset + " ", EIError.ErrorLevel.Notice);
         if (z < size / 50) {
             z = 0;
@@ -515,25 +621,25 @@ public class World implements Serializable {
         while (dontStopAtEdge == false || count < size) {
             xOffset = (xOffset/size)*size;
             if(newNoise > oldNoise) {
-                paintRadius += Rand.getRange(0, 2);
+                paintRadius += Rand.getRange(r, 0, 2);
             } else {
-                paintRadius -= Rand.getRange(0, 2);
+                paintRadius -= Rand.getRange(r, 0, 2);
             }
             paintRadius = Math.min(Math.max(paintRadius, 2), 10);
 
-            if(x%size < noiseData.length && z < noiseData[x%size].length) {
-                oldNoise = noiseData[x%size][z];
+            if(x%size < noiseData.getSize() && z < noiseData.getSize()) {
+                oldNoise = noiseData.get(x%size, z);
             }
 
-            PaintAtPoint(currentBlockArray, group, paintRadius, x + xOffset, z, 0, size * HORIZ_BLOCKS, 0, size);
+            strokes.add(new Stroke(x + xOffset, z, paintRadius));
             
             newNoise = 0.0f;
             newX = 0;
             newZ = 0;
             
-            int degrees = 360 * Rand.getRange(0, CHECK_POINTS) / CHECK_POINTS;
+            int degrees = 360 * Rand.getRange(r, 0, CHECK_POINTS) / CHECK_POINTS;
             if(degrees == 90 || degrees == 270) {
-                degrees = 360 * Rand.getRange(0, CHECK_POINTS) / CHECK_POINTS;
+                degrees = 360 * Rand.getRange(r, 0, CHECK_POINTS) / CHECK_POINTS;
             }
             currentX = x + (int)(paintRadius * Math.cos(Math.toRadians(degrees)));
             currentZ = z + (int)(paintRadius * Math.sin(Math.toRadians(degrees)));
@@ -547,7 +653,7 @@ public class World implements Serializable {
                 }
             }
             if(currentX > 0 && currentX < size && currentZ < size && currentZ > 0 && !groundIssue) {
-                newNoise = noiseData[currentX%size][currentZ];
+                newNoise = noiseData.get(currentX%size, currentZ);
                 newX = currentX;
                 newZ = currentZ;
             } else {
@@ -556,7 +662,7 @@ public class World implements Serializable {
                 if(newX < 0 || newX >= size * HORIZ_BLOCKS || newZ < 0 || newZ >= size) {
                     break;
                 }
-                newNoise = noiseData[newX%size][newZ];
+                newNoise = noiseData.get(newX%size, newZ);
             }
             x = newX;
             z = newZ;
@@ -569,7 +675,7 @@ public class World implements Serializable {
         EIError.debugMsg("End", EIError.ErrorLevel.Notice);
     }
 
-    public int[] GetComposition(int[][] currentBlockArray, int paintValue, int paintRadius, int x, int z, int xOffset, int size) {
+    public int[] GetComposition(short[][] currentBlockArray, int paintValue, int paintRadius, int x, int z, int xOffset, int size) {
         int[] blockTypes = new int[3];
         BlockType bt = null;
         blockTypes[0] = 0;
@@ -580,7 +686,7 @@ public class World implements Serializable {
                 if (x - xOffset + dx >= 0 && z + dz >= 0 && x - xOffset + dx < size && z + dz < size) {
                     bt = null;
                     if(x + dx > 0 && x + dx < currentBlockArray.length && z + dz > 0 && z + dz < currentBlockArray[0].length) {
-                        bt = blockManager.getBlockTypeById((short)currentBlockArray[x + dx][z + dz]);
+                        bt = blockManager.getBlockTypeById(currentBlockArray[x + dx][z + dz]);
                     }
                     if (bt == null || bt.getGroup().equals("Town")) {
                         blockTypes[0]++;
@@ -595,7 +701,7 @@ public class World implements Serializable {
         return blockTypes;
     }
 
-    public boolean PaintAtPoint(int[][] currentBlockArray, String group, int paintRadius, int x, int z, int minX, int maxX, int minZ, int maxZ) {
+    public boolean PaintAtPoint(short[][] currentBlockArray, String group, int paintRadius, int x, int z, int minX, int maxX, int minZ, int maxZ) {
         boolean painted = false;
         BlockType bt = null;
         for (int dx = -paintRadius; dx <= paintRadius; dx++) {
@@ -603,13 +709,13 @@ public class World implements Serializable {
                 if (x + dx >= minX && x + dx < maxX && z + dz >= minZ && z + dz < maxZ) {
                     bt = null;
                     if(x + dx > 0 && x + dx < currentBlockArray.length && z + dz > 0 && z + dz < currentBlockArray[0].length) {
-                        bt = blockManager.getBlockTypeById((short)currentBlockArray[x + dx][z + dz]);
+                        bt = blockManager.getBlockTypeById(currentBlockArray[x + dx][z + dz]);
                     }
                     if (
                             dx * dx + dz * dz < paintRadius * paintRadius &&
                             !(bt == null || bt.getGroup().equals("Town"))
                        ) {
-                        currentBlockArray[x + dx][z + dz] = blockManager.getRandomIdByGroup(group);
+                        currentBlockArray[x + dx][z + dz] = (short) blockManager.getRandomIdByGroup(group, random);
                         painted = true;
                     }
                 }
@@ -618,7 +724,7 @@ public class World implements Serializable {
         return painted;
     }
 
-    public boolean PaintAtPoint(int[][] currentBlockArray, String group, int paintRadius, int x, int z, int xOffset, int size) {
+    public boolean PaintAtPoint(short[][] currentBlockArray, String group, int paintRadius, int x, int z, int xOffset, int size) {
         boolean painted = false;
         BlockType bt = null;
         for (int dx = -paintRadius; dx <= paintRadius; dx++) {
@@ -626,13 +732,13 @@ public class World implements Serializable {
                 if (x + dx >= xOffset && z + dz >= 0 && x + dx < xOffset + size && z + dz < size) {
                     bt = null;
                     if(x + dx > 0 && x + dx < currentBlockArray.length && z + dz > 0 && z + dz < currentBlockArray[0].length) {
-                        bt = blockManager.getBlockTypeById((short)currentBlockArray[x + dx][z + dz]);
+                        bt = blockManager.getBlockTypeById(currentBlockArray[x + dx][z + dz]);
                     }
                     if (
                             dx * dx + dz * dz < paintRadius * paintRadius &&
                             !(bt == null || bt.getGroup().equals("Town"))
                        ) {
-                        currentBlockArray[x + dx][z + dz] = blockManager.getRandomIdByGroup(group);
+                        currentBlockArray[x + dx][z + dz] = (short) blockManager.getRandomIdByGroup(group, random);
                         painted = true;
                     }
                 }
@@ -641,7 +747,7 @@ public class World implements Serializable {
         return painted;
     }
 
-    public boolean PaintRectangle(int[][] currentBlockArray, int paintValue, int x, int z, int width, int height, int minX, int maxX, int minZ, int maxZ) {
+    public boolean PaintRectangle(short[][] currentBlockArray, int paintValue, int x, int z, int width, int height, int minX, int maxX, int minZ, int maxZ) {
         boolean painted = false;
         BlockType bt = null;
         for (int dx = x; dx <= x+width; dx++) {
@@ -649,10 +755,10 @@ public class World implements Serializable {
                 if (dx >= minX && dz >= minZ && dx < maxX && dz < maxZ) {
                     bt = null;
                     if(x + dx > 0 && x + dx < currentBlockArray.length && z + dz > 0 && z + dz < currentBlockArray[0].length) {
-                        bt = blockManager.getBlockTypeById((short)currentBlockArray[x + dx][z + dz]);
+                        bt = blockManager.getBlockTypeById(currentBlockArray[x + dx][z + dz]);
                     }
                     if (!(bt == null || bt.getGroup().equals("Town"))) {
-                        currentBlockArray[dx][dz] = paintValue;
+                        currentBlockArray[dx][dz] = (short) paintValue;
                         painted = true;
                     }
                 }
@@ -661,7 +767,7 @@ public class World implements Serializable {
         return painted;
     }
 
-    public int[][] PaintLine(int[][] currentBlockArray, String group, int radius, int startX, int startZ, int endX, int endZ, int minX, int minZ, int maxX, int maxZ) {
+    public short[][] PaintLine(short[][] currentBlockArray, String group, int radius, int startX, int startZ, int endX, int endZ, int minX, int minZ, int maxX, int maxZ) {
         int dx = endX - startX;
         int dz = endZ - startZ;
         int count = (int) Math.sqrt(dx * dx + dz * dz);
@@ -675,7 +781,7 @@ public class World implements Serializable {
         this.Print(blockArray);
     }
 
-    public void Print(int[][] printBlockArray) {
+    public void Print(short[][] printBlockArray) {
         String str = null;
         for (int z = SIZE - 1; z > -1; z--) {
             str = "";
@@ -707,7 +813,7 @@ public class World implements Serializable {
         return size;
     }
 
-    public int[][] getBlockArray(){
+    public short[][] getBlockArray(){
         return blockArray;
     }
 }
@@ -20,10 +20,11 @@ public class WorldCavern {
     private static int[] gound;
     private BlockManager blockManager;
     private WorldTown worldTown;
-    private static Random randGen = new Random();
+    private Random randGen;
 
-    public WorldCavern(World w, WorldTown wt, int cavernFactor, int caveRadius, float caveTerm, int[] worldGround) {
+    public WorldCavern(World w, WorldTown wt, int cavernFactor, int caveRadius, float caveTerm, int[] worldGround, Random rand) {
         blockManager = new BlockManager();
+        randGen = rand;
         worldTown = wt;
 
         world = w;
@@ -33,7 +34,7 @@ public class WorldCavern {
         CAVE_TERM = caveTerm;
     }
 
-    public int[][] carveCavern(int[][] currentBlockArray, int size, int xMin, int xMax, int zMin, int zMax, int paintRadius, float splitPercentage) {
+    public short[][] carveCavern(short[][] currentBlockArray, int size, int xMin, int xMax, int zMin, int zMax, int paintRadius, float splitPercentage) {
         int x = randGen.nextInt(xMax - xMin) + xMin;
         int z = randGen.nextInt(zMax - zMin) + zMin;
         numberCaves = 2;
@@ -77,23 +78,22 @@ public class WorldCavern {
         // Add cave.
         Game.loadingText = "Digging Caves";
         EIError.debugMsg("Add cave noise", EIError.ErrorLevel.Notice);
-        float[][] caveNoise;
+        WorldNoise caveNoise;
         for (int b = 0; b < world.HORIZ_BLOCKS; b++) {
-            caveNoise = world.GeneratePerlinNoise(32);
-            caveNoise = world.InterpolateData(caveNoise, 32, size);
+            caveNoise = world.GeneratePerlinNoise(32, size, World.getStream(World.STEP_CAVES, b));
             for (int i = 0; i < 60; i++) {
-                world.PaintWithRandomWalk(currentBlockArray, caveNoise, size, Rand.getRange(5, size / 64), "CaveBG", false, b * size, (b + 1) * size - 1, world.GROUND_LEVEL / 8, world.GROUND_LEVEL, size / 2);
+                world.PaintWithRandomWalk(currentBlockArray, caveNoise, size, Rand.getRange(randGen, 5, size / 64), "CaveBG", false, b * size, (b + 1) * size - 1, world.GROUND_LEVEL / 8, world.GROUND_LEVEL, size / 2);
             }
         }
 
         for(int i = 0; i < 20; i++) {
-            drawCrag(currentBlockArray, "CaveBG", Rand.getRange(5, 10), Rand.getRange(0, worldSize[0]), Rand.getRange(size / 8, worldSize[1]), 0, worldSize[0], 0, 3 * worldSize[1] / 4);
+            drawCrag(currentBlockArray, "CaveBG", Rand.getRange(randGen, 5, 10), Rand.getRange(randGen, 0, worldSize[0]), Rand.getRange(randGen, size / 8, worldSize[1]), 0, worldSize[0], 0, 3 * worldSize[1] / 4);
         }
 
         return currentBlockArray;
     }
 
-    public int[][] carveCave(int[][] currentBlockArray, int startX, int startZ, int minX, int minZ, int maxX, int maxZ, float splitPercentage, World.direction lastDirection) {
+    public short[][] carveCave(short[][] currentBlockArray, int startX, int startZ, int minX, int minZ, int maxX, int maxZ, float splitPercentage, World.direction lastDirection) {
         boolean split = false;
         int angleMin = 0;
         int angleMax = 25;
@@ -158,7 +158,7 @@ public class WorldCavern {
                 endZ = groundLoc[1];
             }
 
-            currentBlockArray = world.PaintLine(currentBlockArray, "CaveBG", CAVE_RADIUS + Rand.getRange(0, 2), startX, startZ, endX, endZ, minX, minZ, maxX, maxZ);
+            currentBlockArray = world.PaintLine(currentBlockArray, "CaveBG", CAVE_RADIUS + Rand.getRange(randGen, 0, 2), startX, startZ, endX, endZ, minX, minZ, maxX, maxZ);
 
             chance = randGen.nextFloat();
             if (chance <= (splitPercentage * CAVE_TERM) && numberCaves > MIN_CAVES) {
@@ -182,28 +182,28 @@ public class WorldCavern {
         return currentBlockArray;
     }
 
-    private void drawCrag(int[][] currentBlockArray, String group, int paintRadius, int x, int z, int minX, int maxX, int minZ, int maxZ) {
+    private void drawCrag(short[][] currentBlockArray, String group, int paintRadius, int x, int z, int minX, int maxX, int minZ, int maxZ) {
         if(x > minX && x < maxX) {
             if(gound[x] <= z + paintRadius + 10) {
                 z -= paintRadius * 2;
             }
             if(gound[x] > z + paintRadius + 10) {
                 world.PaintAtPoint(currentBlockArray, group, paintRadius, x, z, minX, maxX, minZ, maxZ);
-                int spines = Rand.getRange(4, 10);
+                int spines = Rand.getRange(randGen, 4, 10);
                 int direction = 0;
                 for(int i = 0; i < spines; i++) {
-                    direction = Rand.getRange(360 * i / spines, 360 * i / spines + (360 / spines));
+                    direction = Rand.getRange(randGen, 360 * i / spines, 360 * i / spines + (360 / spines));
                     drawSpine(currentBlockArray, group, paintRadius / 2, direction, x, z, minX, maxX, minZ, maxZ);
                 }
             }
         }
     }
     
-    private void drawSpine(int[][] currentBlockArray, String group, int paintRadius, int currentDirection, int x, int z, int minX, int maxX, int minZ, int maxZ) {
+    private void drawSpine(short[][] currentBlockArray, String group, int paintRadius, int currentDirection, int x, int z, int minX, int maxX, int minZ, int maxZ) {
         if(x > minX && x < maxX && z > minZ && z < maxZ) {
             if(paintRadius != 0 && gound[x] > z + paintRadius + 10) {
-                int directionOffset = Rand.getRange(-20, 20);
-                int paintRadiusChange = -1 * Rand.getRange(0, 1);
+                int directionOffset = Rand.getRange(randGen, -20, 20);
+                int paintRadiusChange = -1 * Rand.getRange(randGen, 0, 1);
                 int newX = x + (int)(paintRadius * Math.cos(Math.toRadians(currentDirection + directionOffset)));
                 int newZ = z + (int)(paintRadius * Math.sin(Math.toRadians(currentDirection + directionOffset)));
                 world.PaintAtPoint(currentBlockArray, group, paintRadius + paintRadiusChange, newX, newZ, minX, maxX, minZ, maxZ);
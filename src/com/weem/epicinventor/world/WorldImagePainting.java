@@ -19,6 +19,7 @@ public class WorldImagePainting {
     private World world;
     private WorldTown worldTown;
     private BlockManager blockManager;
+    private Random random;
     private static int[] ground;
     private static int level;
     private static int wipZMin;
@@ -34,8 +35,9 @@ public class WorldImagePainting {
     private static String config = "WorldImages.dat";
     private static String worldImagePath = "/Images/World/";
 
-    public WorldImagePainting(World w, WorldTown wt, BlockManager bm, int[] wg) {
+    public WorldImagePainting(World w, WorldTown wt, BlockManager bm, int[] wg, Random rand) {
         world = w;
+        random = rand;
         worldTown = wt;
         blockManager = bm;
         ground = wg;
@@ -234,7 +236,7 @@ public class WorldImagePainting {
         return iMax;
     }
     
-    public int[][] spawnCaves(int[][] currentBlockArray, int caves, int minX, int maxX, int minZ, int maxZ) {
+    public short[][] spawnCaves(short[][] currentBlockArray, int caves, int minX, int maxX, int minZ, int maxZ) {
         ArrayList maxCaveSpots = new ArrayList();
         for(int i = 0; i < caves*3; i++) {
             int iMax = getMaxZCaveSpot();
@@ -248,23 +250,23 @@ public class WorldImagePainting {
         }
         int removes = maxCaveSpots.size() - caves;
         for(int i = 0; i < removes; i++) {
-            maxCaveSpots.remove(Rand.getRange(0, maxCaveSpots.size() - 1));
+            maxCaveSpots.remove(Rand.getRange(random, 0, maxCaveSpots.size() - 1));
         }
         for(int i = 0; i < maxCaveSpots.size(); i++) {
             int[] caveSpot = (int[])maxCaveSpots.get(i);
             World.direction direction;
-            if(Rand.getFloat() < .5) {
+            if(random.nextFloat() < .5) {
                 direction = World.direction.Left;
             } else {
                 direction = World.direction.Right;
             }
-            WorldCavern cavern = new WorldCavern(world, worldTown, 5, 3, 3, ground);
+            WorldCavern cavern = new WorldCavern(world, worldTown, 5, 3, 3, ground, random);
             currentBlockArray = cavern.carveCave(currentBlockArray, (caveSpot[1]+caveSpot[2])/2, caveSpot[0], minX, minZ, maxX, maxZ, 0.0f, direction);
         }
         return currentBlockArray;
     }
 
-    public int[][] paintImages(int[][] currentBlockArray, int xMin, int xMax, int zMin, int zMax) {
+    public short[][] paintImages(short[][] currentBlockArray, int xMin, int xMax, int zMin, int zMax) {
         BufferedImage[] images = getPaintImages("Theme1");
         int h = images[0].getHeight();
         int w = images[0].getWidth();
@@ -301,13 +303,13 @@ public class WorldImagePainting {
         return currentBlockArray;
     }
 
-    public int getPaintImageIndex(int[][] currentBlockArray, BufferedImage[] images, int x, int z, int xMin, int xMax, boolean bottomLevel) {
+    public int getPaintImageIndex(short[][] currentBlockArray, BufferedImage[] images, int x, int z, int xMin, int xMax, boolean bottomLevel) {
         int[][] pixels = null;
         int i = -1;
         int fit = 0;
         int count = 0;
         do {
-            i = Rand.getRange(0, images.length-1);
+            i = Rand.getRange(random, 0, images.length-1);
             pixels = getImagePixels(images[i]);
             fit = paintImageFit(currentBlockArray, pixels, x, z, xMin, xMax, bottomLevel);
             count++;
@@ -319,7 +321,7 @@ public class WorldImagePainting {
         return i;
     }
 
-    public int paintImageFit(int[][] currentBlockArray, int[][] pixels, int x, int z, int xMin, int xMax, boolean bottomLevel) {
+    public int paintImageFit(short[][] currentBlockArray, int[][] pixels, int x, int z, int xMin, int xMax, boolean bottomLevel) {
         int fit = 0;
         int[] exitData = new int[2];
         exitData[0] = getExits(pixels);
@@ -463,7 +465,7 @@ public class WorldImagePainting {
         return exits;
     }
 
-    public boolean leftConnect(int[][] currentBlockArray, int[][] pixels, int x, int z) {
+    public boolean leftConnect(short[][] currentBlockArray, int[][] pixels, int x, int z) {
         boolean connects = false;
         boolean imageConnects = false;
         for(int i = 3; i < pixels[0].length && !connects; i++) {
@@ -518,7 +520,7 @@ public class WorldImagePainting {
         return exitUp;
     }
 
-    public boolean bottomConnect(int[][] currentBlockArray, int[][] pixels, int x, int z) {
+    public boolean bottomConnect(short[][] currentBlockArray, int[][] pixels, int x, int z) {
         boolean connects = false;
         for(int i = 3; i < pixels.length && !connects; i++) {
             if(
@@ -556,7 +558,7 @@ public class WorldImagePainting {
         return closeToGround;
     }
 
-    public int[][] paintImage(int[][] currentBlockArray, BufferedImage image, int xStart, int zStart) {
+    public short[][] paintImage(short[][] currentBlockArray, BufferedImage image, int xStart, int zStart) {
         int[][] pixels = getImagePixels(image);
         int[] caveSpot = new int[3];
         caveSpot[0] = -1;
@@ -566,7 +568,7 @@ public class WorldImagePainting {
         for(int z = 0; z < pixels[0].length; z++) {
             for(int x = 0; x < pixels.length; x++) {
                 if(zStart+z+20 < ground[xStart+x]) {
-                    currentBlockArray[xStart+x][zStart+z] = paintBlock(currentBlockArray[xStart+x][zStart+z], pixels[x][z]);
+                    currentBlockArray[xStart+x][zStart+z] = (short) paintBlock(currentBlockArray[xStart+x][zStart+z], pixels[x][z]);
                     if(z == pixels[0].length - 2 && isCaveBG(currentBlockArray[xStart+x][zStart+z])) {
                         if(caveSpot[0] == -1) {
                             caveSpot[0] = zStart+z;
@@ -590,7 +592,7 @@ public class WorldImagePainting {
         int blockTypeId = -1;
         String[] line = (String[])groups.get(imagePixel);
         if(line != null) {
-            int newBlockType = blockManager.getRandomIdByGroup(line[0]);
+            int newBlockType = blockManager.getRandomIdByGroup(line[0], random);
             if(newBlockType > 0) {
                 blockTypeId = newBlockType;
             }
@@ -613,7 +615,7 @@ public class WorldImagePainting {
         int blockTypeId = -1;
         String[] line = (String[])groupOverrides.get((level+1)+""+imagePixel);
         if(line != null) {
-            int newBlockType = blockManager.getRandomIdByGroup(line[0]);
+            int newBlockType = blockManager.getRandomIdByGroup(line[0], random);
             if(newBlockType > 0) {
                 blockTypeId = newBlockType;
             }
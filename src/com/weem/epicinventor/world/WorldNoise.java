@@ -0,0 +1,50 @@
+package com.weem.epicinventor.world;
+
+/**
+ * Noise for one horizontal block of the world. Only the small grid the
+ * octaves are added up on is kept, and a value at full size is interpolated
+ * from it when it's asked for, exactly as World.InterpolateData would have,
+ * so the size by size array never has to be made.
+ */
+public class WorldNoise {
+
+    private float[][] data;
+    private int sizeIn;
+    private int size;
+    private int r;
+
+    public WorldNoise(float[][] d, int sIn, int s) {
+        data = d;
+        sizeIn = sIn;
+        size = s;
+        r = Math.max(size / sizeIn, 1);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public float get(int x, int z) {
+        int xIn0 = x / r, zIn0 = z / r;
+        if (xIn0 >= sizeIn - 2) {
+            xIn0 = sizeIn - 2;
+        }
+        if (zIn0 >= sizeIn - 2) {
+            zIn0 = sizeIn - 2;
+        }
+        int xIn1 = xIn0 + 1, zIn1 = zIn0 + 1;
+
+        float v00 = data[xIn0][zIn0];
+        float v10 = data[xIn1][zIn0];
+        float v01 = data[xIn0][zIn1];
+        float v11 = data[xIn1][zIn1];
+
+        float xS = ((float) (x % r)) / r;
+        float zS = ((float) (z % r)) / r;
+
+        return v00 * (1 - xS) * (1 - zS)
+                + v10 * xS * (1 - zS)
+                + v01 * (1 - xS) * zS
+                + v11 * xS * zS;
+    }
+}
@@ -8,7 +8,7 @@ import java.util.Random;
 import java.util.ArrayList;
 
 public class WorldTown {
-    private static Random randGen = null;
+    private Random randGen = null;
     private ArrayList townAreas = null;
 
     public WorldTown(Random rand){
@@ -16,7 +16,7 @@ public class WorldTown {
         townAreas = new ArrayList();
     }
 
-    public int[][] addTownAreas(int[][] newBlockArray, int[] wg, BlockManager bm, int numTownAreas, int townSize, int minX, int maxX){
+    public short[][] addTownAreas(short[][] newBlockArray, int[] wg, BlockManager bm, int numTownAreas, int townSize, int minX, int maxX){
         Game.loadingText = "Building a Cabin";
         EIError.debugMsg("addTownAreas Start", EIError.ErrorLevel.Notice);
         //build start town
@@ -24,17 +24,17 @@ public class WorldTown {
             if (wg[x] < wg[townSize]) {
                 for (int z = wg[x]; z <= wg[townSize]; z++) {
                     if (z == wg[townSize]) {
-                        newBlockArray[x][z] = bm.getRandomIdByGroup("Town");
+                        newBlockArray[x][z] = (short) bm.getRandomIdByGroup("Town", randGen);
                     } else {
-                        newBlockArray[x][z] = bm.getRandomIdByGroup("Dirt");
+                        newBlockArray[x][z] = (short) bm.getRandomIdByGroup("Dirt", randGen);
                     }
                 }
             } else {
                 for (int z = wg[x]; z >= wg[townSize]; z--) {
                     if (z == wg[townSize]) {
-                        newBlockArray[x][z] = bm.getRandomIdByGroup("Town");
+                        newBlockArray[x][z] = (short) bm.getRandomIdByGroup("Town", randGen);
                     } else {
-                        newBlockArray[x][z] = bm.getRandomIdByGroup("None");
+                        newBlockArray[x][z] = (short) bm.getRandomIdByGroup("None", randGen);
                     }
                 }
             }
@@ -49,7 +49,7 @@ public class WorldTown {
         return newBlockArray;
     }
 
-    private int[][] makeTown(int[][] newBlockArray, int[] wg, BlockManager bm, int townSize, int minX, int maxX){
+    private short[][] makeTown(short[][] newBlockArray, int[] wg, BlockManager bm, int townSize, int minX, int maxX){
         EIError.debugMsg("makeTown Start", EIError.ErrorLevel.Notice);
         //find spots
         int[] townBounds = null;
@@ -81,24 +81,24 @@ public class WorldTown {
                     for (int z = wg[x]; z <= wg[town[0]]; z++) {
                         if (z == wg[town[0]]) {
                             if(x >= townXStart && x <= townXEnd){
-                                newBlockArray[x][z] = bm.getRandomIdByGroup("Town");
+                                newBlockArray[x][z] = (short) bm.getRandomIdByGroup("Town", randGen);
                             }else{
-                                newBlockArray[x][z] = bm.getRandomIdByGroup("Dirt");
+                                newBlockArray[x][z] = (short) bm.getRandomIdByGroup("Dirt", randGen);
                             }
                         } else {
-                            newBlockArray[x][z] = bm.getRandomIdByGroup("Dirt");
+                            newBlockArray[x][z] = (short) bm.getRandomIdByGroup("Dirt", randGen);
                         }
                     }
                 } else {
                     for (int z = wg[x]; z >= wg[town[0]]; z--) {
                         if (z == wg[town[0]]) {
                             if(x >= townXStart && x <= townXEnd){
-                                newBlockArray[x][z] = bm.getRandomIdByGroup("Town");
+                                newBlockArray[x][z] = (short) bm.getRandomIdByGroup("Town", randGen);
                             }else{
-                                newBlockArray[x][z] = bm.getRandomIdByGroup("Dirt");
+                                newBlockArray[x][z] = (short) bm.getRandomIdByGroup("Dirt", randGen);
                             }
                         } else {
-                            newBlockArray[x][z] = bm.getRandomIdByGroup("None");
+                            newBlockArray[x][z] = (short) bm.getRandomIdByGroup("None", randGen);
                         }
                     }
                 }
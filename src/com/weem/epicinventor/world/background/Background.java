@@ -1,6 +1,7 @@
 package com.weem.epicinventor.world.background;
 
 import com.weem.epicinventor.*;
+import com.weem.epicinventor.utility.*;
 
 import java.awt.*;
 import java.awt.image.*;
@@ -46,7 +47,7 @@ public class Background {
             //subtract the height since points are bottom left and drawing starts from top left
             yPos -= height;
 
-            g.drawImage(image, xPos, yPos, null);
+            VolatileImageCache.drawImage(g, image, xPos, yPos);
         }
     }
 }
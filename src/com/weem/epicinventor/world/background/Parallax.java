@@ -82,7 +82,7 @@ public class Parallax {
             //subtract the height since points are bottom left and drawing starts from top left
             yPos -= height;
 
-            g.drawImage(image, xPos, yPos, null);
+            VolatileImageCache.drawImage(g, image, xPos, yPos);
         }
     }
 }
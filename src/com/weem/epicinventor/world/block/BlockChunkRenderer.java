@@ -0,0 +1,203 @@
+package com.weem.epicinventor.world.block;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+
+/**
+ * Draws the terrain as a handful of pre-composited 256x256 images instead of
+ * one drawImage per tile. Each cached image remembers the version of the
+ * BlockChunkStore chunk it was drawn from, so any setBlock or streamed column
+ * that touches it gets it redrawn on the next frame. When more images are
+ * held than the view needs, the ones farthest from the camera are dropped and
+ * their buffers reused.
+ */
+public class BlockChunkRenderer {
+
+    public final static int CELL_TILES = 16;
+    //keep this many screens worth of cells around the camera
+    private final static int CACHE_SCREENS = 3;
+    private BlockManager blockManager;
+    private BlockChunkStore tiles;
+    private int cellCols, cellRows;
+    private int tileWidth, tileHeight;
+    private int cellWidth, cellHeight;
+    private Cell[] cells;
+    private ArrayList<Cell> resident = new ArrayList<Cell>();
+    private ArrayList<BufferedImage> freeImages = new ArrayList<BufferedImage>();
+    private GraphicsConfiguration gc;
+    private long frame;
+
+    private static class Cell {
+
+        int cx, cy;
+        int version = -1;
+        long lastUsed;
+        BufferedImage image;
+    }
+
+    public BlockChunkRenderer(BlockManager bm) {
+        blockManager = bm;
+        tileWidth = BlockManager.getBlockWidth();
+        tileHeight = BlockManager.getBlockHeight();
+        cellWidth = CELL_TILES * tileWidth;
+        cellHeight = CELL_TILES * tileHeight;
+
+        if (!GraphicsEnvironment.isHeadless()) {
+            gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        }
+    }
+
+    private void reset(BlockChunkStore t) {
+        tiles = t;
+        cellCols = (t.getCols() + CELL_TILES - 1) / CELL_TILES;
+        cellRows = (t.getRows() + CELL_TILES - 1) / CELL_TILES;
+        cells = new Cell[cellCols * cellRows];
+        for (int i = 0; i < resident.size(); i++) {
+            freeImages.add(resident.get(i).image);
+        }
+        resident.clear();
+    }
+
+    /**
+     * Drops every cached image, for when the tile images themselves change.
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < resident.size(); i++) {
+            resident.get(i).version = -1;
+        }
+    }
+
+    public void render(Graphics g, int offsetX, int offsetY, int pWidth, int pHeight) {
+        BlockChunkStore t = blockManager.getTiles();
+        if (t == null) {
+            return;
+        }
+        if (t != tiles) {
+            reset(t);
+        }
+        frame++;
+
+        int cxStart = Math.max(0, floorDiv(offsetX, cellWidth));
+        int cxEnd = Math.min(cellCols - 1, floorDiv(offsetX + pWidth, cellWidth));
+        int cyStart = Math.max(0, floorDiv(offsetY, cellHeight));
+        int cyEnd = Math.min(cellRows - 1, floorDiv(offsetY + pHeight, cellHeight));
+
+        for (int cx = cxStart; cx <= cxEnd; cx++) {
+            for (int cy = cyStart; cy <= cyEnd; cy++) {
+                Cell cell = getCell(cx, cy);
+                int version = tiles.getChunkVersion((cx * CELL_TILES) / BlockChunkStore.CHUNK_SIZE, (cy * CELL_TILES) / BlockChunkStore.CHUNK_SIZE);
+                if (cell.image == null || cell.version != version) {
+                    drawCell(cell, version);
+                }
+                cell.lastUsed = frame;
+
+                //world y runs up, the screen's runs down
+                int xPos = cx * cellWidth - offsetX;
+                int yPos = pHeight - (cy * cellHeight - offsetY) - cellHeight;
+                g.drawImage(cell.image, xPos, yPos, null);
+            }
+        }
+
+        int visible = (cxEnd - cxStart + 1) * (cyEnd - cyStart + 1);
+        evict(Math.max(16, visible * CACHE_SCREENS), offsetX + pWidth / 2, offsetY + pHeight / 2);
+    }
+
+    private Cell getCell(int cx, int cy) {
+        int i = cx * cellRows + cy;
+        Cell cell = cells[i];
+        if (cell == null) {
+            cell = new Cell();
+            cell.cx = cx;
+            cell.cy = cy;
+            cells[i] = cell;
+        }
+        if (cell.image == null) {
+            if (freeImages.isEmpty()) {
+                cell.image = createImage();
+            } else {
+                cell.image = freeImages.remove(freeImages.size() - 1);
+            }
+            cell.version = -1;
+            resident.add(cell);
+        }
+        return cell;
+    }
+
+    private BufferedImage createImage() {
+        if (gc != null) {
+            return gc.createCompatibleImage(cellWidth, cellHeight, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(cellWidth, cellHeight, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private void drawCell(Cell cell, int version) {
+        Graphics2D g2d = cell.image.createGraphics();
+        g2d.setComposite(AlphaComposite.Clear);
+        g2d.fillRect(0, 0, cellWidth, cellHeight);
+        g2d.setComposite(AlphaComposite.SrcOver);
+
+        boolean complete = true;
+        int xStart = cell.cx * CELL_TILES;
+        int yStart = cell.cy * CELL_TILES;
+        for (int x = 0; x < CELL_TILES; x++) {
+            for (int y = 0; y < CELL_TILES; y++) {
+                BlockType blockType = blockManager.getBlockTypeById(tiles.get(xStart + x, yStart + y));
+                if (blockType != null) {
+                    Image image = blockType.getImage();
+                    if (image == null) {
+                        complete = false;
+                    } else {
+                        g2d.drawImage(image, x * tileWidth, (CELL_TILES - 1 - y) * tileHeight, null);
+                    }
+                }
+            }
+        }
+        g2d.dispose();
+
+        //a tile image that isn't loaded yet means drawing this again next frame
+        cell.version = complete ? version : -1;
+    }
+
+    private void evict(int capacity, int cameraX, int cameraY) {
+        if (resident.size() <= capacity) {
+            return;
+        }
+
+        final int camX = cameraX;
+        final int camY = cameraY;
+        final long now = frame;
+        Collections.sort(resident, new Comparator<Cell>() {
+
+            public int compare(Cell a, Cell b) {
+                //anything drawn this frame stays, then closest to the camera first
+                if ((a.lastUsed == now) != (b.lastUsed == now)) {
+                    return a.lastUsed == now ? -1 : 1;
+                }
+                long da = distance(a, camX, camY);
+                long db = distance(b, camX, camY);
+                return da < db ? -1 : (da > db ? 1 : 0);
+            }
+        });
+        while (resident.size() > capacity) {
+            Cell cell = resident.remove(resident.size() - 1);
+            freeImages.add(cell.image);
+            cell.image = null;
+            cell.version = -1;
+        }
+        //only keep enough spare buffers to refill the view
+        while (freeImages.size() > capacity / CACHE_SCREENS) {
+            freeImages.remove(freeImages.size() - 1);
+        }
+    }
+
+    private long distance(Cell cell, int x, int y) {
+        long dx = cell.cx * cellWidth + cellWidth / 2 - x;
+        long dy = cell.cy * cellHeight + cellHeight / 2 - y;
+        return dx * dx + dy * dy;
+    }
+
+    private static int floorDiv(int a, int b) {
+        return a >= 0 ? a / b : -((-a + b - 1) / b);
+    }
+}
@@ -0,0 +1,262 @@
+package com.weem.epicinventor.world.block;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Tile storage for the world, split into square chunks of flat short arrays.
+ * Chunks that hold a single block id everywhere (air, solid dirt...) all point
+ * at one shared array per id and are only copied when something is written
+ * into them, so memory follows how varied the world is instead of its size.
+ */
+public class BlockChunkStore implements Serializable, Cloneable {
+
+    protected static final long serialVersionUID = 10000L;
+    public final static int CHUNK_SIZE = 32;
+    private final static int CHUNK_SHIFT = 5;
+    private final static int CHUNK_MASK = CHUNK_SIZE - 1;
+    private final static int CHUNK_AREA = CHUNK_SIZE * CHUNK_SIZE;
+    private final static HashMap<Short, short[]> uniformChunks = new HashMap<Short, short[]>();
+    private int cols, rows;
+    private int chunkCols, chunkRows;
+    transient private short[][] chunks;
+    transient private boolean[] shared;
+    transient private int[] versions;
+
+    public BlockChunkStore(int c, int r) {
+        cols = c;
+        rows = r;
+        init();
+    }
+
+    private void init() {
+        chunkCols = (cols + CHUNK_MASK) >> CHUNK_SHIFT;
+        chunkRows = (rows + CHUNK_MASK) >> CHUNK_SHIFT;
+
+        chunks = new short[chunkCols * chunkRows][];
+        shared = new boolean[chunks.length];
+        versions = new int[chunkCols * chunkRows];
+
+        short[] air = getUniformChunk((short) 0);
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = air;
+            shared[i] = true;
+        }
+    }
+
+    private static short[] getUniformChunk(short id) {
+        synchronized (uniformChunks) {
+            Short key = Short.valueOf(id);
+            short[] chunk = uniformChunks.get(key);
+            if (chunk == null) {
+                chunk = new short[CHUNK_AREA];
+                Arrays.fill(chunk, id);
+                uniformChunks.put(key, chunk);
+            }
+            return chunk;
+        }
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getChunkCols() {
+        return chunkCols;
+    }
+
+    public int getChunkRows() {
+        return chunkRows;
+    }
+
+    public boolean isInBounds(int x, int y) {
+        return x >= 0 && x < cols && y >= 0 && y < rows;
+    }
+
+    public short get(int x, int y) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
+            return 0;
+        }
+        return chunks[(x >> CHUNK_SHIFT) * chunkRows + (y >> CHUNK_SHIFT)][((x & CHUNK_MASK) << CHUNK_SHIFT) | (y & CHUNK_MASK)];
+    }
+
+    public void set(int x, int y, short id) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
+            return;
+        }
+        int c = (x >> CHUNK_SHIFT) * chunkRows + (y >> CHUNK_SHIFT);
+        int i = ((x & CHUNK_MASK) << CHUNK_SHIFT) | (y & CHUNK_MASK);
+        short[] chunk = chunks[c];
+        if (chunk[i] == id) {
+            return;
+        }
+        if (shared[c]) {
+            chunk = chunk.clone();
+            chunks[c] = chunk;
+            shared[c] = false;
+        }
+        chunk[i] = id;
+        versions[c]++;
+    }
+
+    /**
+     * Each chunk's version goes up whenever one of its tiles changes, so
+     * caches built from a chunk only need to compare this number.
+     */
+    public int getChunkVersion(int chunkX, int chunkY) {
+        if (chunkX < 0 || chunkX >= chunkCols || chunkY < 0 || chunkY >= chunkRows) {
+            return 0;
+        }
+        return versions[chunkX * chunkRows + chunkY];
+    }
+
+    public boolean isChunkUniform(int chunkX, int chunkY) {
+        return shared[chunkX * chunkRows + chunkY];
+    }
+
+    public void copyChunk(int chunkX, int chunkY, short[] dest) {
+        System.arraycopy(chunks[chunkX * chunkRows + chunkY], 0, dest, 0, CHUNK_AREA);
+    }
+
+    public void setChunk(int chunkX, int chunkY, short[] src) {
+        int c = chunkX * chunkRows + chunkY;
+        chunks[c] = src.clone();
+        shared[c] = false;
+        versions[c]++;
+        compactChunk(c);
+    }
+
+    /**
+     * Folds every chunk whose tiles are all the same back onto the shared
+     * array for that id. Call after bulk writes like world generation.
+     */
+    public void compact() {
+        for (int c = 0; c < chunks.length; c++) {
+            compactChunk(c);
+        }
+    }
+
+    private void compactChunk(int c) {
+        if (shared[c]) {
+            return;
+        }
+        short[] chunk = chunks[c];
+        short id = chunk[0];
+        for (int i = 1; i < CHUNK_AREA; i++) {
+            if (chunk[i] != id) {
+                return;
+            }
+        }
+        chunks[c] = getUniformChunk(id);
+        shared[c] = true;
+    }
+
+    public short[][] getColumns(int startColumn, int endColumn) {
+        if (startColumn < 0) {
+            startColumn = 0;
+        }
+        if (endColumn > cols) {
+            endColumn = cols;
+        }
+        int numColumns = endColumn - startColumn;
+        if (numColumns <= 0) {
+            return null;
+        }
+        short[][] ret = new short[numColumns][rows];
+        for (int x = 0; x < numColumns; x++) {
+            int xCol = x + startColumn;
+            int base = (xCol >> CHUNK_SHIFT) * chunkRows;
+            int offset = (xCol & CHUNK_MASK) << CHUNK_SHIFT;
+            for (int cy = 0; cy < chunkRows; cy++) {
+                int len = Math.min(CHUNK_SIZE, rows - (cy << CHUNK_SHIFT));
+                System.arraycopy(chunks[base + cy], offset, ret[x], cy << CHUNK_SHIFT, len);
+            }
+        }
+        return ret;
+    }
+
+    public void setColumns(short[][] src, int startColumn) {
+        for (int x = 0; x < src.length; x++) {
+            for (int y = 0; y < src[x].length && y < rows; y++) {
+                set(x + startColumn, y, src[x][y]);
+            }
+        }
+    }
+
+    /**
+     * Replaces every tile with columns of tiles starting at column 0, a chunk
+     * at a time rather than a tile at a time, and compacts as it goes.
+     */
+    public void setAll(short[][] src) {
+        short[] chunk = new short[CHUNK_AREA];
+        for (int cx = 0; cx < chunkCols; cx++) {
+            for (int cy = 0; cy < chunkRows; cy++) {
+                Arrays.fill(chunk, (short) 0);
+                for (int x = 0; x < CHUNK_SIZE; x++) {
+                    int xCol = (cx << CHUNK_SHIFT) + x;
+                    if (xCol >= src.length || xCol >= cols) {
+                        break;
+                    }
+                    int len = Math.min(CHUNK_SIZE, Math.min(rows, src[xCol].length) - (cy << CHUNK_SHIFT));
+                    if (len > 0) {
+                        System.arraycopy(src[xCol], cy << CHUNK_SHIFT, chunk, x << CHUNK_SHIFT, len);
+                    }
+                }
+                setChunk(cx, cy, chunk);
+            }
+        }
+    }
+
+    @Override
+    public Object clone() {
+        BlockChunkStore ret = null;
+        try {
+            ret = (BlockChunkStore) super.clone();
+            ret.chunks = new short[chunks.length][];
+            for (int c = 0; c < chunks.length; c++) {
+                ret.chunks[c] = shared[c] ? chunks[c] : chunks[c].clone();
+            }
+            ret.shared = shared.clone();
+            ret.versions = versions.clone();
+        } catch (CloneNotSupportedException e) {
+        }
+        return ret;
+    }
+
+    private void readObject(ObjectInputStream aInputStream) throws Exception {
+        aInputStream.defaultReadObject();
+        init();
+        for (int c = 0; c < chunks.length; c++) {
+            if (aInputStream.readBoolean()) {
+                chunks[c] = getUniformChunk(aInputStream.readShort());
+            } else {
+                shared[c] = false;
+                short[] chunk = new short[CHUNK_AREA];
+                for (int i = 0; i < CHUNK_AREA; i++) {
+                    chunk[i] = aInputStream.readShort();
+                }
+                chunks[c] = chunk;
+            }
+        }
+    }
+
+    private void writeObject(ObjectOutputStream aOutputStream) throws Exception {
+        aOutputStream.defaultWriteObject();
+        for (int c = 0; c < chunks.length; c++) {
+            short[] chunk = chunks[c];
+            if (shared[c]) {
+                aOutputStream.writeBoolean(true);
+                aOutputStream.writeShort(chunk[0]);
+            } else {
+                aOutputStream.writeBoolean(false);
+                for (int i = 0; i < CHUNK_AREA; i++) {
+                    aOutputStream.writeShort(chunk[i]);
+                }
+            }
+        }
+    }
+}
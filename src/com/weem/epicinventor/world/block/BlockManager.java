@@ -17,14 +17,24 @@ public class BlockManager implements Serializable, Cloneable {
     private int mapWidth, mapHeight;
     private HashMap blockTypes;
     private HashMap blockTypeIdMap;
+    //dense lookups indexed by block id, rebuilt from blockTypeIdMap
+    transient private BlockType[] blockTypeTable = new BlockType[0];
+    transient private long[] solidBits = new long[0];
+    transient private BlockChunkRenderer chunkRenderer;
+    private BlockChunkStore tiles;
+    //only set when reading a save written before the chunked tile store
     private short[][] blocks;
     transient private int[] xPos;
     private int mapSurfaceMin;
     private int mapSurfaceMax;
     private int mapLevelStart;
     private int mapLevelHeight;
+    private long seed;
     transient private HashMap<String, Integer> minimapColors;
     transient private BufferedImage minimapImage;
+    //the minimap's own pixels, one per tile with the top row first
+    transient private int[] minimapPixels;
+    transient private int[] minimapColorById;
     transient private Registry registry;
     transient private GameController gameController;
     transient private final static int BLOCK_WIDTH = 16;
@@ -34,6 +44,10 @@ public class BlockManager implements Serializable, Cloneable {
     public String name = "";
 
     public BlockManager(GameController gc, Registry rg) {
+        this(gc, rg, new Random().nextLong());
+    }
+
+    public BlockManager(GameController gc, Registry rg, long seed) {
         gameController = gc;
 
         registry = rg;
@@ -46,7 +60,7 @@ public class BlockManager implements Serializable, Cloneable {
 
         loadBlockTypes("Blocks.dat");
 
-        loadBlocks();
+        loadBlocks(seed);
         xPos = new int[2];
 
         int xMove = (int) (BLOCK_WIDTH * gameController.getMoveFactor());
@@ -90,14 +104,7 @@ public class BlockManager implements Serializable, Cloneable {
             }
         }
         loadMinimapColors();
-
-        Thread thread = new Thread(new Runnable() {
-
-            public void run() {
-                minimapImage = getMiniMapImage();
-            }
-        });
-        thread.start();
+        buildMiniMap();
     }
 
     private void loadMinimapColors() {
@@ -188,14 +195,54 @@ public class BlockManager implements Serializable, Cloneable {
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
         }
+
+        buildBlockTypeTable();
+    }
+
+    private void buildBlockTypeTable() {
+        int maxId = 0;
+        Iterator it = blockTypeIdMap.keySet().iterator();
+        while (it.hasNext()) {
+            maxId = Math.max(maxId, ((Integer) it.next()).intValue());
+        }
+
+        BlockType[] table = new BlockType[maxId + 1];
+        long[] bits = new long[(maxId >> 6) + 1];
+        it = blockTypeIdMap.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry entry = (Map.Entry) it.next();
+            int id = ((Integer) entry.getKey()).intValue();
+            BlockType bt = (BlockType) entry.getValue();
+            if (id >= 0) {
+                table[id] = bt;
+                if (!bt.isBackground()) {
+                    bits[id >> 6] |= 1L << id;
+                }
+            }
+        }
+        blockTypeTable = table;
+        solidBits = bits;
+    }
+
+    /**
+     * True if the id is a block you can stand on or bump into, as opposed to
+     * empty space or a background block.
+     */
+    public boolean isSolid(int id) {
+        int word = id >>> 6;
+        return word < solidBits.length && (solidBits[word] & (1L << id)) != 0;
     }
 
     public int getRandomIdByGroup(String g) {
+        return getRandomIdByGroup(g, Rand.getRandom());
+    }
+
+    public int getRandomIdByGroup(String g, Random r) {
         int id = 0;
 
-        if (g.equals("Dirt") && Rand.getRange(0, 1200) < 5) {
+        if (g.equals("Dirt") && Rand.getRange(r, 0, 1200) < 5) {
             g = "DirtAccent";
-        } else if (g.equals("Stone") && Rand.getRange(0, 1200) < 5) {
+        } else if (g.equals("Stone") && Rand.getRange(r, 0, 1200) < 5) {
             g = "StoneAccent";
         }
         if (blockTypes.containsKey(g)) {
@@ -203,7 +250,7 @@ public class BlockManager implements Serializable, Cloneable {
 
             blockTypeList = (ArrayList) blockTypes.get(g);
 
-            BlockType bt = (BlockType) blockTypeList.get(Rand.getRange(0, blockTypeList.size() - 1));
+            BlockType bt = (BlockType) blockTypeList.get(Rand.getRange(r, 0, blockTypeList.size() - 1));
 
             id = bt.getType();
         } else {
@@ -258,20 +305,11 @@ public class BlockManager implements Serializable, Cloneable {
             return true;
         }
 
-        if (blockTypes.containsKey(g)) {
-            ArrayList blockTypeList;
-
-            blockTypeList = (ArrayList) blockTypes.get(g);
-
-            for (int i = 0; i < blockTypeList.size(); i++) {
-                BlockType bt = (BlockType) blockTypeList.get(i);
-                if (bt.getType() == id) {
-                    return true;
-                }
-            }
+        if (id < 0 || id >= blockTypeTable.length) {
+            return false;
         }
-
-        return false;
+        BlockType bt = blockTypeTable[id];
+        return bt != null && bt.getGroup().equals(g);
     }
 
     public static int getBlockWidth() {
@@ -303,13 +341,10 @@ public class BlockManager implements Serializable, Cloneable {
         if (xCol == -1) {
             int i = 0;
         } else {
-            if (xCol < blocks.length && xCol >= 0) {
-                for (int y = (blocks[xCol].length - 1); y >= 0; y--) {
-                    if (!isIdInGroup(blocks[xCol][y], "None")) {
-                        BlockType bt = getBlockTypeById(blocks[xCol][y]);
-                        if (bt != null && !bt.isBackground()) {
-                            return (y * BLOCK_HEIGHT) + BLOCK_HEIGHT;
-                        }
+            if (xCol < mapCols && xCol >= 0) {
+                for (int y = (mapRows - 1); y >= 0; y--) {
+                    if (isSolid(tiles.get(xCol, y))) {
+                        return (y * BLOCK_HEIGHT) + BLOCK_HEIGHT;
                     }
                 }
             }
@@ -319,31 +354,37 @@ public class BlockManager implements Serializable, Cloneable {
     }
 
     public short[] blocksUnder(int xStartPix, int xEndPix, int yPix) {
+        short[] underBlocks = new short[Math.max(1, xEndPix / BLOCK_WIDTH - xStartPix / BLOCK_WIDTH + 1)];
+        blocksUnder(xStartPix, xEndPix, yPix, underBlocks);
+        return underBlocks;
+    }
+
+    /**
+     * Fills under with the blocks in the row just below yPix, -1 where off
+     * the map, and returns how many it filled (at most under.length).
+     */
+    public int blocksUnder(int xStartPix, int xEndPix, int yPix, short[] under) {
         int xStart = xStartPix / BLOCK_WIDTH;
-        int xEnd = xEndPix / BLOCK_WIDTH;
-        int numberOfBlocks = xEnd - xStart + 1;
-        short[] underBlocks = new short[numberOfBlocks];
+        int yRow = (yPix - 1) / BLOCK_HEIGHT;
+        int numberOfBlocks = Math.min(under.length, Math.max(1, xEndPix / BLOCK_WIDTH - xStart + 1));
 
         for (int i = 0; i < numberOfBlocks; i++) {
-            underBlocks[i] = -1;
+            int xCol = xStart + i;
+            under[i] = tiles.isInBounds(xCol, yRow) ? tiles.get(xCol, yRow) : -1;
         }
-        underBlocks[0] = blocks[xStart][(yPix - 1) / BLOCK_HEIGHT];
-        for (int xCol = xStart; xCol - xStart < underBlocks.length; xCol++) {
-            if (blocks.length > xCol && blocks[xCol].length > (yPix - 1) / BLOCK_HEIGHT) {
-                underBlocks[xCol - xStart] = blocks[xCol][(yPix - 1) / BLOCK_HEIGHT];
-            }
+        if (numberOfBlocks > 0) {
+            under[0] = tiles.get(xStart, yRow);
         }
-        return underBlocks;
+        return numberOfBlocks;
     }
 
     public int[] getTownStartEnd(int x, int y) {
         boolean isTown = false;
-        BlockType bt = null;
 
         xPos[0] = xPos[1] = -1;
         int xCurrent = (x - 1) / BLOCK_WIDTH;
         int yCurrent = (y - 1) / BLOCK_HEIGHT;
-        short b = blocks[xCurrent][yCurrent];
+        short b = tiles.get(xCurrent, yCurrent);
         if (isIdInGroup(b, "Town")) {
             boolean keepLooping = true;
             while (keepLooping) {
@@ -352,17 +393,16 @@ public class BlockManager implements Serializable, Cloneable {
                 if (xCurrent < 0) {
                     break;
                 }
-                b = blocks[xCurrent][yCurrent];
+                b = tiles.get(xCurrent, yCurrent);
                 if (!isIdInGroup(b, "Town")) {
                     keepLooping = false;
                 }
-                bt = getBlockTypeById(blocks[xCurrent][yCurrent + 1]);
-                if (bt != null && !bt.isBackground()) {
+                if (isSolid(tiles.get(xCurrent, yCurrent + 1))) {
                     keepLooping = false;
                 }
             }
             xCurrent++;
-            b = blocks[xCurrent][yCurrent];
+            b = tiles.get(xCurrent, yCurrent);
             isTown = false;
             if (isIdInGroup(b, "Town")) {
                 isTown = true;
@@ -370,14 +410,13 @@ public class BlockManager implements Serializable, Cloneable {
             while (isTown) {
                 xPos[1] = (xCurrent + 1) * BLOCK_WIDTH;
                 xCurrent++;
-                if (xCurrent > blocks.length - 1) {
+                if (xCurrent > mapCols - 1) {
                     break;
                 }
-                b = blocks[xCurrent][yCurrent];
+                b = tiles.get(xCurrent, yCurrent);
 
                 isTown = isIdInGroup(b, "Town");
-                bt = getBlockTypeById(blocks[xCurrent][yCurrent + 1]);
-                if (bt != null && !bt.isBackground()) {
+                if (isSolid(tiles.get(xCurrent, yCurrent + 1))) {
                     isTown = false;
                 }
             }
@@ -395,18 +434,13 @@ public class BlockManager implements Serializable, Cloneable {
         if (blockSpaceNeeded < 1) {
             blockSpaceNeeded = 1;
         }
-        if (xCol > 0 && xCol < blocks.length && yCol < blocks[xCol].length) {
+        if (xCol > 0 && xCol < mapCols && yCol < mapRows) {
             for (int y = yCol; y >= 0; y--) {
-                if (!isIdInGroup(blocks[xCol][y], "None")) {
-                    BlockType bt = getBlockTypeById(blocks[xCol][y]);
-                    if (bt != null && !bt.isBackground()) {
-                        if (blockSpaceFound >= blockSpaceNeeded) {
-                            return ((y + 1) * BLOCK_HEIGHT) + BLOCK_HEIGHT;
-                        }
-                        blockSpaceFound = 0;
-                    } else {
-                        blockSpaceFound++;
+                if (isSolid(tiles.get(xCol, y))) {
+                    if (blockSpaceFound >= blockSpaceNeeded) {
+                        return ((y + 1) * BLOCK_HEIGHT) + BLOCK_HEIGHT;
                     }
+                    blockSpaceFound = 0;
                 } else {
                     blockSpaceFound++;
                 }
@@ -421,20 +455,13 @@ public class BlockManager implements Serializable, Cloneable {
         int xStart = mapX / BLOCK_WIDTH;
         int xEnd = (mapX + width) / BLOCK_WIDTH;
 
-        int yStart = mapY / BLOCK_HEIGHT;
+        int yStart = Math.max(1, mapY / BLOCK_HEIGHT);
         int yEnd = (mapY + height) / BLOCK_HEIGHT;
 
         for (int xCol = xStart; xCol <= xEnd; xCol++) {
             for (int yCol = yStart; yCol <= yEnd; yCol++) {
-                if (xCol < blocks.length && xCol >= 0) {
-                    if (yCol < blocks[xCol].length && yCol > 0) {
-                        if (blocks[xCol][yCol] != 0) {
-                            BlockType bt = getBlockTypeById(blocks[xCol][yCol]);
-                            if (bt != null && !bt.isBackground()) {
-                                return true;
-                            }
-                        }
-                    }
+                if (isSolid(tiles.get(xCol, yCol))) {
+                    return true;
                 }
             }
         }
@@ -450,7 +477,8 @@ public class BlockManager implements Serializable, Cloneable {
         int x = mapX / BLOCK_WIDTH;
         int y = mapY / BLOCK_HEIGHT;
 
-        blocks[x][y] = blockId;
+        tiles.set(x, y, blockId);
+        updateMiniMap(x, y);
     }
 
     public String getBlockGroup(int mapX, int mapY) {
@@ -464,64 +492,36 @@ public class BlockManager implements Serializable, Cloneable {
     }
 
     public BlockType getBlockTypeById(short id) {
-        Integer i = new Integer(id);
-        BlockType bt = null;
-        if (blockTypeIdMap.containsKey(i)) {
-            bt = (BlockType) blockTypeIdMap.get(i);
+        if (id < 0 || id >= blockTypeTable.length) {
+            return null;
         }
-        return bt;
+        return blockTypeTable[id];
     }
 
     public short getBlockFromPoint(Point p) {
         int xIndex = (p.x / BLOCK_WIDTH);
         int yIndex = (p.y / BLOCK_HEIGHT);
 
-        if (xIndex >= 0 && xIndex <= (mapCols - 1) && yIndex >= 0 && yIndex <= (mapRows - 1)) {
-            return blocks[xIndex][yIndex];
-        }
-
-        return 0;
+        return tiles.get(xIndex, yIndex);
     }
 
     public int mapToPanelX(int x) {
-        return x - gameController.getMapOffsetX();
+        return gameController.mapToPanelX(x);
     }
 
     public int mapToPanelY(int y) {
-        return y - gameController.getMapOffsetY();
+        return gameController.mapToPanelY(y);
     }
 
     public void update() {
     }
 
     public void render(Graphics g) {
-        //render only the blocks that are in the view port
-
-        int pOffsetX = (gameController.getMapOffsetX() / BLOCK_WIDTH);
-        int pOffsetY = (gameController.getMapOffsetY() / BLOCK_HEIGHT);
-        BlockType blockType = null;
-        int xPos, yPos;
-        xPos = 0;
-
-        int yRange = pRows + pOffsetY;
-        int xRange;
-        yPos = mapToPanelY(pOffsetY * BLOCK_HEIGHT);
-        yPos = getPHeight() - yPos;
-        yPos -= BLOCK_HEIGHT;
-        for (int y = pOffsetY; y <= yRange; y++) {
-            xRange = pCols + pOffsetX;
-            xPos = mapToPanelX(pOffsetX * BLOCK_WIDTH);
-            for (int x = pOffsetX; x <= xRange; x++) {
-                if (x <= (mapCols - 1) && y <= (mapRows - 1)) {
-                    blockType = getBlockTypeById(blocks[x][y]);
-                    if (blockType != null) {
-                        g.drawImage(blockType.getImage(), xPos, yPos, null);
-                    }
-                }
-                xPos += BLOCK_WIDTH;
-            }
-            yPos -= BLOCK_HEIGHT;
+        //render only the chunks that are in the view port
+        if (chunkRenderer == null) {
+            chunkRenderer = new BlockChunkRenderer(this);
         }
+        chunkRenderer.render(g, gameController.getDrawOffsetX(), gameController.getDrawOffsetY(), getPWidth(), getPHeight());
 
         /*
          * System.out.println("Surface Min: " + mapSurfaceMin); int yPos =
@@ -530,32 +530,48 @@ public class BlockManager implements Serializable, Cloneable {
          */
     }
 
-    private BufferedImage getMiniMapImage() {
-        BufferedImage image = new BufferedImage(blocks.length, blocks[0].length, BufferedImage.TYPE_INT_RGB);
-        WritableRaster raster = image.getRaster();
-        int[] colorArray = new int[3];
-        Integer color = null;
-        int c = 0;
-        for (int x = 0; x < blocks.length; x++) {
-            for (int y = 0; y < blocks[0].length; y++) {
-                colorArray[0] = 0;
-                if (x >= 0 && y >= 0 && x < blocks.length && y < blocks[0].length) {
-                    color = minimapColors.get(getBlockGroup(x * BLOCK_WIDTH, (blocks[0].length - y - 1) * BLOCK_HEIGHT));
-                    if (color != null) {
-                        c = color.intValue();
-                        colorArray[0] = (c >> 16) & 0xff;
-                        colorArray[1] = (c >> 8) & 0xff;
-                        colorArray[2] = c & 0xff;
-                    } else {
-                        colorArray[0] = 0;
-                        colorArray[1] = 0;
-                        colorArray[2] = 0;
-                    }
-                }
-                raster.setPixel(x, y, colorArray);
+    /**
+     * Builds the minimap in one pass over the tiles, straight into the
+     * image's int[] so later tile changes can be patched in place.
+     */
+    private void buildMiniMap() {
+        int[] colors = new int[blockTypeTable.length];
+        Integer none = minimapColors.get("None");
+        for (int id = 0; id < colors.length; id++) {
+            Integer color = null;
+            if (blockTypeTable[id] != null) {
+                color = minimapColors.get(blockTypeTable[id].getGroup());
+            } else {
+                color = none;
             }
+            colors[id] = color == null ? 0 : color.intValue();
+        }
+        minimapColorById = colors;
+
+        BufferedImage image = new BufferedImage(mapCols, mapRows, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < mapRows; y++) {
+            int row = (mapRows - y - 1) * mapCols;
+            for (int x = 0; x < mapCols; x++) {
+                pixels[row + x] = getMiniMapColor(tiles.get(x, y));
+            }
+        }
+        minimapPixels = pixels;
+        minimapImage = image;
+    }
+
+    private int getMiniMapColor(short id) {
+        if (id < 0 || id >= minimapColorById.length) {
+            return minimapColorById.length > 0 ? minimapColorById[0] : 0;
+        }
+        return minimapColorById[id];
+    }
+
+    private void updateMiniMap(int x, int y) {
+        int[] pixels = minimapPixels;
+        if (pixels != null && x >= 0 && x < mapCols && y >= 0 && y < mapRows) {
+            pixels[(mapRows - y - 1) * mapCols + x] = getMiniMapColor(tiles.get(x, y));
         }
-        return image;
     }
 
     public boolean renderMiniMap(Graphics g, int x, int y, int w, int h, String resourceName) {
@@ -572,16 +588,15 @@ public class BlockManager implements Serializable, Cloneable {
             } else if (x1 > minimapImage.getWidth() - w) {
                 x1 = minimapImage.getWidth() - w;
             }
-            if (y1 < 0) {
-                y1 = 0;
-            } else if (y1 > minimapImage.getHeight() - h) {
-                y1 = minimapImage.getHeight() - h;
+            if (y1 < h) {
+                y1 = h;
+            } else if (y1 > minimapImage.getHeight()) {
+                y1 = minimapImage.getHeight();
             }
             int cy = y1;
             y1 = minimapImage.getHeight() - y1;
             try {
-                BufferedImage image = minimapImage.getSubimage(x1, y1, w, h);
-                g.drawImage(image, x, y, null);
+                g.drawImage(minimapImage, x, y, x + w, y + h, x1, y1, x1 + w, y1 + h, null);
 
                 registry.getResourceManager().renderMiniMapResources(g, x, y, x1 + w / 2, cy - h / 2, w, h, pOffsetX, pOffsetY, resourceName);
                 int[] xy = getMiniMapPosition(x, y, x1 + w / 2, cy - h / 2, w, h, pOffsetX, pOffsetY);
@@ -620,7 +635,16 @@ public class BlockManager implements Serializable, Cloneable {
     }
 
     public void loadBlocks() {
-        World newWorld = new World("");
+        loadBlocks(new Random().nextLong());
+    }
+
+    /**
+     * Generates the world for seed, the same one every time for the same
+     * seed.
+     */
+    public void loadBlocks(long s) {
+        EIError.debugMsg("World seed " + s, EIError.ErrorLevel.Notice);
+        World newWorld = new World("", s);
         loadBlocks(newWorld);
     }
 
@@ -639,13 +663,13 @@ public class BlockManager implements Serializable, Cloneable {
         mapLevelStart = newWorld.getWipZMin() * BLOCK_HEIGHT;
         mapLevelHeight = newWorld.getWipHeight() * BLOCK_HEIGHT * TILES_PER_LEVEL;
 
-        blocks = new short[size[0]][size[1]];
+        tiles = new BlockChunkStore(size[0], size[1]);
+        tiles.setAll(newWorld.blockArray);
+        seed = newWorld.getSeed();
+    }
 
-        for (int x = 0; x < size[0]; x++) {
-            for (int y = size[1] - 1; y > -1; y--) {
-                blocks[x][y] = (short) newWorld.blockArray[x][y];
-            }
-        }
+    public long getSeed() {
+        return seed;
     }
 
     public int getMapSurfaceMin() {
@@ -691,37 +715,33 @@ public class BlockManager implements Serializable, Cloneable {
     }
 
     public short[][] getBlockCollumns(int startColumn, int endColumn) {
-        short[][] retBlocks = null;
-        if (endColumn >= blocks.length) {
-            endColumn = blocks.length - 1;
-        }
-        if (startColumn >= blocks.length) {
-            endColumn = blocks.length - 1;
+        if (endColumn >= mapCols) {
+            endColumn = mapCols - 1;
         }
-        int numColumns = endColumn - startColumn + 1;
-        if (numColumns > 0) {
-            retBlocks = new short[numColumns][blocks[0].length];
-            retBlocks = java.util.Arrays.copyOfRange(blocks, startColumn, endColumn);
-        }
-        return retBlocks;
+        return tiles.getColumns(startColumn, endColumn);
     }
 
     public void setBlockCollumns(short[][] setBlocks, int startColumn, int endColumn) {
-        for (int x = 0; x < setBlocks.length; x++) {
-            for (int y = 0; y < setBlocks[0].length; y++) {
-                if (x + startColumn < blocks.length && y < blocks[0].length) {
-                    blocks[x + startColumn][y] = setBlocks[x][y];
+        tiles.setColumns(setBlocks, startColumn);
+        if (minimapPixels != null) {
+            for (int x = 0; x < setBlocks.length; x++) {
+                for (int y = 0; y < setBlocks[x].length; y++) {
+                    updateMiniMap(startColumn + x, y);
                 }
             }
         }
     }
 
     public void clearBlockArray() {
-        blocks = new short[1][1];
+        tiles = new BlockChunkStore(1, 1);
     }
 
     public void resetBlockArray(int w, int h) {
-        blocks = new short[w][h];
+        tiles = new BlockChunkStore(w, h);
+    }
+
+    public BlockChunkStore getTiles() {
+        return tiles;
     }
 
     public int getMapCols() {
@@ -740,7 +760,7 @@ public class BlockManager implements Serializable, Cloneable {
             int[] colorArray = new int[3];
             for (int i = 0; i < mapCols; i++) {
                 for (int j = 0; j < mapRows; j++) {
-                    colorArray[0] = blocks[i][mapRows - j - 1];
+                    colorArray[0] = tiles.get(i, mapRows - j - 1);
                     colorArray[1] = 0;
                     colorArray[2] = 0;
                     raster.setPixel(i, j, colorArray);
@@ -761,6 +781,13 @@ public class BlockManager implements Serializable, Cloneable {
 
     private void readObject(ObjectInputStream aInputStream) throws Exception {
         aInputStream.defaultReadObject();
+        buildBlockTypeTable();
+        if (blocks != null) {
+            tiles = new BlockChunkStore(blocks.length, blocks[0].length);
+            tiles.setColumns(blocks, 0);
+            tiles.compact();
+            blocks = null;
+        }
     }
 
     private void writeObject(ObjectOutputStream aOutputStream) throws Exception {
@@ -769,9 +796,10 @@ public class BlockManager implements Serializable, Cloneable {
 
     @Override
     public Object clone() {
-        Object ret = null;
+        BlockManager ret = null;
         try {
-            ret = super.clone();
+            ret = (BlockManager) super.clone();
+            ret.chunkRenderer = null;
         } catch (CloneNotSupportedException e) {
         }
         return ret;